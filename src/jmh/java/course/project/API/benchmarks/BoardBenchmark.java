@@ -0,0 +1,202 @@
+package course.project.API.benchmarks;
+
+import course.project.API.dto.board.BoardWithColumnsDTO;
+import course.project.API.dto.project.ProjectWithParticipantsOwnerDTO;
+import course.project.API.models.Attachment;
+import course.project.API.models.Board;
+import course.project.API.models.ChecklistItem;
+import course.project.API.models.DashBoardColumn;
+import course.project.API.models.Project;
+import course.project.API.models.Tag;
+import course.project.API.models.Task;
+import course.project.API.models.User;
+import course.project.API.repositories.BoardRepository;
+import course.project.API.repositories.ProjectRepository;
+import course.project.API.repositories.TaskRepository;
+import course.project.API.services.BoardService;
+import course.project.API.services.ProjectService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Сборка снимка доски из строк нативных запросов (и для сравнения прежняя сборка из сущностей)
+ * и расчет процента выполнения на дашборде проектов.
+ * Репозитории отдают заранее построенные строки, поэтому измеряется только код сервисов
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BoardBenchmark {
+
+    static final Long BOARD_ID = 1L;
+    static final int COLUMNS = 5;
+    static final int TAGS = 10;
+    static final int BOARD_PARTICIPANTS = 20;
+
+    @Param({"10", "1000", "10000"})
+    public int tasks;
+
+    private BoardService boardService;
+    private ProjectService projectService;
+    private User currentUser;
+
+    @Setup
+    public void setUp() {
+        // Те же данные в виде сущностей для прежней сборки снимка
+        Project project = new Project("Project", null);
+        project.setId(1L);
+        Board board = new Board("Board", "Synthetic board", "📋", project);
+        board.setId(BOARD_ID);
+
+        List<Object[]> boardRows = new ArrayList<>();
+        List<DashBoardColumn> columns = new ArrayList<>();
+        for (int c = 0; c < COLUMNS; c++) {
+            boardRows.add(new Object[]{BOARD_ID, "Board", "Synthetic board", "📋", 1L,
+                    100L + c, c == COLUMNS - 1 ? "Done" : "Column " + c, c, c == COLUMNS - 1, tasks / COLUMNS});
+            DashBoardColumn column = new DashBoardColumn(c == COLUMNS - 1 ? "Done" : "Column " + c, board, c);
+            column.setId(100L + c);
+            column.setCompletionColumn(c == COLUMNS - 1);
+            columns.add(column);
+            board.addColumn(column);
+        }
+        List<Object[]> tagRows = new ArrayList<>();
+        List<Tag> tags = new ArrayList<>();
+        for (long t = 1; t <= TAGS; t++) {
+            tagRows.add(new Object[]{t, "tag " + t, "#0000" + t});
+            Tag tag = new Tag("tag " + t, "#0000" + t, board);
+            tag.setId(t);
+            tags.add(tag);
+        }
+        board.setTags(tags);
+        List<Object[]> boardParticipantRows = new ArrayList<>();
+        List<User> users = new ArrayList<>();
+        for (long u = 1; u <= BOARD_PARTICIPANTS; u++) {
+            boardParticipantRows.add(new Object[]{u, "User " + u, "/avatars/" + u + ".png"});
+            User user = new User("user" + u, "password", "User " + u);
+            user.setId(u);
+            user.setAvatarURL("/avatars/" + u + ".png");
+            users.add(user);
+            board.addParticipant(user);
+        }
+
+        Timestamp start = Timestamp.valueOf("2025-01-01 10:00:00");
+        Timestamp end = Timestamp.valueOf("2025-01-10 18:00:00");
+        List<Object[]> taskRows = new ArrayList<>();
+        List<Object[]> participantRows = new ArrayList<>();
+        List<Object[]> checklistRows = new ArrayList<>();
+        List<Object[]> attachmentRows = new ArrayList<>();
+        List<Task> taskEntities = new ArrayList<>();
+        for (long id = 1; id <= tasks; id++) {
+            long columnId = 100L + id % COLUMNS;
+            Long tagId = id % 3 == 0 ? null : id % TAGS + 1;
+            taskRows.add(new Object[]{id, columnId, "Task " + id, "Description of task " + id, start, end,
+                    (int) (id / COLUMNS), tagId, null, 0L});
+            DashBoardColumn column = columns.get((int) (id % COLUMNS));
+            Task task = new Task("Task " + id, "Description of task " + id, column);
+            task.setId(id);
+            task.setPosition((int) (id / COLUMNS));
+            task.setStartDate(start.toLocalDateTime());
+            task.setEndDate(end.toLocalDateTime());
+            task.setTagId(tagId);
+            for (long u = 0; u < 2; u++) {
+                long userId = (id + u) % BOARD_PARTICIPANTS + 1;
+                participantRows.add(new Object[]{id, userId, "User " + userId, "/avatars/" + userId + ".png"});
+                task.addParticipant(users.get((int) userId - 1));
+            }
+            for (int i = 0; i < 3; i++) {
+                checklistRows.add(new Object[]{id, id * 10 + i, "Item " + i, i == 0, i});
+                ChecklistItem item = new ChecklistItem("Item " + i, task);
+                item.setId(id * 10 + i);
+                item.setPosition(i);
+                item.setCompleted(i == 0);
+                task.addChecklistItem(item);
+            }
+            if (id % 10 == 0) {
+                attachmentRows.add(new Object[]{id, id, "file" + id + ".pdf", "application/pdf", 2048L, "user", start});
+                Attachment attachment = new Attachment("file" + id + ".pdf", "/files/" + id, "application/pdf",
+                        2048L, task, "user");
+                attachment.setId(id);
+                attachment.setUploadedAt(start.toLocalDateTime());
+                task.addAttachment(attachment);
+            }
+            column.addTask(task);
+            taskEntities.add(task);
+        }
+
+        BoardRepository boardRepository = Stubs.repository(BoardRepository.class, (method, args) -> switch (method) {
+            case "findBoardWithColumnRows" -> boardRows;
+            case "findTagRowsByBoardId" -> tagRows;
+            case "findParticipantRowsByBoardId" -> boardParticipantRows;
+            case "findWithDetails", "findWithParticipantsAndOwnerById" -> board;
+            default -> throw new UnsupportedOperationException(method);
+        });
+        TaskRepository taskRepository = Stubs.repository(TaskRepository.class, (method, args) -> switch (method) {
+            case "findTaskRowsByBoardId" -> taskRows;
+            case "findParticipantRowsByBoardId" -> participantRows;
+            case "findChecklistRowsByBoardId" -> checklistRows;
+            case "findAttachmentRowsByBoardId" -> attachmentRows;
+            case "findWithParticipantsByIdIn", "findWithCheckListByIdIn" -> taskEntities;
+            default -> throw new UnsupportedOperationException(method);
+        });
+        boardService = new BoardService(boardRepository, null, null, null, null, taskRepository, null, null, null, null, null);
+
+        // Дашборд проектов: tasks досок по 10 на проект
+        int boards = Math.max(1, tasks);
+        List<Object[]> projectRows = new ArrayList<>();
+        List<Object[]> projectParticipantRows = new ArrayList<>();
+        List<Object[]> boardCountRows = new ArrayList<>();
+        for (long b = 0; b < boards; b++) {
+            long projectId = b / 10 + 1;
+            if (b % 10 == 0) {
+                projectRows.add(new Object[]{projectId, "Project " + projectId, null, null, 1L, "owner", null});
+                projectParticipantRows.add(new Object[]{projectId, 2L, "participant", null});
+            }
+            boardCountRows.add(new Object[]{projectId, b + 1, 100L + b, b % 100});
+        }
+        ProjectRepository projectRepository = Stubs.repository(ProjectRepository.class, (method, args) -> switch (method) {
+            case "findProjectRowsByUserId" -> projectRows;
+            case "findParticipantRowsByProjectIds" -> projectParticipantRows;
+            case "findBoardTaskCountRowsByProjectIds" -> boardCountRows;
+            default -> throw new UnsupportedOperationException(method);
+        });
+        projectService = new ProjectService(projectRepository, null, null, null, null, null, null);
+        currentUser = new User();
+        currentUser.setId(1L);
+    }
+
+    @Benchmark
+    public BoardWithColumnsDTO boardWithDetails() {
+        return boardService.getBoardWithDetails(BOARD_ID);
+    }
+
+    /**
+     * Прежняя сборка того же снимка из сущностей, для сравнения с {@link #boardWithDetails()}.
+     * Граф сущностей построен заранее, поэтому не учтены гидратация Hibernate и декартов JOIN FETCH
+     */
+    @Benchmark
+    public BoardWithColumnsDTO boardWithDetailsFromEntities() {
+        return boardService.getBoardWithDetailsFromEntities(BOARD_ID);
+    }
+
+    @Benchmark
+    public List<ProjectWithParticipantsOwnerDTO> projectsCompletion() {
+        return projectService.getMyProjectsWithUsers(currentUser);
+    }
+}
@@ -0,0 +1,220 @@
+package course.project.API.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import course.project.API.dto.board.BoardWithColumnsDTO;
+import course.project.API.dto.board.ColumnWithTasksDTO;
+import course.project.API.models.Board;
+import course.project.API.models.ChecklistItem;
+import course.project.API.models.DashBoardColumn;
+import course.project.API.models.Task;
+import course.project.API.models.User;
+import course.project.API.services.BoardHistoryService;
+import course.project.API.services.BoardService;
+import course.project.API.services.RankService;
+import course.project.API.services.TaskHistoryArchive;
+import course.project.API.services.TaskHistoryCodec;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Восстановление доски на момент времени: холодная сборка из снимка доски и строк истории после него
+ * или, без снимка, из всей истории доски. БД заменена заглушкой JdbcTemplate, которая отдает
+ * заранее построенные строки, поэтому измеряются разбор снимка, применение патчей и сборка DTO
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BoardHistoryBenchmark {
+
+    static final Long BOARD_ID = 10L;
+    // Строк истории после снимка: порог следующего снимка (boards.history.checkpoint-rows)
+    static final int REPLAY_ROWS = 500;
+
+    private static final ObjectMapper MAPPER = new ObjectMapper().registerModule(new JavaTimeModule());
+
+    @Param({"100", "2000", "10000"})
+    public int tasks;
+
+    @Param({"true", "false"})
+    public boolean checkpoint;
+
+    private BoardHistoryService boardHistoryService;
+    private LocalDateTime at;
+
+    @Setup
+    public void setUp() throws Exception {
+        User user = new User("user", "password", "User");
+        user.setId(1L);
+        Board board = new Board();
+        board.setId(BOARD_ID);
+        DashBoardColumn todo = new DashBoardColumn("To Do", board, RankService.STEP);
+        todo.setId(100L);
+        DashBoardColumn done = new DashBoardColumn("Done", board, 2 * RankService.STEP);
+        done.setId(101L);
+
+        // Строки истории в порядке выборки: по задаче, затем по версии
+        ObjectNode snapshot = MAPPER.createObjectNode();
+        List<Object[]> rows = new ArrayList<>();
+        for (long id = 1; id <= tasks; id++) {
+            Task task = new Task("Task " + id, "Description of task " + id, id % 4 == 0 ? done : todo);
+            task.setId(id);
+            task.setPosition((int) id * RankService.STEP);
+            task.setStartDate(LocalDateTime.of(2025, 1, 1, 10, 0));
+            task.addParticipant(user);
+            for (int i = 0; i < 3; i++) {
+                ChecklistItem item = new ChecklistItem("Item " + i, task);
+                item.setId(id * 10 + i);
+                item.setPosition(i * RankService.STEP);
+                task.addChecklistItem(item);
+            }
+            String created = MAPPER.writeValueAsString(task);
+            if (checkpoint) {
+                ObjectNode entry = snapshot.putObject(Long.toString(id));
+                entry.put("v", 1);
+                entry.set("s", MAPPER.readTree(created));
+            } else {
+                rows.add(new Object[]{id, 1, true, "CREATE", null, created, null, null});
+            }
+            if (id <= REPLAY_ROWS) {
+                // Патч переименования с перестановкой, как его пишет TaskHistoryCodec
+                ObjectNode patch = MAPPER.createObjectNode();
+                patch.put("title", "Task " + id + " changed");
+                patch.put("position", task.getPosition() + 1);
+                String diff = patch.toString();
+                rows.add(new Object[]{id, 2, false, "UPDATE", diff, null, null, null});
+            }
+        }
+        byte[] snapshotBytes = gzip(snapshot);
+        Timestamp asOf = Timestamp.valueOf(LocalDateTime.of(2025, 1, 1, 0, 0));
+        at = LocalDateTime.of(2025, 2, 1, 0, 0);
+
+        JdbcTemplate jdbcTemplate = new JdbcTemplate() {
+            @Override
+            public <T> List<T> query(String sql, RowMapper<T> rowMapper, Object... args) {
+                if (checkpoint && sql.contains("FROM board_history_checkpoints")) {
+                    try {
+                        return List.of(rowMapper.mapRow(checkpointRow(asOf, snapshotBytes), 0));
+                    } catch (SQLException e) {
+                        throw new IllegalStateException(e);
+                    }
+                }
+                // Снимков нет, блоков архива нет
+                return List.of();
+            }
+
+            @Override
+            public void query(String sql, RowCallbackHandler rch, Object... args) {
+                Object[][] current = new Object[1][];
+                ResultSet rs = historyRow(current);
+                try {
+                    for (Object[] row : rows) {
+                        current[0] = row;
+                        rch.processRow(rs);
+                    }
+                } catch (SQLException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+        };
+        PlatformTransactionManager transactionManager = Stubs.repository(PlatformTransactionManager.class,
+                (method, args) -> null);
+        BoardService boardService = new BoardService(null, null, null, null, null, null, null, null, null, null, null) {
+            @Override
+            public BoardWithColumnsDTO getBoardWithDetails(Long id, Integer tasksPerColumn) {
+                return header(todo, done);
+            }
+        };
+        boardHistoryService = new BoardHistoryService(jdbcTemplate,
+                new TaskHistoryCodec(jdbcTemplate, transactionManager, 20, 10_000, 200),
+                new TaskHistoryArchive(jdbcTemplate, System.getProperty("java.io.tmpdir")),
+                boardService, REPLAY_ROWS, 60);
+    }
+
+    @Benchmark
+    public BoardWithColumnsDTO boardAt() {
+        return boardHistoryService.getBoardAt(BOARD_ID, at);
+    }
+
+    private static BoardWithColumnsDTO header(DashBoardColumn... columns) {
+        BoardWithColumnsDTO board = new BoardWithColumnsDTO();
+        board.setId(BOARD_ID);
+        board.setTitle("Board");
+        board.setTags(new HashSet<>());
+        board.setParticipants(new HashSet<>());
+        List<ColumnWithTasksDTO> columnDtos = new ArrayList<>();
+        for (DashBoardColumn column : columns) {
+            ColumnWithTasksDTO dto = new ColumnWithTasksDTO();
+            dto.setId(column.getId());
+            dto.setName(column.getName());
+            dto.setBoardId(BOARD_ID);
+            dto.setPosition(column.getPosition());
+            columnDtos.add(dto);
+        }
+        board.setColumns(columnDtos);
+        return board;
+    }
+
+    private static ResultSet checkpointRow(Timestamp asOf, byte[] snapshot) {
+        return Stubs.repository(ResultSet.class, (method, args) -> switch (method) {
+            case "getTimestamp" -> asOf;
+            case "getBytes" -> snapshot;
+            default -> throw new UnsupportedOperationException(method);
+        });
+    }
+
+    /**
+     * Строка выборки истории: task_ref_id, version_no, checkpoint, action_type, diff_json,
+     * task_snapshot, new_task_json, old_task_json
+     */
+    private static ResultSet historyRow(Object[][] current) {
+        return Stubs.repository(ResultSet.class, (method, args) -> switch (method) {
+            case "getLong" -> current[0][(int) args[0] - 1];
+            case "getInt" -> current[0][(int) args[0] - 1];
+            case "getBoolean" -> current[0][(int) args[0] - 1];
+            case "getString" -> current[0][(int) args[0] - 1];
+            case "wasNull" -> false;
+            default -> throw new UnsupportedOperationException(method);
+        });
+    }
+
+    private static byte[] gzip(ObjectNode root) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(bytes)) {
+            MAPPER.writeValue(gzip, root);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+}
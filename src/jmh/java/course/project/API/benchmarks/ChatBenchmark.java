@@ -0,0 +1,134 @@
+package course.project.API.benchmarks;
+
+import course.project.API.dto.chat.ChatWithLastMessageDTO;
+import course.project.API.dto.chat.MessageDTO;
+import course.project.API.models.Chat;
+import course.project.API.models.Message;
+import course.project.API.models.MessageAttachment;
+import course.project.API.models.User;
+import course.project.API.repositories.ChatRepository;
+import course.project.API.repositories.MessageRepository;
+import course.project.API.services.ChatService;
+import course.project.API.services.MessageService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Маппинг страницы сообщений в DTO и свертка строк списка чатов с последним сообщением.
+ * size — число сообщений на странице и число чатов в списке
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ChatBenchmark {
+
+    static final Long CHAT_ID = 1L;
+    static final Long USER_ID = 1L;
+    static final int READERS_PER_MESSAGE = 3;
+
+    @Param({"10", "1000", "10000"})
+    public int size;
+
+    private MessageService messageService;
+    private ChatService chatService;
+    private PageRequest pageRequest;
+
+    @Setup
+    public void setUp() {
+        pageRequest = PageRequest.of(0, size);
+        List<User> users = new ArrayList<>();
+        for (long id = 1; id <= 10; id++) {
+            User user = new User("user" + id, "password", "User " + id);
+            user.setId(id);
+            user.setAvatarURL("/avatars/" + id + ".png");
+            users.add(user);
+        }
+
+        Chat chat = new Chat("Chat", true);
+        chat.setId(CHAT_ID);
+        List<Message> messages = new ArrayList<>();
+        List<Object[]> readByRows = new ArrayList<>();
+        for (long id = 1; id <= size; id++) {
+            Message message = new Message(chat, users.get((int) (id % users.size())), "Message text " + id);
+            message.setId(id);
+            message.setCreatedAt(LocalDateTime.of(2025, 1, 1, 0, 0).plusMinutes(id));
+            if (id % 20 == 0) {
+                MessageAttachment attachment = new MessageAttachment("stored-" + id, "photo" + id + ".jpg",
+                        "/uploads/stored-" + id, "image/jpeg", 4096L, message.getSender());
+                attachment.setId(id);
+                attachment.setMessage(message);
+                message.getAttachments().add(attachment);
+            }
+            messages.add(message);
+            for (int r = 0; r < READERS_PER_MESSAGE; r++) {
+                readByRows.add(new Object[]{id, users.get((int) ((id + r) % users.size()))});
+            }
+        }
+        Page<Message> messagePage = new PageImpl<>(messages, pageRequest, size);
+
+        // Чаты: половина личных, у последнего сообщения по три прочитавших, по строке на каждого
+        List<Object[]> chatRows = new ArrayList<>();
+        List<Chat> personalChats = new ArrayList<>();
+        Timestamp createdAt = Timestamp.valueOf("2025-01-01 10:00:00");
+        for (long id = 1; id <= size; id++) {
+            boolean group = id % 2 == 0;
+            if (!group) {
+                Chat personal = new Chat(null, false);
+                personal.setId(id);
+                personal.getParticipants().add(users.get(0));
+                personal.getParticipants().add(users.get((int) (id % (users.size() - 1)) + 1));
+                personalChats.add(personal);
+            }
+            for (long r = 0; r < READERS_PER_MESSAGE; r++) {
+                chatRows.add(new Object[]{id, group ? "Group " + id : null, group,
+                        id * 100, "Last message " + id, createdAt, false,
+                        2L, "User 2", "/avatars/2.png", r + 1});
+            }
+        }
+        Page<Object[]> chatPage = new PageImpl<>(chatRows, pageRequest, size);
+
+        MessageRepository messageRepository = Stubs.repository(MessageRepository.class, (method, args) -> switch (method) {
+            case "findByChatIdWithAttachmentsAndSender" -> messagePage;
+            case "loadReadByForMessages" -> readByRows;
+            default -> throw new UnsupportedOperationException(method);
+        });
+        ChatRepository chatRepository = Stubs.repository(ChatRepository.class, (method, args) -> switch (method) {
+            case "findChatsWithLastMessageByUserId" -> chatPage;
+            case "findChatsByIdsWithParticipants" -> personalChats;
+            default -> throw new UnsupportedOperationException(method);
+        });
+        messageService = new MessageService(messageRepository, chatRepository, null, null);
+        chatService = new ChatService(chatRepository, null, messageRepository, null, null, null);
+    }
+
+    @Benchmark
+    public Page<MessageDTO> chatMessages() {
+        return messageService.getChatMessages(CHAT_ID, 0, size);
+    }
+
+    @Benchmark
+    public Page<ChatWithLastMessageDTO> chatsWithLastMessage() {
+        return chatService.getPagedChatsWithLastMessage(USER_ID, pageRequest);
+    }
+}
@@ -0,0 +1,218 @@
+package course.project.API.benchmarks;
+
+import course.project.API.dto.board.BoardDTO;
+import course.project.API.dto.board.TaskDTO;
+import course.project.API.dto.converters.BoardMapper;
+import course.project.API.dto.converters.ProjectMapper;
+import course.project.API.dto.converters.UserMapper;
+import course.project.API.dto.invitation.InvitationDTO;
+import course.project.API.dto.invitation.InvitationWithRecipientDTO;
+import course.project.API.dto.user.UserResponse;
+import course.project.API.models.Attachment;
+import course.project.API.models.Board;
+import course.project.API.models.ChecklistItem;
+import course.project.API.models.DashBoardColumn;
+import course.project.API.models.Invitation;
+import course.project.API.models.InvitationStatus;
+import course.project.API.models.Project;
+import course.project.API.models.Tag;
+import course.project.API.models.Task;
+import course.project.API.models.User;
+import org.modelmapper.AbstractConverter;
+import org.modelmapper.Converter;
+import org.modelmapper.ModelMapper;
+import org.modelmapper.convention.MatchingStrategies;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Сравнение ручных мапперов из dto.converters с прежней конфигурацией ModelMapper.
+ * Пропускная способность и аллокации на одну операцию (gc.alloc.rate.norm при запуске с -prof gc)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MapperBenchmark {
+
+    private ModelMapper modelMapper;
+    private User user;
+    private Board board;
+    private Task task;
+    private Invitation invitation;
+
+    @Setup
+    public void setUp() {
+        modelMapper = legacyModelMapper();
+
+        user = user(1L);
+        User owner = user(2L);
+        Project project = new Project("Project", "Description", "🚀", owner);
+        project.setId(1L);
+
+        board = new Board("Board", "Description", "📋", project);
+        board.setId(10L);
+        for (long i = 1; i <= 5; i++) {
+            Tag tag = new Tag("tag " + i, "#00000" + i, board);
+            tag.setId(i);
+            board.addTag(tag);
+        }
+
+        DashBoardColumn column = new DashBoardColumn("In progress", board, 1);
+        column.setId(100L);
+        task = new Task("Task", "Task description", column);
+        task.setId(1000L);
+        task.setPosition(3);
+        task.setStartDate(LocalDateTime.of(2025, 1, 1, 10, 0));
+        task.setEndDate(LocalDateTime.of(2025, 1, 10, 18, 0));
+        task.setTag(board.getTags().get(0));
+        for (long i = 1; i <= 4; i++) {
+            task.addParticipant(user(i));
+        }
+        for (int i = 1; i <= 8; i++) {
+            ChecklistItem item = new ChecklistItem("item " + i, task);
+            item.setId((long) i);
+            item.setPosition(i);
+            item.setCompleted(i % 2 == 0);
+            task.addChecklistItem(item);
+        }
+        for (long i = 1; i <= 2; i++) {
+            Attachment attachment = new Attachment("file" + i + ".pdf", "/uploads/file" + i, "application/pdf",
+                    1024L * i, task, "user");
+            attachment.setId(i);
+            attachment.setUploadedAt(LocalDateTime.of(2025, 1, 2, 12, 0));
+            task.addAttachment(attachment);
+        }
+
+        invitation = new Invitation(owner, user, project);
+        invitation.setId(7L);
+        invitation.setStatus(InvitationStatus.PENDING);
+        invitation.setCreatedAt(LocalDateTime.of(2025, 1, 3, 9, 0));
+    }
+
+    @Benchmark
+    public UserResponse userModelMapper() {
+        return modelMapper.map(user, UserResponse.class);
+    }
+
+    @Benchmark
+    public UserResponse userMapper() {
+        return UserMapper.toUserResponse(user);
+    }
+
+    @Benchmark
+    public BoardDTO boardModelMapper() {
+        return modelMapper.map(board, BoardDTO.class);
+    }
+
+    @Benchmark
+    public BoardDTO boardMapper() {
+        return BoardMapper.toBoardDTO(board);
+    }
+
+    @Benchmark
+    public TaskDTO taskModelMapper() {
+        return modelMapper.map(task, TaskDTO.class);
+    }
+
+    @Benchmark
+    public TaskDTO taskMapper() {
+        return BoardMapper.toTaskDTO(task);
+    }
+
+    @Benchmark
+    public InvitationDTO invitationModelMapper() {
+        return modelMapper.map(invitation, InvitationDTO.class);
+    }
+
+    @Benchmark
+    public InvitationDTO invitationMapper() {
+        return ProjectMapper.toInvitationDTO(invitation);
+    }
+
+    @Benchmark
+    public InvitationWithRecipientDTO invitationWithRecipientModelMapper() {
+        return modelMapper.map(invitation, InvitationWithRecipientDTO.class);
+    }
+
+    @Benchmark
+    public InvitationWithRecipientDTO invitationWithRecipientMapper() {
+        return ProjectMapper.toInvitationWithRecipientDTO(invitation);
+    }
+
+    private static User user(long id) {
+        User user = new User("user" + id, "password", "User " + id);
+        user.setId(id);
+        user.setAvatarURL("/avatars/" + id + ".png");
+        return user;
+    }
+
+    /**
+     * Конфигурация ModelMapper в том виде, в каком она была в AppConfig
+     */
+    private static ModelMapper legacyModelMapper() {
+        ModelMapper modelMapper = new ModelMapper();
+        modelMapper.getConfiguration()
+                .setMatchingStrategy(MatchingStrategies.STRICT)
+                .setFieldMatchingEnabled(true)
+                .setFieldAccessLevel(org.modelmapper.config.Configuration.AccessLevel.PRIVATE)
+                .setSkipNullEnabled(true);
+        modelMapper.addConverter(new AbstractConverter<org.hibernate.collection.spi.PersistentBag<?>, Set<Object>>() {
+            @Override
+            protected Set<Object> convert(org.hibernate.collection.spi.PersistentBag<?> source) {
+                return source == null ? null : new HashSet<>(source);
+            }
+        });
+        modelMapper.createTypeMap(User.class, UserResponse.class);
+
+        Converter<Invitation, InvitationDTO> simpleInvitationConverter = ctx -> {
+            Invitation source = ctx.getSource();
+            InvitationDTO destination = new InvitationDTO();
+            destination.setId(source.getId());
+            destination.setSenderId(source.getSender() != null ? source.getSender().getId() : null);
+            destination.setRecipientId(source.getRecipient() != null ? source.getRecipient().getId() : null);
+            destination.setProjectId(source.getProject() != null ? source.getProject().getId() : null);
+            destination.setStatus(source.getStatus());
+            destination.setCreatedAt(source.getCreatedAt());
+            if (source.getSender() != null) {
+                destination.setSenderName(source.getSender().getName());
+            }
+            if (source.getProject() != null) {
+                destination.setProjectTitle(source.getProject().getTitle());
+            }
+            return destination;
+        };
+        modelMapper.createTypeMap(Invitation.class, InvitationDTO.class).setConverter(simpleInvitationConverter);
+
+        Converter<Invitation, InvitationWithRecipientDTO> invitationConverter = ctx -> {
+            Invitation source = ctx.getSource();
+            InvitationWithRecipientDTO destination = new InvitationWithRecipientDTO();
+            destination.setId(source.getId());
+            destination.setSenderId(source.getSender().getId());
+            destination.setProjectId(source.getProject().getId());
+            destination.setStatus(source.getStatus());
+            destination.setCreatedAt(source.getCreatedAt());
+            if (source.getRecipient() != null) {
+                destination.setRecipient(modelMapper.map(source.getRecipient(), UserResponse.class));
+            }
+            return destination;
+        };
+        modelMapper.createTypeMap(Invitation.class, InvitationWithRecipientDTO.class).setConverter(invitationConverter);
+        return modelMapper;
+    }
+}
@@ -0,0 +1,34 @@
+package course.project.API.benchmarks;
+
+import java.lang.reflect.Proxy;
+import java.util.function.BiFunction;
+
+/**
+ * Заглушки репозиториев для бенчмарков. Обычный динамический прокси вместо Mockito,
+ * чтобы стоимость вызова заглушки не перекрывала измеряемый код на маленьких досках
+ */
+final class Stubs {
+
+    private Stubs() {
+    }
+
+    /**
+     * Репозиторий, который на вызов метода отвечает answer(имя метода, аргументы).
+     * Методы, для которых answer вернул null, возвращают null
+     */
+    @SuppressWarnings("unchecked")
+    static <T> T repository(Class<T> type, BiFunction<String, Object[], Object> answer) {
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "toString":
+                    return type.getSimpleName() + " stub";
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "equals":
+                    return proxy == args[0];
+                default:
+                    return answer.apply(method.getName(), args);
+            }
+        });
+    }
+}
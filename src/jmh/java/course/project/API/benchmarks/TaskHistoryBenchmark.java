@@ -0,0 +1,136 @@
+package course.project.API.benchmarks;
+
+import course.project.API.models.Board;
+import course.project.API.models.ChecklistItem;
+import course.project.API.models.DashBoardColumn;
+import course.project.API.models.Project;
+import course.project.API.models.Tag;
+import course.project.API.models.Task;
+import course.project.API.models.User;
+import course.project.API.repositories.TaskHistoryRepository;
+import course.project.API.services.TaskHistoryArchive;
+import course.project.API.services.TaskHistoryCodec;
+import course.project.API.services.TaskHistoryService;
+import course.project.API.services.TaskHistoryWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JSON-снимки задач в истории: одна операция — запись обновления каждой задачи синтетической доски.
+ * Измеряется стоимость для потока запроса: сериализация и постановка в очередь {@link TaskHistoryWriter},
+ * сам батч вставки уходит в заглушку
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TaskHistoryBenchmark {
+
+    @Param({"10", "1000", "10000"})
+    public int tasks;
+
+    private TaskHistoryService taskHistoryService;
+    private TaskHistoryWriter taskHistoryWriter;
+    private User user;
+    private List<Task> boardTasks;
+
+    @Setup
+    public void setUp() {
+        user = new User("user", "password", "User");
+        user.setId(1L);
+
+        Project project = new Project("Project", "Description", user);
+        project.setId(1L);
+        Board board = new Board("Board", "Description", project);
+        board.setId(1L);
+        Tag tag = new Tag("bug", "#ff0000", board);
+        tag.setId(1L);
+        DashBoardColumn column = new DashBoardColumn("In progress", board, 0);
+        column.setId(1L);
+
+        boardTasks = new ArrayList<>();
+        for (long id = 1; id <= tasks; id++) {
+            Task task = new Task("Task " + id, "Description of task " + id, column);
+            task.setId(id);
+            task.setPosition((int) id);
+            task.setStartDate(LocalDateTime.of(2025, 1, 1, 10, 0));
+            task.setEndDate(LocalDateTime.of(2025, 1, 10, 18, 0));
+            task.setTag(tag);
+            task.addParticipant(user);
+            for (int i = 0; i < 3; i++) {
+                ChecklistItem item = new ChecklistItem("Item " + i, task);
+                item.setId(id * 10 + i);
+                item.setPosition(i);
+                task.addChecklistItem(item);
+            }
+            boardTasks.add(task);
+        }
+
+        TaskHistoryRepository repository = Stubs.repository(TaskHistoryRepository.class, (method, args) -> {
+            if ("save".equals(method)) {
+                return args[0];
+            }
+            throw new UnsupportedOperationException(method);
+        });
+        JdbcTemplate jdbcTemplate = new JdbcTemplate() {
+            @Override
+            public <T> int[][] batchUpdate(String sql, Collection<T> batchArgs, int batchSize,
+                                           ParameterizedPreparedStatementSetter<T> pss) {
+                return new int[0][];
+            }
+
+            @Override
+            public <T> List<T> query(String sql, RowMapper<T> rowMapper, Object... args) {
+                return List.of();
+            }
+
+            @Override
+            public <T> T queryForObject(String sql, Class<T> requiredType, Object... args) {
+                return null;
+            }
+        };
+        PlatformTransactionManager transactionManager = Stubs.repository(PlatformTransactionManager.class,
+                (method, args) -> null);
+        TaskHistoryCodec taskHistoryCodec = new TaskHistoryCodec(jdbcTemplate, transactionManager, 20, 10_000, 200);
+        taskHistoryWriter = new TaskHistoryWriter(jdbcTemplate, taskHistoryCodec, transactionManager, 10_000, 200, 200, 50,
+                TaskHistoryWriter.OverflowPolicy.CALLER_RUNS, 5);
+        taskHistoryWriter.start();
+        taskHistoryService = new TaskHistoryService(repository, taskHistoryWriter, taskHistoryCodec,
+                new TaskHistoryArchive(jdbcTemplate, System.getProperty("java.io.tmpdir")));
+    }
+
+    @TearDown
+    public void tearDown() {
+        taskHistoryWriter.shutdown();
+    }
+
+    @Benchmark
+    public int recordBoardUpdates() {
+        for (Task task : boardTasks) {
+            taskHistoryService.recordTaskUpdate(user, task, task);
+        }
+        return boardTasks.size();
+    }
+}
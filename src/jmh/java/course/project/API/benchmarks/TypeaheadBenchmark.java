@@ -0,0 +1,86 @@
+package course.project.API.benchmarks;
+
+import course.project.API.dto.board.TaskSuggestionDTO;
+import course.project.API.services.BoardAccessIndex;
+import course.project.API.services.TaskTypeaheadIndex;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+
+/**
+ * Подсказки при вводе по проекту с синтетическими названиями задач на 50 досках, из которых пользователь видит 10.
+ * Режим SampleTime: в отчете JMH есть перцентили, целевое значение — p0.99 меньше 5 мс на 100 000 задач.
+ * Раздел загружается в setUp из заглушки JdbcTemplate, замеряется только поиск
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TypeaheadBenchmark {
+
+    private static final String[] WORDS = {"релиз", "сборка", "проверка", "дизайн", "миграция", "отчет",
+            "оплата", "поиск", "deploy", "review", "invoice", "backend", "frontend", "mobile", "api", "cache"};
+
+    @Param({"10000", "100000"})
+    public int tasks;
+
+    @Param({"ре", "рел", "релиз сб", "ция", "invoice 4"})
+    public String query;
+
+    private TaskTypeaheadIndex index;
+
+    @Setup
+    public void setUp() {
+        List<Object[]> rows = new ArrayList<>(tasks);
+        for (long id = 1; id <= tasks; id++) {
+            String title = WORDS[(int) (id % WORDS.length)] + " " + WORDS[(int) (id / 7 % WORDS.length)] + " " + id;
+            rows.add(new Object[]{id, id % 50, title});
+        }
+        JdbcTemplate jdbcTemplate = new JdbcTemplate() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public <T> List<T> query(String sql, RowMapper<T> rowMapper, Object... args) {
+                return (List<T>) rows;
+            }
+
+            @Override
+            @SuppressWarnings("unchecked")
+            public <T> List<T> queryForList(String sql, Class<T> elementType, Object... args) {
+                // Права пользователя — доски 0..9, проект — доски 0..49
+                long boards = sql.contains("board_user_rights") ? 10 : 50;
+                return (List<T>) LongStream.range(0, boards).boxed().toList();
+            }
+
+            @Override
+            @SuppressWarnings("unchecked")
+            public <T> T queryForObject(String sql, Class<T> requiredType, Object... args) {
+                // Пользователь видит доски проекта
+                return (T) Integer.valueOf(args.length - 1);
+            }
+        };
+        index = new TaskTypeaheadIndex(jdbcTemplate, new BoardAccessIndex(jdbcTemplate, 1000), tasks * 2, 20);
+        index.suggest(1L, 1L, "ре", 10);
+    }
+
+    @Benchmark
+    public List<TaskSuggestionDTO> suggest() {
+        return index.suggest(1L, 1L, query, 10);
+    }
+}
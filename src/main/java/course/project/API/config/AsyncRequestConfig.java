@@ -0,0 +1,22 @@
+package course.project.API.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Таймаут асинхронных ответов. Потоковая выгрузка большой доски (StreamingResponseBody)
+ * может идти дольше стандартных 30 секунд контейнера
+ */
+@Configuration
+public class AsyncRequestConfig implements WebMvcConfigurer {
+
+    @Value("${exports.async-timeout-seconds:600}")
+    private long asyncTimeoutSeconds;
+
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.setDefaultTimeout(asyncTimeoutSeconds * 1000);
+    }
+}
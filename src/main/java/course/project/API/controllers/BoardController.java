@@ -1,6 +1,7 @@
 package course.project.API.controllers;
 
 import course.project.API.dto.SimpleDTO;
+import course.project.API.dto.board.BoardChangesDTO;
 import course.project.API.dto.board.BoardDTO;
 import course.project.API.dto.board.BoardWithColumnsDTO;
 import course.project.API.dto.board.BoardWithParticipantsDTO;
@@ -10,19 +11,33 @@ import course.project.API.models.BoardRight;
 import course.project.API.models.DashBoardColumn;
 import course.project.API.models.ProjectRight;
 import course.project.API.models.User;
+import course.project.API.services.BoardExportService;
+import course.project.API.services.BoardHistoryService;
+import course.project.API.services.BoardReadModel;
 import course.project.API.services.BoardRightService;
 import course.project.API.services.BoardService;
+import course.project.API.services.BoardSnapshotCache;
+import course.project.API.services.BoardSyncService;
 import course.project.API.services.ProjectRightService;
 import course.project.API.services.ProjectService;
 import course.project.API.services.WebSocketService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.NoSuchElementException;
 import java.util.Map;
 import java.util.HashMap;
 import java.util.Optional;
@@ -33,21 +48,38 @@ import java.util.Set;
 @RequestMapping("/api/boards")
 public class BoardController {
 
+    private static final Logger logger = LoggerFactory.getLogger(BoardController.class);
+
+    private static final String BOARD_VERSION_HEADER = "X-Board-Version";
+    private static final int MAX_TASKS_PER_COLUMN = 500;
+
     private final BoardService boardService;
     private final BoardRightService boardRightService;
     private final ProjectRightService projectRightService;
     private final ProjectService projectService;
     private final WebSocketService webSocketService;
+    private final BoardSnapshotCache boardSnapshotCache;
+    private final BoardReadModel boardReadModel;
+    private final BoardSyncService boardSyncService;
+    private final BoardExportService boardExportService;
+    private final BoardHistoryService boardHistoryService;
 
     @Autowired
     public BoardController(BoardService boardService, BoardRightService boardRightService, 
                          ProjectRightService projectRightService, ProjectService projectService,
-                         WebSocketService webSocketService) {
+                         WebSocketService webSocketService, BoardSnapshotCache boardSnapshotCache,
+                         BoardReadModel boardReadModel, BoardSyncService boardSyncService,
+                         BoardExportService boardExportService, BoardHistoryService boardHistoryService) {
         this.boardService = boardService;
         this.boardRightService = boardRightService;
         this.projectRightService = projectRightService;
         this.projectService = projectService;
         this.webSocketService = webSocketService;
+        this.boardSnapshotCache = boardSnapshotCache;
+        this.boardReadModel = boardReadModel;
+        this.boardSyncService = boardSyncService;
+        this.boardExportService = boardExportService;
+        this.boardHistoryService = boardHistoryService;
     }
 
     @GetMapping
@@ -62,7 +94,7 @@ public class BoardController {
         
         try {
 
-            List<BoardWithParticipantsDTO> allBoards = boardService.getBoardsByProjectId(projectId);
+            List<BoardWithParticipantsDTO> allBoards = boardReadModel.getBoardsByProjectId(projectId);
             List<BoardWithParticipantsDTO> userBoards = new ArrayList<>();
             
             for (BoardWithParticipantsDTO board : allBoards) {
@@ -78,24 +110,140 @@ public class BoardController {
         }
     }
 
+    /**
+     * Доска целиком или, если передан tasksPerColumn, только первые tasksPerColumn задач каждой колонки.
+     * Остальные задачи догружаются через GET /api/columns/{columnId}/tasks?after=
+     */
     @GetMapping("/{boardId}")
     public ResponseEntity<?> getBoardById(
             @PathVariable Long boardId,
+            @RequestParam(value = "tasksPerColumn", required = false) Integer tasksPerColumn,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
             @AuthenticationPrincipal User currentUser) {
         try {
             if (!boardRightService.hasBoardRight(boardId, currentUser.getId(), BoardRight.VIEW_BOARD)) {
                 return ResponseEntity.status(403).body(new SimpleDTO("Access denied: no board rights"));
             }
 
-            BoardWithColumnsDTO board = boardService.getBoardWithDetails(boardId);
+            if (tasksPerColumn != null) {
+                if (tasksPerColumn < 1 || tasksPerColumn > MAX_TASKS_PER_COLUMN) {
+                    return ResponseEntity.badRequest().body(new SimpleDTO(
+                            "tasksPerColumn must be between 1 and " + MAX_TASKS_PER_COLUMN));
+                }
+
+                long version = boardSnapshotCache.getVersion(boardId);
+                String currentETag = boardSnapshotCache.getETag(boardId, tasksPerColumn);
+                if (eTagMatches(ifNoneMatch, currentETag)) {
+                    return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(currentETag).build();
+                }
+
+                BoardWithColumnsDTO board = boardService.getBoardWithDetails(boardId, tasksPerColumn);
+                return ResponseEntity.ok()
+                        .eTag(currentETag)
+                        .header(BOARD_VERSION_HEADER, String.valueOf(version))
+                        .body(board);
+            }
 
-            return ResponseEntity.ok(board);
+            // Доска не менялась с момента последнего запроса клиента - отдаем 304 без обращения к БД
+            String currentETag = boardSnapshotCache.getETag(boardId);
+            if (eTagMatches(ifNoneMatch, currentETag)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(currentETag).build();
+            }
+
+            BoardSnapshotCache.Snapshot snapshot = boardReadModel.getBoard(boardId);
+
+            return ResponseEntity.ok()
+                    .eTag(snapshot.getETag())
+                    .header(BOARD_VERSION_HEADER, String.valueOf(snapshot.getVersion()))
+                    .body(snapshot.getBoard());
         } catch (Exception e) {
             System.err.println("Error in getBoardById: " + e.getMessage());
             return ResponseEntity.status(400).body(new SimpleDTO("Internal error: " + e.getMessage()));
         }
     }
 
+    /**
+     * Состояние доски на момент timestamp, восстановленное из истории задач
+     */
+    @GetMapping("/{boardId}/at")
+    public ResponseEntity<?> getBoardAt(
+            @PathVariable Long boardId,
+            @RequestParam("timestamp") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime timestamp,
+            @AuthenticationPrincipal User currentUser) {
+        try {
+            if (!boardRightService.hasBoardRight(boardId, currentUser.getId(), BoardRight.VIEW_BOARD)) {
+                return ResponseEntity.status(403).body(new SimpleDTO("Access denied: no board rights"));
+            }
+
+            if (timestamp.isAfter(LocalDateTime.now())) {
+                return ResponseEntity.badRequest().body(new SimpleDTO("Timestamp must not be in the future"));
+            }
+
+            return ResponseEntity.ok(boardHistoryService.getBoardAt(boardId, timestamp));
+        } catch (NoSuchElementException e) {
+            return ResponseEntity.status(404).body(new SimpleDTO(e.getMessage()));
+        } catch (Exception e) {
+            logger.error("Не удалось восстановить доску {} на {}", boardId, timestamp, e);
+            return ResponseEntity.status(500).body(new SimpleDTO("Internal error"));
+        }
+    }
+
+    /**
+     * Изменения доски после версии since - для клиентов, переподключившихся к /topic/boards/{boardId}.
+     * Если журнал уже не покрывает запрошенную версию, возвращается resyncRequired = true
+     * и клиент должен заново загрузить доску целиком
+     */
+    @GetMapping("/{boardId}/changes")
+    public ResponseEntity<?> getBoardChanges(
+            @PathVariable Long boardId,
+            @RequestParam("since") long since,
+            @AuthenticationPrincipal User currentUser) {
+        try {
+            if (!boardRightService.hasBoardRight(boardId, currentUser.getId(), BoardRight.VIEW_BOARD)) {
+                return ResponseEntity.status(403).body(new SimpleDTO("Access denied: no board rights"));
+            }
+
+            BoardChangesDTO changes = boardSyncService.getBoardChanges(boardId, since);
+            return ResponseEntity.ok()
+                    .header(BOARD_VERSION_HEADER, String.valueOf(changes.getVersion()))
+                    .body(changes);
+        } catch (Exception e) {
+            System.err.println("Error in getBoardChanges: " + e.getMessage());
+            return ResponseEntity.status(400).body(new SimpleDTO("Internal error: " + e.getMessage()));
+        }
+    }
+
+    /**
+     * Потоковая выгрузка доски для аудита: format=json (доска, колонки, задачи, чек-листы,
+     * участники, теги, история) или format=csv (по строке на задачу)
+     */
+    @GetMapping("/{boardId}/export")
+    public ResponseEntity<?> exportBoard(
+            @PathVariable Long boardId,
+            @RequestParam(value = "format", defaultValue = "json") String format,
+            @AuthenticationPrincipal User currentUser) {
+        if (!boardRightService.hasBoardRight(boardId, currentUser.getId(), BoardRight.VIEW_BOARD)) {
+            return ResponseEntity.status(403).body(new SimpleDTO("Access denied: no board rights"));
+        }
+
+        if ("csv".equalsIgnoreCase(format)) {
+            StreamingResponseBody body = out -> boardExportService.exportTasksCsv(List.of(boardId), out);
+            return ResponseEntity.ok()
+                    .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"board-" + boardId + ".csv\"")
+                    .contentType(new MediaType("text", "csv", StandardCharsets.UTF_8))
+                    .body(body);
+        }
+        if (!"json".equalsIgnoreCase(format)) {
+            return ResponseEntity.badRequest().body(new SimpleDTO("Unsupported export format: " + format));
+        }
+
+        StreamingResponseBody body = out -> boardExportService.exportBoardJson(boardId, out);
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"board-" + boardId + ".json\"")
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(body);
+    }
+
     @PostMapping
     public ResponseEntity<BoardDTO> createBoard(
             @RequestBody BoardDTO boardDTO,
@@ -157,7 +305,8 @@ public class BoardController {
                 return ResponseEntity.status(403).body(null);
             }
             
-            return boardService.updateBoard(boardId, boardDTO)
+            Optional<BoardDTO> updatedBoard = boardService.updateBoard(boardId, boardDTO);
+            return updatedBoard
                 .map(ResponseEntity::ok)
                 .orElse(ResponseEntity.status(404).build());
                 
@@ -455,4 +604,20 @@ public class BoardController {
             return ResponseEntity.status(500).body("Ошибка: " + e.getMessage());
         }
     }
-} 
\ No newline at end of file
+
+    private boolean eTagMatches(String ifNoneMatch, String eTag) {
+        if (ifNoneMatch == null || ifNoneMatch.isBlank()) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String value = candidate.trim();
+            if (value.startsWith("W/")) {
+                value = value.substring(2);
+            }
+            if (value.equals(eTag) || value.equals("*")) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
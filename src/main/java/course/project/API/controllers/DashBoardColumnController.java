@@ -1,10 +1,17 @@
 package course.project.API.controllers;
 
+import course.project.API.dto.SimpleDTO;
+import course.project.API.dto.board.TaskPageDTO;
+import course.project.API.models.BoardRight;
 import course.project.API.models.DashBoardColumn;
+import course.project.API.models.User;
+import course.project.API.services.BoardRightService;
+import course.project.API.services.BoardService;
 import course.project.API.services.DashBoardColumnService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
@@ -14,11 +21,19 @@ import java.util.Map;
 @RequestMapping("/api/columns")
 public class DashBoardColumnController {
 
+    private static final int DEFAULT_TASKS_PAGE_SIZE = 50;
+    private static final int MAX_TASKS_PAGE_SIZE = 500;
+
     private final DashBoardColumnService columnService;
+    private final BoardService boardService;
+    private final BoardRightService boardRightService;
 
     @Autowired
-    public DashBoardColumnController(DashBoardColumnService columnService) {
+    public DashBoardColumnController(DashBoardColumnService columnService, BoardService boardService,
+                                     BoardRightService boardRightService) {
         this.columnService = columnService;
+        this.boardService = boardService;
+        this.boardRightService = boardRightService;
     }
 
     @GetMapping("/board/{boardId}")
@@ -40,6 +55,34 @@ public class DashBoardColumnController {
                 .orElse(ResponseEntity.notFound().build());
     }
 
+    /**
+     * Задачи колонки после ключа (after, afterId) в порядке (position, id).
+     * Первая страница запрашивается без after и afterId, следующие - с nextAfter и nextAfterId из предыдущего ответа
+     */
+    @GetMapping("/{columnId}/tasks")
+    public ResponseEntity<?> getColumnTasks(
+            @PathVariable Long columnId,
+            @RequestParam(value = "after", required = false) Integer after,
+            @RequestParam(value = "afterId", required = false) Long afterId,
+            @RequestParam(value = "limit", required = false) Integer limit,
+            @AuthenticationPrincipal User currentUser) {
+        int pageSize = limit != null ? limit : DEFAULT_TASKS_PAGE_SIZE;
+        if (pageSize < 1 || pageSize > MAX_TASKS_PAGE_SIZE) {
+            return ResponseEntity.badRequest().body(new SimpleDTO("limit must be between 1 and " + MAX_TASKS_PAGE_SIZE));
+        }
+
+        Long boardId = columnService.getBoardIdByColumnId(columnId).orElse(null);
+        if (boardId == null) {
+            return ResponseEntity.notFound().build();
+        }
+        if (!boardRightService.hasBoardRight(boardId, currentUser.getId(), BoardRight.VIEW_BOARD)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(new SimpleDTO("Access denied: no board rights"));
+        }
+
+        TaskPageDTO page = boardService.getColumnTasksPage(boardId, columnId, after, afterId, pageSize);
+        return ResponseEntity.ok(page);
+    }
+
     @PostMapping
     public ResponseEntity<DashBoardColumn> createColumn(@RequestBody Map<String, Object> payload) {
         Long boardId = Long.parseLong(payload.get("boardId").toString());
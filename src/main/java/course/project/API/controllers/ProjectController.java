@@ -1,23 +1,32 @@
 package course.project.API.controllers;
 
 import course.project.API.dto.SimpleDTO;
+import course.project.API.dto.project.HistoryRetentionPolicyDTO;
 import course.project.API.dto.project.ProjectDTO;
 import course.project.API.dto.project.ProjectWithParticipantsOwnerDTO;
 import course.project.API.dto.project.ProjectWithParticipantsOwnerInvitationsDTO;
+import course.project.API.models.BoardRight;
 import course.project.API.models.ProjectRight;
 import course.project.API.models.User;
 import course.project.API.models.InvitationStatus;
 import course.project.API.repositories.UserRepository;
+import course.project.API.services.BoardExportService;
+import course.project.API.services.BoardRightService;
 import course.project.API.services.BoardService;
 import course.project.API.services.ProjectRightService;
 import course.project.API.services.ProjectService;
+import course.project.API.services.TaskHistoryRetentionService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.nio.charset.StandardCharsets;
 import java.security.Principal;
 import java.util.HashMap;
 import java.util.List;
@@ -34,14 +43,22 @@ public class ProjectController {
     private final UserRepository userRepository;
     private final ProjectRightService projectRightService;
     private final BoardService boardService;
+    private final BoardRightService boardRightService;
+    private final BoardExportService boardExportService;
+    private final TaskHistoryRetentionService taskHistoryRetentionService;
 
     @Autowired
     public ProjectController(ProjectService projectService, UserRepository userRepository, 
-                           ProjectRightService projectRightService, BoardService boardService) {
+                           ProjectRightService projectRightService, BoardService boardService,
+                           BoardRightService boardRightService, BoardExportService boardExportService,
+                           TaskHistoryRetentionService taskHistoryRetentionService) {
         this.projectService = projectService;
         this.userRepository = userRepository;
         this.projectRightService = projectRightService;
         this.boardService = boardService;
+        this.boardRightService = boardRightService;
+        this.boardExportService = boardExportService;
+        this.taskHistoryRetentionService = taskHistoryRetentionService;
     }
 
     @GetMapping("/{id}")
@@ -69,6 +86,41 @@ public class ProjectController {
     }
 
 
+    /**
+     * Потоковая выгрузка проекта: все доски проекта, доступные пользователю, format=json или csv
+     */
+    @GetMapping("/{projectId}/export")
+    public ResponseEntity<?> exportProject(
+            @PathVariable Long projectId,
+            @RequestParam(value = "format", defaultValue = "json") String format,
+            @AuthenticationPrincipal User currentUser) {
+        if (!projectRightService.hasProjectRight(projectId, currentUser.getId(), ProjectRight.VIEW_PROJECT)) {
+            logger.warn("User {} doesn't have rights to export project: {}", currentUser.getUsername(), projectId);
+            return ResponseEntity.status(403).body(new SimpleDTO("Access denied: no project rights"));
+        }
+
+        List<Long> boardIds = boardExportService.getProjectBoardIds(projectId).stream()
+                .filter(boardId -> boardRightService.hasBoardRight(boardId, currentUser.getId(), BoardRight.VIEW_BOARD))
+                .collect(Collectors.toList());
+
+        if ("csv".equalsIgnoreCase(format)) {
+            StreamingResponseBody body = out -> boardExportService.exportTasksCsv(boardIds, out);
+            return ResponseEntity.ok()
+                    .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"project-" + projectId + ".csv\"")
+                    .contentType(new MediaType("text", "csv", StandardCharsets.UTF_8))
+                    .body(body);
+        }
+        if (!"json".equalsIgnoreCase(format)) {
+            return ResponseEntity.badRequest().body(new SimpleDTO("Unsupported export format: " + format));
+        }
+
+        StreamingResponseBody body = out -> boardExportService.exportProjectJson(projectId, boardIds, out);
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"project-" + projectId + ".json\"")
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(body);
+    }
+
     @GetMapping("/my")
     public List<ProjectWithParticipantsOwnerDTO> getMyProjects(@AuthenticationPrincipal User currentUser) {
         return projectService.getMyProjectsWithUsers(currentUser);
@@ -96,6 +148,39 @@ public class ProjectController {
                 .orElse(ResponseEntity.notFound().build());
     }
 
+    /**
+     * Политика хранения истории задач проекта: через сколько дней изменения схлопываются
+     * и переносятся в архив. null — значение по умолчанию, 0 — шаг отключен
+     */
+    @GetMapping("/{id}/history-policy")
+    public ResponseEntity<HistoryRetentionPolicyDTO> getHistoryPolicy(
+            @PathVariable Long id,
+            @AuthenticationPrincipal User currentUser) {
+
+        if (!projectRightService.hasProjectRight(id, currentUser.getId(), ProjectRight.VIEW_PROJECT)) {
+            return ResponseEntity.status(403).body(null);
+        }
+
+        return ResponseEntity.ok(taskHistoryRetentionService.getPolicy(id));
+    }
+
+    @PutMapping("/{id}/history-policy")
+    public ResponseEntity<?> updateHistoryPolicy(
+            @PathVariable Long id,
+            @RequestBody HistoryRetentionPolicyDTO policy,
+            @AuthenticationPrincipal User currentUser) {
+
+        if (!projectRightService.hasProjectRight(id, currentUser.getId(), ProjectRight.EDIT_PROJECT)) {
+            return ResponseEntity.status(403).body(null);
+        }
+
+        try {
+            return ResponseEntity.ok(taskHistoryRetentionService.updatePolicy(id, policy));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(new SimpleDTO(e.getMessage()));
+        }
+    }
+
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> deleteProject(
             @PathVariable Long id,
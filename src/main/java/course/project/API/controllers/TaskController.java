@@ -16,6 +16,7 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.security.access.AccessDeniedException;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.multipart.MultipartFile;
@@ -26,6 +27,7 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Set;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -51,6 +53,8 @@ public class TaskController {
     private final ProjectRightService projectRightService;
     private final TaskHistoryService taskHistoryService;
     private final AttachmentService attachmentService;
+    private final BoardSnapshotCache boardSnapshotCache;
+    private final TaskTypeaheadIndex taskTypeaheadIndex;
 
     @Autowired
     public TaskController(TaskService taskService, UserRepository userRepository,
@@ -62,7 +66,9 @@ public class TaskController {
                           BoardService boardService,
                           ProjectRightService projectRightService,
                           TaskHistoryService taskHistoryService,
-                          AttachmentService attachmentService) {
+                          AttachmentService attachmentService,
+                          BoardSnapshotCache boardSnapshotCache,
+                          TaskTypeaheadIndex taskTypeaheadIndex) {
         this.taskService = taskService;
         this.userRepository = userRepository;
         this.checklistItemService = checklistItemService;
@@ -75,6 +81,8 @@ public class TaskController {
         this.projectRightService = projectRightService;
         this.taskHistoryService = taskHistoryService;
         this.attachmentService = attachmentService;
+        this.boardSnapshotCache = boardSnapshotCache;
+        this.taskTypeaheadIndex = taskTypeaheadIndex;
     }
 
     // Обновляем метод convertToTaskDTO для возможности принудительного чтения вложений
@@ -92,6 +100,7 @@ public class TaskController {
         taskDTO.setStartDate(task.getStartDate());
         taskDTO.setEndDate(task.getEndDate());
         taskDTO.setPosition(task.getPosition());
+        taskDTO.setVersion(task.getVersion());
         
         // Convert participants to UserResponse
         Set<UserResponse> participants = task.getParticipants().stream()
@@ -557,6 +566,81 @@ public class TaskController {
         }
     }
     
+    /**
+     * Частичное обновление задачи: меняются только поля из fields. Задача читается и сохраняется один раз,
+     * история и уведомление доски отправляются после коммита
+     */
+    @PatchMapping("/{taskId}")
+    public ResponseEntity<?> patchTask(
+            @PathVariable Long taskId,
+            @RequestBody TaskPatchDTO patch,
+            @AuthenticationPrincipal User currentUser) {
+        Task task;
+        try {
+            task = taskService.patchTask(taskId, patch, currentUser);
+        } catch (NoSuchElementException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(new SimpleDTO(e.getMessage()));
+        } catch (AccessDeniedException e) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(new SimpleDTO(e.getMessage()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(new SimpleDTO(e.getMessage()));
+        }
+
+        Long boardId = task.getColumn().getBoard().getId();
+        TaskDTO taskDTO = convertToTaskDTO(task, boardId);
+
+        Map<String, Object> notificationPayload = new HashMap<>();
+        notificationPayload.put("id", taskDTO.getId());
+        notificationPayload.put("title", taskDTO.getTitle());
+        notificationPayload.put("description", taskDTO.getDescription());
+        notificationPayload.put("columnId", taskDTO.getColumnId());
+        notificationPayload.put("startDate", taskDTO.getStartDate());
+        notificationPayload.put("endDate", taskDTO.getEndDate());
+        notificationPayload.put("position", taskDTO.getPosition());
+        notificationPayload.put("participants", taskDTO.getParticipants());
+        notificationPayload.put("tag", taskDTO.getTag());
+        notificationPayload.put("checklist", taskDTO.getChecklist());
+        notificationPayload.put("attachments", taskDTO.getAttachments());
+        notificationPayload.put("fields", patch.getFields());
+        notificationPayload.put("initiatedBy", currentUser.getUsername());
+        webSocketService.sendMessageToBoard(boardId, "TASK_UPDATED", notificationPayload);
+
+        return ResponseEntity.ok(taskDTO);
+    }
+
+    /**
+     * Пакетные операции над задачами (перемещение, тег, участники, удаление) в одной транзакции.
+     * Каждая затронутая доска получает одно сообщение TASKS_BULK_CHANGED вместо сообщения на задачу
+     */
+    @PostMapping("/bulk")
+    public ResponseEntity<?> bulkUpdateTasks(
+            @RequestBody List<BulkTaskOperationDTO> operations,
+            @AuthenticationPrincipal User currentUser) {
+        List<BulkTaskResultDTO> results;
+        try {
+            results = taskService.bulkUpdate(operations, currentUser);
+        } catch (NoSuchElementException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(new SimpleDTO(e.getMessage()));
+        } catch (AccessDeniedException e) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(new SimpleDTO(e.getMessage()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(new SimpleDTO(e.getMessage()));
+        }
+
+        for (BulkTaskResultDTO result : results) {
+            result.setBoardVersion(boardSnapshotCache.getVersion(result.getBoardId()));
+
+            Map<String, Object> notificationPayload = new HashMap<>();
+            notificationPayload.put("taskIds", result.getUpdatedTaskIds());
+            notificationPayload.put("deletedTaskIds", result.getDeletedTaskIds());
+            notificationPayload.put("taskVersions", result.getTaskVersions());
+            notificationPayload.put("boardVersion", result.getBoardVersion());
+            notificationPayload.put("initiatedBy", currentUser.getUsername());
+            webSocketService.sendMessageToBoard(result.getBoardId(), "TASKS_BULK_CHANGED", notificationPayload);
+        }
+        return ResponseEntity.ok(results);
+    }
+
     /**
      * Обновляет основную информацию о задаче (название, описание, позиция, колонка, метка, даты)
      */
@@ -620,66 +704,24 @@ public class TaskController {
         List<Object> participants = (List<Object>) payload.get("participants");
         logger.info("Processing participants update: {}", participants);
         
-        Set<User> currentParticipants = taskService.getTaskParticipants(taskId);
-        logger.info("Current participants: {}", currentParticipants.stream().map(User::getId).collect(Collectors.toList()));
-        
-        List<Long> newParticipantIds = new ArrayList<>();
-        List<String> newParticipantUsernames = new ArrayList<>();
-        
+        List<Long> participantIds = new ArrayList<>();
+        List<String> participantUsernames = new ArrayList<>();
         for (Object participant : participants) {
             if (participant instanceof Number) {
-                Long userId = ((Number) participant).longValue();
-                newParticipantIds.add(userId);
-                userRepository.findById(userId).ifPresent(user -> {
-                    if (!currentParticipants.contains(user)) {
-                        try {
-                            taskService.addParticipantToTask(taskId, user.getId());
-                            logger.info("Added participant by ID: {}", userId);
-                        } catch (Exception e) {
-                            logger.error("Error adding participant ID {}: {}", userId, e.getMessage(), e);
-                        }
-                    }
-                });
+                participantIds.add(((Number) participant).longValue());
             } else {
                 String username = extractUsername(participant);
                 if (username != null) {
-                    newParticipantUsernames.add(username);
-                    userRepository.findByUsername(username).ifPresent(user -> {
-                        if (!currentParticipants.contains(user)) {
-                            try {
-                                taskService.addParticipantToTask(taskId, user.getId());
-                                logger.info("Added participant by username: {}", username);
-                            } catch (Exception e) {
-                                logger.error("Error adding participant by username {}: {}", username, e.getMessage(), e);
-                            }
-                        }
-                    });
+                    participantUsernames.add(username);
                 }
             }
         }
         
-        logger.info("New participant IDs: {}", newParticipantIds);
-        logger.info("New participant usernames: {}", newParticipantUsernames);
-        
-        for (User currentParticipant : new ArrayList<>(currentParticipants)) {
-            boolean shouldKeep = newParticipantIds.contains(currentParticipant.getId()) || 
-                                newParticipantUsernames.contains(currentParticipant.getUsername());
-            
-            logger.info("Checking if should keep participant ID {}: {}", currentParticipant.getId(), shouldKeep);
-            
-            if (!shouldKeep) {
-                try {
-                    taskService.removeParticipantFromTask(taskId, currentParticipant.getId());
-                    logger.info("Removed participant: {} (ID: {})", currentParticipant.getUsername(), currentParticipant.getId());
-                } catch (Exception e) {
-                    logger.error("Error removing participant ID {}: {}", currentParticipant.getId(), e.getMessage(), e);
-                }
-            }
-        }
+        taskService.syncParticipants(taskId, participantIds, participantUsernames);
     }
     
     /**
-     * Обновляет чеклист задачи - полностью заменяет старый чеклист новым
+     * Обновляет чеклист задачи - пункты с id обновляются на месте, новые создаются, отсутствующие удаляются
      */
     @Transactional
     protected void updateTaskChecklist(Long taskId, Map<String, Object> payload) {
@@ -687,61 +729,25 @@ public class TaskController {
             return; // Чеклист не меняется, если его нет в запросе
         }
         
-        try {
-            logger.info("Replacing checklist for task ID: {}", taskId);
-            
-            // Получаем текущую задачу
-            Task currentTask = taskService.getTaskById(taskId).orElse(null);
-            if (currentTask == null) {
-                logger.error("Task not found with ID: {}", taskId);
-                return;
-            }
-            
-            // Очищаем существующий чеклист напрямую через коллекцию задачи
-            List<ChecklistItem> existingItems = new ArrayList<>(currentTask.getChecklist());
-            for (ChecklistItem item : existingItems) {
-                currentTask.removeChecklistItem(item);
-                checklistItemService.deleteChecklistItem(item.getId());
-            }
-            
-            // Сохраняем задачу с пустым чеклистом
-            taskService.saveAndLogTask(currentTask);
-            
-            // Если пришел пустой чеклист, просто завершаем (чеклист уже пустой)
-            if (payload.get("checklist") == null || 
-                "".equals(payload.get("checklist")) || 
-                (payload.get("checklist") instanceof List && ((List)payload.get("checklist")).isEmpty())) {
-                logger.info("Received empty checklist, all items deleted");
-                return;
-            }
-            
-            // Добавляем новые элементы из запроса
-            if (payload.get("checklist") instanceof List) {
-                List<Object> checklistItems = (List<Object>) payload.get("checklist");
-                logger.info("Adding {} new checklist items", checklistItems.size());
-                
-                for (int i = 0; i < checklistItems.size(); i++) {
-                    if (checklistItems.get(i) instanceof Map) {
-                        Map<String, Object> item = (Map<String, Object>) checklistItems.get(i);
-                        String text = safeStringValue(item.get("text"));
-                        boolean completed = item.containsKey("completed") && 
-                                          Boolean.parseBoolean(safeStringValue(item.get("completed")));
-                        
-                        // Создаем новые элементы и добавляем их к задаче
-                        ChecklistItem checklistItem = checklistItemService.createChecklistItem(taskId, text, i);
-                        if (completed) {
-                            checklistItemService.updateChecklistItem(checklistItem.getId(), null, true, null);
-                        }
-                        logger.info("Created new checklist item: {}", checklistItem.getId());
-                    }
+        // Пустое значение означает пустой чеклист
+        List<ChecklistItemDTO> items = new ArrayList<>();
+        Object checklist = payload.get("checklist");
+        if (checklist instanceof List) {
+            for (Object element : (List<Object>) checklist) {
+                if (element instanceof Map) {
+                    Map<String, Object> item = (Map<String, Object>) element;
+                    boolean completed = item.containsKey("completed") &&
+                                      Boolean.parseBoolean(safeStringValue(item.get("completed")));
+                    items.add(new ChecklistItemDTO(safeParseLong(item.get("id")),
+                            safeStringValue(item.get("text")), completed, null));
                 }
-            } else {
-                logger.warn("Unexpected checklist format: {}", payload.get("checklist"));
             }
-        } catch (Exception e) {
-            logger.error("Error replacing checklist: {}", e.getMessage(), e);
-            throw e;
+        } else if (checklist != null && !"".equals(checklist)) {
+            logger.warn("Unexpected checklist format: {}", checklist);
+            return;
         }
+
+        checklistItemService.syncChecklist(taskId, items);
     }
 
     /**
@@ -912,7 +918,7 @@ public class TaskController {
     }
 
     @PutMapping("/reorder")
-    public ResponseEntity<Void> reorderTasks(
+    public ResponseEntity<?> reorderTasks(
             @RequestBody List<Long> taskIds,
             @AuthenticationPrincipal User currentUser) {
         
@@ -933,7 +939,11 @@ public class TaskController {
             return ResponseEntity.status(403).build();
         }
         
-        taskService.updateTasksPositions(taskIds);
+        try {
+            taskService.updateTasksPositionsMerging(taskIds);
+        } catch (TaskConflictException e) {
+            return conflict(e);
+        }
         return ResponseEntity.ok().build();
     }
 
@@ -983,12 +993,22 @@ public class TaskController {
             }
         }
         
+        // Версия задачи и исходная колонка, которые видел клиент, необязательны
+        Long expectedVersion = safeParseLong(payload.get("version"));
+        Long sourceColumnId = safeParseLong(payload.get("sourceColumnId"));
+        
         logger.info("Moving task {} to column {} at position {}", taskId, targetColumnId, position);
-        Task movedTask = taskService.moveTaskToColumn(taskId, targetColumnId, position);
+        Task movedTask;
+        try {
+            movedTask = taskService.moveTaskMerging(taskId, targetColumnId, position, expectedVersion, sourceColumnId);
+        } catch (TaskConflictException e) {
+            return conflict(e);
+        }
         logger.info("Пока норм 52");
         if (movedTask != null) {
             Map<String, Object> notificationPayload = new HashMap<>(payload);
             notificationPayload.put("taskId", taskId);
+            notificationPayload.put("version", movedTask.getVersion());
             notificationPayload.put("initiatedBy", currentUser.getUsername());
             logger.info("Пока норм5252 сокет");
             webSocketService.sendMessageToBoard(boardId, "TASK_MOVED", notificationPayload);
@@ -1068,7 +1088,7 @@ public class TaskController {
     }
 
     @PutMapping("/column/{columnId}/reorder")
-    public ResponseEntity<Void> reorderTasksInColumn(
+    public ResponseEntity<?> reorderTasksInColumn(
             @PathVariable Long columnId,
             @RequestBody List<Long> taskIds,
             @AuthenticationPrincipal User currentUser) {
@@ -1094,9 +1114,24 @@ public class TaskController {
             }
         }
         
-        taskService.updateTasksPositions(taskIds);
+        try {
+            taskService.updateTasksPositionsMerging(taskIds);
+        } catch (TaskConflictException e) {
+            return conflict(e);
+        }
         return ResponseEntity.ok().build();
     }
+
+    /**
+     * 409 с текущим состоянием задач, чтобы клиент вернул карточки на актуальные места
+     */
+    private ResponseEntity<List<TaskDTO>> conflict(TaskConflictException e) {
+        logger.info("Конфликт перемещения: {}", e.getMessage());
+        List<TaskDTO> current = e.getCurrentTasks().stream()
+                .map(task -> convertToTaskDTO(task, task.getColumn().getBoard().getId()))
+                .collect(Collectors.toList());
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(current);
+    }
     
     /**
      * Получает все задачи, в которых текущий пользователь является участником
@@ -1164,4 +1199,28 @@ public class TaskController {
         logger.info("Returning {} tasks from search", tasks.size());
         return ResponseEntity.ok(tasks);
     }
-} 
\ No newline at end of file
+
+    /**
+     * Постраничный поиск задач по ключу (endDate, id). Следующая страница запрашивается
+     * с afterEndDate и afterId из ответа; totalEstimate заполняется при includeTotal, когда оценка уже посчитана
+     */
+    @PostMapping("/search/page")
+    public ResponseEntity<TaskSearchPageDTO> searchTasksPage(
+            @RequestBody TaskSearchRequest searchRequest,
+            @AuthenticationPrincipal User currentUser) {
+        return ResponseEntity.ok(taskService.searchTasksPage(searchRequest, currentUser.getId()));
+    }
+
+    /**
+     * Подсказки задач проекта при вводе названия: не больше limit задач с видимых пользователю досок.
+     * Запрос короче двух символов возвращает пустой список
+     */
+    @GetMapping("/typeahead")
+    public ResponseEntity<List<TaskSuggestionDTO>> typeahead(
+            @RequestParam("projectId") Long projectId,
+            @RequestParam("q") String query,
+            @RequestParam(value = "limit", required = false, defaultValue = "10") int limit,
+            @AuthenticationPrincipal User currentUser) {
+        return ResponseEntity.ok(taskTypeaheadIndex.suggest(currentUser.getId(), projectId, query, limit));
+    }
+}
@@ -1,9 +1,9 @@
 package course.project.API.controllers;
 
-import course.project.API.dto.board.TaskHistoryDTO;
+import course.project.API.dto.SimpleDTO;
+import course.project.API.dto.board.TaskHistoryPageDTO;
 import course.project.API.models.BoardRight;
 import course.project.API.models.Task;
-import course.project.API.models.TaskHistory;
 import course.project.API.models.User;
 import course.project.API.services.BoardRightService;
 import course.project.API.services.TaskHistoryService;
@@ -11,12 +11,12 @@ import course.project.API.services.TaskService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.List;
-import java.util.stream.Collectors;
+import java.time.LocalDateTime;
 
 @RestController
 @RequestMapping("/api/task-history")
@@ -24,6 +24,9 @@ public class TaskHistoryController {
 
     private static final Logger logger = LoggerFactory.getLogger(TaskHistoryController.class);
 
+    private static final int DEFAULT_HISTORY_PAGE_SIZE = 50;
+    private static final int MAX_HISTORY_PAGE_SIZE = 500;
+
     private final TaskHistoryService taskHistoryService;
     private final TaskService taskService;
     private final BoardRightService boardRightService;
@@ -38,9 +41,18 @@ public class TaskHistoryController {
         this.boardRightService = boardRightService;
     }
 
+    /**
+     * История задачи. С limit, beforeTimestamp/beforeId или summary отдается страница
+     * {@link TaskHistoryPageDTO} (keyset по (timestamp, id) от новых к старым), без них — весь список
+     */
     @GetMapping("/task/{taskId}")
-    public ResponseEntity<List<TaskHistoryDTO>> getTaskHistory(
+    public ResponseEntity<?> getTaskHistory(
             @PathVariable Long taskId,
+            @RequestParam(value = "limit", required = false) Integer limit,
+            @RequestParam(value = "beforeTimestamp", required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime beforeTimestamp,
+            @RequestParam(value = "beforeId", required = false) Long beforeId,
+            @RequestParam(value = "summary", defaultValue = "false") boolean summary,
             @AuthenticationPrincipal User currentUser) {
         
         Task task = taskService.getTaskById(taskId).orElse(null);
@@ -54,28 +66,37 @@ public class TaskHistoryController {
             return ResponseEntity.status(403).build();
         }
         
-        List<TaskHistory> history = taskHistoryService.getTaskHistoryForTask(taskId);
-        List<TaskHistoryDTO> historyDTOs = history.stream()
-                .map(TaskHistoryDTO::new)
-                .collect(Collectors.toList());
-                
-        return ResponseEntity.ok(historyDTOs);
+        if (limit == null && beforeTimestamp == null && beforeId == null && !summary) {
+            return ResponseEntity.ok(taskHistoryService.getTaskHistoryForTask(taskId));
+        }
+        int pageSize = limit != null ? limit : DEFAULT_HISTORY_PAGE_SIZE;
+        if (pageSize < 1 || pageSize > MAX_HISTORY_PAGE_SIZE) {
+            return ResponseEntity.badRequest().body(new SimpleDTO("limit must be between 1 and " + MAX_HISTORY_PAGE_SIZE));
+        }
+        return ResponseEntity.ok(taskHistoryService.getTaskHistoryPage(taskId, beforeTimestamp, beforeId, pageSize, summary));
     }
     
     @GetMapping("/board/{boardId}")
-    public ResponseEntity<List<TaskHistoryDTO>> getBoardTaskHistory(
+    public ResponseEntity<?> getBoardTaskHistory(
             @PathVariable Long boardId,
+            @RequestParam(value = "limit", required = false) Integer limit,
+            @RequestParam(value = "beforeTimestamp", required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime beforeTimestamp,
+            @RequestParam(value = "beforeId", required = false) Long beforeId,
+            @RequestParam(value = "summary", defaultValue = "false") boolean summary,
             @AuthenticationPrincipal User currentUser) {
         
         if (!boardRightService.hasBoardRight(boardId, currentUser.getId(), BoardRight.VIEW_BOARD)) {
             return ResponseEntity.status(403).build();
         }
         
-        List<TaskHistory> history = taskHistoryService.getTaskHistoryForBoard(boardId);
-        List<TaskHistoryDTO> historyDTOs = history.stream()
-                .map(TaskHistoryDTO::new)
-                .collect(Collectors.toList());
-                
-        return ResponseEntity.ok(historyDTOs);
+        if (limit == null && beforeTimestamp == null && beforeId == null && !summary) {
+            return ResponseEntity.ok(taskHistoryService.getTaskHistoryForBoard(boardId));
+        }
+        int pageSize = limit != null ? limit : DEFAULT_HISTORY_PAGE_SIZE;
+        if (pageSize < 1 || pageSize > MAX_HISTORY_PAGE_SIZE) {
+            return ResponseEntity.badRequest().body(new SimpleDTO("limit must be between 1 and " + MAX_HISTORY_PAGE_SIZE));
+        }
+        return ResponseEntity.ok(taskHistoryService.getBoardHistoryPage(boardId, beforeTimestamp, beforeId, pageSize, summary));
     }
-} 
\ No newline at end of file
+}
@@ -0,0 +1,120 @@
+package course.project.API.dto.board;
+
+import course.project.API.dto.user.UserResponse;
+
+import java.util.List;
+import java.util.Set;
+
+public class BoardChangesDTO {
+    private Long boardId;
+    private long since;
+    private long version;
+    private boolean resyncRequired;
+    private List<TaskDTO> tasks;
+    private Set<Long> deletedTaskIds;
+    private List<ColumnWithTasksDTO> columns;
+    private Set<Long> deletedColumnIds;
+    private Set<TagDTO> tags;
+    private Set<UserResponse> participants;
+    private Double completionPercentage;
+
+    public BoardChangesDTO() {
+    }
+
+    public static BoardChangesDTO resyncRequired(Long boardId, long since, long version) {
+        BoardChangesDTO dto = new BoardChangesDTO();
+        dto.setBoardId(boardId);
+        dto.setSince(since);
+        dto.setVersion(version);
+        dto.setResyncRequired(true);
+        return dto;
+    }
+
+    public Long getBoardId() {
+        return boardId;
+    }
+
+    public void setBoardId(Long boardId) {
+        this.boardId = boardId;
+    }
+
+    public long getSince() {
+        return since;
+    }
+
+    public void setSince(long since) {
+        this.since = since;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
+    public boolean isResyncRequired() {
+        return resyncRequired;
+    }
+
+    public void setResyncRequired(boolean resyncRequired) {
+        this.resyncRequired = resyncRequired;
+    }
+
+    public List<TaskDTO> getTasks() {
+        return tasks;
+    }
+
+    public void setTasks(List<TaskDTO> tasks) {
+        this.tasks = tasks;
+    }
+
+    public Set<Long> getDeletedTaskIds() {
+        return deletedTaskIds;
+    }
+
+    public void setDeletedTaskIds(Set<Long> deletedTaskIds) {
+        this.deletedTaskIds = deletedTaskIds;
+    }
+
+    public List<ColumnWithTasksDTO> getColumns() {
+        return columns;
+    }
+
+    public void setColumns(List<ColumnWithTasksDTO> columns) {
+        this.columns = columns;
+    }
+
+    public Set<Long> getDeletedColumnIds() {
+        return deletedColumnIds;
+    }
+
+    public void setDeletedColumnIds(Set<Long> deletedColumnIds) {
+        this.deletedColumnIds = deletedColumnIds;
+    }
+
+    public Set<TagDTO> getTags() {
+        return tags;
+    }
+
+    public void setTags(Set<TagDTO> tags) {
+        this.tags = tags;
+    }
+
+    public Set<UserResponse> getParticipants() {
+        return participants;
+    }
+
+    public void setParticipants(Set<UserResponse> participants) {
+        this.participants = participants;
+    }
+
+    public Double getCompletionPercentage() {
+        return completionPercentage;
+    }
+
+    public void setCompletionPercentage(Double completionPercentage) {
+        this.completionPercentage = completionPercentage;
+    }
+}
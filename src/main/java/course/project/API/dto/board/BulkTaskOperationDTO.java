@@ -0,0 +1,69 @@
+package course.project.API.dto.board;
+
+import java.util.List;
+
+/**
+ * Одна операция пакетного изменения задач. Какие поля нужны, зависит от type:
+ * MOVE — columnId, SET_TAG — tagId (null снимает тег), SET_PARTICIPANTS, ADD_PARTICIPANTS,
+ * REMOVE_PARTICIPANTS — userIds, DELETE — только taskIds
+ */
+public class BulkTaskOperationDTO {
+
+    public enum Type {
+        MOVE,
+        SET_TAG,
+        SET_PARTICIPANTS,
+        ADD_PARTICIPANTS,
+        REMOVE_PARTICIPANTS,
+        DELETE
+    }
+
+    private Type type;
+    private List<Long> taskIds;
+    private Long columnId;
+    private Long tagId;
+    private List<Long> userIds;
+
+    public BulkTaskOperationDTO() {
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public void setType(Type type) {
+        this.type = type;
+    }
+
+    public List<Long> getTaskIds() {
+        return taskIds;
+    }
+
+    public void setTaskIds(List<Long> taskIds) {
+        this.taskIds = taskIds;
+    }
+
+    public Long getColumnId() {
+        return columnId;
+    }
+
+    public void setColumnId(Long columnId) {
+        this.columnId = columnId;
+    }
+
+    public Long getTagId() {
+        return tagId;
+    }
+
+    public void setTagId(Long tagId) {
+        this.tagId = tagId;
+    }
+
+    public List<Long> getUserIds() {
+        return userIds;
+    }
+
+    public void setUserIds(List<Long> userIds) {
+        this.userIds = userIds;
+    }
+}
@@ -0,0 +1,66 @@
+package course.project.API.dto.board;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Итог пакетной операции по одной доске: измененные и удаленные задачи, версии измененных задач
+ * и версия доски после применения (см. синхронизацию по версиям доски)
+ */
+public class BulkTaskResultDTO {
+    private Long boardId;
+    private List<Long> updatedTaskIds;
+    private List<Long> deletedTaskIds;
+    private Map<Long, Long> taskVersions = new LinkedHashMap<>();
+    private long boardVersion;
+
+    public BulkTaskResultDTO() {
+    }
+
+    public BulkTaskResultDTO(Long boardId, List<Long> updatedTaskIds, List<Long> deletedTaskIds) {
+        this.boardId = boardId;
+        this.updatedTaskIds = updatedTaskIds;
+        this.deletedTaskIds = deletedTaskIds;
+    }
+
+    public Long getBoardId() {
+        return boardId;
+    }
+
+    public void setBoardId(Long boardId) {
+        this.boardId = boardId;
+    }
+
+    public List<Long> getUpdatedTaskIds() {
+        return updatedTaskIds;
+    }
+
+    public void setUpdatedTaskIds(List<Long> updatedTaskIds) {
+        this.updatedTaskIds = updatedTaskIds;
+    }
+
+    public List<Long> getDeletedTaskIds() {
+        return deletedTaskIds;
+    }
+
+    public void setDeletedTaskIds(List<Long> deletedTaskIds) {
+        this.deletedTaskIds = deletedTaskIds;
+    }
+
+    public Map<Long, Long> getTaskVersions() {
+        return taskVersions;
+    }
+
+    public void setTaskVersions(Map<Long, Long> taskVersions) {
+        this.taskVersions = taskVersions;
+    }
+
+    public long getBoardVersion() {
+        return boardVersion;
+    }
+
+    public void setBoardVersion(long boardVersion) {
+        this.boardVersion = boardVersion;
+    }
+}
@@ -4,6 +4,7 @@ public class ChecklistItemDTO {
     private Long id;
     private String text;
     private boolean completed;
+    // Разреженный ранг в чек-листе, не индекс
     private Integer position;
 
     public ChecklistItemDTO() {
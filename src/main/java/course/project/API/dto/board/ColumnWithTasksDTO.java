@@ -6,9 +6,12 @@ public class ColumnWithTasksDTO {
     private Long id;
     private String name;
     private Long boardId;
+    // Разреженный ранг на доске, не индекс
     private Integer position;
     private Set<TaskDTO> tasks;
     private boolean isCompletionColumn;
+    private Integer taskCount;
+    private boolean hasMoreTasks;
     
     public ColumnWithTasksDTO() {
     }
@@ -60,4 +63,20 @@ public class ColumnWithTasksDTO {
     public void setCompletionColumn(boolean isCompletionColumn) {
         this.isCompletionColumn = isCompletionColumn;
     }
+
+    public Integer getTaskCount() {
+        return taskCount;
+    }
+
+    public void setTaskCount(Integer taskCount) {
+        this.taskCount = taskCount;
+    }
+
+    public boolean isHasMoreTasks() {
+        return hasMoreTasks;
+    }
+
+    public void setHasMoreTasks(boolean hasMoreTasks) {
+        this.hasMoreTasks = hasMoreTasks;
+    }
 } 
\ No newline at end of file
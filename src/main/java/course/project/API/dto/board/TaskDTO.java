@@ -17,11 +17,13 @@ public class TaskDTO {
     private LocalDateTime startDate;
     private LocalDateTime endDate;
     private Set<UserResponse> participants;
+    // Разреженный ранг в колонке (см. RankService), не индекс: задачи сортируются по нему
     private Integer position;
     private TagDTO tag;
     private List<ChecklistItemDTO> checklist;
     private List<AttachmentDTO> attachments;
     private Long chatId;
+    private Long version;
     
     public TaskDTO() {
     }
@@ -145,4 +147,12 @@ public class TaskDTO {
     public void setChatId(Long chatId) {
         this.chatId = chatId;
     }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,58 @@
+package course.project.API.dto.board;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Страница истории от новых записей к старым. nextBeforeTimestamp и nextBeforeId - ключ последней
+ * записи страницы, передаются в следующий запрос как beforeTimestamp и beforeId
+ */
+public class TaskHistoryPageDTO {
+    private List<TaskHistoryDTO> items;
+    private LocalDateTime nextBeforeTimestamp;
+    private Long nextBeforeId;
+    private boolean hasMore;
+
+    public TaskHistoryPageDTO() {
+    }
+
+    public TaskHistoryPageDTO(List<TaskHistoryDTO> items, LocalDateTime nextBeforeTimestamp, Long nextBeforeId,
+                              boolean hasMore) {
+        this.items = items;
+        this.nextBeforeTimestamp = nextBeforeTimestamp;
+        this.nextBeforeId = nextBeforeId;
+        this.hasMore = hasMore;
+    }
+
+    public List<TaskHistoryDTO> getItems() {
+        return items;
+    }
+
+    public void setItems(List<TaskHistoryDTO> items) {
+        this.items = items;
+    }
+
+    public LocalDateTime getNextBeforeTimestamp() {
+        return nextBeforeTimestamp;
+    }
+
+    public void setNextBeforeTimestamp(LocalDateTime nextBeforeTimestamp) {
+        this.nextBeforeTimestamp = nextBeforeTimestamp;
+    }
+
+    public Long getNextBeforeId() {
+        return nextBeforeId;
+    }
+
+    public void setNextBeforeId(Long nextBeforeId) {
+        this.nextBeforeId = nextBeforeId;
+    }
+
+    public boolean isHasMore() {
+        return hasMore;
+    }
+
+    public void setHasMore(boolean hasMore) {
+        this.hasMore = hasMore;
+    }
+}
@@ -0,0 +1,67 @@
+package course.project.API.dto.board;
+
+import java.util.List;
+
+/**
+ * Страница задач колонки. nextAfter и nextAfterId - ключ (position, id) последней задачи страницы,
+ * передаются в следующий запрос как after и afterId. nextAfter == null при заданном nextAfterId:
+ * страницы дошли до задач без position
+ */
+public class TaskPageDTO {
+    private Long columnId;
+    private List<TaskDTO> tasks;
+    private Integer nextAfter;
+    private Long nextAfterId;
+    private boolean hasMore;
+
+    public TaskPageDTO() {
+    }
+
+    public TaskPageDTO(Long columnId, List<TaskDTO> tasks, Integer nextAfter, Long nextAfterId, boolean hasMore) {
+        this.columnId = columnId;
+        this.tasks = tasks;
+        this.nextAfter = nextAfter;
+        this.nextAfterId = nextAfterId;
+        this.hasMore = hasMore;
+    }
+
+    public Long getColumnId() {
+        return columnId;
+    }
+
+    public void setColumnId(Long columnId) {
+        this.columnId = columnId;
+    }
+
+    public List<TaskDTO> getTasks() {
+        return tasks;
+    }
+
+    public void setTasks(List<TaskDTO> tasks) {
+        this.tasks = tasks;
+    }
+
+    public Integer getNextAfter() {
+        return nextAfter;
+    }
+
+    public void setNextAfter(Integer nextAfter) {
+        this.nextAfter = nextAfter;
+    }
+
+    public Long getNextAfterId() {
+        return nextAfterId;
+    }
+
+    public void setNextAfterId(Long nextAfterId) {
+        this.nextAfterId = nextAfterId;
+    }
+
+    public boolean isHasMore() {
+        return hasMore;
+    }
+
+    public void setHasMore(boolean hasMore) {
+        this.hasMore = hasMore;
+    }
+}
@@ -0,0 +1,125 @@
+package course.project.API.dto.board;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Частичное обновление задачи. Применяются только поля, перечисленные в fields,
+ * null в перечисленном поле очищает значение (тег, даты)
+ */
+public class TaskPatchDTO {
+
+    public static final String TITLE = "title";
+    public static final String DESCRIPTION = "description";
+    public static final String POSITION = "position";
+    public static final String COLUMN_ID = "columnId";
+    public static final String TAG_ID = "tagId";
+    public static final String START_DATE = "startDate";
+    public static final String END_DATE = "endDate";
+    public static final String PARTICIPANTS = "participants";
+    public static final String CHECKLIST = "checklist";
+
+    public static final Set<String> ALL_FIELDS = Set.of(TITLE, DESCRIPTION, POSITION, COLUMN_ID, TAG_ID,
+            START_DATE, END_DATE, PARTICIPANTS, CHECKLIST);
+
+    private Set<String> fields = new LinkedHashSet<>();
+    private String title;
+    private String description;
+    // Ранг задачи, перед которой встает эта задача (как в TaskDTO); больше всех рангов — в конец колонки
+    private Integer position;
+    private Long columnId;
+    private Long tagId;
+    private LocalDateTime startDate;
+    private LocalDateTime endDate;
+    private List<Long> participants;
+    private List<ChecklistItemDTO> checklist;
+
+    public TaskPatchDTO() {
+    }
+
+    public boolean has(String field) {
+        return fields.contains(field);
+    }
+
+    public Set<String> getFields() {
+        return fields;
+    }
+
+    public void setFields(Set<String> fields) {
+        this.fields = fields;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public void setTitle(String title) {
+        this.title = title;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public void setDescription(String description) {
+        this.description = description;
+    }
+
+    public Integer getPosition() {
+        return position;
+    }
+
+    public void setPosition(Integer position) {
+        this.position = position;
+    }
+
+    public Long getColumnId() {
+        return columnId;
+    }
+
+    public void setColumnId(Long columnId) {
+        this.columnId = columnId;
+    }
+
+    public Long getTagId() {
+        return tagId;
+    }
+
+    public void setTagId(Long tagId) {
+        this.tagId = tagId;
+    }
+
+    public LocalDateTime getStartDate() {
+        return startDate;
+    }
+
+    public void setStartDate(LocalDateTime startDate) {
+        this.startDate = startDate;
+    }
+
+    public LocalDateTime getEndDate() {
+        return endDate;
+    }
+
+    public void setEndDate(LocalDateTime endDate) {
+        this.endDate = endDate;
+    }
+
+    public List<Long> getParticipants() {
+        return participants;
+    }
+
+    public void setParticipants(List<Long> participants) {
+        this.participants = participants;
+    }
+
+    public List<ChecklistItemDTO> getChecklist() {
+        return checklist;
+    }
+
+    public void setChecklist(List<ChecklistItemDTO> checklist) {
+        this.checklist = checklist;
+    }
+}
@@ -0,0 +1,69 @@
+package course.project.API.dto.board;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Страница результатов поиска по ключу (endDate, id). nextAfterEndDate и nextAfterId - ключ последней
+ * задачи страницы, передаются в следующий запрос как afterEndDate и afterId.
+ * totalEstimate - число найденных задач, посчитанное в фоне; null, пока оценки еще нет
+ */
+public class TaskSearchPageDTO {
+    private List<TaskDTO> items;
+    private LocalDateTime nextAfterEndDate;
+    private Long nextAfterId;
+    private boolean hasMore;
+    private Long totalEstimate;
+
+    public TaskSearchPageDTO() {
+    }
+
+    public TaskSearchPageDTO(List<TaskDTO> items, LocalDateTime nextAfterEndDate, Long nextAfterId, boolean hasMore,
+                             Long totalEstimate) {
+        this.items = items;
+        this.nextAfterEndDate = nextAfterEndDate;
+        this.nextAfterId = nextAfterId;
+        this.hasMore = hasMore;
+        this.totalEstimate = totalEstimate;
+    }
+
+    public List<TaskDTO> getItems() {
+        return items;
+    }
+
+    public void setItems(List<TaskDTO> items) {
+        this.items = items;
+    }
+
+    public LocalDateTime getNextAfterEndDate() {
+        return nextAfterEndDate;
+    }
+
+    public void setNextAfterEndDate(LocalDateTime nextAfterEndDate) {
+        this.nextAfterEndDate = nextAfterEndDate;
+    }
+
+    public Long getNextAfterId() {
+        return nextAfterId;
+    }
+
+    public void setNextAfterId(Long nextAfterId) {
+        this.nextAfterId = nextAfterId;
+    }
+
+    public boolean isHasMore() {
+        return hasMore;
+    }
+
+    public void setHasMore(boolean hasMore) {
+        this.hasMore = hasMore;
+    }
+
+    public Long getTotalEstimate() {
+        return totalEstimate;
+    }
+
+    public void setTotalEstimate(Long totalEstimate) {
+        this.totalEstimate = totalEstimate;
+    }
+}
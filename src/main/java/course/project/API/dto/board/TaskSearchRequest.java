@@ -1,5 +1,6 @@
 package course.project.API.dto.board;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 public class TaskSearchRequest {
@@ -11,6 +12,11 @@ public class TaskSearchRequest {
     private String sortDirection = "asc"; // "asc" or "desc"
     private Boolean isTitleSearch;
     private Boolean isDescriptionSearch;
+    // Постраничный поиск: ключ (endDate, id) последней задачи предыдущей страницы
+    private LocalDateTime afterEndDate;
+    private Long afterId;
+    private Integer limit;
+    private Boolean includeTotal;
 
     public TaskSearchRequest() {
     }
@@ -78,4 +84,36 @@ public class TaskSearchRequest {
     public void setSortDirection(String sortDirection) {
         this.sortDirection = sortDirection;
     }
-} 
\ No newline at end of file
+
+    public LocalDateTime getAfterEndDate() {
+        return afterEndDate;
+    }
+
+    public void setAfterEndDate(LocalDateTime afterEndDate) {
+        this.afterEndDate = afterEndDate;
+    }
+
+    public Long getAfterId() {
+        return afterId;
+    }
+
+    public void setAfterId(Long afterId) {
+        this.afterId = afterId;
+    }
+
+    public Integer getLimit() {
+        return limit;
+    }
+
+    public void setLimit(Integer limit) {
+        this.limit = limit;
+    }
+
+    public Boolean getIncludeTotal() {
+        return includeTotal;
+    }
+
+    public void setIncludeTotal(Boolean includeTotal) {
+        this.includeTotal = includeTotal;
+    }
+}
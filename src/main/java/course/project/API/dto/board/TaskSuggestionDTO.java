@@ -0,0 +1,43 @@
+package course.project.API.dto.board;
+
+/**
+ * Подсказка при вводе: задача, название которой содержит введенный текст
+ */
+public class TaskSuggestionDTO {
+    private Long id;
+    private String title;
+    private Long boardId;
+
+    public TaskSuggestionDTO() {
+    }
+
+    public TaskSuggestionDTO(Long id, String title, Long boardId) {
+        this.id = id;
+        this.title = title;
+        this.boardId = boardId;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public void setTitle(String title) {
+        this.title = title;
+    }
+
+    public Long getBoardId() {
+        return boardId;
+    }
+
+    public void setBoardId(Long boardId) {
+        this.boardId = boardId;
+    }
+}
@@ -0,0 +1,88 @@
+package course.project.API.dto.converters;
+
+import course.project.API.dto.board.AttachmentDTO;
+import course.project.API.dto.board.BoardDTO;
+import course.project.API.dto.board.ChecklistItemDTO;
+import course.project.API.dto.board.TagDTO;
+import course.project.API.dto.board.TaskDTO;
+import course.project.API.models.Attachment;
+import course.project.API.models.Board;
+import course.project.API.models.ChecklistItem;
+import course.project.API.models.DashBoardColumn;
+import course.project.API.models.Tag;
+import course.project.API.models.Task;
+
+/**
+ * Маппинг досок, тегов и задач в DTO.
+ * Заполняются те же поля, что раньше заполнял ModelMapper, плюс вложенные id (projectId доски, boardId тега,
+ * колонка задачи), которые STRICT-сопоставление оставляло пустыми. participantIds, completionPercentage,
+ * boardId и boardTitle задачи не заполняются, их выставляет вызывающий код
+ */
+public final class BoardMapper {
+
+    private BoardMapper() {
+    }
+
+    public static BoardDTO toBoardDTO(Board board) {
+        BoardDTO dto = new BoardDTO();
+        dto.setId(board.getId());
+        dto.setTitle(board.getTitle());
+        dto.setDescription(board.getDescription());
+        dto.setEmoji(board.getEmoji());
+        dto.setProjectId(board.getProject() != null ? board.getProject().getId() : null);
+        dto.setTags(PersistentBagToSetConverter.toList(board.getTags(), BoardMapper::toTagDTO));
+        return dto;
+    }
+
+    public static TagDTO toTagDTO(Tag tag) {
+        if (tag == null) {
+            return null;
+        }
+        return new TagDTO(tag.getId(), tag.getName(), tag.getColor(),
+                tag.getBoard() != null ? tag.getBoard().getId() : null);
+    }
+
+    public static TaskDTO toTaskDTO(Task task) {
+        TaskDTO dto = new TaskDTO();
+        dto.setId(task.getId());
+        dto.setTitle(task.getTitle());
+        dto.setDescription(task.getDescription());
+
+        // column_id заполняется хибернейтом только после flush, у новой задачи берем id из самой колонки
+        DashBoardColumn column = task.getColumn();
+        dto.setColumnId(task.getColumnId() != null ? task.getColumnId() : column != null ? column.getId() : null);
+        dto.setColumnName(column != null ? column.getName() : null);
+
+        dto.setStartDate(task.getStartDate());
+        dto.setEndDate(task.getEndDate());
+        dto.setPosition(task.getPosition());
+        dto.setParticipants(UserMapper.toUserResponses(task.getParticipants()));
+        dto.setTag(toTagDTO(task.getTag()));
+        dto.setChecklist(PersistentBagToSetConverter.toList(task.getChecklist(), BoardMapper::toChecklistItemDTO));
+        dto.setAttachments(PersistentBagToSetConverter.toList(task.getAttachments(), BoardMapper::toAttachmentDTO));
+        dto.setChatId(task.getChatId());
+        dto.setVersion(task.getVersion());
+        return dto;
+    }
+
+    public static ChecklistItemDTO toChecklistItemDTO(ChecklistItem item) {
+        ChecklistItemDTO dto = new ChecklistItemDTO();
+        dto.setId(item.getId());
+        dto.setText(item.getText());
+        dto.setCompleted(item.isCompleted());
+        dto.setPosition(item.getPosition());
+        return dto;
+    }
+
+    public static AttachmentDTO toAttachmentDTO(Attachment attachment) {
+        AttachmentDTO dto = new AttachmentDTO();
+        dto.setId(attachment.getId());
+        dto.setFileName(attachment.getFileName());
+        dto.setFilePath(attachment.getFilePath());
+        dto.setFileType(attachment.getFileType());
+        dto.setFileSize(attachment.getFileSize());
+        dto.setUploadedBy(attachment.getUploadedBy());
+        dto.setUploadedAt(attachment.getUploadedAt());
+        return dto;
+    }
+}
@@ -1,17 +1,38 @@
 package course.project.API.dto.converters;
 
-import org.modelmapper.AbstractConverter;
-import org.hibernate.collection.spi.PersistentBag;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
+import java.util.function.Function;
 
-// Это чтобы коллекции в DTO нормально конвертились, а то там ошибка стреляет (как можно заметить это для SET'ов, если нужен будет List, надо просто еще один сделать)
-public class PersistentBagToSetConverter<T> extends AbstractConverter<PersistentBag, Set<T>> {
-    @Override
-    protected Set<T> convert(PersistentBag source) {
+// Это чтобы коллекции в DTO нормально конвертились: хибернейтовские PersistentBag/PersistentSet никогда не отдаются наружу,
+// элементы копируются в обычную коллекцию. null остается null, как раньше было в ModelMapper
+public final class PersistentBagToSetConverter {
+
+    private PersistentBagToSetConverter() {
+    }
+
+    public static <S, T> Set<T> toSet(Collection<S> source, Function<S, T> mapper) {
+        if (source == null) {
+            return null;
+        }
+        Set<T> result = new HashSet<>(Math.max(16, (int) (source.size() / 0.75f) + 1));
+        for (S element : source) {
+            result.add(mapper.apply(element));
+        }
+        return result;
+    }
+
+    public static <S, T> List<T> toList(Collection<S> source, Function<S, T> mapper) {
         if (source == null) {
             return null;
         }
-        return new HashSet<>(source);
+        List<T> result = new ArrayList<>(source.size());
+        for (S element : source) {
+            result.add(mapper.apply(element));
+        }
+        return result;
     }
-} 
\ No newline at end of file
+}
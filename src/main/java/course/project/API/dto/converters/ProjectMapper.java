@@ -0,0 +1,46 @@
+package course.project.API.dto.converters;
+
+import course.project.API.dto.invitation.InvitationDTO;
+import course.project.API.dto.invitation.InvitationWithRecipientDTO;
+import course.project.API.dto.project.ProjectDTO;
+import course.project.API.models.Invitation;
+import course.project.API.models.Project;
+
+public final class ProjectMapper {
+
+    private ProjectMapper() {
+    }
+
+    public static ProjectDTO toProjectDTO(Project project) {
+        return new ProjectDTO(project.getId(), project.getTitle(), project.getDescription(), project.getEmoji());
+    }
+
+    public static InvitationDTO toInvitationDTO(Invitation invitation) {
+        InvitationDTO dto = new InvitationDTO();
+        dto.setId(invitation.getId());
+        dto.setSenderId(invitation.getSender() != null ? invitation.getSender().getId() : null);
+        dto.setRecipientId(invitation.getRecipient() != null ? invitation.getRecipient().getId() : null);
+        dto.setProjectId(invitation.getProject() != null ? invitation.getProject().getId() : null);
+        dto.setStatus(invitation.getStatus());
+        dto.setCreatedAt(invitation.getCreatedAt());
+
+        if (invitation.getSender() != null) {
+            dto.setSenderName(invitation.getSender().getName());
+        }
+        if (invitation.getProject() != null) {
+            dto.setProjectTitle(invitation.getProject().getTitle());
+        }
+        return dto;
+    }
+
+    public static InvitationWithRecipientDTO toInvitationWithRecipientDTO(Invitation invitation) {
+        InvitationWithRecipientDTO dto = new InvitationWithRecipientDTO();
+        dto.setId(invitation.getId());
+        dto.setSenderId(invitation.getSender().getId());
+        dto.setProjectId(invitation.getProject().getId());
+        dto.setStatus(invitation.getStatus());
+        dto.setCreatedAt(invitation.getCreatedAt());
+        dto.setRecipient(UserMapper.toUserResponse(invitation.getRecipient()));
+        return dto;
+    }
+}
@@ -0,0 +1,24 @@
+package course.project.API.dto.converters;
+
+import course.project.API.dto.user.UserResponse;
+import course.project.API.models.User;
+
+import java.util.Collection;
+import java.util.Set;
+
+public final class UserMapper {
+
+    private UserMapper() {
+    }
+
+    public static UserResponse toUserResponse(User user) {
+        if (user == null) {
+            return null;
+        }
+        return new UserResponse(user.getId(), user.getName(), user.getAvatarURL());
+    }
+
+    public static Set<UserResponse> toUserResponses(Collection<User> users) {
+        return PersistentBagToSetConverter.toSet(users, UserMapper::toUserResponse);
+    }
+}
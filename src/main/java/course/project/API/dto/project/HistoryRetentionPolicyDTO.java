@@ -0,0 +1,43 @@
+package course.project.API.dto.project;
+
+/**
+ * Политика хранения истории задач проекта. null — значение по умолчанию, 0 — шаг отключен
+ */
+public class HistoryRetentionPolicyDTO {
+    private Long projectId;
+    private Integer collapseAfterDays;
+    private Integer archiveAfterDays;
+
+    public HistoryRetentionPolicyDTO() {
+    }
+
+    public HistoryRetentionPolicyDTO(Long projectId, Integer collapseAfterDays, Integer archiveAfterDays) {
+        this.projectId = projectId;
+        this.collapseAfterDays = collapseAfterDays;
+        this.archiveAfterDays = archiveAfterDays;
+    }
+
+    public Long getProjectId() {
+        return projectId;
+    }
+
+    public void setProjectId(Long projectId) {
+        this.projectId = projectId;
+    }
+
+    public Integer getCollapseAfterDays() {
+        return collapseAfterDays;
+    }
+
+    public void setCollapseAfterDays(Integer collapseAfterDays) {
+        this.collapseAfterDays = collapseAfterDays;
+    }
+
+    public Integer getArchiveAfterDays() {
+        return archiveAfterDays;
+    }
+
+    public void setArchiveAfterDays(Integer archiveAfterDays) {
+        this.archiveAfterDays = archiveAfterDays;
+    }
+}
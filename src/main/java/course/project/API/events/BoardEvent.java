@@ -0,0 +1,125 @@
+package course.project.API.events;
+
+import course.project.API.models.Board;
+import course.project.API.models.DashBoardColumn;
+import course.project.API.models.Task;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Доменное событие изменения доски. Публикуется сервисами внутри транзакции
+ * и обрабатывается после коммита (см. {@link course.project.API.services.BoardReadModel})
+ */
+public class BoardEvent {
+
+    public enum Type {
+        // Изменилась сама задача: поля, тег, участники, чек-лист, вложения
+        TASK_CHANGED,
+        TASK_DELETED,
+        // Пакетная операция над задачами: один раз на доску для всех затронутых задач (entityIds)
+        // с версиями измененных задач после операции (taskVersions)
+        TASKS_CHANGED,
+        // Изменился состав или порядок задач колонки
+        COLUMN_TASKS_CHANGED,
+        // Изменились колонки доски: название, позиция, создание, удаление
+        COLUMNS_CHANGED,
+        // Изменились поля доски, теги или участники
+        BOARD_CHANGED,
+        BOARD_CREATED,
+        BOARD_DELETED
+    }
+
+    private final Type type;
+    private final Long boardId;
+    private final Long projectId;
+    private final Long entityId;
+    private final List<Long> entityIds;
+    private final Map<Long, Long> taskVersions;
+
+    public BoardEvent(Type type, Long boardId, Long projectId, Long entityId) {
+        this.type = type;
+        this.boardId = boardId;
+        this.projectId = projectId;
+        this.entityId = entityId;
+        this.entityIds = entityId != null ? List.of(entityId) : List.of();
+        this.taskVersions = Map.of();
+    }
+
+    private BoardEvent(Long boardId, List<Long> taskIds, Map<Long, Long> taskVersions) {
+        this.type = Type.TASKS_CHANGED;
+        this.boardId = boardId;
+        this.projectId = null;
+        this.entityId = null;
+        this.entityIds = List.copyOf(taskIds);
+        this.taskVersions = Map.copyOf(taskVersions);
+    }
+
+    public static BoardEvent taskChanged(Task task) {
+        return new BoardEvent(Type.TASK_CHANGED, task.getColumn().getBoard().getId(), null, task.getId());
+    }
+
+    public static BoardEvent taskDeleted(Task task) {
+        return new BoardEvent(Type.TASK_DELETED, task.getColumn().getBoard().getId(), null, task.getId());
+    }
+
+    /**
+     * Изменены или удалены задачи доски одной пакетной операцией.
+     * taskVersions — версии измененных задач после операции, удаленных задач в нем нет
+     */
+    public static BoardEvent tasksChanged(Long boardId, Collection<Long> taskIds, Map<Long, Long> taskVersions) {
+        return new BoardEvent(boardId, new ArrayList<>(taskIds), taskVersions);
+    }
+
+    public static BoardEvent columnTasksChanged(DashBoardColumn column) {
+        return new BoardEvent(Type.COLUMN_TASKS_CHANGED, column.getBoard().getId(), null, column.getId());
+    }
+
+    public static BoardEvent columnsChanged(Long boardId) {
+        return new BoardEvent(Type.COLUMNS_CHANGED, boardId, null, null);
+    }
+
+    public static BoardEvent boardChanged(Long boardId) {
+        return new BoardEvent(Type.BOARD_CHANGED, boardId, null, null);
+    }
+
+    public static BoardEvent boardCreated(Board board) {
+        return new BoardEvent(Type.BOARD_CREATED, board.getId(), board.getProject().getId(), null);
+    }
+
+    public static BoardEvent boardDeleted(Board board) {
+        return new BoardEvent(Type.BOARD_DELETED, board.getId(), board.getProject().getId(), null);
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public Long getBoardId() {
+        return boardId;
+    }
+
+    public Long getProjectId() {
+        return projectId;
+    }
+
+    public Long getEntityId() {
+        return entityId;
+    }
+
+    public List<Long> getEntityIds() {
+        return entityIds;
+    }
+
+    public Map<Long, Long> getTaskVersions() {
+        return taskVersions;
+    }
+
+    @Override
+    public String toString() {
+        return "BoardEvent{" + type + ", boardId=" + boardId + ", entityId=" + entityId
+                + (type == Type.TASKS_CHANGED ? ", entityIds=" + entityIds : "") + "}";
+    }
+}
@@ -0,0 +1,27 @@
+package course.project.API.events;
+
+import course.project.API.models.Task;
+import course.project.API.models.User;
+
+/**
+ * Задача удалена пакетной операцией. task — копия полей задачи на момент удаления,
+ * история записывается после коммита (см. {@link course.project.API.services.TaskHistoryService})
+ */
+public class TaskDeletedEvent {
+
+    private final User initiator;
+    private final Task task;
+
+    public TaskDeletedEvent(User initiator, Task task) {
+        this.initiator = initiator;
+        this.task = task;
+    }
+
+    public User getInitiator() {
+        return initiator;
+    }
+
+    public Task getTask() {
+        return task;
+    }
+}
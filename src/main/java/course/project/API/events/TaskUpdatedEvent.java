@@ -0,0 +1,33 @@
+package course.project.API.events;
+
+import course.project.API.models.Task;
+import course.project.API.models.User;
+
+/**
+ * Задача обновлена через PATCH. Публикуется внутри транзакции, история записывается
+ * после коммита (см. {@link course.project.API.services.TaskHistoryService})
+ */
+public class TaskUpdatedEvent {
+
+    private final User initiator;
+    private final Task oldTask;
+    private final Task task;
+
+    public TaskUpdatedEvent(User initiator, Task oldTask, Task task) {
+        this.initiator = initiator;
+        this.oldTask = oldTask;
+        this.task = task;
+    }
+
+    public User getInitiator() {
+        return initiator;
+    }
+
+    public Task getOldTask() {
+        return oldTask;
+    }
+
+    public Task getTask() {
+        return task;
+    }
+}
@@ -36,6 +36,16 @@ public class DashBoardColumn {
     @Column
     private Boolean isCompletionColumn = false;
 
+    // Поддерживается SQL-инкрементами в DashBoardColumnRepository, сущность его не пишет
+    @Column(name = "task_count", insertable = false, updatable = false, columnDefinition = "INT NOT NULL DEFAULT 0")
+    private Integer taskCount = 0;
+
+    // Перемещение задачи в колонку увеличивает версию колонки, поэтому одновременные вставки
+    // в одну колонку конфликтуют и пересчитываются, а перемещения в разные колонки не мешают друг другу
+    @Version
+    @Column(nullable = false, columnDefinition = "BIGINT NOT NULL DEFAULT 0")
+    private Long version = 0L;
+
     public DashBoardColumn() {
     }
 
@@ -100,6 +110,14 @@ public class DashBoardColumn {
         this.position = position;
     }
 
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
     public boolean isCompletionColumn() {
         return isCompletionColumn != null && isCompletionColumn;
     }
@@ -108,6 +126,10 @@ public class DashBoardColumn {
         isCompletionColumn = completionColumn;
     }
 
+    public int getTaskCount() {
+        return taskCount != null ? taskCount : 0;
+    }
+
     public void addTask(Task task) {
         tasks.add(task);
         task.setColumn(this);
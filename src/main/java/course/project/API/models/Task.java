@@ -72,6 +72,11 @@ public class Task {
     @Column
     private Integer position;
 
+    // Оптимистическая блокировка: одновременные изменения одной задачи не перезаписывают друг друга
+    @Version
+    @Column(nullable = false, columnDefinition = "BIGINT NOT NULL DEFAULT 0")
+    private Long version = 0L;
+
     public Task() {
     }
 
@@ -213,6 +218,14 @@ public class Task {
         return chatId;
     }
 
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
     public Chat getChat() {
         return chat;
     }
@@ -221,7 +234,11 @@ public class Task {
         this.chat = chat;
     }
 
+    /**
+     * Колонка берется из связи: поле column_id только для чтения и не меняется до перезагрузки сущности,
+     * а JSON задачи в истории должен отражать перемещение сразу
+     */
     public Long getColumnId() {
-        return columnId;
+        return column != null && column.getId() != null ? column.getId() : columnId;
     }
 }
\ No newline at end of file
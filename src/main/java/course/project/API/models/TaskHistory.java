@@ -33,9 +33,25 @@ public class TaskHistory {
     @Column(columnDefinition = "TEXT")
     private String newTaskJson;
     
-    @Column(columnDefinition = "TEXT", nullable = false)
+    // Полный снимок задачи, только в контрольных точках цепочки
+    @Column(columnDefinition = "TEXT")
     private String taskSnapshot;
     
+    // Идентификатор задачи для цепочки версий, в отличие от task_id не обнуляется при удалении задачи
+    @Column(name = "task_ref_id")
+    private Long taskRefId;
+    
+    // Номер версии задачи в цепочке: 1 — создание, 0 — старая строка вне цепочки
+    @Column(name = "version_no")
+    private Integer versionNo;
+    
+    @Column(nullable = false)
+    private boolean checkpoint;
+    
+    // JSON merge patch относительно предыдущей версии
+    @Column(columnDefinition = "TEXT")
+    private String diffJson;
+    
     public TaskHistory() {
     }
     
@@ -44,6 +60,7 @@ public class TaskHistory {
         this.timestamp = LocalDateTime.now();
         this.user = user;
         this.taskId = taskId;
+        this.taskRefId = taskId;
         this.boardId = boardId;
         this.oldTaskJson = oldTaskJson;
         this.newTaskJson = newTaskJson;
@@ -121,4 +138,36 @@ public class TaskHistory {
     public void setTaskSnapshot(String taskSnapshot) {
         this.taskSnapshot = taskSnapshot;
     }
-} 
\ No newline at end of file
+    
+    public Long getTaskRefId() {
+        return taskRefId;
+    }
+    
+    public void setTaskRefId(Long taskRefId) {
+        this.taskRefId = taskRefId;
+    }
+    
+    public Integer getVersionNo() {
+        return versionNo;
+    }
+    
+    public void setVersionNo(Integer versionNo) {
+        this.versionNo = versionNo;
+    }
+    
+    public boolean isCheckpoint() {
+        return checkpoint;
+    }
+    
+    public void setCheckpoint(boolean checkpoint) {
+        this.checkpoint = checkpoint;
+    }
+    
+    public String getDiffJson() {
+        return diffJson;
+    }
+    
+    public void setDiffJson(String diffJson) {
+        this.diffJson = diffJson;
+    }
+}
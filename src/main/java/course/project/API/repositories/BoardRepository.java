@@ -32,4 +32,29 @@ public interface BoardRepository extends JpaRepository<Board, Long> {
 
     @EntityGraph(attributePaths = {"participants"})
     Board findWithParticipantsAndOwnerById(Long id);
+
+    @Query(value = """
+            SELECT b.id, b.title, b.description, b.emoji, b.project_id,
+                   c.id, c.name, c.position, c.is_completion_column, c.task_count
+            FROM boards b
+            LEFT JOIN dashboard_columns c ON c.board_id = b.id
+            WHERE b.id = :boardId
+            """, nativeQuery = true)
+    List<Object[]> findBoardWithColumnRows(@Param("boardId") Long boardId);
+
+    @Query("SELECT b.id FROM Board b WHERE b.project.id = :projectId ORDER BY b.id")
+    List<Long> findIdsByProjectId(@Param("projectId") Long projectId);
+
+    @Query(value = """
+            SELECT tag.id, tag.name, tag.color FROM tags tag
+            WHERE tag.board_id = :boardId
+            """, nativeQuery = true)
+    List<Object[]> findTagRowsByBoardId(@Param("boardId") Long boardId);
+
+    @Query(value = """
+            SELECT u.id, u.name, u.avatarurl FROM board_participants bp
+            JOIN users u ON u.id = bp.user_id
+            WHERE bp.board_id = :boardId
+            """, nativeQuery = true)
+    List<Object[]> findParticipantRowsByBoardId(@Param("boardId") Long boardId);
 }
\ No newline at end of file
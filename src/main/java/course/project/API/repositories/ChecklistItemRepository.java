@@ -3,6 +3,9 @@ package course.project.API.repositories;
 import course.project.API.models.ChecklistItem;
 import course.project.API.models.Task;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -15,4 +18,54 @@ public interface ChecklistItemRepository extends JpaRepository<ChecklistItem, Lo
     List<ChecklistItem> findByTaskId(Long taskId);
     
     void deleteByTaskId(Long taskId);
-} 
\ No newline at end of file
+
+    /**
+     * Id и ранги всех пунктов чек-листа по порядку
+     */
+    @Query(value = """
+            SELECT id, position FROM checklist_items
+            WHERE task_id = :taskId
+            ORDER BY position IS NULL, position, id
+            """, nativeQuery = true)
+    List<Object[]> findRankRowsByTaskId(@Param("taskId") Long taskId);
+
+    /**
+     * Первый по порядку элемент с рангом не меньше position, без элемента excludeId: id и ранг
+     */
+    @Query(value = """
+            SELECT id, position FROM checklist_items
+            WHERE task_id = :taskId AND position >= :position AND (:excludeId IS NULL OR id <> :excludeId)
+            ORDER BY position, id
+            LIMIT 1
+            """, nativeQuery = true)
+    List<Object[]> findNextRankRowByTaskId(@Param("taskId") Long taskId, @Param("excludeId") Long excludeId,
+                                           @Param("position") int position);
+
+    /**
+     * Ранг элемента, стоящего непосредственно перед элементом (position, id), без элемента excludeId
+     */
+    @Query(value = """
+            SELECT position FROM checklist_items
+            WHERE task_id = :taskId AND (:excludeId IS NULL OR id <> :excludeId)
+              AND (position < :position OR (position = :position AND id < :id))
+            ORDER BY position DESC, id DESC
+            LIMIT 1
+            """, nativeQuery = true)
+    List<Integer> findPreviousRankByTaskId(@Param("taskId") Long taskId, @Param("excludeId") Long excludeId,
+                                           @Param("position") int position, @Param("id") Long id);
+
+    @Query(value = "SELECT MAX(position) FROM checklist_items WHERE task_id = :taskId", nativeQuery = true)
+    Integer findMaxPositionByTaskId(@Param("taskId") Long taskId);
+
+    /**
+     * Перенумеровывает ранги пунктов чек-листа с шагом step одним запросом, сохраняя порядок
+     */
+    @Modifying
+    @Query(value = """
+            UPDATE checklist_items target
+            JOIN (SELECT id, ROW_NUMBER() OVER (ORDER BY position IS NULL, position, id) AS rn
+                  FROM checklist_items WHERE task_id = :taskId) ranked ON ranked.id = target.id
+            SET target.position = ranked.rn * :step
+            """, nativeQuery = true)
+    int renumberPositionsByTaskId(@Param("taskId") Long taskId, @Param("step") int step);
+}
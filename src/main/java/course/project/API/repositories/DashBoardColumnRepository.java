@@ -3,9 +3,13 @@ package course.project.API.repositories;
 import course.project.API.models.DashBoardColumn;
 import course.project.API.models.Board;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface DashBoardColumnRepository extends JpaRepository<DashBoardColumn, Long> {
@@ -15,6 +19,68 @@ public interface DashBoardColumnRepository extends JpaRepository<DashBoardColumn
     List<DashBoardColumn> findByBoard_Id(Long boardId);
     
     void deleteByBoard_Id(Long boardId);
-    
 
-} 
\ No newline at end of file
+    @Modifying
+    @Query(value = "UPDATE dashboard_columns SET task_count = task_count + :delta WHERE id = :columnId", nativeQuery = true)
+    void incrementTaskCount(@Param("columnId") Long columnId, @Param("delta") int delta);
+
+    /**
+     * Увеличивает версию колонки, чтобы незавершенные перемещения задач в нее конфликтовали и пересчитывались
+     */
+    @Modifying
+    @Query(value = "UPDATE dashboard_columns SET version = version + 1 WHERE id = :columnId", nativeQuery = true)
+    void incrementVersion(@Param("columnId") Long columnId);
+
+    @Query("SELECT c.board.id FROM DashBoardColumn c WHERE c.id = :columnId")
+    Optional<Long> findBoardIdById(@Param("columnId") Long columnId);
+
+    /**
+     * Id и ранги всех колонок доски по порядку
+     */
+    @Query(value = """
+            SELECT id, position FROM dashboard_columns
+            WHERE board_id = :boardId
+            ORDER BY position IS NULL, position, id
+            """, nativeQuery = true)
+    List<Object[]> findRankRowsByBoardId(@Param("boardId") Long boardId);
+
+    /**
+     * Первый по порядку элемент с рангом не меньше position, без элемента excludeId: id и ранг
+     */
+    @Query(value = """
+            SELECT id, position FROM dashboard_columns
+            WHERE board_id = :boardId AND position >= :position AND (:excludeId IS NULL OR id <> :excludeId)
+            ORDER BY position, id
+            LIMIT 1
+            """, nativeQuery = true)
+    List<Object[]> findNextRankRowByBoardId(@Param("boardId") Long boardId, @Param("excludeId") Long excludeId,
+                                            @Param("position") int position);
+
+    /**
+     * Ранг элемента, стоящего непосредственно перед элементом (position, id), без элемента excludeId
+     */
+    @Query(value = """
+            SELECT position FROM dashboard_columns
+            WHERE board_id = :boardId AND (:excludeId IS NULL OR id <> :excludeId)
+              AND (position < :position OR (position = :position AND id < :id))
+            ORDER BY position DESC, id DESC
+            LIMIT 1
+            """, nativeQuery = true)
+    List<Integer> findPreviousRankByBoardId(@Param("boardId") Long boardId, @Param("excludeId") Long excludeId,
+                                            @Param("position") int position, @Param("id") Long id);
+
+    @Query(value = "SELECT MAX(position) FROM dashboard_columns WHERE board_id = :boardId", nativeQuery = true)
+    Integer findMaxPositionByBoardId(@Param("boardId") Long boardId);
+
+    /**
+     * Перенумеровывает ранги колонок доски с шагом step одним запросом, сохраняя порядок
+     */
+    @Modifying
+    @Query(value = """
+            UPDATE dashboard_columns target
+            JOIN (SELECT id, ROW_NUMBER() OVER (ORDER BY position IS NULL, position, id) AS rn
+                  FROM dashboard_columns WHERE board_id = :boardId) ranked ON ranked.id = target.id
+            SET target.position = ranked.rn * :step
+            """, nativeQuery = true)
+    int renumberPositionsByBoardId(@Param("boardId") Long boardId, @Param("step") int step);
+}
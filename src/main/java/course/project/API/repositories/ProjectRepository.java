@@ -16,12 +16,37 @@ public interface ProjectRepository extends JpaRepository<Project, Long> {
 
 
 
-    @Query("""
-        SELECT p FROM Project p
-        LEFT JOIN FETCH p.participants pp
-        WHERE p.ownerId = :userId OR pp.id = :userId
-""")
-    List<Project> findProjectsByUserId(@Param("userId") Long userId);
+    @Query(value = """
+            SELECT p.id, p.title, p.description, p.emoji, o.id, o.name, o.avatarurl FROM projects p
+            JOIN users o ON o.id = p.owner_id
+            WHERE p.owner_id = :userId OR p.id IN (
+                SELECT pp.project_id FROM project_participants pp
+                WHERE pp.user_id = :userId
+            )
+            ORDER BY p.id
+            """, nativeQuery = true)
+    List<Object[]> findProjectRowsByUserId(@Param("userId") Long userId);
+
+    @Query(value = """
+            SELECT pp.project_id, u.id, u.name, u.avatarurl FROM project_participants pp
+            JOIN users u ON u.id = pp.user_id
+            WHERE pp.project_id IN :projectIds
+            """, nativeQuery = true)
+    List<Object[]> findParticipantRowsByProjectIds(@Param("projectIds") List<Long> projectIds);
+
+    /**
+     * Число задач и выполненных задач по каждой доске проектов, из материализованных счетчиков колонок
+     */
+    @Query(value = """
+            SELECT b.project_id, b.id,
+                   COALESCE(SUM(c.task_count), 0),
+                   COALESCE(SUM(CASE WHEN c.is_completion_column = TRUE THEN c.task_count ELSE 0 END), 0)
+            FROM boards b
+            LEFT JOIN dashboard_columns c ON c.board_id = b.id
+            WHERE b.project_id IN :projectIds
+            GROUP BY b.project_id, b.id
+            """, nativeQuery = true)
+    List<Object[]> findBoardTaskCountRowsByProjectIds(@Param("projectIds") List<Long> projectIds);
 
 
     boolean existsByOwner_UsernameAndParticipants_Username(String ownerUsername, String participantUsername);
@@ -49,14 +74,4 @@ public interface ProjectRepository extends JpaRepository<Project, Long> {
             )) AND pur.user_id = :userId
             """, nativeQuery = true)
     List<Object[]> findProjectIdAndRightNameByOwnerIdOrParticipantId(@Param("userId") Long userId);
-
-    @Query("""
-            SELECT p FROM Project p
-            LEFT JOIN FETCH p.boards b 
-            LEFT JOIN FETCH b.columns c LEFT JOIN FETCH c.tasks 
-            WHERE p.id IN :projectIds
-            """)
-    List<Project> findProjectsByIdsWithBoardsColumnsTasks(@Param("projectIds") List<Long> projectIds);
-
-
 }
\ No newline at end of file
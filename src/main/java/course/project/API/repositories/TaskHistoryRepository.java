@@ -1,6 +1,7 @@
 package course.project.API.repositories;
 
 import course.project.API.models.TaskHistory;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
@@ -9,6 +10,7 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Repository
@@ -21,4 +23,51 @@ public interface TaskHistoryRepository extends JpaRepository<TaskHistory, Long>
     
     @Query("SELECT th FROM TaskHistory th WHERE th.boardId = :boardId ORDER BY th.timestamp DESC")
     List<TaskHistory> findTaskHistoryByBoardId(@Param("boardId") Long boardId);
-} 
\ No newline at end of file
+
+    /**
+     * Краткая страница истории доски без JSON: id, action_type, timestamp, task_id, board_id, u.id, u.name, u.avatarurl
+     */
+    @Query(value = """
+            SELECT h.id, h.action_type, h.timestamp, h.task_id, h.board_id, u.id AS user_id, u.name, u.avatarurl
+            FROM task_history h
+            LEFT JOIN users u ON u.id = h.user_id
+            WHERE h.board_id = :boardId AND (h.timestamp < :beforeTimestamp
+                 OR (h.timestamp = :beforeTimestamp AND h.id < :beforeId))
+            ORDER BY h.timestamp DESC, h.id DESC
+            LIMIT :limit
+            """, nativeQuery = true)
+    List<Object[]> findSummaryRowsByBoardIdBefore(@Param("boardId") Long boardId,
+                                                  @Param("beforeTimestamp") LocalDateTime beforeTimestamp,
+                                                  @Param("beforeId") Long beforeId,
+                                                  @Param("limit") int limit);
+
+    @Query(value = """
+            SELECT h.id, h.action_type, h.timestamp, h.task_id, h.board_id, u.id AS user_id, u.name, u.avatarurl
+            FROM task_history h
+            LEFT JOIN users u ON u.id = h.user_id
+            WHERE h.task_id = :taskId AND (h.timestamp < :beforeTimestamp
+                 OR (h.timestamp = :beforeTimestamp AND h.id < :beforeId))
+            ORDER BY h.timestamp DESC, h.id DESC
+            LIMIT :limit
+            """, nativeQuery = true)
+    List<Object[]> findSummaryRowsByTaskIdBefore(@Param("taskId") Long taskId,
+                                                 @Param("beforeTimestamp") LocalDateTime beforeTimestamp,
+                                                 @Param("beforeId") Long beforeId,
+                                                 @Param("limit") int limit);
+
+    @Query("SELECT h FROM TaskHistory h LEFT JOIN FETCH h.user WHERE h.boardId = :boardId " +
+            "AND (h.timestamp < :beforeTimestamp OR (h.timestamp = :beforeTimestamp AND h.id < :beforeId)) " +
+            "ORDER BY h.timestamp DESC, h.id DESC")
+    List<TaskHistory> findPageByBoardIdBefore(@Param("boardId") Long boardId,
+                                              @Param("beforeTimestamp") LocalDateTime beforeTimestamp,
+                                              @Param("beforeId") Long beforeId,
+                                              Pageable pageable);
+
+    @Query("SELECT h FROM TaskHistory h LEFT JOIN FETCH h.user WHERE h.taskId = :taskId " +
+            "AND (h.timestamp < :beforeTimestamp OR (h.timestamp = :beforeTimestamp AND h.id < :beforeId)) " +
+            "ORDER BY h.timestamp DESC, h.id DESC")
+    List<TaskHistory> findPageByTaskIdBefore(@Param("taskId") Long taskId,
+                                             @Param("beforeTimestamp") LocalDateTime beforeTimestamp,
+                                             @Param("beforeId") Long beforeId,
+                                             Pageable pageable);
+}
@@ -5,12 +5,16 @@ import course.project.API.models.DashBoardColumn;
 import course.project.API.models.User;
 import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.security.core.parameters.P;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface TaskRepository extends JpaRepository<Task, Long> {
@@ -27,70 +31,338 @@ public interface TaskRepository extends JpaRepository<Task, Long> {
     @EntityGraph(attributePaths = {"checklist"})
     List<Task> findWithCheckListByIdIn(List<Long> ids);
 
+    /**
+     * Задачи пакетной операции вместе с колонкой, доской и участниками
+     */
+    @EntityGraph(attributePaths = {"column", "column.board", "participants"})
+    List<Task> findWithBoardByIdIn(Collection<Long> ids);
+
+    /**
+     * Задача со всем, что меняет PATCH: колонка с доской, тег, участники и чек-лист одним запросом
+     */
+    @EntityGraph(attributePaths = {"column", "column.board", "tag", "participants", "checklist"})
+    Optional<Task> findWithDetailsById(Long id);
+
+    @Query(value = """
+            SELECT t.id, t.column_id, t.title, t.description, t.start_date, t.end_date,
+                   t.position, t.tag_id, t.chat_id, t.version
+            FROM tasks t
+            JOIN dashboard_columns c ON c.id = t.column_id
+            WHERE c.board_id = :boardId
+            """, nativeQuery = true)
+    List<Object[]> findTaskRowsByBoardId(@Param("boardId") Long boardId);
+
+    @Query(value = """
+            SELECT tp.task_id, u.id, u.name, u.avatarurl FROM task_participants tp
+            JOIN tasks t ON t.id = tp.task_id
+            JOIN dashboard_columns c ON c.id = t.column_id
+            JOIN users u ON u.id = tp.user_id
+            WHERE c.board_id = :boardId
+            """, nativeQuery = true)
+    List<Object[]> findParticipantRowsByBoardId(@Param("boardId") Long boardId);
+
+    @Query(value = """
+            SELECT ci.task_id, ci.id, ci.text, ci.completed, ci.position FROM checklist_items ci
+            JOIN tasks t ON t.id = ci.task_id
+            JOIN dashboard_columns c ON c.id = t.column_id
+            WHERE c.board_id = :boardId
+            ORDER BY ci.task_id, ci.id
+            """, nativeQuery = true)
+    List<Object[]> findChecklistRowsByBoardId(@Param("boardId") Long boardId);
+
+    @Query(value = """
+            SELECT a.task_id, a.id, a.file_name, a.file_type, a.file_size, a.uploaded_by, a.uploaded_at
+            FROM attachments a
+            JOIN tasks t ON t.id = a.task_id
+            JOIN dashboard_columns c ON c.id = t.column_id
+            WHERE c.board_id = :boardId
+            ORDER BY a.task_id, a.id
+            """, nativeQuery = true)
+    List<Object[]> findAttachmentRowsByBoardId(@Param("boardId") Long boardId);
+
+    /**
+     * Первые limit задач каждой колонки доски по (position, id), задачи без position - после остальных по id.
+     * Каждая ветка читает не больше limit строк на колонку по индексу (column_id, position, id), поэтому
+     * объем чтения не зависит от размера колонок. Строк может прийти до 2 * limit на колонку:
+     * лишние задачи без position отрезает вызывающий код
+     */
+    @Query(value = """
+            SELECT p.id, p.column_id, p.title, p.description, p.start_date, p.end_date,
+                   p.position, p.tag_id, p.chat_id, p.version
+            FROM dashboard_columns c
+            JOIN LATERAL (
+                SELECT t.id, t.column_id, t.title, t.description, t.start_date, t.end_date,
+                       t.position, t.tag_id, t.chat_id, t.version
+                FROM tasks t
+                WHERE t.column_id = c.id AND t.position IS NOT NULL
+                ORDER BY t.position, t.id
+                LIMIT :limit
+            ) p ON TRUE
+            WHERE c.board_id = :boardId
+            UNION ALL
+            SELECT p.id, p.column_id, p.title, p.description, p.start_date, p.end_date,
+                   p.position, p.tag_id, p.chat_id, p.version
+            FROM dashboard_columns c
+            JOIN LATERAL (
+                SELECT t.id, t.column_id, t.title, t.description, t.start_date, t.end_date,
+                       t.position, t.tag_id, t.chat_id, t.version
+                FROM tasks t
+                WHERE t.column_id = c.id AND t.position IS NULL
+                ORDER BY t.id
+                LIMIT :limit
+            ) p ON TRUE
+            WHERE c.board_id = :boardId
+            """, nativeQuery = true)
+    List<Object[]> findFirstTaskRowsPerColumnByBoardId(@Param("boardId") Long boardId, @Param("limit") int limit);
+
+    @Query(value = """
+            SELECT t.id, t.column_id, t.title, t.description, t.start_date, t.end_date,
+                   t.position, t.tag_id, t.chat_id, t.version
+            FROM tasks t
+            WHERE t.id IN :taskIds
+            """, nativeQuery = true)
+    List<Object[]> findTaskRowsByIds(@Param("taskIds") List<Long> taskIds);
+
+    @Query(value = """
+            SELECT t.id, t.column_id, t.title, t.description, t.start_date, t.end_date,
+                   t.position, t.tag_id, t.chat_id, t.version
+            FROM tasks t
+            WHERE t.column_id = :columnId
+            ORDER BY t.position, t.id
+            """, nativeQuery = true)
+    List<Object[]> findTaskRowsByColumnId(@Param("columnId") Long columnId);
+
+    /**
+     * Следующая страница задач колонки после ключа (afterPosition, afterId) в порядке (position, id),
+     * задачи без position идут последними по id. Пока inNulls = false, читаются задачи с position после ключа
+     * и задачи без position с id больше afterNullId; после перехода к задачам без position - только они.
+     * Строки веток приходят без общего порядка, порядок восстанавливает вызывающий код
+     */
+    @Query(value = """
+            (SELECT t.id, t.column_id, t.title, t.description, t.start_date, t.end_date,
+                    t.position, t.tag_id, t.chat_id, t.version
+             FROM tasks t
+             WHERE t.column_id = :columnId AND :inNulls = FALSE AND t.position IS NOT NULL
+               AND (t.position > :afterPosition OR (t.position = :afterPosition AND t.id > :afterId))
+             ORDER BY t.position, t.id
+             LIMIT :limit)
+            UNION ALL
+            (SELECT t.id, t.column_id, t.title, t.description, t.start_date, t.end_date,
+                    t.position, t.tag_id, t.chat_id, t.version
+             FROM tasks t
+             WHERE t.column_id = :columnId AND t.position IS NULL AND t.id > :afterNullId
+             ORDER BY t.id
+             LIMIT :limit)
+            """, nativeQuery = true)
+    List<Object[]> findTaskRowsByColumnIdAfter(@Param("columnId") Long columnId,
+                                               @Param("inNulls") boolean inNulls,
+                                               @Param("afterPosition") int afterPosition,
+                                               @Param("afterId") long afterId,
+                                               @Param("afterNullId") long afterNullId,
+                                               @Param("limit") int limit);
+
+    @Query(value = """
+            SELECT tp.task_id, u.id, u.name, u.avatarurl FROM task_participants tp
+            JOIN users u ON u.id = tp.user_id
+            WHERE tp.task_id IN :taskIds
+            """, nativeQuery = true)
+    List<Object[]> findParticipantRowsByTaskIds(@Param("taskIds") List<Long> taskIds);
+
+    @Query(value = "SELECT tp.user_id FROM task_participants tp WHERE tp.task_id = :taskId", nativeQuery = true)
+    List<Long> findParticipantIdsByTaskId(@Param("taskId") Long taskId);
+
+    /**
+     * Удаляет участников задачи одним запросом. Контекст очищается, чтобы загруженные задачи не хранили старый состав
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(value = "DELETE FROM task_participants WHERE task_id = :taskId AND user_id IN (:userIds)", nativeQuery = true)
+    int deleteParticipants(@Param("taskId") Long taskId, @Param("userIds") Collection<Long> userIds);
+
+    /**
+     * Добавляет участников задачи одним многострочным INSERT
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(value = """
+            INSERT INTO task_participants (task_id, user_id)
+            SELECT :taskId, u.id FROM users u WHERE u.id IN (:userIds)
+            """, nativeQuery = true)
+    int insertParticipants(@Param("taskId") Long taskId, @Param("userIds") Collection<Long> userIds);
+
+    @Query(value = """
+            SELECT ci.task_id, ci.id, ci.text, ci.completed, ci.position FROM checklist_items ci
+            WHERE ci.task_id IN :taskIds
+            ORDER BY ci.task_id, ci.id
+            """, nativeQuery = true)
+    List<Object[]> findChecklistRowsByTaskIds(@Param("taskIds") List<Long> taskIds);
+
+    @Query(value = """
+            SELECT a.task_id, a.id, a.file_name, a.file_type, a.file_size, a.uploaded_by, a.uploaded_at
+            FROM attachments a
+            WHERE a.task_id IN :taskIds
+            ORDER BY a.task_id, a.id
+            """, nativeQuery = true)
+    List<Object[]> findAttachmentRowsByTaskIds(@Param("taskIds") List<Long> taskIds);
+
     @Query("SELECT t FROM Task t JOIN t.participants p WHERE p.id = :userId")
     List<Task> findAllTasksByUserId(@Param("userId") Long userId);
 
+    /**
+     * Задачи пользователя только на досках из boardIds
+     */
+    @Query("SELECT t FROM Task t JOIN t.participants p WHERE p.id = :userId AND t.column.board.id IN :boardIds")
+    List<Task> findAllTasksByUserIdAndBoardIds(@Param("userId") Long userId, @Param("boardIds") Collection<Long> boardIds);
 
+
+    /**
+     * Страница поиска по ключу (end_date, id) после ключа (afterEndDate, afterId), только id задач.
+     * Задачи без срока идут в конце; afterId = NULL — первая страница.
+     * Без флагов полей текст ищется и в названии, и в описании
+     */
     @Query(value = """
-            SELECT t.id, t.column_id, t.title, t.description, t.start_date, t.end_date, tag.id, tag.name, tag.color, u.id, u.name, u.avatarurl FROM projects p
-                       JOIN boards b ON p.id = b.project_id
-                       JOIN dashboard_columns c ON b.id = c.board_id 
-                       JOIN tasks t ON c.id = t.column_id 
-                       LEFT JOIN tags tag ON t.tag_id = tag.id
-                       LEFT JOIN task_participants tp ON t.id = tp.task_id
-                       JOIN users u ON tp.user_id = u.id
-                       WHERE (p.owner_id = :userId OR :userId IN (
-                            SELECT pp.user_id FROM projects p2
-                            JOIN project_participants pp ON p2.id = pp.project_id
-                            WHERE pp.user_id = :userId
-                        ))
-                       AND ( :searchText IS NULL OR (:isTitleSearchExcluded = TRUE OR LOWER(t.title) LIKE LOWER(CONCAT('%', :searchText, '%'))) OR 
-                               (:isDescriptionSearchExcluded = TRUE OR LOWER(t.description) LIKE LOWER(CONCAT('%', :searchText, '%')))) 
-                       AND (:projectId IS NULL OR p.id = :projectId) 
-                       AND (:boardId IS NULL OR b.id = :boardId) 
-                       AND (:tagId IS NULL OR tag.id = :tagId) 
-                       AND (:isCompleted IS NULL OR c.is_completion_column = :isCompleted) 
-                       ORDER BY t.end_date ASC
-            """, nativeQuery = true)
-    List<Object[]> searchTasksAsc(
+            SELECT t.id FROM tasks t
+                       JOIN dashboard_columns c ON c.id = t.column_id
+                       JOIN boards b ON b.id = c.board_id
+                       WHERE c.board_id IN :boardIds
+                       AND (:searchText IS NULL
+                            OR :searchTitle = TRUE AND LOWER(t.title) LIKE LOWER(CONCAT('%', :searchText, '%'))
+                            OR :searchDescription = TRUE AND LOWER(t.description) LIKE LOWER(CONCAT('%', :searchText, '%')))
+                       AND (:projectId IS NULL OR b.project_id = :projectId)
+                       AND (:boardId IS NULL OR c.board_id = :boardId)
+                       AND (:tagId IS NULL OR t.tag_id = :tagId)
+                       AND (:isCompleted IS NULL OR c.is_completion_column = :isCompleted)
+                       AND (:afterId IS NULL
+                            OR :afterEndDate IS NOT NULL AND (t.end_date > :afterEndDate
+                                OR t.end_date = :afterEndDate AND t.id > :afterId OR t.end_date IS NULL)
+                            OR :afterEndDate IS NULL AND t.end_date IS NULL AND t.id > :afterId)
+                       ORDER BY t.end_date IS NULL, t.end_date, t.id
+                       LIMIT :limit
+            """, nativeQuery = true)
+    List<Long> searchTaskIdsAsc(
             @Param("searchText") String searchText,
+            @Param("searchTitle") boolean searchTitle,
+            @Param("searchDescription") boolean searchDescription,
             @Param("projectId") Long projectId,
             @Param("boardId") Long boardId,
             @Param("tagId") Long tagId,
             @Param("isCompleted") Boolean isCompleted,
-            @Param("isTitleSearchExcluded") Boolean isTitleSearchExcluded,
-            @Param("isDescriptionSearchExcluded") Boolean isDescriptionSearchExcluded,
-            @Param("userId") Long userId
-    );
-
-    @Query(value = """
-            SELECT t.id, t.column_id, t.title, t.description, t.start_date, t.end_date, tag.id, tag.name, tag.color, u.id, u.name, u.avatarurl FROM projects p
-                       JOIN boards b ON p.id = b.project_id
-                       JOIN dashboard_columns c ON b.id = c.board_id 
-                       JOIN tasks t ON c.id = t.column_id 
-                       LEFT JOIN tags tag ON t.tag_id = tag.id
-                       LEFT JOIN task_participants tp ON t.id = tp.task_id
-                       JOIN users u ON tp.user_id = u.id
-                       WHERE (p.owner_id = :userId OR :userId IN (
-                            SELECT pp.user_id FROM projects p2
-                            JOIN project_participants pp ON p2.id = pp.project_id
-                            WHERE pp.user_id = :userId
-                        ))
-                       AND ( :searchText IS NULL OR (:isTitleSearchExcluded = TRUE OR LOWER(t.title) LIKE LOWER(CONCAT('%', :searchText, '%'))) OR 
-                               (:isDescriptionSearchExcluded = TRUE OR LOWER(t.description) LIKE LOWER(CONCAT('%', :searchText, '%')))) 
-                       AND (:projectId IS NULL OR p.id = :projectId) 
-                       AND (:boardId IS NULL OR b.id = :boardId) 
-                       AND (:tagId IS NULL OR tag.id = :tagId) 
-                       AND (:isCompleted IS NULL OR c.is_completion_column = :isCompleted) 
-                       ORDER BY t.end_date DESC 
-            """, nativeQuery = true)
-    List<Object[]> searchTasksDesc(
+            @Param("boardIds") Collection<Long> boardIds,
+            @Param("afterEndDate") LocalDateTime afterEndDate,
+            @Param("afterId") Long afterId,
+            @Param("limit") int limit);
+
+    @Query(value = """
+            SELECT t.id FROM tasks t
+                       JOIN dashboard_columns c ON c.id = t.column_id
+                       JOIN boards b ON b.id = c.board_id
+                       WHERE c.board_id IN :boardIds
+                       AND (:searchText IS NULL
+                            OR :searchTitle = TRUE AND LOWER(t.title) LIKE LOWER(CONCAT('%', :searchText, '%'))
+                            OR :searchDescription = TRUE AND LOWER(t.description) LIKE LOWER(CONCAT('%', :searchText, '%')))
+                       AND (:projectId IS NULL OR b.project_id = :projectId)
+                       AND (:boardId IS NULL OR c.board_id = :boardId)
+                       AND (:tagId IS NULL OR t.tag_id = :tagId)
+                       AND (:isCompleted IS NULL OR c.is_completion_column = :isCompleted)
+                       AND (:afterId IS NULL
+                            OR :afterEndDate IS NOT NULL AND (t.end_date < :afterEndDate
+                                OR t.end_date = :afterEndDate AND t.id < :afterId OR t.end_date IS NULL)
+                            OR :afterEndDate IS NULL AND t.end_date IS NULL AND t.id < :afterId)
+                       ORDER BY t.end_date IS NULL, t.end_date DESC, t.id DESC
+                       LIMIT :limit
+            """, nativeQuery = true)
+    List<Long> searchTaskIdsDesc(
+            @Param("searchText") String searchText,
+            @Param("searchTitle") boolean searchTitle,
+            @Param("searchDescription") boolean searchDescription,
+            @Param("projectId") Long projectId,
+            @Param("boardId") Long boardId,
+            @Param("tagId") Long tagId,
+            @Param("isCompleted") Boolean isCompleted,
+            @Param("boardIds") Collection<Long> boardIds,
+            @Param("afterEndDate") LocalDateTime afterEndDate,
+            @Param("afterId") Long afterId,
+            @Param("limit") int limit);
+
+    @Query(value = """
+            SELECT COUNT(*) FROM tasks t
+                       JOIN dashboard_columns c ON c.id = t.column_id
+                       JOIN boards b ON b.id = c.board_id
+                       WHERE c.board_id IN :boardIds
+                       AND (:searchText IS NULL
+                            OR :searchTitle = TRUE AND LOWER(t.title) LIKE LOWER(CONCAT('%', :searchText, '%'))
+                            OR :searchDescription = TRUE AND LOWER(t.description) LIKE LOWER(CONCAT('%', :searchText, '%')))
+                       AND (:projectId IS NULL OR b.project_id = :projectId)
+                       AND (:boardId IS NULL OR c.board_id = :boardId)
+                       AND (:tagId IS NULL OR t.tag_id = :tagId)
+                       AND (:isCompleted IS NULL OR c.is_completion_column = :isCompleted)
+            """, nativeQuery = true)
+    long countSearchTasks(
             @Param("searchText") String searchText,
+            @Param("searchTitle") boolean searchTitle,
+            @Param("searchDescription") boolean searchDescription,
             @Param("projectId") Long projectId,
             @Param("boardId") Long boardId,
             @Param("tagId") Long tagId,
             @Param("isCompleted") Boolean isCompleted,
-            @Param("isTitleSearchExcluded") Boolean isTitleSearchExcluded,
-            @Param("isDescriptionSearchExcluded") Boolean isDescriptionSearchExcluded,
-            @Param("userId") Long userId);
-} 
\ No newline at end of file
+            @Param("boardIds") Collection<Long> boardIds);
+
+    /**
+     * Строки задач страницы поиска по идентификаторам, без участников
+     */
+    @Query(value = """
+            SELECT t.id, t.column_id, t.title, t.description, t.start_date, t.end_date, tag.id, tag.name, tag.color
+            FROM tasks t
+            LEFT JOIN tags tag ON t.tag_id = tag.id
+            WHERE t.id IN :taskIds
+            """, nativeQuery = true)
+    List<Object[]> findSearchRowsByTaskIds(@Param("taskIds") List<Long> taskIds);
+
+    /**
+     * Id и ранги всех задач колонки по порядку
+     */
+    @Query(value = """
+            SELECT id, position FROM tasks
+            WHERE column_id = :columnId
+            ORDER BY position IS NULL, position, id
+            """, nativeQuery = true)
+    List<Object[]> findRankRowsByColumnId(@Param("columnId") Long columnId);
+
+    /**
+     * Первый по порядку элемент с рангом не меньше position, без элемента excludeId: id и ранг
+     */
+    @Query(value = """
+            SELECT id, position FROM tasks
+            WHERE column_id = :columnId AND position >= :position AND (:excludeId IS NULL OR id <> :excludeId)
+            ORDER BY position, id
+            LIMIT 1
+            """, nativeQuery = true)
+    List<Object[]> findNextRankRowByColumnId(@Param("columnId") Long columnId, @Param("excludeId") Long excludeId,
+                                             @Param("position") int position);
+
+    /**
+     * Ранг элемента, стоящего непосредственно перед элементом (position, id), без элемента excludeId
+     */
+    @Query(value = """
+            SELECT position FROM tasks
+            WHERE column_id = :columnId AND (:excludeId IS NULL OR id <> :excludeId)
+              AND (position < :position OR (position = :position AND id < :id))
+            ORDER BY position DESC, id DESC
+            LIMIT 1
+            """, nativeQuery = true)
+    List<Integer> findPreviousRankByColumnId(@Param("columnId") Long columnId, @Param("excludeId") Long excludeId,
+                                             @Param("position") int position, @Param("id") Long id);
+
+    @Query(value = "SELECT MAX(position) FROM tasks WHERE column_id = :columnId", nativeQuery = true)
+    Integer findMaxPositionByColumnId(@Param("columnId") Long columnId);
+
+    /**
+     * Перенумеровывает ранги задач колонки с шагом step одним запросом, сохраняя порядок
+     */
+    @Modifying
+    @Query(value = """
+            UPDATE tasks target
+            JOIN (SELECT id, ROW_NUMBER() OVER (ORDER BY position IS NULL, position, id) AS rn
+                  FROM tasks WHERE column_id = :columnId) ranked ON ranked.id = target.id
+            SET target.position = ranked.rn * :step
+            """, nativeQuery = true)
+    int renumberPositionsByColumnId(@Param("columnId") Long columnId, @Param("step") int step);
+}
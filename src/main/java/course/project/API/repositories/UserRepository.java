@@ -8,6 +8,7 @@ import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -24,4 +25,6 @@ public interface UserRepository extends JpaRepository<User, Long> {
     void updateUserName(@Param("id") Long id, @Param("name") String name);
 
     boolean existsByName(String name);
+
+    List<User> findByIdInOrUsernameIn(Collection<Long> ids, Collection<String> usernames);
 }
\ No newline at end of file
@@ -1,10 +1,12 @@
 package course.project.API.services;
 
+import course.project.API.events.BoardEvent;
 import course.project.API.models.Attachment;
 import course.project.API.models.Task;
 import course.project.API.repositories.AttachmentRepository;
 import course.project.API.repositories.TaskRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
@@ -23,12 +25,15 @@ public class AttachmentService {
 
     private final AttachmentRepository attachmentRepository;
     private final TaskRepository taskRepository;
+    private final ApplicationEventPublisher eventPublisher;
     private final String uploadDir = "uploads";
 
     @Autowired
-    public AttachmentService(AttachmentRepository attachmentRepository, TaskRepository taskRepository) {
+    public AttachmentService(AttachmentRepository attachmentRepository, TaskRepository taskRepository,
+                             ApplicationEventPublisher eventPublisher) {
         this.attachmentRepository = attachmentRepository;
         this.taskRepository = taskRepository;
+        this.eventPublisher = eventPublisher;
         
         // Create uploads directory if it doesn't exist
         File directory = new File(uploadDir);
@@ -72,7 +77,9 @@ public class AttachmentService {
             uploadedBy
         );
         
-        return attachmentRepository.save(attachment);
+        Attachment savedAttachment = attachmentRepository.save(attachment);
+        eventPublisher.publishEvent(BoardEvent.taskChanged(task));
+        return savedAttachment;
     }
 
     @Transactional
@@ -86,6 +93,7 @@ public class AttachmentService {
         
         // Delete from database
         attachmentRepository.delete(attachment);
+        eventPublisher.publishEvent(BoardEvent.taskChanged(attachment.getTask()));
     }
 
     @Transactional
@@ -100,5 +108,6 @@ public class AttachmentService {
         
         // Delete from database
         attachmentRepository.deleteByTaskId(taskId);
+        taskRepository.findById(taskId).ifPresent(task -> eventPublisher.publishEvent(BoardEvent.taskChanged(task)));
     }
 } 
\ No newline at end of file
@@ -0,0 +1,114 @@
+package course.project.API.services;
+
+import course.project.API.events.BoardEvent;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Индекс доступа: для каждого пользователя — множество досок, на которые у него есть право VIEW_BOARD
+ * (та же проверка, что {@link BoardRightService#hasBoardRight} в контроллерах).
+ * Множество пользователя читается из БД одним запросом при первом обращении и дальше поддерживается
+ * событиями досок после коммита: участники и права доски меняются только вместе с BOARD_CHANGED,
+ * поэтому на событие перечитываются зрители одной доски и правятся множества закэшированных пользователей
+ */
+@Service
+public class BoardAccessIndex {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int maxUsers;
+
+    private final Map<Long, Set<Long>> boardsByUser = new ConcurrentHashMap<>();
+    // Обратный индекс только по пользователям из кэша; меняется под lock
+    private final Map<Long, Set<Long>> usersByBoard = new ConcurrentHashMap<>();
+    // Растет при каждом изменении доступа: загрузка, прочитавшая БД до изменения, не попадает в кэш
+    private final AtomicLong generation = new AtomicLong();
+    private final Object lock = new Object();
+
+    public BoardAccessIndex(JdbcTemplate jdbcTemplate,
+                            @Value("${access.index.max-users:50000}") int maxUsers) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.maxUsers = maxUsers;
+    }
+
+    /**
+     * Доски, которые видит пользователь. Возвращаемое множество не изменяется
+     */
+    public Set<Long> getVisibleBoardIds(Long userId) {
+        Set<Long> cached = boardsByUser.get(userId);
+        if (cached != null) {
+            return cached;
+        }
+        long before = generation.get();
+        Set<Long> boards = Set.copyOf(jdbcTemplate.queryForList(
+                "SELECT board_id FROM board_user_rights WHERE user_id = ? AND right_name = 'VIEW_BOARD'",
+                Long.class, userId));
+        synchronized (lock) {
+            if (generation.get() == before && boardsByUser.size() < maxUsers) {
+                boardsByUser.put(userId, boards);
+                boards.forEach(boardId -> usersByBoard.computeIfAbsent(boardId, id -> new HashSet<>()).add(userId));
+            }
+        }
+        return boards;
+    }
+
+    public boolean canView(Long userId, Long boardId) {
+        return getVisibleBoardIds(userId).contains(boardId);
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onBoardEvent(BoardEvent event) {
+        switch (event.getType()) {
+            case BOARD_CREATED, BOARD_CHANGED -> refreshBoard(event.getBoardId());
+            case BOARD_DELETED -> updateBoard(event.getBoardId(), Set.of());
+            default -> {
+            }
+        }
+    }
+
+    /**
+     * Перечитывает зрителей доски и приводит к ним множества закэшированных пользователей
+     */
+    void refreshBoard(Long boardId) {
+        generation.incrementAndGet();
+        List<Long> viewers = jdbcTemplate.queryForList(
+                "SELECT user_id FROM board_user_rights WHERE board_id = ? AND right_name = 'VIEW_BOARD'",
+                Long.class, boardId);
+        updateBoard(boardId, new HashSet<>(viewers));
+    }
+
+    private void updateBoard(Long boardId, Set<Long> viewers) {
+        synchronized (lock) {
+            generation.incrementAndGet();
+            Set<Long> current = usersByBoard.getOrDefault(boardId, Set.of());
+            for (Long userId : viewers) {
+                if (!current.contains(userId) && boardsByUser.containsKey(userId)) {
+                    Set<Long> boards = new HashSet<>(boardsByUser.get(userId));
+                    boards.add(boardId);
+                    boardsByUser.put(userId, Set.copyOf(boards));
+                    usersByBoard.computeIfAbsent(boardId, id -> new HashSet<>()).add(userId);
+                }
+            }
+            for (Long userId : List.copyOf(current)) {
+                if (!viewers.contains(userId)) {
+                    Set<Long> boards = new HashSet<>(boardsByUser.get(userId));
+                    boards.remove(boardId);
+                    boardsByUser.put(userId, Set.copyOf(boards));
+                    usersByBoard.get(boardId).remove(userId);
+                }
+            }
+            if (usersByBoard.containsKey(boardId) && usersByBoard.get(boardId).isEmpty()) {
+                usersByBoard.remove(boardId);
+            }
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package course.project.API.services;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Ограниченный журнал изменений по каждой доске.
+ * Каждое изменение сдвигает версию доски в {@link BoardSnapshotCache} и запоминает,
+ * какая сущность (задача, колонка или доска целиком) была затронута.
+ * Изменения записывает {@link BoardReadModel} по доменным событиям досок.
+ * По журналу переподключившийся клиент получает только то, что пропустил.
+ */
+@Service
+public class BoardChangeLog {
+
+    public static final String KIND_TASK = "TASK";
+    public static final String KIND_COLUMN = "COLUMN";
+    public static final String KIND_BOARD = "BOARD";
+    public static final String KIND_RESYNC = "RESYNC";
+
+    private static final Logger logger = LoggerFactory.getLogger(BoardChangeLog.class);
+
+    private final BoardSnapshotCache boardSnapshotCache;
+    private final int maxEntriesPerBoard;
+    private final Map<Long, BoardLog> logs = new ConcurrentHashMap<>();
+
+    public BoardChangeLog(BoardSnapshotCache boardSnapshotCache,
+                          @Value("${boards.change-log.max-entries:500}") int maxEntriesPerBoard) {
+        this.boardSnapshotCache = boardSnapshotCache;
+        this.maxEntriesPerBoard = maxEntriesPerBoard;
+    }
+
+    /**
+     * Записывает изменение, которое нельзя передать дельтой: клиентам нужна полная перезагрузка доски
+     */
+    public long recordResync(Long boardId) {
+        return record(boardId, List.of(new Change(KIND_RESYNC, null)));
+    }
+
+    /**
+     * Возвращает изменения с версией в интервале (since, upTo],
+     * или null, если журнал уже не покрывает этот интервал и клиенту нужна полная перезагрузка доски
+     */
+    public List<Change> getChanges(Long boardId, long since, long upTo) {
+        if (since > upTo) {
+            return null;
+        }
+        BoardLog log = logs.get(boardId);
+        if (log == null) {
+            // Журнал пуст: доска не менялась с момента запуска
+            return since == upTo ? List.of() : null;
+        }
+        synchronized (log) {
+            if (since < log.coveredFrom) {
+                return null;
+            }
+            List<Change> result = new ArrayList<>();
+            for (Change change : log.changes) {
+                if (change.getVersion() > since && change.getVersion() <= upTo) {
+                    result.add(change);
+                }
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Записывает изменения одной новой версией доски и возвращает эту версию
+     */
+    public long record(Long boardId, List<Change> changes) {
+        BoardLog log = logs.computeIfAbsent(boardId, id -> new BoardLog(boardSnapshotCache.getVersion(id)));
+        synchronized (log) {
+            long version = boardSnapshotCache.markChanged(boardId);
+            for (Change change : changes) {
+                change.version = version;
+                log.changes.addLast(change);
+            }
+            while (log.changes.size() > maxEntriesPerBoard) {
+                Change dropped = log.changes.removeFirst();
+                log.coveredFrom = dropped.getVersion();
+            }
+            logger.debug("Доска {}: версия {}, изменения {}", boardId, version, changes.size());
+            return version;
+        }
+    }
+
+    private static class BoardLog {
+        private final Deque<Change> changes = new ArrayDeque<>();
+        // Наименьшая версия, начиная с которой журнал содержит все изменения
+        private long coveredFrom;
+
+        private BoardLog(long coveredFrom) {
+            this.coveredFrom = coveredFrom;
+        }
+    }
+
+    public static class Change {
+        private long version;
+        private final String kind;
+        private final Long entityId;
+
+        public Change(String kind, Long entityId) {
+            this.kind = kind;
+            this.entityId = entityId;
+        }
+
+        public long getVersion() {
+            return version;
+        }
+
+        public String getKind() {
+            return kind;
+        }
+
+        public Long getEntityId() {
+            return entityId;
+        }
+    }
+}
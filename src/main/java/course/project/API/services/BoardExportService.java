@@ -0,0 +1,421 @@
+package course.project.API.services;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import course.project.API.dto.board.TaskHistoryDTO;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+
+import javax.sql.DataSource;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * Потоковая выгрузка досок и проектов для аудита.
+ * Каждый раздел (колонки, задачи, чек-листы, история...) читается отдельным forward-only запросом
+ * с потоковой выборкой драйвера и сразу пишется в ответ построчно, поэтому расход памяти
+ * не зависит от размера доски. Запросы выполняются вне транзакции в режиме autocommit:
+ * соединение занято только на время чтения одного раздела, блокировок на запись нет.
+ * История хранится цепочками версий ({@link TaskHistoryCodec}), поэтому читается по задачам в порядке версий,
+ * а старый и новый JSON каждой записи восстанавливаются на лету, с одним состоянием задачи в памяти.
+ * Записи, перенесенные в архив ({@link TaskHistoryArchive}), выгружаются отдельным разделом archivedHistory
+ * по одному блоку за раз.
+ */
+@Service
+public class BoardExportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(BoardExportService.class);
+
+    private static final String[] CSV_HEADER = {
+            "board_id", "board_title", "task_id", "column", "position", "title", "description",
+            "start_date", "end_date", "tag", "participants", "checklist_total", "checklist_completed"
+    };
+
+    // Разрывов цепочек истории, восстанавливаемых перед выгрузкой; состояния держатся в памяти до конца раздела
+    private static final int MAX_GAP_STATES = 1000;
+
+    private final JdbcTemplate streamingJdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final TaskHistoryCodec taskHistoryCodec;
+    private final TaskHistoryArchive taskHistoryArchive;
+
+    @Autowired
+    public BoardExportService(DataSource dataSource, ObjectMapper objectMapper, TaskHistoryCodec taskHistoryCodec,
+                              TaskHistoryArchive taskHistoryArchive) {
+        this(new JdbcTemplate(dataSource), objectMapper, taskHistoryCodec, taskHistoryArchive);
+        // Integer.MIN_VALUE включает построчную потоковую выборку в MySQL Connector/J
+        this.streamingJdbcTemplate.setFetchSize(Integer.MIN_VALUE);
+    }
+
+    BoardExportService(JdbcTemplate streamingJdbcTemplate, ObjectMapper objectMapper,
+                       TaskHistoryCodec taskHistoryCodec, TaskHistoryArchive taskHistoryArchive) {
+        this.streamingJdbcTemplate = streamingJdbcTemplate;
+        this.objectMapper = objectMapper;
+        this.taskHistoryCodec = taskHistoryCodec;
+        this.taskHistoryArchive = taskHistoryArchive;
+    }
+
+    public List<Long> getProjectBoardIds(Long projectId) {
+        return streamingJdbcTemplate.queryForList(
+                "SELECT id FROM boards WHERE project_id = ? ORDER BY id", Long.class, projectId);
+    }
+
+    public void exportBoardJson(Long boardId, OutputStream out) throws IOException {
+        long startedAt = System.currentTimeMillis();
+        try (JsonGenerator generator = createGenerator(out)) {
+            writeBoard(generator, boardId);
+        }
+        logger.info("Доска {} выгружена в JSON за {} мс", boardId, System.currentTimeMillis() - startedAt);
+    }
+
+    public void exportProjectJson(Long projectId, List<Long> boardIds, OutputStream out) throws IOException {
+        long startedAt = System.currentTimeMillis();
+        try (JsonGenerator generator = createGenerator(out)) {
+            generator.writeStartObject();
+            generator.writeFieldName("project");
+            if (!writeSingleRow(generator,
+                    "SELECT id, title, description, emoji, owner_id FROM projects WHERE id = ?", projectId)) {
+                throw new NoSuchElementException("Project not found with id: " + projectId);
+            }
+            generator.writeFieldName("participants");
+            writeRows(generator, """
+                    SELECT u.id, u.name, u.avatarurl FROM project_participants pp
+                    JOIN users u ON u.id = pp.user_id
+                    WHERE pp.project_id = ?
+                    ORDER BY u.id
+                    """, projectId);
+            generator.writeArrayFieldStart("boards");
+            for (Long boardId : boardIds) {
+                writeBoard(generator, boardId);
+                generator.flush();
+            }
+            generator.writeEndArray();
+            generator.writeEndObject();
+        }
+        logger.info("Проект {} выгружен в JSON за {} мс: досок {}",
+                projectId, System.currentTimeMillis() - startedAt, boardIds.size());
+    }
+
+    /**
+     * Задачи досок в CSV, одна строка на задачу. Участники перечислены через ';'
+     */
+    public void exportTasksCsv(List<Long> boardIds, OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        writeCsvLine(writer, CSV_HEADER);
+        for (Long boardId : boardIds) {
+            streamingJdbcTemplate.query("""
+                    SELECT b.id, b.title, t.id, c.name, t.position, t.title, t.description,
+                           t.start_date, t.end_date, tag.name,
+                           (SELECT GROUP_CONCAT(u.name ORDER BY u.id SEPARATOR ';') FROM task_participants tp
+                            JOIN users u ON u.id = tp.user_id WHERE tp.task_id = t.id),
+                           (SELECT COUNT(*) FROM checklist_items ci WHERE ci.task_id = t.id),
+                           (SELECT COUNT(*) FROM checklist_items ci WHERE ci.task_id = t.id AND ci.completed = TRUE)
+                    FROM tasks t
+                    JOIN dashboard_columns c ON c.id = t.column_id
+                    JOIN boards b ON b.id = c.board_id
+                    LEFT JOIN tags tag ON tag.id = t.tag_id
+                    WHERE b.id = ?
+                    ORDER BY c.position, t.position, t.id
+                    """, (RowCallbackHandler) rs -> {
+                String[] values = new String[CSV_HEADER.length];
+                for (int i = 0; i < values.length; i++) {
+                    values[i] = toText(rs.getObject(i + 1));
+                }
+                try {
+                    writeCsvLine(writer, values);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }, boardId);
+        }
+        writer.flush();
+    }
+
+    private JsonGenerator createGenerator(OutputStream out) throws IOException {
+        JsonGenerator generator = objectMapper.getFactory().createGenerator(out, JsonEncoding.UTF8);
+        // Поток ответа закрывает контейнер
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        return generator;
+    }
+
+    private void writeBoard(JsonGenerator generator, Long boardId) throws IOException {
+        generator.writeStartObject();
+        generator.writeFieldName("board");
+        if (!writeSingleRow(generator,
+                "SELECT id, title, description, emoji, project_id FROM boards WHERE id = ?", boardId)) {
+            throw new NoSuchElementException("Board not found with id: " + boardId);
+        }
+
+        generator.writeFieldName("columns");
+        writeRows(generator, """
+                SELECT id, name, position, is_completion_column, task_count FROM dashboard_columns
+                WHERE board_id = ?
+                ORDER BY position, id
+                """, boardId);
+
+        generator.writeFieldName("tags");
+        writeRows(generator, "SELECT id, name, color FROM tags WHERE board_id = ? ORDER BY id", boardId);
+
+        generator.writeFieldName("participants");
+        writeRows(generator, """
+                SELECT u.id, u.name, u.avatarurl FROM board_participants bp
+                JOIN users u ON u.id = bp.user_id
+                WHERE bp.board_id = ?
+                ORDER BY u.id
+                """, boardId);
+
+        generator.writeFieldName("tasks");
+        writeRows(generator, """
+                SELECT t.id, t.column_id, t.title, t.description, t.start_date, t.end_date,
+                       t.position, t.tag_id, t.chat_id
+                FROM tasks t
+                JOIN dashboard_columns c ON c.id = t.column_id
+                WHERE c.board_id = ?
+                ORDER BY t.id
+                """, boardId);
+
+        generator.writeFieldName("taskParticipants");
+        writeRows(generator, """
+                SELECT tp.task_id, tp.user_id FROM task_participants tp
+                JOIN tasks t ON t.id = tp.task_id
+                JOIN dashboard_columns c ON c.id = t.column_id
+                WHERE c.board_id = ?
+                ORDER BY tp.task_id, tp.user_id
+                """, boardId);
+
+        generator.writeFieldName("checklistItems");
+        writeRows(generator, """
+                SELECT ci.id, ci.task_id, ci.text, ci.completed, ci.position FROM checklist_items ci
+                JOIN tasks t ON t.id = ci.task_id
+                JOIN dashboard_columns c ON c.id = t.column_id
+                WHERE c.board_id = ?
+                ORDER BY ci.task_id, ci.id
+                """, boardId);
+
+        generator.writeFieldName("attachments");
+        writeRows(generator, """
+                SELECT a.id, a.task_id, a.file_name, a.file_type, a.file_size, a.uploaded_by, a.uploaded_at
+                FROM attachments a
+                JOIN tasks t ON t.id = a.task_id
+                JOIN dashboard_columns c ON c.id = t.column_id
+                WHERE c.board_id = ?
+                ORDER BY a.task_id, a.id
+                """, boardId);
+
+        generator.writeFieldName("history");
+        writeHistory(generator, boardId);
+
+        generator.writeFieldName("archivedHistory");
+        writeArchivedHistory(generator, boardId);
+
+        generator.writeEndObject();
+    }
+
+    /**
+     * История доски по задачам и версиям. Для версий цепочки старый и новый JSON восстанавливаются
+     * из контрольных точек и патчей, как в API истории; еще не сжатые старые строки выгружаются как есть.
+     * Пока открыта потоковая выборка, ее соединение занято, поэтому цепочки проходятся без обращений к БД:
+     * состояния перед разрывами (версии задачи с другой доски) восстанавливаются до открытия выборки
+     */
+    private void writeHistory(JsonGenerator generator, Long boardId) throws IOException {
+        Map<Long, Map<Integer, JsonNode>> gapStates = taskHistoryCodec.gapStates(boardId, MAX_GAP_STATES);
+        TaskHistoryCodec.Chain[] chain = {null};
+        Long[] chainTaskId = {null};
+        generator.writeStartArray();
+        try {
+            streamingJdbcTemplate.query("""
+                    SELECT id, task_id, task_ref_id, user_id, action_type, timestamp, version_no, checkpoint,
+                           task_snapshot, diff_json, old_task_json, new_task_json
+                    FROM task_history
+                    WHERE board_id = ?
+                    ORDER BY task_ref_id IS NULL, task_ref_id, version_no IS NULL, version_no, timestamp, id
+                    """, (RowCallbackHandler) rs -> {
+                Long taskRefId = toLong(rs.getObject(3));
+                Long version = toLong(rs.getObject(7));
+                String actionType = rs.getString(5);
+                String snapshot = rs.getString(9);
+                String[] json;
+                if (taskRefId != null && version != null && version > 0) {
+                    if (!taskRefId.equals(chainTaskId[0])) {
+                        chain[0] = taskHistoryCodec.detachedChain(taskRefId,
+                                gapStates.getOrDefault(taskRefId, Map.of()));
+                        chainTaskId[0] = taskRefId;
+                    }
+                    json = TaskHistoryCodec.toLegacyJson(actionType,
+                            chain[0].next(version.intValue(), rs.getBoolean(8), snapshot, rs.getString(10)), snapshot);
+                } else {
+                    json = new String[]{rs.getString(11), rs.getString(12), snapshot};
+                }
+                writeHistoryRow(generator, toLong(rs.getObject(1)), toLong(rs.getObject(2)), toLong(rs.getObject(4)),
+                        actionType, toText(rs.getObject(6)), json[0], json[1]);
+            }, boardId);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        generator.writeEndArray();
+    }
+
+    /**
+     * Архивные записи доски: в блоках уже лежит прежний формат с восстановленным JSON
+     */
+    private void writeArchivedHistory(JsonGenerator generator, Long boardId) throws IOException {
+        generator.writeStartArray();
+        try {
+            for (TaskHistoryArchive.BlockRef ref : taskHistoryArchive.boardBlocks(boardId)) {
+                taskHistoryArchive.readBlock(ref).stream()
+                        .map(row -> row.dto)
+                        .filter(dto -> boardId.equals(dto.getBoardId()))
+                        .sorted(Comparator.comparing(TaskHistoryDTO::getTimestamp).thenComparing(TaskHistoryDTO::getId))
+                        .forEach(dto -> writeHistoryRow(generator, dto.getId(), dto.getTaskId(),
+                                dto.getUser() != null ? dto.getUser().getId() : null, dto.getActionType(),
+                                dto.getTimestamp().toString(), dto.getOldTaskJson(), dto.getNewTaskJson()));
+                generator.flush();
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        generator.writeEndArray();
+    }
+
+    private void writeHistoryRow(JsonGenerator generator, Long id, Long taskId, Long userId, String actionType,
+                                 String timestamp, String oldTaskJson, String newTaskJson) {
+        try {
+            generator.writeStartObject();
+            writeNumberField(generator, "id", id);
+            writeNumberField(generator, "taskId", taskId);
+            writeNumberField(generator, "userId", userId);
+            generator.writeStringField("actionType", actionType);
+            generator.writeStringField("timestamp", timestamp);
+            generator.writeStringField("oldTaskJson", oldTaskJson);
+            generator.writeStringField("newTaskJson", newTaskJson);
+            generator.writeEndObject();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void writeNumberField(JsonGenerator generator, String field, Long value) throws IOException {
+        if (value != null) {
+            generator.writeNumberField(field, value);
+        } else {
+            generator.writeNullField(field);
+        }
+    }
+
+    /**
+     * Пишет JSON-массив объектов, по одному на строку результата. Имена полей берутся из метаданных
+     */
+    private void writeRows(JsonGenerator generator, String sql, Object... args) throws IOException {
+        generator.writeStartArray();
+        try {
+            streamingJdbcTemplate.query(sql, (RowCallbackHandler) rs -> writeRow(generator, rs), args);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        generator.writeEndArray();
+    }
+
+    private boolean writeSingleRow(JsonGenerator generator, String sql, Object... args) throws IOException {
+        boolean[] found = {false};
+        try {
+            streamingJdbcTemplate.query(sql, (RowCallbackHandler) rs -> {
+                writeRow(generator, rs);
+                found[0] = true;
+            }, args);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        return found[0];
+    }
+
+    private void writeRow(JsonGenerator generator, ResultSet rs) throws SQLException {
+        ResultSetMetaData metaData = rs.getMetaData();
+        try {
+            generator.writeStartObject();
+            for (int i = 1; i <= metaData.getColumnCount(); i++) {
+                String field = toFieldName(metaData.getColumnLabel(i));
+                Object value = rs.getObject(i);
+                if (value == null) {
+                    generator.writeNullField(field);
+                } else if (value instanceof Boolean bool) {
+                    generator.writeBooleanField(field, bool);
+                } else if (value instanceof Number number) {
+                    generator.writeFieldName(field);
+                    generator.writeNumber(number.toString());
+                } else {
+                    generator.writeStringField(field, toText(value));
+                }
+            }
+            generator.writeEndObject();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static String toFieldName(String column) {
+        StringBuilder field = new StringBuilder(column.length());
+        boolean upper = false;
+        for (char ch : column.toCharArray()) {
+            if (ch == '_') {
+                upper = true;
+            } else {
+                field.append(upper ? Character.toUpperCase(ch) : ch);
+                upper = false;
+            }
+        }
+        return field.toString();
+    }
+
+    private static Long toLong(Object value) {
+        return value != null ? ((Number) value).longValue() : null;
+    }
+
+    private static String toText(Object value) {
+        if (value == null) {
+            return null;
+        }
+        if (value instanceof Timestamp timestamp) {
+            return timestamp.toLocalDateTime().toString();
+        }
+        return value.toString();
+    }
+
+    private static void writeCsvLine(Writer writer, String[] values) throws IOException {
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            String value = values[i];
+            if (value == null) {
+                continue;
+            }
+            if (value.indexOf(',') >= 0 || value.indexOf('"') >= 0 || value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0) {
+                writer.write('"');
+                writer.write(value.replace("\"", "\"\""));
+                writer.write('"');
+            } else {
+                writer.write(value);
+            }
+        }
+        writer.write("\r\n");
+    }
+}
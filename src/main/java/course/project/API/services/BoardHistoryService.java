@@ -0,0 +1,454 @@
+package course.project.API.services;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import course.project.API.dto.board.AttachmentDTO;
+import course.project.API.dto.board.BoardWithColumnsDTO;
+import course.project.API.dto.board.ChecklistItemDTO;
+import course.project.API.dto.board.ColumnWithTasksDTO;
+import course.project.API.dto.board.TagDTO;
+import course.project.API.dto.board.TaskDTO;
+import course.project.API.dto.user.UserResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Состояние доски на момент времени, восстановленное из истории задач.
+ * Раз в checkpointRows строк истории доски в фоне сохраняется снимок всех живых задач доски
+ * с номерами их версий (board_history_checkpoints). Восстановление берет ближайший снимок
+ * не позже запрошенного момента и проигрывает вперед только строки истории после него,
+ * поэтому время не зависит от длины всей истории доски.
+ * Колонки, теги и участники доски не историзируются и берутся текущими; задачи из удаленных
+ * колонок попадают в отдельную колонку {@link #DELETED_COLUMN_NAME}.
+ * Строки, перенесенные в архив {@link TaskHistoryArchive}, проигрываются перед строками таблицы.
+ */
+@Service
+public class BoardHistoryService {
+
+    private static final Logger logger = LoggerFactory.getLogger(BoardHistoryService.class);
+
+    static final String DELETED_COLUMN_NAME = "Deleted column";
+
+    private static final ObjectMapper MAPPER = new ObjectMapper().registerModule(new JavaTimeModule());
+
+    private static final LocalDateTime BEGINNING = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    private static final String REPLAY_SQL = """
+            SELECT task_ref_id, version_no, checkpoint, action_type, diff_json,
+                   task_snapshot, new_task_json, old_task_json
+            FROM task_history
+            WHERE board_id = ? AND timestamp > ? AND timestamp <= ? AND task_ref_id IS NOT NULL
+            ORDER BY task_ref_id, version_no, timestamp, id
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TaskHistoryCodec taskHistoryCodec;
+    private final TaskHistoryArchive taskHistoryArchive;
+    private final BoardService boardService;
+    private final int checkpointRows;
+    private final long checkpointLagSeconds;
+
+    // Последняя просмотренная строка истории: доски-кандидаты на снимок ищутся только среди новых строк
+    private volatile long lastScannedId;
+
+    public BoardHistoryService(JdbcTemplate jdbcTemplate, TaskHistoryCodec taskHistoryCodec,
+                               TaskHistoryArchive taskHistoryArchive, BoardService boardService,
+                               @Value("${boards.history.checkpoint-rows:500}") int checkpointRows,
+                               @Value("${boards.history.checkpoint-lag-seconds:60}") long checkpointLagSeconds) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.taskHistoryCodec = taskHistoryCodec;
+        this.taskHistoryArchive = taskHistoryArchive;
+        this.boardService = boardService;
+        this.checkpointRows = checkpointRows;
+        this.checkpointLagSeconds = checkpointLagSeconds;
+    }
+
+    /**
+     * Доска со всеми задачами в том виде, в каком они были на момент at
+     */
+    public BoardWithColumnsDTO getBoardAt(Long boardId, LocalDateTime at) {
+        long startedAt = System.nanoTime();
+        BoardWithColumnsDTO board = boardService.getBoardWithDetails(boardId, 0);
+
+        Checkpoint checkpoint = findCheckpoint(boardId, at);
+        Map<Long, TaskState> tasks = checkpoint != null ? checkpoint.tasks : new HashMap<>();
+        int replayed = replay(boardId, tasks, checkpoint != null ? checkpoint.asOf : BEGINNING, at);
+        fillTasks(board, tasks);
+
+        logger.debug("Доска {} на {} восстановлена за {} мс: снимок от {}, строк истории {}, задач {}",
+                boardId, at, (System.nanoTime() - startedAt) / 1_000_000,
+                checkpoint != null ? checkpoint.asOf : "-", replayed, tasks.size());
+        return board;
+    }
+
+    /**
+     * Снимки досок, у которых с последнего снимка накопилось не меньше checkpointRows строк истории.
+     * Момент снимка отстает от текущего на checkpointLagSeconds: строки истории пишутся отложенно,
+     * и к этому моменту все строки с более ранним timestamp уже в БД
+     */
+    @Scheduled(fixedDelayString = "${boards.history.checkpoint-interval-ms:300000}",
+            initialDelayString = "${boards.history.checkpoint-initial-delay-ms:60000}")
+    public void createCheckpoints() {
+        Long maxId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM task_history", Long.class);
+        if (maxId == null || maxId <= lastScannedId) {
+            return;
+        }
+        List<Long> boardIds = jdbcTemplate.queryForList(
+                "SELECT DISTINCT board_id FROM task_history WHERE id > ? AND id <= ?",
+                Long.class, lastScannedId, maxId);
+        LocalDateTime asOf = LocalDateTime.now().minusSeconds(checkpointLagSeconds);
+        int created = 0;
+        for (Long boardId : boardIds) {
+            try {
+                if (checkpointIfDue(boardId, asOf)) {
+                    created++;
+                }
+            } catch (RuntimeException e) {
+                logger.warn("Не удалось сохранить снимок доски {}: {}", boardId, e.getMessage());
+            }
+        }
+        lastScannedId = maxId;
+        if (created > 0) {
+            logger.info("Снимки истории досок: проверено досок {}, сохранено снимков {}", boardIds.size(), created);
+        }
+    }
+
+    private boolean checkpointIfDue(Long boardId, LocalDateTime asOf) {
+        Checkpoint previous = findCheckpoint(boardId, asOf);
+        LocalDateTime from = previous != null ? previous.asOf : BEGINNING;
+        Integer rows = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM task_history WHERE board_id = ? AND timestamp > ? AND timestamp <= ?",
+                Integer.class, boardId, Timestamp.valueOf(from), Timestamp.valueOf(asOf));
+        if (rows == null || rows < checkpointRows) {
+            return false;
+        }
+        Map<Long, TaskState> tasks = previous != null ? previous.tasks : new HashMap<>();
+        replay(boardId, tasks, from, asOf);
+        byte[] snapshot = encodeSnapshot(tasks);
+        jdbcTemplate.update("""
+                        INSERT INTO board_history_checkpoints (board_id, as_of, task_count, history_rows, snapshot)
+                        VALUES (?, ?, ?, ?, ?)
+                        """,
+                boardId, Timestamp.valueOf(asOf), tasks.size(), rows, snapshot);
+        logger.debug("Снимок доски {} на {}: задач {}, строк истории с прошлого снимка {}, {} байт",
+                boardId, asOf, tasks.size(), rows, snapshot.length);
+        return true;
+    }
+
+    private Checkpoint findCheckpoint(Long boardId, LocalDateTime at) {
+        List<Checkpoint> checkpoints = jdbcTemplate.query("""
+                        SELECT as_of, snapshot FROM board_history_checkpoints
+                        WHERE board_id = ? AND as_of <= ?
+                        ORDER BY as_of DESC LIMIT 1
+                        """,
+                (rs, rowNum) -> new Checkpoint(rs.getTimestamp(1).toLocalDateTime(), decodeSnapshot(rs.getBytes(2))),
+                boardId, Timestamp.valueOf(at));
+        return checkpoints.isEmpty() ? null : checkpoints.get(0);
+    }
+
+    /**
+     * Проигрывает поверх tasks строки истории доски с timestamp в (from, to]. Возвращает число строк
+     */
+    private int replay(Long boardId, Map<Long, TaskState> tasks, LocalDateTime from, LocalDateTime to) {
+        int[] count = {0};
+        // Архив старше любой строки таблицы той же задачи; его записи хранят полный JSON без версий
+        for (TaskHistoryArchive.ArchivedRow row : taskHistoryArchive.readBoard(boardId, from, to)) {
+            if (row.taskRefId != null) {
+                apply(tasks, new HistoryRow(row.taskRefId, null, false, row.dto.getActionType(), null,
+                        row.dto.getTaskSnapshot(), row.dto.getNewTaskJson(), row.dto.getOldTaskJson()));
+                count[0]++;
+            }
+        }
+        jdbcTemplate.query(REPLAY_SQL, (RowCallbackHandler) rs -> {
+            int version = rs.getInt(2);
+            apply(tasks, new HistoryRow(rs.getLong(1), rs.wasNull() ? null : version, rs.getBoolean(3),
+                    rs.getString(4), rs.getString(5), rs.getString(6), rs.getString(7), rs.getString(8)));
+            count[0]++;
+        }, boardId, Timestamp.valueOf(from), Timestamp.valueOf(to));
+
+        // Версии после разрыва цепочки восстанавливаются от контрольных точек задач, уже вне потока строк
+        Iterator<Map.Entry<Long, TaskState>> iterator = tasks.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<Long, TaskState> entry = iterator.next();
+            TaskState state = entry.getValue();
+            if (state.node == null) {
+                JsonNode node = state.versionNo > 0
+                        ? parse(taskHistoryCodec.reconstruct(entry.getKey(), state.versionNo)) : null;
+                if (node != null) {
+                    entry.setValue(new TaskState(state.versionNo, node));
+                } else {
+                    iterator.remove();
+                }
+            }
+        }
+        return count[0];
+    }
+
+    /**
+     * Применяет строку истории к состоянию задач доски. Строки одной задачи приходят по возрастанию версий
+     */
+    static void apply(Map<Long, TaskState> tasks, HistoryRow row) {
+        if ("DELETE".equals(row.actionType)) {
+            tasks.remove(row.taskId);
+            return;
+        }
+        TaskState current = tasks.get(row.taskId);
+        Integer version = row.versionNo;
+        TaskState next;
+        if (version == null || version == 0) {
+            // Старая строка с полными JSON, еще не сжатая в цепочку
+            String json = row.newTaskJson != null ? row.newTaskJson
+                    : row.taskSnapshot != null ? row.taskSnapshot : row.oldTaskJson;
+            next = new TaskState(0, parse(json));
+        } else if (row.checkpoint) {
+            next = new TaskState(version, parse(row.taskSnapshot));
+        } else if (current != null && current.node != null && current.versionNo == version - 1) {
+            next = new TaskState(version, TaskHistoryCodec.apply(current.node, parse(row.diffJson)));
+        } else {
+            next = new TaskState(version, null);
+        }
+        tasks.put(row.taskId, next);
+    }
+
+    /**
+     * Раскладывает задачи по текущим колонкам доски и пересчитывает счетчики
+     */
+    static void fillTasks(BoardWithColumnsDTO board, Map<Long, TaskState> tasks) {
+        Map<Long, TagDTO> tags = new HashMap<>();
+        if (board.getTags() != null) {
+            board.getTags().forEach(tag -> tags.put(tag.getId(), tag));
+        }
+        Map<Long, ColumnWithTasksDTO> columns = new LinkedHashMap<>();
+        Map<Long, List<TaskDTO>> columnTasks = new HashMap<>();
+        for (ColumnWithTasksDTO column : board.getColumns()) {
+            columns.put(column.getId(), column);
+            columnTasks.put(column.getId(), new ArrayList<>());
+        }
+
+        for (TaskState state : tasks.values()) {
+            TaskDTO task = toTaskDTO(state.node, board.getId(), tags);
+            if (task.getId() == null) {
+                continue;
+            }
+            List<TaskDTO> list = columnTasks.get(task.getColumnId());
+            if (list == null) {
+                ColumnWithTasksDTO deleted = new ColumnWithTasksDTO();
+                deleted.setId(task.getColumnId());
+                deleted.setName(DELETED_COLUMN_NAME);
+                deleted.setBoardId(board.getId());
+                deleted.setPosition(Integer.MAX_VALUE);
+                columns.put(task.getColumnId(), deleted);
+                list = new ArrayList<>();
+                columnTasks.put(task.getColumnId(), list);
+            }
+            list.add(task);
+        }
+
+        int totalTasks = 0;
+        int completedTasks = 0;
+        List<ColumnWithTasksDTO> result = new ArrayList<>(columns.values());
+        result.sort(Comparator.comparing(ColumnWithTasksDTO::getPosition, Comparator.nullsLast(Comparator.naturalOrder())));
+        for (ColumnWithTasksDTO column : result) {
+            List<TaskDTO> list = columnTasks.get(column.getId());
+            list.sort(Comparator.comparing(TaskDTO::getPosition, Comparator.nullsLast(Comparator.naturalOrder())));
+            list.forEach(task -> task.setColumnName(column.getName()));
+            column.setTasks(new LinkedHashSet<>(list));
+            column.setTaskCount(list.size());
+            column.setHasMoreTasks(false);
+            totalTasks += list.size();
+            if ("Done".equals(column.getName())) {
+                completedTasks += list.size();
+            }
+        }
+        board.setColumns(result);
+        board.setCompletionPercentage(totalTasks == 0 ? 0.0
+                : Math.round((double) completedTasks / totalTasks * 100.0 * 100.0) / 100.0);
+    }
+
+    /**
+     * TaskDTO из JSON задачи в истории (сериализованная сущность Task)
+     */
+    static TaskDTO toTaskDTO(JsonNode node, Long boardId, Map<Long, TagDTO> tags) {
+        TaskDTO dto = new TaskDTO();
+        dto.setId(longValue(node, "id"));
+        dto.setTitle(textValue(node, "title"));
+        dto.setDescription(textValue(node, "description"));
+        dto.setColumnId(longValue(node, "columnId"));
+        dto.setBoardId(boardId);
+        dto.setStartDate(dateValue(node, "startDate"));
+        dto.setEndDate(dateValue(node, "endDate"));
+        dto.setPosition(node.hasNonNull("position") ? node.get("position").asInt() : null);
+        dto.setChatId(longValue(node, "chatId"));
+        dto.setVersion(longValue(node, "version"));
+
+        Long tagId = longValue(node, "tagId");
+        TagDTO tag = tagId != null ? tags.get(tagId) : null;
+        JsonNode tagNode = node.get("tag");
+        if (tag == null && tagNode != null && tagNode.isObject()) {
+            tag = new TagDTO(longValue(tagNode, "id"), textValue(tagNode, "name"), textValue(tagNode, "color"), boardId);
+        }
+        dto.setTag(tag);
+
+        Set<UserResponse> participants = new LinkedHashSet<>();
+        for (JsonNode user : node.path("participants")) {
+            participants.add(new UserResponse(longValue(user, "id"), textValue(user, "name"), textValue(user, "avatarURL")));
+        }
+        dto.setParticipants(participants);
+
+        List<ChecklistItemDTO> checklist = new ArrayList<>();
+        for (JsonNode item : node.path("checklist")) {
+            checklist.add(new ChecklistItemDTO(longValue(item, "id"), textValue(item, "text"),
+                    item.path("completed").asBoolean(),
+                    item.hasNonNull("position") ? item.get("position").asInt() : null));
+        }
+        dto.setChecklist(checklist);
+
+        List<AttachmentDTO> attachments = new ArrayList<>();
+        for (JsonNode attachment : node.path("attachments")) {
+            attachments.add(new AttachmentDTO(longValue(attachment, "id"), textValue(attachment, "fileName"),
+                    textValue(attachment, "filePath"), textValue(attachment, "fileType"),
+                    longValue(attachment, "fileSize"), textValue(attachment, "uploadedBy"),
+                    dateValue(attachment, "uploadedAt")));
+        }
+        dto.setAttachments(attachments);
+        return dto;
+    }
+
+    /**
+     * gzip JSON {"<taskId>": {"v": версия, "s": JSON задачи}}
+     */
+    static byte[] encodeSnapshot(Map<Long, TaskState> tasks) {
+        ObjectNode root = MAPPER.createObjectNode();
+        tasks.forEach((taskId, state) -> {
+            if (state.node != null) {
+                ObjectNode entry = root.putObject(taskId.toString());
+                entry.put("v", state.versionNo);
+                entry.set("s", state.node);
+            }
+        });
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(bytes)) {
+            MAPPER.writeValue(gzip, root);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    static Map<Long, TaskState> decodeSnapshot(byte[] snapshot) {
+        JsonNode root;
+        try (GZIPInputStream gzip = new GZIPInputStream(new ByteArrayInputStream(snapshot))) {
+            root = MAPPER.readTree(gzip);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        Map<Long, TaskState> tasks = new HashMap<>(root.size() * 2);
+        root.fields().forEachRemaining(entry -> tasks.put(Long.valueOf(entry.getKey()),
+                new TaskState(entry.getValue().path("v").asInt(), entry.getValue().get("s"))));
+        return tasks;
+    }
+
+    private static Long longValue(JsonNode node, String field) {
+        JsonNode value = node.get(field);
+        return value != null && !value.isNull() ? value.asLong() : null;
+    }
+
+    private static String textValue(JsonNode node, String field) {
+        JsonNode value = node.get(field);
+        return value != null && !value.isNull() ? value.asText() : null;
+    }
+
+    private static LocalDateTime dateValue(JsonNode node, String field) {
+        JsonNode value = node.get(field);
+        if (value == null || value.isNull()) {
+            return null;
+        }
+        try {
+            return MAPPER.treeToValue(value, LocalDateTime.class);
+        } catch (JsonProcessingException e) {
+            return null;
+        }
+    }
+
+    private static JsonNode parse(String json) {
+        if (json == null) {
+            return null;
+        }
+        try {
+            return MAPPER.readTree(json);
+        } catch (JsonProcessingException e) {
+            logger.warn("Некорректный JSON в истории задачи: {}", e.getOriginalMessage());
+            return null;
+        }
+    }
+
+    static final class TaskState {
+        final int versionNo;
+        // null — версия после разрыва цепочки, еще не восстановлена
+        final JsonNode node;
+
+        TaskState(int versionNo, JsonNode node) {
+            this.versionNo = versionNo;
+            this.node = node;
+        }
+    }
+
+    static final class HistoryRow {
+        final Long taskId;
+        final Integer versionNo;
+        final boolean checkpoint;
+        final String actionType;
+        final String diffJson;
+        final String taskSnapshot;
+        final String newTaskJson;
+        final String oldTaskJson;
+
+        HistoryRow(Long taskId, Integer versionNo, boolean checkpoint, String actionType, String diffJson,
+                   String taskSnapshot, String newTaskJson, String oldTaskJson) {
+            this.taskId = taskId;
+            this.versionNo = versionNo;
+            this.checkpoint = checkpoint;
+            this.actionType = actionType;
+            this.diffJson = diffJson;
+            this.taskSnapshot = taskSnapshot;
+            this.newTaskJson = newTaskJson;
+            this.oldTaskJson = oldTaskJson;
+        }
+    }
+
+    private static final class Checkpoint {
+        private final LocalDateTime asOf;
+        private final Map<Long, TaskState> tasks;
+
+        private Checkpoint(LocalDateTime asOf, Map<Long, TaskState> tasks) {
+            this.asOf = asOf;
+            this.tasks = tasks;
+        }
+    }
+}
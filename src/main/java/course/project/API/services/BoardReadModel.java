@@ -0,0 +1,495 @@
+package course.project.API.services;
+
+import course.project.API.dto.board.AttachmentDTO;
+import course.project.API.dto.board.BoardWithColumnsDTO;
+import course.project.API.dto.board.BoardWithParticipantsDTO;
+import course.project.API.dto.board.ChecklistItemDTO;
+import course.project.API.dto.board.ColumnWithTasksDTO;
+import course.project.API.dto.board.TagDTO;
+import course.project.API.dto.board.TaskDTO;
+import course.project.API.dto.user.UserResponse;
+import course.project.API.events.BoardEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Модель чтения досок в памяти.
+ * Снимки досок хранятся в {@link BoardSnapshotCache} и не изменяются: на каждое доменное событие
+ * {@link BoardEvent} после коммита из БД перечитываются только затронутые задачи или колонки,
+ * собирается новый снимок и кладется под новой версией доски. Чтение доски и списка досок проекта
+ * обращается к БД только при холодной загрузке.
+ * Снимки, к которым давно не обращались, выкидываются; раз в несколько минут часть снимков
+ * сверяется с БД и при расхождении заменяется.
+ */
+@Service
+public class BoardReadModel {
+
+    private static final Logger logger = LoggerFactory.getLogger(BoardReadModel.class);
+
+    private static final Comparator<TaskDTO> TASK_ORDER = Comparator
+            .comparing(TaskDTO::getPosition, Comparator.nullsLast(Comparator.naturalOrder()))
+            .thenComparing(TaskDTO::getId);
+
+    private static final Comparator<ColumnWithTasksDTO> COLUMN_ORDER = Comparator
+            .comparing(ColumnWithTasksDTO::getPosition, Comparator.nullsLast(Comparator.naturalOrder()))
+            .thenComparing(ColumnWithTasksDTO::getId);
+
+    private static final int LOCK_STRIPES = 64;
+
+    private final BoardService boardService;
+    private final BoardSnapshotCache boardSnapshotCache;
+    private final BoardChangeLog boardChangeLog;
+    private final long idleMillis;
+    private final int consistencyCheckBatch;
+
+    private final Object[] locks = new Object[LOCK_STRIPES];
+    private final Map<Long, ProjectBoards> projectBoards = new ConcurrentHashMap<>();
+    private final Map<Long, AtomicLong> projectGenerations = new ConcurrentHashMap<>();
+    private int consistencyCursor;
+
+    public BoardReadModel(BoardService boardService, BoardSnapshotCache boardSnapshotCache, BoardChangeLog boardChangeLog,
+                          @Value("${boards.read-model.idle-seconds:1800}") long idleSeconds,
+                          @Value("${boards.read-model.consistency-check-batch:5}") int consistencyCheckBatch) {
+        this.boardService = boardService;
+        this.boardSnapshotCache = boardSnapshotCache;
+        this.boardChangeLog = boardChangeLog;
+        this.idleMillis = idleSeconds * 1000;
+        this.consistencyCheckBatch = consistencyCheckBatch;
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new Object();
+        }
+    }
+
+    /**
+     * Снимок доски из памяти; при первом обращении доска загружается из БД
+     */
+    public BoardSnapshotCache.Snapshot getBoard(Long boardId) {
+        return boardSnapshotCache.getOrLoad(boardId, boardService::getBoardWithDetails);
+    }
+
+    /**
+     * Доски проекта с участниками, тегами и процентом выполнения, собранные из снимков досок
+     */
+    public List<BoardWithParticipantsDTO> getBoardsByProjectId(Long projectId) {
+        ProjectBoards entry = projectBoards.get(projectId);
+        if (entry == null) {
+            AtomicLong generation = projectGenerations.computeIfAbsent(projectId, id -> new AtomicLong());
+            long loadedAt = generation.get();
+            entry = new ProjectBoards(boardService.getProjectBoardIds(projectId));
+            // Если за время загрузки в проекте создали или удалили доску, список не кэшируем
+            if (generation.get() == loadedAt) {
+                projectBoards.put(projectId, entry);
+            }
+        }
+        entry.lastAccessedAt = System.currentTimeMillis();
+
+        List<BoardWithParticipantsDTO> result = new ArrayList<>();
+        for (Long boardId : entry.boardIds) {
+            BoardWithColumnsDTO board;
+            try {
+                board = getBoard(boardId).getBoard();
+            } catch (NoSuchElementException e) {
+                // Доска удалена, событие об удалении еще не обработано
+                continue;
+            }
+            BoardWithParticipantsDTO dto = new BoardWithParticipantsDTO();
+            dto.setId(board.getId());
+            dto.setTitle(board.getTitle());
+            dto.setDescription(board.getDescription());
+            dto.setEmoji(board.getEmoji());
+            dto.setProjectId(projectId);
+            dto.setTags(new ArrayList<>(board.getTags()));
+            dto.setParticipants(board.getParticipants());
+            dto.setCompletionPercentage(board.getCompletionPercentage());
+            result.add(dto);
+        }
+        return result;
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onBoardEvent(BoardEvent event) {
+        Long boardId = event.getBoardId();
+        switch (event.getType()) {
+            case BOARD_CREATED -> {
+                updateProjectBoards(event.getProjectId(), boardId, true);
+                return;
+            }
+            case BOARD_DELETED -> {
+                updateProjectBoards(event.getProjectId(), boardId, false);
+                boardChangeLog.recordResync(boardId);
+                return;
+            }
+            default -> {
+            }
+        }
+
+        synchronized (lockFor(boardId)) {
+            BoardSnapshotCache.Snapshot current = boardSnapshotCache.getCurrent(boardId);
+            BoardWithColumnsDTO updated = null;
+            List<BoardChangeLog.Change> changes = new ArrayList<>();
+            if (current == null) {
+                changes.addAll(changesWithoutSnapshot(event));
+            } else {
+                try {
+                    updated = apply(current.getBoard(), event, changes);
+                } catch (RuntimeException e) {
+                    logger.warn("Не удалось применить {} к снимку доски {}: {}", event, boardId, e.getMessage());
+                    changes.clear();
+                    changes.add(new BoardChangeLog.Change(BoardChangeLog.KIND_RESYNC, null));
+                }
+            }
+
+            long version = boardChangeLog.record(boardId, changes);
+            if (updated != null) {
+                boardSnapshotCache.put(boardId, version, updated);
+            }
+        }
+    }
+
+    /**
+     * Сверяет снимок доски с БД. При расхождении снимок заменяется, а клиентам доски
+     * через журнал изменений сообщается о необходимости полной перезагрузки
+     *
+     * @return true, если снимок совпал с БД или его нет в памяти
+     */
+    public boolean verify(Long boardId) {
+        synchronized (lockFor(boardId)) {
+            BoardSnapshotCache.Snapshot current = boardSnapshotCache.getCurrent(boardId);
+            if (current == null) {
+                return true;
+            }
+            BoardWithColumnsDTO fresh;
+            try {
+                fresh = boardService.getBoardWithDetails(boardId);
+            } catch (NoSuchElementException e) {
+                boardChangeLog.recordResync(boardId);
+                return false;
+            }
+            if (fingerprint(fresh).equals(fingerprint(current.getBoard()))) {
+                return true;
+            }
+
+            logger.warn("Снимок доски {} версии {} разошелся с БД, снимок заменен", boardId, current.getVersion());
+            long version = boardChangeLog.recordResync(boardId);
+            boardSnapshotCache.put(boardId, version, fresh);
+            return false;
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${boards.read-model.consistency-check-ms:300000}",
+            initialDelayString = "${boards.read-model.consistency-check-ms:300000}")
+    public void checkConsistency() {
+        List<Long> boardIds = boardSnapshotCache.getCachedBoardIds();
+        if (boardIds.isEmpty()) {
+            return;
+        }
+        boardIds.sort(Comparator.naturalOrder());
+        int mismatches = 0;
+        int checks = Math.min(consistencyCheckBatch, boardIds.size());
+        for (int i = 0; i < checks; i++) {
+            Long boardId = boardIds.get(consistencyCursor++ % boardIds.size());
+            try {
+                if (!verify(boardId)) {
+                    mismatches++;
+                }
+            } catch (RuntimeException e) {
+                logger.warn("Ошибка сверки снимка доски {}: {}", boardId, e.getMessage());
+            }
+        }
+        logger.debug("Сверка снимков досок: проверено {}, расхождений {}", checks, mismatches);
+    }
+
+    @Scheduled(fixedDelayString = "${boards.read-model.eviction-check-ms:60000}")
+    public void evictIdle() {
+        List<Long> evicted = boardSnapshotCache.evictIdle(idleMillis);
+        long threshold = System.currentTimeMillis() - idleMillis;
+        projectBoards.values().removeIf(entry -> entry.lastAccessedAt < threshold);
+        if (!evicted.isEmpty()) {
+            logger.debug("Выгружены неактивные снимки досок: {}", evicted);
+        }
+    }
+
+    private BoardWithColumnsDTO apply(BoardWithColumnsDTO board, BoardEvent event, List<BoardChangeLog.Change> changes) {
+        Long boardId = event.getBoardId();
+        Map<Long, List<TaskDTO>> tasksByColumn = tasksByColumn(board);
+
+        switch (event.getType()) {
+            case TASK_CHANGED, TASK_DELETED -> {
+                Long taskId = event.getEntityId();
+                removeTask(tasksByColumn, taskId);
+                if (event.getType() == BoardEvent.Type.TASK_CHANGED) {
+                    for (TaskDTO task : boardService.getTasksByIds(boardId, List.of(taskId))) {
+                        List<TaskDTO> columnTasks = tasksByColumn.get(task.getColumnId());
+                        if (columnTasks == null) {
+                            throw new IllegalStateException("Column " + task.getColumnId() + " is not in the snapshot");
+                        }
+                        columnTasks.add(task);
+                    }
+                }
+                changes.add(new BoardChangeLog.Change(BoardChangeLog.KIND_TASK, taskId));
+                return assemble(board, board.getColumns(), tasksByColumn);
+            }
+            case TASKS_CHANGED -> {
+                // Удаленных задач нет в выборке, они просто пропадают из снимка
+                event.getEntityIds().forEach(taskId -> removeTask(tasksByColumn, taskId));
+                for (TaskDTO task : boardService.getTasksByIds(boardId, event.getEntityIds())) {
+                    List<TaskDTO> columnTasks = tasksByColumn.get(task.getColumnId());
+                    if (columnTasks == null) {
+                        throw new IllegalStateException("Column " + task.getColumnId() + " is not in the snapshot");
+                    }
+                    columnTasks.add(task);
+                }
+                event.getEntityIds().forEach(taskId -> changes.add(new BoardChangeLog.Change(BoardChangeLog.KIND_TASK, taskId)));
+                return assemble(board, board.getColumns(), tasksByColumn);
+            }
+            case COLUMN_TASKS_CHANGED -> {
+                Long columnId = event.getEntityId();
+                List<TaskDTO> previous = tasksByColumn.get(columnId);
+                if (previous == null) {
+                    throw new IllegalStateException("Column " + columnId + " is not in the snapshot");
+                }
+                Set<Long> changedTaskIds = new LinkedHashSet<>();
+                previous.forEach(task -> changedTaskIds.add(task.getId()));
+
+                List<TaskDTO> current = boardService.getColumnTasks(boardId, columnId);
+                for (TaskDTO task : current) {
+                    // Задача могла переехать из другой колонки
+                    removeTask(tasksByColumn, task.getId());
+                    changedTaskIds.add(task.getId());
+                }
+                tasksByColumn.put(columnId, new ArrayList<>(current));
+                changedTaskIds.forEach(id -> changes.add(new BoardChangeLog.Change(BoardChangeLog.KIND_TASK, id)));
+                return assemble(board, board.getColumns(), tasksByColumn);
+            }
+            case COLUMNS_CHANGED -> {
+                BoardWithColumnsDTO header = boardService.getBoardWithDetails(boardId, 0);
+                Map<Long, ColumnWithTasksDTO> previousColumns = new HashMap<>();
+                board.getColumns().forEach(column -> previousColumns.put(column.getId(), column));
+
+                for (ColumnWithTasksDTO column : header.getColumns()) {
+                    ColumnWithTasksDTO previous = previousColumns.remove(column.getId());
+                    if (previous == null) {
+                        tasksByColumn.put(column.getId(), new ArrayList<>(boardService.getColumnTasks(boardId, column.getId())));
+                    }
+                    if (previous == null || !Objects.equals(previous.getName(), column.getName())
+                            || !Objects.equals(previous.getPosition(), column.getPosition())
+                            || previous.isCompletionColumn() != column.isCompletionColumn()) {
+                        changes.add(new BoardChangeLog.Change(BoardChangeLog.KIND_COLUMN, column.getId()));
+                    }
+                }
+                // Оставшиеся колонки удалены вместе с задачами
+                for (ColumnWithTasksDTO removed : previousColumns.values()) {
+                    changes.add(new BoardChangeLog.Change(BoardChangeLog.KIND_COLUMN, removed.getId()));
+                    for (TaskDTO task : tasksByColumn.remove(removed.getId())) {
+                        changes.add(new BoardChangeLog.Change(BoardChangeLog.KIND_TASK, task.getId()));
+                    }
+                }
+                return assemble(board, header.getColumns(), tasksByColumn);
+            }
+            case BOARD_CHANGED -> {
+                BoardWithColumnsDTO header = boardService.getBoardWithDetails(boardId, 0);
+                Map<Long, TagDTO> tags = new HashMap<>();
+                header.getTags().forEach(tag -> tags.put(tag.getId(), tag));
+
+                // Теги задач берутся из нового набора тегов доски
+                for (List<TaskDTO> columnTasks : tasksByColumn.values()) {
+                    for (int i = 0; i < columnTasks.size(); i++) {
+                        TaskDTO task = columnTasks.get(i);
+                        if (task.getTag() == null) {
+                            continue;
+                        }
+                        TagDTO tag = tags.get(task.getTag().getId());
+                        if (tag == null || !sameTag(tag, task.getTag())) {
+                            columnTasks.set(i, copyWithTag(task, tag));
+                            changes.add(new BoardChangeLog.Change(BoardChangeLog.KIND_TASK, task.getId()));
+                        }
+                    }
+                }
+                changes.add(new BoardChangeLog.Change(BoardChangeLog.KIND_BOARD, null));
+                return assemble(header, board.getColumns(), tasksByColumn);
+            }
+            default -> throw new IllegalArgumentException("Unexpected event " + event);
+        }
+    }
+
+    /**
+     * Собирает новый снимок: поля доски, теги и участники из header, колонки из columns, задачи из tasksByColumn.
+     * Объекты предыдущего снимка не изменяются, неизмененные задачи переиспользуются
+     */
+    private BoardWithColumnsDTO assemble(BoardWithColumnsDTO header, List<ColumnWithTasksDTO> columns,
+                                         Map<Long, List<TaskDTO>> tasksByColumn) {
+        BoardWithColumnsDTO dto = new BoardWithColumnsDTO();
+        dto.setId(header.getId());
+        dto.setTitle(header.getTitle());
+        dto.setDescription(header.getDescription());
+        dto.setEmoji(header.getEmoji());
+        dto.setProjectId(header.getProjectId());
+        dto.setTags(header.getTags());
+        dto.setParticipants(header.getParticipants());
+
+        int totalTasks = 0;
+        int completedTasks = 0;
+        List<ColumnWithTasksDTO> newColumns = new ArrayList<>();
+        for (ColumnWithTasksDTO column : columns) {
+            List<TaskDTO> tasks = new ArrayList<>(tasksByColumn.getOrDefault(column.getId(), List.of()));
+            tasks.sort(TASK_ORDER);
+
+            ColumnWithTasksDTO colDto = new ColumnWithTasksDTO();
+            colDto.setId(column.getId());
+            colDto.setName(column.getName());
+            colDto.setBoardId(column.getBoardId());
+            colDto.setPosition(column.getPosition());
+            colDto.setCompletionColumn(column.isCompletionColumn());
+            colDto.setTasks(new LinkedHashSet<>(tasks));
+            colDto.setTaskCount(tasks.size());
+            newColumns.add(colDto);
+
+            totalTasks += tasks.size();
+            if ("Done".equals(column.getName())) {
+                completedTasks += tasks.size();
+            }
+        }
+        newColumns.sort(COLUMN_ORDER);
+        dto.setColumns(newColumns);
+        dto.setCompletionPercentage(totalTasks == 0 ? 0.0
+                : Math.round((double) completedTasks / totalTasks * 100.0 * 100.0) / 100.0);
+        return dto;
+    }
+
+    private List<BoardChangeLog.Change> changesWithoutSnapshot(BoardEvent event) {
+        return switch (event.getType()) {
+            case TASK_CHANGED, TASK_DELETED, TASKS_CHANGED -> event.getEntityIds().stream()
+                    .map(taskId -> new BoardChangeLog.Change(BoardChangeLog.KIND_TASK, taskId))
+                    .collect(Collectors.toList());
+            case BOARD_CHANGED -> List.of(new BoardChangeLog.Change(BoardChangeLog.KIND_BOARD, null));
+            // Без снимка не известно, какие задачи и колонки затронуты
+            default -> List.of(new BoardChangeLog.Change(BoardChangeLog.KIND_RESYNC, null));
+        };
+    }
+
+    private void updateProjectBoards(Long projectId, Long boardId, boolean added) {
+        if (projectId == null) {
+            return;
+        }
+        projectGenerations.computeIfAbsent(projectId, id -> new AtomicLong()).incrementAndGet();
+        projectBoards.computeIfPresent(projectId, (id, entry) -> {
+            List<Long> boardIds = new ArrayList<>(entry.boardIds);
+            boardIds.remove(boardId);
+            if (added) {
+                boardIds.add(boardId);
+                boardIds.sort(Comparator.naturalOrder());
+            }
+            ProjectBoards updated = new ProjectBoards(boardIds);
+            updated.lastAccessedAt = entry.lastAccessedAt;
+            return updated;
+        });
+    }
+
+    private Object lockFor(Long boardId) {
+        return locks[Math.floorMod(boardId.hashCode(), LOCK_STRIPES)];
+    }
+
+    private static Map<Long, List<TaskDTO>> tasksByColumn(BoardWithColumnsDTO board) {
+        Map<Long, List<TaskDTO>> tasksByColumn = new LinkedHashMap<>();
+        for (ColumnWithTasksDTO column : board.getColumns()) {
+            tasksByColumn.put(column.getId(), new ArrayList<>(column.getTasks()));
+        }
+        return tasksByColumn;
+    }
+
+    private static void removeTask(Map<Long, List<TaskDTO>> tasksByColumn, Long taskId) {
+        for (List<TaskDTO> tasks : tasksByColumn.values()) {
+            tasks.removeIf(task -> task.getId().equals(taskId));
+        }
+    }
+
+    private static boolean sameTag(TagDTO a, TagDTO b) {
+        return Objects.equals(a.getName(), b.getName()) && Objects.equals(a.getColor(), b.getColor());
+    }
+
+    private static TaskDTO copyWithTag(TaskDTO task, TagDTO tag) {
+        TaskDTO copy = new TaskDTO();
+        copy.setId(task.getId());
+        copy.setColumnId(task.getColumnId());
+        copy.setTitle(task.getTitle());
+        copy.setDescription(task.getDescription());
+        copy.setStartDate(task.getStartDate());
+        copy.setEndDate(task.getEndDate());
+        copy.setPosition(task.getPosition());
+        copy.setTag(tag);
+        copy.setChatId(task.getChatId());
+        copy.setVersion(task.getVersion());
+        copy.setParticipants(task.getParticipants());
+        copy.setChecklist(task.getChecklist());
+        copy.setAttachments(task.getAttachments());
+        return copy;
+    }
+
+    /**
+     * Каноническое представление снимка, не зависящее от порядка элементов в множествах
+     */
+    static String fingerprint(BoardWithColumnsDTO board) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(board.getId()).append('|').append(board.getTitle()).append('|').append(board.getDescription())
+                .append('|').append(board.getEmoji()).append('|').append(board.getProjectId()).append('\n');
+
+        board.getTags().stream().sorted(Comparator.comparing(TagDTO::getId))
+                .forEach(tag -> sb.append("tag|").append(tag.getId()).append('|').append(tag.getName())
+                        .append('|').append(tag.getColor()).append('\n'));
+        appendUsers(sb, "participant", board.getParticipants());
+
+        board.getColumns().stream().sorted(Comparator.comparing(ColumnWithTasksDTO::getId)).forEach(column -> {
+            sb.append("column|").append(column.getId()).append('|').append(column.getName()).append('|')
+                    .append(column.getPosition()).append('|').append(column.isCompletionColumn()).append('\n');
+            column.getTasks().stream().sorted(Comparator.comparing(TaskDTO::getId)).forEach(task -> {
+                sb.append("task|").append(task.getId()).append('|').append(task.getColumnId()).append('|')
+                        .append(task.getTitle()).append('|').append(task.getDescription()).append('|')
+                        .append(task.getStartDate()).append('|').append(task.getEndDate()).append('|')
+                        .append(task.getPosition()).append('|').append(task.getChatId()).append('|')
+                        .append(task.getTag() != null ? task.getTag().getId() : null).append('\n');
+                appendUsers(sb, "taskParticipant", task.getParticipants());
+                task.getChecklist().stream().sorted(Comparator.comparing(ChecklistItemDTO::getId))
+                        .forEach(item -> sb.append("item|").append(item.getId()).append('|').append(item.getText())
+                                .append('|').append(item.isCompleted()).append('|').append(item.getPosition()).append('\n'));
+                task.getAttachments().stream().sorted(Comparator.comparing(AttachmentDTO::getId))
+                        .forEach(attachment -> sb.append("attachment|").append(attachment.getId()).append('|')
+                                .append(attachment.getFileName()).append('|').append(attachment.getFileSize()).append('\n'));
+            });
+        });
+        return sb.toString();
+    }
+
+    private static void appendUsers(StringBuilder sb, String prefix, Set<UserResponse> users) {
+        users.stream().sorted(Comparator.comparing(UserResponse::getId))
+                .forEach(user -> sb.append(prefix).append('|').append(user.getId()).append('|')
+                        .append(user.getName()).append('|').append(user.getAvatarURL()).append('\n'));
+    }
+
+    private static class ProjectBoards {
+        private final List<Long> boardIds;
+        private volatile long lastAccessedAt = System.currentTimeMillis();
+
+        private ProjectBoards(List<Long> boardIds) {
+            this.boardIds = List.copyOf(boardIds);
+        }
+    }
+}
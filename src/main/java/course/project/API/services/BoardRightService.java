@@ -1,11 +1,13 @@
 package course.project.API.services;
 
+import course.project.API.events.BoardEvent;
 import course.project.API.models.*;
 import course.project.API.repositories.BoardRepository;
 import course.project.API.repositories.BoardUserRightRepository;
 import course.project.API.repositories.ProjectRepository;
 import course.project.API.repositories.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -23,18 +25,21 @@ public class BoardRightService {
     private final ProjectRepository projectRepository;
     private final BoardUserRightRepository boardUserRightRepository;
     private final ProjectRightService projectRightService;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Autowired
     public BoardRightService(BoardRepository boardRepository,
                          UserRepository userRepository,
                          ProjectRepository projectRepository,
                          BoardUserRightRepository boardUserRightRepository,
-                         ProjectRightService projectRightService) {
+                         ProjectRightService projectRightService,
+                         ApplicationEventPublisher eventPublisher) {
         this.boardRepository = boardRepository;
         this.userRepository = userRepository;
         this.projectRepository = projectRepository;
         this.boardUserRightRepository = boardUserRightRepository;
         this.projectRightService = projectRightService;
+        this.eventPublisher = eventPublisher;
     }
 
     /**
@@ -75,6 +80,7 @@ public class BoardRightService {
         }
         
         boardRepository.save(board);
+        eventPublisher.publishEvent(BoardEvent.boardChanged(boardId));
     }
     
     /**
@@ -89,7 +95,8 @@ public class BoardRightService {
                 .orElseThrow(() -> new RuntimeException("User not found with id: " + userId));
         
         // Check if user is board participant
-        if (!board.getParticipants().contains(user)) {
+        boolean participantAdded = !board.getParticipants().contains(user);
+        if (participantAdded) {
             board.addParticipant(user);
         }
         
@@ -97,6 +104,10 @@ public class BoardRightService {
         // due to unique constraints, but ensures the right is granted
         board.addUserRight(user, right);
         boardRepository.save(board);
+        // Право просмотра меняет видимость доски (BoardAccessIndex)
+        if (participantAdded || right == BoardRight.VIEW_BOARD) {
+            eventPublisher.publishEvent(BoardEvent.boardChanged(boardId));
+        }
     }
     
     /**
@@ -117,6 +128,9 @@ public class BoardRightService {
         
         board.removeUserRight(user, right);
         boardRepository.save(board);
+        if (right == BoardRight.VIEW_BOARD) {
+            eventPublisher.publishEvent(BoardEvent.boardChanged(boardId));
+        }
     }
     
     /**
@@ -176,6 +190,7 @@ public class BoardRightService {
         
         board.removeParticipant(user);
         boardRepository.save(board);
+        eventPublisher.publishEvent(BoardEvent.boardChanged(boardId));
         
         // Rights will be automatically removed by the cascade
     }
@@ -3,20 +3,29 @@ package course.project.API.services;
 import course.project.API.dto.SimpleDTO;
 import course.project.API.dto.board.*;
 import course.project.API.dto.board.BoardWithColumnsDTO;
+import course.project.API.events.BoardEvent;
 import course.project.API.models.*;
 import course.project.API.repositories.*;
 import jakarta.persistence.EntityManager;
-import org.modelmapper.ModelMapper;
+import jakarta.persistence.LockModeType;
+import course.project.API.dto.converters.BoardMapper;
+import course.project.API.dto.converters.UserMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.NoSuchElementException;
@@ -39,30 +48,43 @@ public class BoardService {
     private final UserRepository userRepository;
     private final TagRepository tagRepository;
     private final DashBoardColumnRepository dashboardColumnRepository;
-    private final ModelMapper modelMapper;
     private static final Logger logger = LoggerFactory.getLogger(BoardService.class);
+
+    /**
+     * Порядок задач в колонке: (position, id), задачи без position - последними
+     */
+    private static final Comparator<TaskDTO> TASK_ORDER = Comparator
+            .comparing(TaskDTO::getPosition, Comparator.nullsLast(Comparator.naturalOrder()))
+            .thenComparing(TaskDTO::getId);
     private final TaskRepository taskRepository;
     private final ProjectRightService projectRightService;
     private final EntityManager entityManager;
+    private final ApplicationEventPublisher eventPublisher;
+    private final RankService rankService;
+    private final BoardAccessIndex boardAccessIndex;
     @Autowired
     public BoardService(BoardRepository boardRepository, ProjectRepository projectRepository,
                         UserRepository userRepository, TagRepository tagRepository,
                         DashBoardColumnRepository dashboardColumnRepository,
-                        ModelMapper modelMapper, TaskRepository taskRepository, ProjectRightService projectRightService, EntityManager entityManager) {
+                        TaskRepository taskRepository, ProjectRightService projectRightService, EntityManager entityManager,
+                        ApplicationEventPublisher eventPublisher, RankService rankService,
+                        BoardAccessIndex boardAccessIndex) {
         this.boardRepository = boardRepository;
         this.projectRepository = projectRepository;
         this.userRepository = userRepository;
         this.tagRepository = tagRepository;
         this.dashboardColumnRepository = dashboardColumnRepository;
-        this.modelMapper = modelMapper;
         this.taskRepository = taskRepository;
         this.projectRightService = projectRightService;
         this.entityManager = entityManager;
+        this.eventPublisher = eventPublisher;
+        this.rankService = rankService;
+        this.boardAccessIndex = boardAccessIndex;
     }
 
     public List<BoardDTO> getAllBoards() {
         return boardRepository.findAll().stream()
-                .map(board -> modelMapper.map(board, BoardDTO.class))
+                .map(BoardMapper::toBoardDTO)
                 .collect(Collectors.toList());
     }
 
@@ -70,12 +92,12 @@ public class BoardService {
         Map<Long, Set<User>> users = boardRepository.findWithParticipantsByProjectId(projectId).stream().collect(Collectors.toMap(Board::getId, Board::getParticipants));
         return boardRepository.findWithColumnsByProjectId(projectId).stream()
                 .map(board -> {
-                    BoardDTO boardDTO = modelMapper.map(board, BoardDTO.class);
+                    BoardDTO boardDTO = BoardMapper.toBoardDTO(board);
                     boardDTO.setProjectId(projectId);
                     
                     // Convert participants to a set of UserResponse objects
                     Set<UserResponse> participants = users.get(board.getId()).stream()
-                        .map(user -> modelMapper.map(user, UserResponse.class))
+                        .map(UserMapper::toUserResponse)
                         .collect(Collectors.toSet());
                     
                     // Add participants to the result by making a custom DTO with participants
@@ -100,7 +122,7 @@ public class BoardService {
     public Optional<BoardDTO> getBoardById(Long id) {
         return boardRepository.findById(id)
                 .map(board -> {
-                    BoardDTO boardDTO = modelMapper.map(board, BoardDTO.class);
+                    BoardDTO boardDTO = BoardMapper.toBoardDTO(board);
                     boardDTO.setProjectId(board.getProject().getId());
                     
                     // Calculate completion percentage
@@ -160,8 +182,10 @@ public class BoardService {
                         }
                     }
                     
+                    eventPublisher.publishEvent(BoardEvent.boardCreated(savedBoard));
+                    
                     // Create board DTO for response
-                    BoardDTO createdBoardDTO = modelMapper.map(savedBoard, BoardDTO.class);
+                    BoardDTO createdBoardDTO = BoardMapper.toBoardDTO(savedBoard);
                     createdBoardDTO.setProjectId(project.getId());
                     
                     return Optional.of(createdBoardDTO);
@@ -174,9 +198,9 @@ public class BoardService {
      */
     private void createDefaultColumns(Board board) {
         // Create default columns: "To Do", "In Progress", "Done"
-        DashBoardColumn todoColumn = new DashBoardColumn("To Do", board, 0);
-        DashBoardColumn inProgressColumn = new DashBoardColumn("In Progress", board, 1);
-        DashBoardColumn doneColumn = new DashBoardColumn("Done", board, 2);
+        DashBoardColumn todoColumn = new DashBoardColumn("To Do", board, RankService.STEP);
+        DashBoardColumn inProgressColumn = new DashBoardColumn("In Progress", board, 2 * RankService.STEP);
+        DashBoardColumn doneColumn = new DashBoardColumn("Done", board, 3 * RankService.STEP);
         doneColumn.setCompletionColumn(true);
         
         dashboardColumnRepository.save(todoColumn);
@@ -271,9 +295,10 @@ public class BoardService {
                     }
                     
                     Board updatedBoard = boardRepository.save(board);
+                    eventPublisher.publishEvent(BoardEvent.boardChanged(updatedBoard.getId()));
                     
                     // Create board DTO for response
-                    BoardDTO updatedBoardDTO = modelMapper.map(updatedBoard, BoardDTO.class);
+                    BoardDTO updatedBoardDTO = BoardMapper.toBoardDTO(updatedBoard);
                     updatedBoardDTO.setProjectId(updatedBoard.getProject().getId());
             
                     return Optional.of(updatedBoardDTO);
@@ -282,7 +307,10 @@ public class BoardService {
 
     @Transactional
     public void deleteBoard(Long id) {
-        boardRepository.deleteById(id);
+        boardRepository.findById(id).ifPresent(board -> {
+            boardRepository.delete(board);
+            eventPublisher.publishEvent(BoardEvent.boardDeleted(board));
+        });
     }
 
     @Transactional
@@ -292,6 +320,7 @@ public class BoardService {
                         .map(user -> {
                             board.addParticipant(user);
                             boardRepository.save(board);
+                            eventPublisher.publishEvent(BoardEvent.boardChanged(boardId));
                             return true;
                         }))
                 .orElse(false);
@@ -304,6 +333,7 @@ public class BoardService {
                         .map(user -> {
                             board.removeParticipant(user);
                             boardRepository.save(board);
+                            eventPublisher.publishEvent(BoardEvent.boardChanged(boardId));
                             return true;
                         }))
                 .orElse(false);
@@ -312,12 +342,144 @@ public class BoardService {
     @Transactional(readOnly = true)
     public List<TagDTO> getBoardTags(Long boardId) {
         return tagRepository.findByBoardId(boardId).stream()
-                .map(tag -> modelMapper.map(tag, TagDTO.class))
+                .map(BoardMapper::toTagDTO)
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Собирает полный снимок доски из плоских строк нативных запросов.
+     * Сущности не загружаются в контекст персистентности, поэтому нет ни декартова
+     * JOIN FETCH по колонкам/задачам/вложениям, ни dirty checking при закрытии транзакции.
+     * Каждый набор строк проходится ровно один раз.
+     */
     @Transactional(readOnly = true)
     public BoardWithColumnsDTO getBoardWithDetails(Long id) {
+        return getBoardWithDetails(id, null);
+    }
+
+    /**
+     * Снимок доски, в котором у каждой колонки не больше tasksPerColumn первых задач по position.
+     * Остальные задачи колонка догружает через {@link #getColumnTasksPage}.
+     * Процент выполнения считается по материализованным счетчикам колонок, поэтому
+     * время сборки не зависит от общего числа задач на доске.
+     * При tasksPerColumn == null загружаются все задачи
+     */
+    @Transactional(readOnly = true)
+    public BoardWithColumnsDTO getBoardWithDetails(Long id, Integer tasksPerColumn) {
+        long startedAt = System.nanoTime();
+        boolean limited = tasksPerColumn != null;
+
+        List<Object[]> boardRows = boardRepository.findBoardWithColumnRows(id);
+        if (boardRows.isEmpty()) {
+            throw new NoSuchElementException("Board not found with id: " + id);
+        }
+
+        Object[] header = boardRows.get(0);
+        BoardWithColumnsDTO dto = new BoardWithColumnsDTO();
+        dto.setId(id);
+        dto.setTitle((String) header[1]);
+        dto.setDescription((String) header[2]);
+        dto.setEmoji((String) header[3]);
+        dto.setProjectId(toLong(header[4]));
+
+        Map<Long, TagDTO> tagsMap = loadTags(id);
+        dto.setTags(new HashSet<>(tagsMap.values()));
+
+        Set<UserResponse> participants = new HashSet<>();
+        for (Object[] row : boardRepository.findParticipantRowsByBoardId(id)) {
+            participants.add(new UserResponse(toLong(row[0]), (String) row[1], (String) row[2]));
+        }
+        dto.setParticipants(participants);
+
+        Map<Long, ColumnWithTasksDTO> columnsMap = new HashMap<>();
+        Map<Long, List<TaskDTO>> columnTasks = new HashMap<>();
+        for (Object[] row : boardRows) {
+            if (row[5] == null) {
+                continue;
+            }
+            ColumnWithTasksDTO colDto = new ColumnWithTasksDTO();
+            colDto.setId(toLong(row[5]));
+            colDto.setName((String) row[6]);
+            colDto.setBoardId(id);
+            colDto.setPosition(toInteger(row[7]));
+            colDto.setCompletionColumn(Boolean.TRUE.equals(toBoolean(row[8])));
+            colDto.setTaskCount(toInteger(row[9]));
+            columnsMap.put(colDto.getId(), colDto);
+            columnTasks.put(colDto.getId(), new ArrayList<>());
+        }
+
+        List<Object[]> taskRows;
+        if (!limited) {
+            taskRows = taskRepository.findTaskRowsByBoardId(id);
+        } else if (tasksPerColumn > 0) {
+            taskRows = taskRepository.findFirstTaskRowsPerColumnByBoardId(id, tasksPerColumn);
+        } else {
+            taskRows = List.of();
+        }
+        Map<Long, TaskDTO> tasksMap = new HashMap<>();
+        for (Object[] row : taskRows) {
+            TaskDTO taskDto = toTaskDTO(row, tagsMap);
+            tasksMap.put(taskDto.getId(), taskDto);
+            columnTasks.get(taskDto.getColumnId()).add(taskDto);
+        }
+        if (limited) {
+            // Задачи без position приходят отдельной веткой запроса и занимают только оставшиеся места
+            for (List<TaskDTO> tasks : columnTasks.values()) {
+                tasks.sort(TASK_ORDER);
+                if (tasks.size() > tasksPerColumn) {
+                    List<TaskDTO> extra = tasks.subList(tasksPerColumn, tasks.size());
+                    extra.forEach(task -> tasksMap.remove(task.getId()));
+                    extra.clear();
+                }
+            }
+        }
+
+        if (limited) {
+            attachTaskDetails(tasksMap);
+        } else {
+            attachTaskDetails(tasksMap,
+                    taskRepository.findParticipantRowsByBoardId(id),
+                    taskRepository.findChecklistRowsByBoardId(id),
+                    taskRepository.findAttachmentRowsByBoardId(id));
+        }
+
+        int totalTasks = 0;
+        int completedTasks = 0;
+        List<ColumnWithTasksDTO> columns = new ArrayList<>(columnsMap.values());
+        columns.sort(Comparator.comparing(ColumnWithTasksDTO::getPosition, Comparator.nullsLast(Comparator.naturalOrder())));
+        for (ColumnWithTasksDTO colDto : columns) {
+            List<TaskDTO> tasks = columnTasks.get(colDto.getId());
+            tasks.sort(TASK_ORDER);
+            colDto.setTasks(new LinkedHashSet<>(tasks));
+
+            int columnTaskCount = tasks.size();
+            if (limited) {
+                columnTaskCount = Math.max(colDto.getTaskCount() != null ? colDto.getTaskCount() : 0, tasks.size());
+                colDto.setHasMoreTasks(tasks.size() < columnTaskCount);
+            }
+            colDto.setTaskCount(columnTaskCount);
+
+            totalTasks += columnTaskCount;
+            if ("Done".equals(colDto.getName())) {
+                completedTasks += columnTaskCount;
+            }
+        }
+        dto.setColumns(columns);
+        dto.setCompletionPercentage(calculateCompletionPercentage(totalTasks, completedTasks));
+
+        logger.debug("Снимок доски {} собран за {} мс: колонок {}, задач {}",
+                id, (System.nanoTime() - startedAt) / 1_000_000, columns.size(), tasksMap.size());
+        return dto;
+    }
+
+    /**
+     * Прежняя сборка снимка доски из сущностей: JOIN FETCH колонок, задач и вложений
+     * и отдельные выборки участников и чек-листов задач. В API не используется, оставлена
+     * как эталон для сравнения с {@link #getBoardWithDetails(Long)} в тестах и бенчмарках.
+     * Не заполняет taskCount и version, порядок задач внутри колонки не сохраняется
+     */
+    @Transactional(readOnly = true)
+    public BoardWithColumnsDTO getBoardWithDetailsFromEntities(Long id) {
         Board board = boardRepository.findWithDetails(id);
         Board boardWithParticipants = boardRepository.findWithParticipantsAndOwnerById(id);
         List<Long> tasksIds = board.getColumns().stream().flatMap(column -> column.getTasks().stream()).map(Task::getId).toList();
@@ -325,10 +487,7 @@ public class BoardService {
         Map<Long, List<ChecklistItem>> taskCheckListMap = taskRepository.findWithCheckListByIdIn(tasksIds).stream().collect(Collectors.toMap(Task::getId, Task::getChecklist));
 
         Set<TagDTO> tags = board.getTags().stream()
-                .map(tag -> {
-                    TagDTO tagDto = new TagDTO(tag.getId(), tag.getName(), tag.getColor(), board.getId());
-                    return tagDto;
-                })
+                .map(tag -> new TagDTO(tag.getId(), tag.getName(), tag.getColor(), board.getId()))
                 .collect(Collectors.toSet());
         Map<Long, TagDTO> tagsMap = tags.stream().collect(Collectors.toMap(TagDTO::getId, Function.identity()));
 
@@ -349,91 +508,247 @@ public class BoardService {
             .collect(Collectors.toSet());
         dto.setParticipants(participants);
 
-        List<ColumnWithTasksDTO> columns = board.getColumns().stream()
-            .sorted(Comparator.comparing(DashBoardColumn::getPosition, Comparator.nullsLast(Comparator.naturalOrder())))
-            .map(column -> {
-                ColumnWithTasksDTO colDto = new ColumnWithTasksDTO();
-                colDto.setId(column.getId());
-                colDto.setName(column.getName());
-                colDto.setBoardId(board.getId());
-                colDto.setPosition(column.getPosition());
-                colDto.setCompletionColumn(column.isCompletionColumn());
-
-                Set<TaskDTO> tasks = column.getTasks().stream()
-                    .sorted(Comparator.comparing(Task::getPosition, Comparator.nullsLast(Comparator.naturalOrder())))
-                    .map(task -> {
-                        TaskDTO taskDto = new TaskDTO();
-                        taskDto.setId(task.getId());
-                        taskDto.setTitle(task.getTitle());
-                        taskDto.setDescription(task.getDescription());
-                        taskDto.setColumnId(column.getId());
-                        taskDto.setPosition(task.getPosition());
-                        taskDto.setChatId(task.getChatId());
+        int totalTasks = 0;
+        int completedTasks = 0;
+        List<ColumnWithTasksDTO> columns = new ArrayList<>();
+        for (DashBoardColumn column : board.getColumns().stream()
+                .sorted(Comparator.comparing(DashBoardColumn::getPosition, Comparator.nullsLast(Comparator.naturalOrder())))
+                .toList()) {
+            ColumnWithTasksDTO colDto = new ColumnWithTasksDTO();
+            colDto.setId(column.getId());
+            colDto.setName(column.getName());
+            colDto.setBoardId(board.getId());
+            colDto.setPosition(column.getPosition());
+            colDto.setCompletionColumn(column.isCompletionColumn());
 
-                        if (task.getStartDate() != null) {
-                            taskDto.setStartDate(task.getStartDate());
-                        }
-                        if (task.getEndDate() != null) {
-                            taskDto.setEndDate(task.getEndDate());
-                        }
+            Set<TaskDTO> tasks = column.getTasks().stream()
+                .sorted(Comparator.comparing(Task::getPosition, Comparator.nullsLast(Comparator.naturalOrder())))
+                .map(task -> {
+                    TaskDTO taskDto = new TaskDTO();
+                    taskDto.setId(task.getId());
+                    taskDto.setTitle(task.getTitle());
+                    taskDto.setDescription(task.getDescription());
+                    taskDto.setColumnId(column.getId());
+                    taskDto.setPosition(task.getPosition());
+                    taskDto.setChatId(task.getChatId());
+                    taskDto.setStartDate(task.getStartDate());
+                    taskDto.setEndDate(task.getEndDate());
 
-                        if (task.getTagId() != null) {
-                            taskDto.setTag(tagsMap.get(task.getTagId()));
-                        }
+                    if (task.getTagId() != null) {
+                        taskDto.setTag(tagsMap.get(task.getTagId()));
+                    }
 
-                        Set<UserResponse> taskParticipants = taskParticipantsMap.get(task.getId()).stream()
-                            .map(participant -> new UserResponse(
-                                participant.getId(),
-                                participant.getName(),
-                                participant.getAvatarURL()
-                            ))
-                            .collect(Collectors.toSet());
-                        taskDto.setParticipants(taskParticipants);
+                    Set<UserResponse> taskParticipants = taskParticipantsMap.get(task.getId()).stream()
+                        .map(participant -> new UserResponse(
+                            participant.getId(),
+                            participant.getName(),
+                            participant.getAvatarURL()
+                        ))
+                        .collect(Collectors.toSet());
+                    taskDto.setParticipants(taskParticipants);
 
-                        List<ChecklistItemDTO> checklistItems = taskCheckListMap.get(task.getId()).stream()
-                            .map(item -> new ChecklistItemDTO(
-                                item.getId(),
-                                item.getText(),
-                                item.isCompleted(),
-                                item.getPosition()
-                            ))
-                            .collect(Collectors.toList());
-                        taskDto.setChecklist(checklistItems);
+                    List<ChecklistItemDTO> checklistItems = taskCheckListMap.get(task.getId()).stream()
+                        .map(item -> new ChecklistItemDTO(
+                            item.getId(),
+                            item.getText(),
+                            item.isCompleted(),
+                            item.getPosition()
+                        ))
+                        .collect(Collectors.toList());
+                    taskDto.setChecklist(checklistItems);
 
-                        List<AttachmentDTO> attachmentDTOs = task.getAttachments().stream()
-                            .map(attachment -> {
-                                AttachmentDTO attachmentDto = new AttachmentDTO(
-                                    attachment.getId(),
-                                    attachment.getFileName(),
-                                    null,
-                                    attachment.getFileType(),
-                                    attachment.getFileSize(),
-                                    attachment.getUploadedBy(),
-                                    attachment.getUploadedAt()
-                                );
-                                attachmentDto.setDownloadUrl("http://localhost:8080/api/attachments/" + attachment.getId() + "/download");
-                                return attachmentDto;
-                            })
-                            .collect(Collectors.toList());
-                        taskDto.setAttachments(attachmentDTOs);
+                    List<AttachmentDTO> attachmentDTOs = task.getAttachments().stream()
+                        .map(attachment -> {
+                            AttachmentDTO attachmentDto = new AttachmentDTO(
+                                attachment.getId(),
+                                attachment.getFileName(),
+                                null,
+                                attachment.getFileType(),
+                                attachment.getFileSize(),
+                                attachment.getUploadedBy(),
+                                attachment.getUploadedAt()
+                            );
+                            attachmentDto.setDownloadUrl("http://localhost:8080/api/attachments/" + attachment.getId() + "/download");
+                            return attachmentDto;
+                        })
+                        .collect(Collectors.toList());
+                    taskDto.setAttachments(attachmentDTOs);
 
-                        return taskDto;
-                    })
-                    .collect(Collectors.toSet());
+                    return taskDto;
+                })
+                .collect(Collectors.toSet());
+            colDto.setTasks(tasks);
+            columns.add(colDto);
 
-                colDto.setTasks(tasks);
-                return colDto;
-            })
-            .collect(Collectors.toList());
+            // Процент выполнения по загруженным задачам, а не по счетчикам колонок
+            totalTasks += column.getTasks().size();
+            if ("Done".equals(column.getName())) {
+                completedTasks += column.getTasks().size();
+            }
+        }
         dto.setColumns(columns);
-
-        dto.setCompletionPercentage(calculateCompletionPercentage(board));
+        dto.setCompletionPercentage(calculateCompletionPercentage(totalTasks, completedTasks));
         return dto;
     }
 
+    /**
+     * Следующая страница задач колонки после ключа (after, afterId) в порядке (position, id),
+     * задачи без position - последними. Ключ последней задачи страницы возвращается в nextAfter и nextAfterId;
+     * nextAfter == null при заданном nextAfterId значит, что страницы дошли до задач без position.
+     * after без afterId (старые клиенты) продолжает после всех задач с position == after.
+     * Запрашивается limit + 1 строка, чтобы узнать, есть ли задачи дальше, без отдельного COUNT
+     */
+    @Transactional(readOnly = true)
+    public TaskPageDTO getColumnTasksPage(Long boardId, Long columnId, Integer after, Long afterId, int limit) {
+        boolean inNulls = after == null && afterId != null;
+        long afterPositionId = after == null ? Long.MIN_VALUE : afterId != null ? afterId : Long.MAX_VALUE;
+        List<Object[]> rows = new ArrayList<>(taskRepository.findTaskRowsByColumnIdAfter(columnId, inNulls,
+                after != null ? after : Integer.MIN_VALUE, afterPositionId,
+                inNulls ? afterId : Long.MIN_VALUE, limit + 1));
+        rows.sort(Comparator.comparing((Object[] row) -> toInteger(row[6]), Comparator.nullsLast(Comparator.naturalOrder()))
+                .thenComparing(row -> toLong(row[0])));
+        boolean hasMore = rows.size() > limit;
+        if (hasMore) {
+            rows = rows.subList(0, limit);
+        }
+
+        Map<Long, TagDTO> tagsMap = loadTags(boardId);
+        Map<Long, TaskDTO> tasksMap = new LinkedHashMap<>();
+        for (Object[] row : rows) {
+            TaskDTO taskDto = toTaskDTO(row, tagsMap);
+            tasksMap.put(taskDto.getId(), taskDto);
+        }
+        attachTaskDetails(tasksMap);
+
+        List<TaskDTO> tasks = new ArrayList<>(tasksMap.values());
+        if (rows.isEmpty()) {
+            return new TaskPageDTO(columnId, tasks, after, afterId, false);
+        }
+        Object[] last = rows.get(rows.size() - 1);
+        return new TaskPageDTO(columnId, tasks, toInteger(last[6]), toLong(last[0]), hasMore);
+    }
+
+    /**
+     * Текущее состояние задач по id, с участниками, чек-листами и вложениями.
+     * Удаленные задачи в результат не попадают
+     */
+    @Transactional(readOnly = true)
+    public List<TaskDTO> getTasksByIds(Long boardId, List<Long> taskIds) {
+        if (taskIds.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, TagDTO> tagsMap = loadTags(boardId);
+        Map<Long, TaskDTO> tasksMap = new LinkedHashMap<>();
+        for (Object[] row : taskRepository.findTaskRowsByIds(taskIds)) {
+            TaskDTO taskDto = toTaskDTO(row, tagsMap);
+            tasksMap.put(taskDto.getId(), taskDto);
+        }
+        attachTaskDetails(tasksMap);
+        return new ArrayList<>(tasksMap.values());
+    }
+
+    /**
+     * Все задачи колонки по возрастанию position
+     */
+    @Transactional(readOnly = true)
+    public List<TaskDTO> getColumnTasks(Long boardId, Long columnId) {
+        Map<Long, TagDTO> tagsMap = loadTags(boardId);
+        Map<Long, TaskDTO> tasksMap = new LinkedHashMap<>();
+        for (Object[] row : taskRepository.findTaskRowsByColumnId(columnId)) {
+            TaskDTO taskDto = toTaskDTO(row, tagsMap);
+            tasksMap.put(taskDto.getId(), taskDto);
+        }
+        attachTaskDetails(tasksMap);
+        return new ArrayList<>(tasksMap.values());
+    }
+
+    @Transactional(readOnly = true)
+    public List<Long> getProjectBoardIds(Long projectId) {
+        return boardRepository.findIdsByProjectId(projectId);
+    }
+
+    private Map<Long, TagDTO> loadTags(Long boardId) {
+        Map<Long, TagDTO> tagsMap = new HashMap<>();
+        for (Object[] row : boardRepository.findTagRowsByBoardId(boardId)) {
+            TagDTO tagDto = new TagDTO(toLong(row[0]), (String) row[1], (String) row[2], boardId);
+            tagsMap.put(tagDto.getId(), tagDto);
+        }
+        return tagsMap;
+    }
+
+    private TaskDTO toTaskDTO(Object[] row, Map<Long, TagDTO> tagsMap) {
+        TaskDTO taskDto = new TaskDTO();
+        taskDto.setId(toLong(row[0]));
+        taskDto.setColumnId(toLong(row[1]));
+        taskDto.setTitle((String) row[2]);
+        taskDto.setDescription((String) row[3]);
+        taskDto.setStartDate(toLocalDateTime(row[4]));
+        taskDto.setEndDate(toLocalDateTime(row[5]));
+        taskDto.setPosition(toInteger(row[6]));
+        Long tagId = toLong(row[7]);
+        if (tagId != null) {
+            taskDto.setTag(tagsMap.get(tagId));
+        }
+        taskDto.setChatId(toLong(row[8]));
+        taskDto.setVersion(toLong(row[9]));
+        taskDto.setParticipants(new HashSet<>());
+        taskDto.setChecklist(new ArrayList<>());
+        taskDto.setAttachments(new ArrayList<>());
+        return taskDto;
+    }
+
+    /**
+     * Участники, чек-листы и вложения только для уже выбранных задач
+     */
+    private void attachTaskDetails(Map<Long, TaskDTO> tasksMap) {
+        if (tasksMap.isEmpty()) {
+            return;
+        }
+        List<Long> taskIds = new ArrayList<>(tasksMap.keySet());
+        attachTaskDetails(tasksMap,
+                taskRepository.findParticipantRowsByTaskIds(taskIds),
+                taskRepository.findChecklistRowsByTaskIds(taskIds),
+                taskRepository.findAttachmentRowsByTaskIds(taskIds));
+    }
+
+    private void attachTaskDetails(Map<Long, TaskDTO> tasksMap, List<Object[]> participantRows,
+                                   List<Object[]> checklistRows, List<Object[]> attachmentRows) {
+        for (Object[] row : participantRows) {
+            TaskDTO taskDto = tasksMap.get(toLong(row[0]));
+            taskDto.getParticipants().add(new UserResponse(toLong(row[1]), (String) row[2], (String) row[3]));
+        }
+
+        for (Object[] row : checklistRows) {
+            TaskDTO taskDto = tasksMap.get(toLong(row[0]));
+            taskDto.getChecklist().add(new ChecklistItemDTO(
+                    toLong(row[1]),
+                    (String) row[2],
+                    Boolean.TRUE.equals(toBoolean(row[3])),
+                    toInteger(row[4])
+            ));
+        }
+
+        for (Object[] row : attachmentRows) {
+            TaskDTO taskDto = tasksMap.get(toLong(row[0]));
+            Long attachmentId = toLong(row[1]);
+            AttachmentDTO attachmentDto = new AttachmentDTO(
+                    attachmentId,
+                    (String) row[2],
+                    null,
+                    (String) row[3],
+                    toLong(row[4]),
+                    (String) row[5],
+                    toLocalDateTime(row[6])
+            );
+            attachmentDto.setDownloadUrl("http://localhost:8080/api/attachments/" + attachmentId + "/download");
+            taskDto.getAttachments().add(attachmentDto);
+        }
+    }
+
     /**
      * Calculates the completion percentage for a board based on tasks in "Done" column
-     * compared to total tasks on the board
+     * compared to total tasks on the board. Uses the materialized per-column task counts,
+     * so only the columns need to be loaded
      * 
      * @param board The board to calculate completion for
      * @return The completion percentage as a Double between 0.0 and 100.0
@@ -443,7 +758,7 @@ public class BoardService {
         int completedTasks = 0;
         
         for (DashBoardColumn column : board.getColumns()) {
-            int columnTaskCount = column.getTasks().size();
+            int columnTaskCount = column.getTaskCount();
             totalTasks += columnTaskCount;
             
             if ("Done".equals(column.getName())) {
@@ -451,6 +766,10 @@ public class BoardService {
             }
         }
         
+        return calculateCompletionPercentage(totalTasks, completedTasks);
+    }
+
+    private Double calculateCompletionPercentage(int totalTasks, int completedTasks) {
         // Avoid division by zero
         if (totalTasks == 0) {
             return 0.0;
@@ -461,6 +780,28 @@ public class BoardService {
         return Math.round(percentage * 100.0) / 100.0;
     }
 
+    private static Long toLong(Object value) {
+        return value != null ? ((Number) value).longValue() : null;
+    }
+
+    private static Integer toInteger(Object value) {
+        return value != null ? ((Number) value).intValue() : null;
+    }
+
+    private static Boolean toBoolean(Object value) {
+        if (value instanceof Number) {
+            return ((Number) value).intValue() != 0;
+        }
+        return (Boolean) value;
+    }
+
+    private static LocalDateTime toLocalDateTime(Object value) {
+        if (value instanceof Timestamp) {
+            return ((Timestamp) value).toLocalDateTime();
+        }
+        return (LocalDateTime) value;
+    }
+
     /**
      * Добавляет пользователя на все доски проекта и выдает базовые права
      * 
@@ -532,6 +873,7 @@ public class BoardService {
                 
                 // Сохраняем доску
                 boardRepository.save(board);
+                eventPublisher.publishEvent(BoardEvent.boardChanged(board.getId()));
                 addedCount++;
             }
             
@@ -588,6 +930,7 @@ public class BoardService {
                 
                 // Сохраняем доску
                 boardRepository.save(board);
+                eventPublisher.publishEvent(BoardEvent.boardChanged(board.getId()));
                 removedCount++;
             }
             
@@ -605,7 +948,7 @@ public class BoardService {
      * 
      * @param boardId ID доски
      * @param title название колонки
-     * @param position позиция колонки
+     * @param position ранг колонки, перед которой встает новая (null — в конец)
      * @return созданная колонка или null в случае ошибки
      */
     @Transactional
@@ -613,18 +956,14 @@ public class BoardService {
         try {
             return boardRepository.findById(boardId).map(board -> {
                 // Если position не задан, устанавливаем его в конец списка
-                Integer finalPosition = position;
-                if (finalPosition == null) {
-                    int maxPosition = board.getColumns().stream()
-                        .filter(col -> col.getPosition() != null)
-                        .map(DashBoardColumn::getPosition)
-                        .max(Integer::compare)
-                        .orElse(-1);
-                    finalPosition = maxPosition + 1;
-                }
+                int finalPosition = position == null
+                        ? rankService.appendRank(RankService.Kind.COLUMN, boardId)
+                        : rankService.rankAt(RankService.Kind.COLUMN, boardId, null, position);
                 
                 DashBoardColumn column = new DashBoardColumn(title, board, finalPosition);
-                return dashboardColumnRepository.save(column);
+                DashBoardColumn savedColumn = dashboardColumnRepository.save(column);
+                eventPublisher.publishEvent(BoardEvent.columnsChanged(boardId));
+                return savedColumn;
             }).orElse(null);
         } catch (Exception e) {
             logger.error("Ошибка при создании колонки: {}", e.getMessage(), e);
@@ -641,8 +980,9 @@ public class BoardService {
                                 column.setName(title);
                             }
                             if (position != null) {
-                                column.setPosition(position);
+                                column.setPosition(rankService.rankAt(RankService.Kind.COLUMN, boardId, columnId, position));
                             }
+                            eventPublisher.publishEvent(BoardEvent.columnsChanged(boardId));
                             return dashboardColumnRepository.save(column);
                         }))
                 .orElse(null);
@@ -660,6 +1000,7 @@ public class BoardService {
                             
                             board.removeColumn(column);
                             boardRepository.save(board);
+                            eventPublisher.publishEvent(BoardEvent.columnsChanged(boardId));
                             return true;
                         }))
                 .orElse(false);
@@ -670,17 +1011,19 @@ public class BoardService {
         return boardRepository.findById(boardId)
                 .map(board -> {
                     try {
-                        for (Map<String, Object> columnData : columns) {
-                            Long columnId = ((Number) columnData.get("id")).longValue();
-                            Integer position = ((Number) columnData.get("position")).intValue();
-                            
-                            dashboardColumnRepository.findById(columnId)
-                                    .ifPresent(column -> {
-                                        if (column.getBoard().getId().equals(boardId)) {
-                                            column.setPosition(position);
-                                        }
-                                    });
-                        }
+                        // position из запроса задает порядок, ранги меняются только у переставленных колонок
+                        List<DashBoardColumn> ordered = columns.stream()
+                                .sorted(Comparator.comparingInt(columnData -> ((Number) columnData.get("position")).intValue()))
+                                .map(columnData -> dashboardColumnRepository.findById(((Number) columnData.get("id")).longValue()))
+                                .flatMap(Optional::stream)
+                                .filter(column -> column.getBoard().getId().equals(boardId))
+                                .collect(Collectors.toList());
+                        // Колонки, не переданные в запросе, остаются на своих местах и меняют ранг только при перенумерации
+                        Map<Long, Integer> ranks = rankService.reorderWithin(RankService.Kind.COLUMN, boardId,
+                                ordered.stream().map(DashBoardColumn::getId).collect(Collectors.toList()));
+                        dashboardColumnRepository.findAllById(ranks.keySet())
+                                .forEach(column -> column.setPosition(ranks.get(column.getId())));
+                        eventPublisher.publishEvent(BoardEvent.columnsChanged(boardId));
                         return true;
                     } catch (Exception e) {
                         logger.error("Error reordering columns: {}", e.getMessage(), e);
@@ -696,6 +1039,9 @@ public class BoardService {
                 .flatMap(board -> dashboardColumnRepository.findById(columnId)
                         .map(column -> {
                             Task task = new Task(title, description, column);
+                            task.setPosition(rankService.appendRank(RankService.Kind.TASK, column.getId()));
+                            // Параллельная вставка в ту же колонку получит конфликт версии колонки
+                            entityManager.lock(column, LockModeType.OPTIMISTIC_FORCE_INCREMENT);
                             
                             if (tagIds != null) {
                                 for (Long tagId : tagIds) {
@@ -706,7 +1052,9 @@ public class BoardService {
                             
                             column.addTask(task);
                             dashboardColumnRepository.save(column);
-                            return modelMapper.map(task, TaskDTO.class);
+                            dashboardColumnRepository.incrementTaskCount(column.getId(), 1);
+                            eventPublisher.publishEvent(BoardEvent.columnTasksChanged(column));
+                            return BoardMapper.toTaskDTO(task);
                         }))
                 .orElse(null);
     }
@@ -732,7 +1080,8 @@ public class BoardService {
                                             .ifPresent(task::setTag);
                                 }
                             }
-                            return modelMapper.map(task, TaskDTO.class);
+                            eventPublisher.publishEvent(BoardEvent.taskChanged(task));
+                            return BoardMapper.toTaskDTO(task);
                         }))
                 .orElse(null);
     }
@@ -747,6 +1096,8 @@ public class BoardService {
                         .map(column -> {
                             column.getTasks().removeIf(task -> task.getId().equals(taskId));
                             dashboardColumnRepository.save(column);
+                            dashboardColumnRepository.incrementTaskCount(column.getId(), -1);
+                            eventPublisher.publishEvent(BoardEvent.columnTasksChanged(column));
                             return true;
                         }))
                 .orElse(false);
@@ -770,11 +1121,22 @@ public class BoardService {
                                 sourceColumn.getTasks().remove(task);
                                 task.setColumn(targetColumn);
                                 if (newPosition != null) {
-                                    task.setPosition(newPosition);
+                                    task.setPosition(rankService.rankAt(RankService.Kind.TASK, targetColumnId, taskId, newPosition));
+                                } else if (!sourceColumn.getId().equals(targetColumn.getId())) {
+                                    task.setPosition(rankService.appendRank(RankService.Kind.TASK, targetColumnId));
+                                }
+                                if (newPosition != null || !sourceColumn.getId().equals(targetColumn.getId())) {
+                                    entityManager.lock(targetColumn, LockModeType.OPTIMISTIC_FORCE_INCREMENT);
                                 }
                                 targetColumn.addTask(task);
                                 dashboardColumnRepository.save(sourceColumn);
                                 dashboardColumnRepository.save(targetColumn);
+                                if (!sourceColumn.getId().equals(targetColumn.getId())) {
+                                    dashboardColumnRepository.incrementTaskCount(sourceColumn.getId(), -1);
+                                    dashboardColumnRepository.incrementTaskCount(targetColumn.getId(), 1);
+                                    eventPublisher.publishEvent(BoardEvent.columnTasksChanged(sourceColumn));
+                                }
+                                eventPublisher.publishEvent(BoardEvent.columnTasksChanged(targetColumn));
                                 return true;
                             });
                 })
@@ -791,27 +1153,14 @@ public class BoardService {
     @Transactional(readOnly = true)
     public List<TaskDTO> getUserTasksByProjectId(Long projectId, Long userId) {
         try {
-            // Получаем пользователя и проект
-            User user = userRepository.findById(userId)
-                .orElseThrow(() -> new NoSuchElementException("Пользователь не найден с ID: " + userId));
-            
-            Project project = projectRepository.findById(projectId)
-                .orElseThrow(() -> new NoSuchElementException("Проект не найден с ID: " + projectId));
-            
-            // Проверяем, что пользователь имеет доступ к проекту
-            boolean isProjectMember = project.getParticipants().contains(user) || 
-                                    project.getOwner().equals(user);
-            if (!isProjectMember) {
-                throw new IllegalArgumentException("Пользователь не является участником проекта");
+            if (!projectRepository.existsById(projectId)) {
+                throw new NoSuchElementException("Проект не найден с ID: " + projectId);
             }
-            
-            // Получаем все доски проекта
-            List<Board> allBoards = boardRepository.findByProjectId(projectId);
-            
-            // Фильтруем доски, где пользователь является участником
-            List<Board> userBoards = allBoards.stream()
-                .filter(board -> board.getParticipants().contains(user) || 
-                               project.getOwner().equals(user))
+
+            // Доски проекта, которые пользователь видит по индексу доступа
+            Set<Long> visibleBoardIds = boardAccessIndex.getVisibleBoardIds(userId);
+            List<Board> userBoards = boardRepository.findByProjectId(projectId).stream()
+                .filter(board -> visibleBoardIds.contains(board.getId()))
                 .collect(Collectors.toList());
             
             // Собираем все задачи с этих досок
@@ -0,0 +1,218 @@
+package course.project.API.services;
+
+import course.project.API.dto.board.BoardWithColumnsDTO;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Кэш снимков досок с версией на каждую доску.
+ * Версия монотонно растет при каждом изменении доски (см. {@link BoardChangeLog}),
+ * снимок считается актуальным, только если он был собран на текущей версии.
+ * Снимки не изменяются после помещения в кэш: {@link BoardReadModel} при изменении доски
+ * собирает новый снимок и кладет его под новой версией.
+ * ETag содержит еще номер интервала ttl: изменение, не дошедшее до кэша событием,
+ * отдается клиенту не позже чем через ttl, после чего 304 перестает совпадать и снимок собирается заново.
+ */
+@Service
+public class BoardSnapshotCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(BoardSnapshotCache.class);
+
+    /**
+     * Момент запуска. Версии всех досок начинаются с него, поэтому версия, выданная
+     * до рестарта, всегда меньше любой текущей и не совпадет с ней ни в ETag, ни в дельта-синхронизации
+     */
+    private final long initialVersion = System.currentTimeMillis();
+
+    private final Map<Long, AtomicLong> versions = new ConcurrentHashMap<>();
+    private final Map<Long, Snapshot> snapshots;
+    private final long ttlMillis;
+
+    public BoardSnapshotCache(@Value("${boards.snapshot-cache.max-size:500}") int maxSize,
+                              @Value("${boards.snapshot-cache.ttl-seconds:300}") long ttlSeconds) {
+        this.ttlMillis = Math.max(1, ttlSeconds) * 1000;
+        this.snapshots = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Snapshot> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    public long getVersion(Long boardId) {
+        AtomicLong version = versions.get(boardId);
+        return version != null ? version.get() : initialVersion;
+    }
+
+    public String getETag(Long boardId) {
+        return toETag(boardId, getVersion(boardId), currentEpoch());
+    }
+
+    /**
+     * ETag усеченного снимка доски (первые tasksPerColumn задач каждой колонки).
+     * Отличается от ETag полного снимка, чтобы 304 не подменял одно представление другим
+     */
+    public String getETag(Long boardId, int tasksPerColumn) {
+        return "\"" + boardId + "-" + getVersion(boardId) + "-" + currentEpoch() + "-" + tasksPerColumn + "\"";
+    }
+
+    /**
+     * Отмечает доску измененной: увеличивает версию и выкидывает снимок из кэша
+     */
+    public long markChanged(Long boardId) {
+        long version = versions.computeIfAbsent(boardId, id -> new AtomicLong(initialVersion)).incrementAndGet();
+        synchronized (snapshots) {
+            snapshots.remove(boardId);
+        }
+        logger.debug("Доска {} изменена, новая версия {}", boardId, version);
+        return version;
+    }
+
+    /**
+     * Возвращает снимок из кэша или собирает его через loader.
+     * Версия фиксируется до загрузки: если доска изменится во время сборки,
+     * снимок не попадет в кэш и не будет отдан следующему запросу.
+     */
+    public Snapshot getOrLoad(Long boardId, Function<Long, BoardWithColumnsDTO> loader) {
+        Snapshot cached = getCurrent(boardId);
+        if (cached != null) {
+            cached.touch();
+            return cached;
+        }
+
+        long version = getVersion(boardId);
+        long epoch = currentEpoch();
+        Snapshot snapshot = new Snapshot(boardId, version, epoch, toETag(boardId, version, epoch), loader.apply(boardId));
+        synchronized (snapshots) {
+            if (getVersion(boardId) == version) {
+                snapshots.put(boardId, snapshot);
+            }
+        }
+        return snapshot;
+    }
+
+    /**
+     * Снимок текущей версии доски, собранный в текущем интервале ttl, или null.
+     * Время последнего обращения не обновляется
+     */
+    public Snapshot getCurrent(Long boardId) {
+        long version = getVersion(boardId);
+        long epoch = currentEpoch();
+        synchronized (snapshots) {
+            Snapshot cached = snapshots.get(boardId);
+            return cached != null && cached.getVersion() == version && cached.epoch == epoch ? cached : null;
+        }
+    }
+
+    /**
+     * Кладет снимок, собранный на версии version. Если версия уже ушла вперед, снимок отбрасывается
+     */
+    public Snapshot put(Long boardId, long version, BoardWithColumnsDTO board) {
+        long epoch = currentEpoch();
+        Snapshot snapshot = new Snapshot(boardId, version, epoch, toETag(boardId, version, epoch), board);
+        synchronized (snapshots) {
+            if (getVersion(boardId) == version) {
+                snapshots.put(boardId, snapshot);
+            }
+        }
+        return snapshot;
+    }
+
+    public void evict(Long boardId) {
+        synchronized (snapshots) {
+            snapshots.remove(boardId);
+        }
+    }
+
+    /**
+     * Выкидывает снимки, к которым не обращались дольше idleMillis
+     */
+    public List<Long> evictIdle(long idleMillis) {
+        long threshold = System.currentTimeMillis() - idleMillis;
+        List<Long> evicted = new ArrayList<>();
+        synchronized (snapshots) {
+            Iterator<Snapshot> iterator = snapshots.values().iterator();
+            while (iterator.hasNext()) {
+                Snapshot snapshot = iterator.next();
+                if (snapshot.getLastAccessedAt() < threshold) {
+                    evicted.add(snapshot.getBoardId());
+                    iterator.remove();
+                }
+            }
+        }
+        return evicted;
+    }
+
+    public List<Long> getCachedBoardIds() {
+        synchronized (snapshots) {
+            return new ArrayList<>(snapshots.keySet());
+        }
+    }
+
+    private long currentEpoch() {
+        return System.currentTimeMillis() / ttlMillis;
+    }
+
+    private String toETag(Long boardId, long version, long epoch) {
+        return "\"" + boardId + "-" + version + "-" + epoch + "\"";
+    }
+
+    public static class Snapshot {
+        private final Long boardId;
+        private final long version;
+        private final long epoch;
+        private final String eTag;
+        private final BoardWithColumnsDTO board;
+        private final long cachedAt;
+        private volatile long lastAccessedAt;
+
+        public Snapshot(Long boardId, long version, long epoch, String eTag, BoardWithColumnsDTO board) {
+            this.boardId = boardId;
+            this.version = version;
+            this.epoch = epoch;
+            this.eTag = eTag;
+            this.board = board;
+            this.cachedAt = System.currentTimeMillis();
+            this.lastAccessedAt = cachedAt;
+        }
+
+        public Long getBoardId() {
+            return boardId;
+        }
+
+        public long getVersion() {
+            return version;
+        }
+
+        public String getETag() {
+            return eTag;
+        }
+
+        public BoardWithColumnsDTO getBoard() {
+            return board;
+        }
+
+        public long getCachedAt() {
+            return cachedAt;
+        }
+
+        public long getLastAccessedAt() {
+            return lastAccessedAt;
+        }
+
+        private void touch() {
+            lastAccessedAt = System.currentTimeMillis();
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package course.project.API.services;
+
+import course.project.API.dto.board.BoardChangesDTO;
+import course.project.API.dto.board.BoardWithColumnsDTO;
+import course.project.API.dto.board.ColumnWithTasksDTO;
+import course.project.API.dto.board.TaskDTO;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Дельта-синхронизация доски: по журналу {@link BoardChangeLog} определяет затронутые сущности
+ * и берет их текущее состояние из модели чтения {@link BoardReadModel}
+ */
+@Service
+public class BoardSyncService {
+
+    private final BoardReadModel boardReadModel;
+    private final BoardSnapshotCache boardSnapshotCache;
+    private final BoardChangeLog boardChangeLog;
+
+    @Autowired
+    public BoardSyncService(BoardReadModel boardReadModel, BoardSnapshotCache boardSnapshotCache, BoardChangeLog boardChangeLog) {
+        this.boardReadModel = boardReadModel;
+        this.boardSnapshotCache = boardSnapshotCache;
+        this.boardChangeLog = boardChangeLog;
+    }
+
+    public BoardChangesDTO getBoardChanges(Long boardId, long since) {
+        long currentVersion = boardSnapshotCache.getVersion(boardId);
+        if (since == currentVersion) {
+            BoardChangesDTO empty = new BoardChangesDTO();
+            empty.setBoardId(boardId);
+            empty.setSince(since);
+            empty.setVersion(currentVersion);
+            empty.setTasks(List.of());
+            empty.setDeletedTaskIds(Set.of());
+            empty.setColumns(List.of());
+            empty.setDeletedColumnIds(Set.of());
+            return empty;
+        }
+
+        BoardSnapshotCache.Snapshot snapshot = boardReadModel.getBoard(boardId);
+        List<BoardChangeLog.Change> changes = boardChangeLog.getChanges(boardId, since, snapshot.getVersion());
+        if (changes == null) {
+            return BoardChangesDTO.resyncRequired(boardId, since, snapshot.getVersion());
+        }
+
+        Set<Long> changedTaskIds = new HashSet<>();
+        Set<Long> changedColumnIds = new HashSet<>();
+        boolean boardChanged = false;
+        for (BoardChangeLog.Change change : changes) {
+            switch (change.getKind()) {
+                case BoardChangeLog.KIND_TASK -> changedTaskIds.add(change.getEntityId());
+                case BoardChangeLog.KIND_COLUMN -> changedColumnIds.add(change.getEntityId());
+                case BoardChangeLog.KIND_BOARD -> boardChanged = true;
+                default -> {
+                    return BoardChangesDTO.resyncRequired(boardId, since, snapshot.getVersion());
+                }
+            }
+        }
+
+        BoardWithColumnsDTO board = snapshot.getBoard();
+        Map<Long, TaskDTO> boardTasks = new HashMap<>();
+        Map<Long, ColumnWithTasksDTO> boardColumns = new HashMap<>();
+        for (ColumnWithTasksDTO column : board.getColumns()) {
+            boardColumns.put(column.getId(), column);
+            for (TaskDTO task : column.getTasks()) {
+                boardTasks.put(task.getId(), task);
+            }
+        }
+
+        BoardChangesDTO dto = new BoardChangesDTO();
+        dto.setBoardId(boardId);
+        dto.setSince(since);
+        dto.setVersion(snapshot.getVersion());
+        dto.setCompletionPercentage(board.getCompletionPercentage());
+
+        List<TaskDTO> tasks = new ArrayList<>();
+        Set<Long> deletedTaskIds = new HashSet<>();
+        for (Long taskId : changedTaskIds) {
+            TaskDTO task = boardTasks.get(taskId);
+            if (task != null) {
+                tasks.add(task);
+            } else {
+                deletedTaskIds.add(taskId);
+            }
+        }
+        dto.setTasks(tasks);
+        dto.setDeletedTaskIds(deletedTaskIds);
+
+        List<ColumnWithTasksDTO> columns = new ArrayList<>();
+        Set<Long> deletedColumnIds = new HashSet<>();
+        for (Long columnId : changedColumnIds) {
+            ColumnWithTasksDTO column = boardColumns.get(columnId);
+            if (column == null) {
+                deletedColumnIds.add(columnId);
+                continue;
+            }
+            // Задачи колонки передаются отдельно, только измененные
+            ColumnWithTasksDTO columnDto = new ColumnWithTasksDTO();
+            columnDto.setId(column.getId());
+            columnDto.setName(column.getName());
+            columnDto.setBoardId(column.getBoardId());
+            columnDto.setPosition(column.getPosition());
+            columnDto.setCompletionColumn(column.isCompletionColumn());
+            columns.add(columnDto);
+        }
+        dto.setColumns(columns);
+        dto.setDeletedColumnIds(deletedColumnIds);
+
+        if (boardChanged) {
+            dto.setTags(board.getTags());
+            dto.setParticipants(board.getParticipants());
+        }
+        return dto;
+    }
+}
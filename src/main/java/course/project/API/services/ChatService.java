@@ -12,7 +12,6 @@ import course.project.API.repositories.MessageRepository;
 import course.project.API.repositories.UserRepository;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.EntityNotFoundException;
-import org.modelmapper.ModelMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -31,7 +30,6 @@ import java.util.stream.Collectors;
 public class ChatService {
     private final ChatRepository chatRepository;
     private final UserRepository userRepository;
-    private final ModelMapper modelMapper;
     private static final Logger logger = LoggerFactory.getLogger(ChatService.class);
     private final MessageRepository messageRepository;
     private final EntityManager entityManager;
@@ -39,10 +37,9 @@ public class ChatService {
     private final WebSocketService webSocketService;
 
     @Autowired
-    public ChatService(ChatRepository chatRepository, UserRepository userRepository, ModelMapper modelMapper, MessageRepository messageRepository, EntityManager entityManager, ChatWebSocketController chatWebSocketController, WebSocketService webSocketService) {
+    public ChatService(ChatRepository chatRepository, UserRepository userRepository, MessageRepository messageRepository, EntityManager entityManager, ChatWebSocketController chatWebSocketController, WebSocketService webSocketService) {
         this.chatRepository = chatRepository;
         this.userRepository = userRepository;
-        this.modelMapper = modelMapper;
         this.messageRepository = messageRepository;
         this.entityManager = entityManager;
         this.chatWebSocketController = chatWebSocketController;
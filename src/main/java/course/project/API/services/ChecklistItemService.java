@@ -1,17 +1,25 @@
 package course.project.API.services;
 
+import course.project.API.dto.board.ChecklistItemDTO;
+import course.project.API.events.BoardEvent;
 import course.project.API.models.ChecklistItem;
 import course.project.API.models.Task;
 import course.project.API.repositories.ChecklistItemRepository;
 import course.project.API.repositories.TaskRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.stream.Collectors;
 
 @Service
 public class ChecklistItemService {
@@ -20,11 +28,16 @@ public class ChecklistItemService {
 
     private final ChecklistItemRepository checklistItemRepository;
     private final TaskRepository taskRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final RankService rankService;
 
     @Autowired
-    public ChecklistItemService(ChecklistItemRepository checklistItemRepository, TaskRepository taskRepository) {
+    public ChecklistItemService(ChecklistItemRepository checklistItemRepository, TaskRepository taskRepository,
+                                ApplicationEventPublisher eventPublisher, RankService rankService) {
         this.checklistItemRepository = checklistItemRepository;
         this.taskRepository = taskRepository;
+        this.eventPublisher = eventPublisher;
+        this.rankService = rankService;
     }
 
     @Transactional(readOnly = true)
@@ -50,7 +63,10 @@ public class ChecklistItemService {
                 .orElseThrow(() -> new RuntimeException("Task not found with id: " + taskId));
         
         ChecklistItem item = new ChecklistItem(text, task);
-        item.setPosition(position);
+        // position — ранг пункта, перед которым встает новый, без него пункт добавляется в конец
+        item.setPosition(position == null
+                ? rankService.appendRank(RankService.Kind.CHECKLIST_ITEM, taskId)
+                : rankService.rankAt(RankService.Kind.CHECKLIST_ITEM, taskId, null, position));
         
         ChecklistItem savedItem = checklistItemRepository.save(item);
         logger.info("Saved checklist item with ID: {}", savedItem.getId());
@@ -58,6 +74,7 @@ public class ChecklistItemService {
         // Add to task's checklist collection for proper retrieval
         task.addChecklistItem(savedItem);
         taskRepository.save(task);
+        eventPublisher.publishEvent(BoardEvent.taskChanged(task));
         
         return savedItem;
     }
@@ -79,35 +96,117 @@ public class ChecklistItemService {
         }
         
         if (position != null) {
-            item.setPosition(position);
+            item.setPosition(rankService.rankAt(RankService.Kind.CHECKLIST_ITEM, item.getTask().getId(), itemId, position));
         }
         
         ChecklistItem updatedItem = checklistItemRepository.save(item);
         logger.info("Updated checklist item: {}", updatedItem.getId());
+        eventPublisher.publishEvent(BoardEvent.taskChanged(item.getTask()));
         
         return updatedItem;
     }
 
     @Transactional
     public void deleteChecklistItem(Long itemId) {
-        checklistItemRepository.deleteById(itemId);
+        checklistItemRepository.findById(itemId).ifPresent(item -> {
+            checklistItemRepository.delete(item);
+            eventPublisher.publishEvent(BoardEvent.taskChanged(item.getTask()));
+        });
     }
 
     @Transactional
     public void deleteAllChecklistItemsByTask(Long taskId) {
         logger.info("Deleting all checklist items for task: {}", taskId);
         checklistItemRepository.deleteByTaskId(taskId);
+        taskRepository.findById(taskId).ifPresent(task -> eventPublisher.publishEvent(BoardEvent.taskChanged(task)));
     }
 
     @Transactional
     public void updateChecklistItemsPositions(List<Long> itemIds) {
-        for (int i = 0; i < itemIds.size(); i++) {
-            Long itemId = itemIds.get(i);
+        Map<Long, List<ChecklistItem>> itemsByTask = new LinkedHashMap<>();
+        for (Long itemId : itemIds) {
             ChecklistItem item = checklistItemRepository.findById(itemId)
                     .orElseThrow(() -> new RuntimeException("Checklist item not found with id: " + itemId));
-            item.setPosition(i);
-            checklistItemRepository.save(item);
+            itemsByTask.computeIfAbsent(item.getTask().getId(), id -> new ArrayList<>()).add(item);
         }
+        // Новые ранги получают только пункты, которые нарушают порядок. Ранги считаются по всему чек-листу,
+        // поэтому при перенумерации меняются и пункты, не переданные в запросе
+        itemsByTask.forEach((taskId, items) -> {
+            Map<Long, Integer> ranks = rankService.reorderWithin(RankService.Kind.CHECKLIST_ITEM, taskId,
+                    items.stream().map(ChecklistItem::getId).collect(Collectors.toList()));
+            checklistItemRepository.findAllById(ranks.keySet())
+                    .forEach(item -> item.setPosition(ranks.get(item.getId())));
+            eventPublisher.publishEvent(BoardEvent.taskChanged(items.get(0).getTask()));
+        });
+    }
+
+    /**
+     * Приводит чек-лист задачи к переданному списку. Пункты сопоставляются по id: совпавшие обновляются
+     * только при изменении текста, отметки или порядка, пункты без id создаются, отсутствующие в списке удаляются.
+     * Id сохраненных пунктов не меняются.
+     * Изменения пишет Hibernate при сбросе, по одному оператору на каждый измененный, созданный или удаленный
+     * пункт: id пунктов IDENTITY, поэтому вставки не объединяются в пакет. Неизмененные пункты не пишутся
+     *
+     * @param items пункты в нужном порядке
+     * @return true, если чек-лист изменился
+     */
+    @Transactional
+    public boolean syncChecklist(Long taskId, List<ChecklistItemDTO> items) {
+        Task task = taskRepository.findById(taskId)
+                .orElseThrow(() -> new RuntimeException("Task not found with id: " + taskId));
+        return syncChecklist(task, items);
+    }
+
+    /**
+     * То же для уже загруженной задачи с чек-листом, без повторного чтения
+     */
+    @Transactional
+    public boolean syncChecklist(Task task, List<ChecklistItemDTO> items) {
+        Long taskId = task.getId();
+        Map<Long, ChecklistItem> existing = new LinkedHashMap<>();
+        task.getChecklist().forEach(item -> existing.put(item.getId(), item));
+
+        List<ChecklistItem> ordered = new ArrayList<>();
+        List<ChecklistItem> created = new ArrayList<>();
+        int updated = 0;
+        for (ChecklistItemDTO dto : items) {
+            ChecklistItem item = dto.getId() != null ? existing.remove(dto.getId()) : null;
+            if (item == null) {
+                item = new ChecklistItem(dto.getText(), task);
+                item.setCompleted(dto.isCompleted());
+                created.add(item);
+            } else if (!Objects.equals(item.getText(), dto.getText()) || item.isCompleted() != dto.isCompleted()) {
+                item.setText(dto.getText());
+                item.setCompleted(dto.isCompleted());
+                updated++;
+            }
+            ordered.add(item);
+        }
+
+        // Оставшиеся пункты удаляются через orphanRemoval коллекции задачи
+        existing.values().forEach(task::removeChecklistItem);
+
+        // Новые пункты без ранга получают его между соседями, старые сохраняют ранг, если порядок не нарушен
+        int[] ranks = RankService.reorder(ordered.stream().map(ChecklistItem::getPosition).collect(Collectors.toList()));
+        for (int i = 0; i < ordered.size(); i++) {
+            ChecklistItem item = ordered.get(i);
+            if (!Objects.equals(item.getPosition(), ranks[i])) {
+                if (item.getId() != null && !created.contains(item)) {
+                    updated++;
+                }
+                item.setPosition(ranks[i]);
+            }
+        }
+        rankService.scheduleIfCrowded(RankService.Kind.CHECKLIST_ITEM, taskId, ranks);
+        created.forEach(task::addChecklistItem);
+
+        logger.info("Synced checklist of task {}: created {}, updated {}, deleted {}",
+                taskId, created.size(), updated, existing.size());
+        boolean changed = !created.isEmpty() || updated > 0 || !existing.isEmpty();
+        if (changed) {
+            eventPublisher.publishEvent(BoardEvent.taskChanged(task));
+        }
+        return changed;
     }
 
     @Transactional
@@ -117,5 +216,6 @@ public class ChecklistItemService {
         
         item.setCompleted(!item.isCompleted());
         checklistItemRepository.save(item);
+        eventPublisher.publishEvent(BoardEvent.taskChanged(item.getTask()));
     }
 } 
\ No newline at end of file
@@ -1,26 +1,37 @@
 package course.project.API.services;
 
+import course.project.API.events.BoardEvent;
 import course.project.API.models.DashBoardColumn;
 import course.project.API.models.Board;
 import course.project.API.repositories.DashBoardColumnRepository;
 import course.project.API.repositories.BoardRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.stream.Collectors;
 
 @Service
 public class DashBoardColumnService {
 
     private final DashBoardColumnRepository dashBoardColumnRepository;
     private final BoardRepository boardRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final RankService rankService;
 
     @Autowired
-    public DashBoardColumnService(DashBoardColumnRepository dashBoardColumnRepository, BoardRepository boardRepository) {
+    public DashBoardColumnService(DashBoardColumnRepository dashBoardColumnRepository, BoardRepository boardRepository,
+                                  ApplicationEventPublisher eventPublisher, RankService rankService) {
         this.dashBoardColumnRepository = dashBoardColumnRepository;
         this.boardRepository = boardRepository;
+        this.eventPublisher = eventPublisher;
+        this.rankService = rankService;
     }
 
     @Transactional(readOnly = true)
@@ -37,13 +48,24 @@ public class DashBoardColumnService {
         return dashBoardColumnRepository.findById(columnId);
     }
 
+    @Transactional(readOnly = true)
+    public Optional<Long> getBoardIdByColumnId(Long columnId) {
+        return dashBoardColumnRepository.findBoardIdById(columnId);
+    }
+
     @Transactional
     public DashBoardColumn createColumn(Long boardId, String name, Integer position) {
         Board board = boardRepository.findById(boardId)
                 .orElseThrow(() -> new RuntimeException("Board not found with id: " + boardId));
         
-        DashBoardColumn column = new DashBoardColumn(name, board, position);
-        return dashBoardColumnRepository.save(column);
+        // position — ранг колонки, перед которой встает новая, без него колонка добавляется в конец
+        int rank = position == null
+                ? rankService.appendRank(RankService.Kind.COLUMN, boardId)
+                : rankService.rankAt(RankService.Kind.COLUMN, boardId, null, position);
+        DashBoardColumn column = new DashBoardColumn(name, board, rank);
+        DashBoardColumn savedColumn = dashBoardColumnRepository.save(column);
+        eventPublisher.publishEvent(BoardEvent.columnsChanged(boardId));
+        return savedColumn;
     }
 
     @Transactional
@@ -56,11 +78,12 @@ public class DashBoardColumnService {
         }
         
         if (position != null) {
-            column.setPosition(position);
+            column.setPosition(rankService.rankAt(RankService.Kind.COLUMN, column.getBoard().getId(), columnId, position));
         }
         
         DashBoardColumn savedColumn = dashBoardColumnRepository.save(column);
         dashBoardColumnRepository.flush();
+        eventPublisher.publishEvent(BoardEvent.columnsChanged(savedColumn.getBoard().getId()));
         return savedColumn;
     }
 
@@ -74,6 +97,7 @@ public class DashBoardColumnService {
                 throw new RuntimeException("The 'Done' column cannot be deleted as it contains completed tasks");
             }
             dashBoardColumnRepository.deleteById(columnId);
+            eventPublisher.publishEvent(BoardEvent.columnsChanged(column.getBoard().getId()));
         }
     }
 
@@ -91,17 +115,26 @@ public class DashBoardColumnService {
                 dashBoardColumnRepository.delete(column);
             }
         }
+        eventPublisher.publishEvent(BoardEvent.columnsChanged(boardId));
     }
 
     @Transactional
     public void updateColumnsPositions(List<Long> columnIds) {
-        for (int i = 0; i < columnIds.size(); i++) {
-            Long columnId = columnIds.get(i);
+        Map<Long, List<DashBoardColumn>> columnsByBoard = new LinkedHashMap<>();
+        for (Long columnId : columnIds) {
             DashBoardColumn column = dashBoardColumnRepository.findById(columnId)
                     .orElseThrow(() -> new RuntimeException("Column not found with id: " + columnId));
-            column.setPosition(i);
-            dashBoardColumnRepository.save(column);
+            columnsByBoard.computeIfAbsent(column.getBoard().getId(), id -> new ArrayList<>()).add(column);
         }
+        // Новые ранги получают только колонки, которые нарушают порядок. Ранги считаются по всей доске,
+        // поэтому при перенумерации меняются и колонки, не переданные в запросе
+        columnsByBoard.forEach((boardId, columns) -> {
+            Map<Long, Integer> ranks = rankService.reorderWithin(RankService.Kind.COLUMN, boardId,
+                    columns.stream().map(DashBoardColumn::getId).collect(Collectors.toList()));
+            dashBoardColumnRepository.findAllById(ranks.keySet())
+                    .forEach(column -> column.setPosition(ranks.get(column.getId())));
+        });
         dashBoardColumnRepository.flush();
+        columnsByBoard.keySet().forEach(boardId -> eventPublisher.publishEvent(BoardEvent.columnsChanged(boardId)));
     }
 } 
\ No newline at end of file
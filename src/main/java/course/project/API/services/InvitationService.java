@@ -10,7 +10,7 @@ import course.project.API.models.User;
 import course.project.API.repositories.InvitationRepository;
 import course.project.API.repositories.ProjectRepository;
 import course.project.API.repositories.UserRepository;
-import org.modelmapper.ModelMapper;
+import course.project.API.dto.converters.ProjectMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -29,17 +29,14 @@ public class InvitationService {
     private final InvitationRepository invitationRepository;
     private final UserRepository userRepository;
     private final ProjectRepository projectRepository;
-    private final ModelMapper modelMapper;
 
     @Autowired
     public InvitationService(InvitationRepository invitationRepository,
                            UserRepository userRepository,
-                           ProjectRepository projectRepository,
-                           ModelMapper modelMapper) {
+                           ProjectRepository projectRepository) {
         this.invitationRepository = invitationRepository;
         this.userRepository = userRepository;
         this.projectRepository = projectRepository;
-        this.modelMapper = modelMapper;
     }
 
     @Transactional
@@ -64,7 +61,7 @@ public class InvitationService {
         Invitation invitation = new Invitation(sender, recipient, project);
         invitation = invitationRepository.save(invitation);
         
-        return modelMapper.map(invitation, InvitationDTO.class);
+        return ProjectMapper.toInvitationDTO(invitation);
     }
 
     @Transactional
@@ -88,7 +85,7 @@ public class InvitationService {
         invitation.setStatus(InvitationStatus.ACCEPTED);
         invitation = invitationRepository.save(invitation);
 
-        return modelMapper.map(invitation, InvitationDTO.class);
+        return ProjectMapper.toInvitationDTO(invitation);
     }
 
     @Transactional
@@ -107,7 +104,7 @@ public class InvitationService {
         invitation.setStatus(InvitationStatus.REJECTED);
         invitation = invitationRepository.save(invitation);
 
-        return modelMapper.map(invitation, InvitationDTO.class);
+        return ProjectMapper.toInvitationDTO(invitation);
     }
 
     public List<InvitationDTO> getUserInvitations(Long userId) {
@@ -115,7 +112,7 @@ public class InvitationService {
                 .orElseThrow(() -> new IllegalArgumentException("User not found"));
 
         return invitationRepository.findByRecipient(user).stream()
-                .map(invitation -> modelMapper.map(invitation, InvitationDTO.class))
+                .map(ProjectMapper::toInvitationDTO)
                 .collect(Collectors.toList());
     }
 
@@ -124,7 +121,7 @@ public class InvitationService {
                 .orElseThrow(() -> new IllegalArgumentException("User not found"));
 
         return invitationRepository.findByRecipientAndStatus(user, InvitationStatus.PENDING).stream()
-                .map(invitation -> modelMapper.map(invitation, InvitationDTO.class))
+                .map(ProjectMapper::toInvitationDTO)
                 .collect(Collectors.toList());
     }
 
@@ -135,7 +132,7 @@ public class InvitationService {
         List<Invitation> invitations = invitationRepository.findByProject(project);
         
         return invitations.stream()
-                .map(invitation -> modelMapper.map(invitation, InvitationWithRecipientDTO.class))
+                .map(ProjectMapper::toInvitationWithRecipientDTO)
                 .collect(Collectors.toList());
     }
 
@@ -13,7 +13,6 @@ import course.project.API.repositories.MessageAttachmentRepository;
 import course.project.API.repositories.MessageRepository;
 import course.project.API.repositories.UserRepository;
 import jakarta.persistence.EntityNotFoundException;
-import org.modelmapper.ModelMapper;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Page;
@@ -43,7 +42,6 @@ public class MessageService {
     private final ChatRepository chatRepository;
     private final UserRepository userRepository;
     private final MessageAttachmentRepository attachmentRepository;
-    private final ModelMapper modelMapper;
     private final String uploadDir = "uploads";
     private static final Logger logger = LoggerFactory.getLogger(MessageService.class);
 
@@ -55,12 +53,11 @@ public class MessageService {
             MessageRepository messageRepository,
             ChatRepository chatRepository,
             UserRepository userRepository,
-            MessageAttachmentRepository attachmentRepository, ModelMapper modelMapper) {
+            MessageAttachmentRepository attachmentRepository) {
         this.messageRepository = messageRepository;
         this.chatRepository = chatRepository;
         this.userRepository = userRepository;
         this.attachmentRepository = attachmentRepository;
-        this.modelMapper = modelMapper;
     }
 
     @Transactional
@@ -5,12 +5,14 @@ import course.project.API.dto.project.ProjectDTO;
 import course.project.API.dto.project.ProjectWithParticipantsOwnerDTO;
 import course.project.API.dto.project.ProjectWithParticipantsOwnerInvitationsDTO;
 import course.project.API.dto.user.UserResponse;
+import course.project.API.events.BoardEvent;
 import course.project.API.models.*;
 import course.project.API.repositories.*;
-import org.modelmapper.ModelMapper;
+import course.project.API.dto.converters.ProjectMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -23,32 +25,33 @@ public class ProjectService {
     private final ProjectRepository projectRepository;
     private final UserRepository userRepository;
     private final InvitationRepository invitationRepository;
-    private final ModelMapper modelMapper;
     private final ProjectRightService projectRightService;
     private final BoardRepository boardRepository;
     private static final Logger logger = LoggerFactory.getLogger(ProjectService.class);
     private final ProjectUserRightRepository projectUserRightRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Autowired
-    public ProjectService(ProjectRepository projectRepository, UserRepository userRepository, InvitationRepository invitationRepository, ModelMapper modelMapper, ProjectRightService projectRightService, BoardRepository boardRepository, ProjectUserRightRepository projectUserRightRepository) {
+    public ProjectService(ProjectRepository projectRepository, UserRepository userRepository, InvitationRepository invitationRepository, ProjectRightService projectRightService, BoardRepository boardRepository, ProjectUserRightRepository projectUserRightRepository,
+                          ApplicationEventPublisher eventPublisher) {
         this.projectRepository = projectRepository;
         this.userRepository = userRepository;
         this.invitationRepository = invitationRepository;
-        this.modelMapper = modelMapper;
         this.projectRightService = projectRightService;
         this.boardRepository = boardRepository;
         this.projectUserRightRepository = projectUserRightRepository;
+        this.eventPublisher = eventPublisher;
     }
 
     public List<ProjectDTO> getAllProjects() {
         return projectRepository.findAll().stream()
-                .map(project -> modelMapper.map(project, ProjectDTO.class))
+                .map(ProjectMapper::toProjectDTO)
                 .collect(Collectors.toList());
     }
 
     public Optional<ProjectDTO> getProjectById(Long id) {
         return projectRepository.findById(id)
-                .map(project -> modelMapper.map(project, ProjectDTO.class));
+                .map(ProjectMapper::toProjectDTO);
     }
 
     public ProjectWithParticipantsOwnerInvitationsDTO getProjectWithParticipantsOwnerInvitationsById(Long id) {
@@ -94,41 +97,51 @@ public class ProjectService {
         return projectDto;
     }
 
+    /**
+     * Проекты пользователя для дашборда. Всегда три запроса независимо от числа проектов и задач:
+     * проекты с владельцем, участники всех проектов одним запросом и агрегат счетчиков задач по доскам.
+     * Сущности не загружаются, объем памяти зависит только от числа проектов, досок и участников.
+     */
     public List<ProjectWithParticipantsOwnerDTO> getMyProjectsWithUsers(User currentUser) {
-        logger.info("Достаю проекты с овнером и участниками");
-        List<Project> projects = projectRepository.findProjectsByUserId(currentUser.getId());
-        logger.info(String.valueOf(projects.size()));
-        logger.info("Достаю гига проекты");
-        List<Project> gigaProjects = projectRepository.findProjectsByIdsWithBoardsColumnsTasks(
-                projects.stream().map(Project::getId).toList()
-        );
-        logger.info(String.valueOf(gigaProjects.size()));
-        logger.info("Делаю Map");
-        Map<Long, Set<User>> projectsWithParticipants = projects.stream().collect(Collectors.toMap(Project::getId, Project::getParticipants));
-        return gigaProjects
-                .stream()
-                .map(project -> {
-                    ProjectWithParticipantsOwnerDTO dto = new ProjectWithParticipantsOwnerDTO();
-                    dto.setId(project.getId());
-                    dto.setTitle(project.getTitle());
-                    dto.setDescription(project.getDescription());
-                    dto.setEmoji(project.getEmoji());
-                    dto.setParticipants(projectsWithParticipants.get(project.getId()).stream().map(user -> new UserResponse(
-                           user.getId(),
-                           user.getName(),
-                            user.getAvatarURL()
-                    )).collect(Collectors.toSet()));
-                    dto.setOwner(new UserResponse(
-                            project.getOwner().getId(),
-                            project.getOwner().getName(),
-                            project.getOwner().getAvatarURL()
-                    ));
-                    logger.info("Считаю комплит");
+        List<Object[]> projectRows = projectRepository.findProjectRowsByUserId(currentUser.getId());
+        if (projectRows.isEmpty()) {
+            return new ArrayList<>();
+        }
 
-                    dto.setCompletionPercentage(calculateProjectCompletionPercentage(project));
-                    return dto;
-                })
-                .collect(Collectors.toList());
+        Map<Long, ProjectWithParticipantsOwnerDTO> projects = new LinkedHashMap<>();
+        for (Object[] row : projectRows) {
+            ProjectWithParticipantsOwnerDTO dto = new ProjectWithParticipantsOwnerDTO();
+            dto.setId(((Number) row[0]).longValue());
+            dto.setTitle((String) row[1]);
+            dto.setDescription((String) row[2]);
+            dto.setEmoji((String) row[3]);
+            dto.setOwner(new UserResponse(((Number) row[4]).longValue(), (String) row[5], (String) row[6]));
+            dto.setParticipants(new HashSet<>());
+            projects.put(dto.getId(), dto);
+        }
+        List<Long> projectIds = new ArrayList<>(projects.keySet());
+
+        for (Object[] row : projectRepository.findParticipantRowsByProjectIds(projectIds)) {
+            projects.get(((Number) row[0]).longValue()).getParticipants().add(new UserResponse(
+                    ((Number) row[1]).longValue(),
+                    (String) row[2],
+                    (String) row[3]
+            ));
+        }
+
+        Map<Long, List<Double>> boardPercentages = new HashMap<>();
+        for (Object[] row : projectRepository.findBoardTaskCountRowsByProjectIds(projectIds)) {
+            long totalTasks = ((Number) row[2]).longValue();
+            long completedTasks = ((Number) row[3]).longValue();
+            boardPercentages.computeIfAbsent(((Number) row[0]).longValue(), id -> new ArrayList<>())
+                    .add(calculateBoardCompletionPercentage(totalTasks, completedTasks));
+        }
+
+        for (ProjectWithParticipantsOwnerDTO dto : projects.values()) {
+            dto.setCompletionPercentage(calculateProjectCompletionPercentage(
+                    boardPercentages.getOrDefault(dto.getId(), List.of())));
+        }
+        return new ArrayList<>(projects.values());
     }
 
     @Transactional
@@ -171,7 +184,7 @@ public class ProjectService {
                     project.setTitle(projectDTO.getTitle());
                     project.setDescription(projectDTO.getDescription());
                     project.setEmoji(projectDTO.getEmoji());
-                    return modelMapper.map(projectRepository.save(project), ProjectDTO.class);
+                    return ProjectMapper.toProjectDTO(projectRepository.save(project));
                 });
     }
 
@@ -184,7 +197,12 @@ public class ProjectService {
             invitationRepository.deleteAllByProject(project);
             
             project.getParticipants().clear();
-            
+
+            // Доски уходят каскадом — read-модели и подписчики узнают об этом только из событий
+            for (Board board : project.getBoards()) {
+                eventPublisher.publishEvent(BoardEvent.boardDeleted(board));
+            }
+
             projectRepository.delete(project);
             
             System.out.println("Project with ID " + id + " has been successfully deleted");
@@ -225,6 +243,7 @@ public class ProjectService {
             
             for (Board board : project.getBoards()) {
                 board.removeParticipant(user);
+                eventPublisher.publishEvent(BoardEvent.boardChanged(board.getId()));
             }
             
             project.removeParticipant(user);
@@ -243,37 +262,23 @@ public class ProjectService {
                 .orElse(false);
     }
 
-    private Double calculateProjectCompletionPercentage(Project project) {
-        Set<Board> boards = project.getBoards();
-        if (boards.isEmpty()) {
+    private Double calculateProjectCompletionPercentage(List<Double> boardPercentages) {
+        if (boardPercentages.isEmpty()) {
             return 0.0;
         }
         
         double totalPercentage = 0.0;
         
-        for (Board board : boards) {
-            totalPercentage += calculateBoardCompletionPercentage(board);
+        for (Double boardPercentage : boardPercentages) {
+            totalPercentage += boardPercentage;
         }
         
-        double averagePercentage = totalPercentage / boards.size();
+        double averagePercentage = totalPercentage / boardPercentages.size();
         return Math.round(averagePercentage * 100.0) / 100.0;
     }
     
 
-    private Double calculateBoardCompletionPercentage(Board board) {
-        int totalTasks = 0;
-        int completedTasks = 0;
-        
-        for (DashBoardColumn column : board.getColumns()) {
-            int columnTaskCount = column.getTasks().size();
-            totalTasks += columnTaskCount;
-            
-            // If this column is marked as completion column, count all its tasks as completed
-            if (column.isCompletionColumn()) {
-                completedTasks += columnTaskCount;
-            }
-        }
-        
+    private Double calculateBoardCompletionPercentage(long totalTasks, long completedTasks) {
         // Avoid division by zero
         if (totalTasks == 0) {
             return 0.0;
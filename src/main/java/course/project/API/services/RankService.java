@@ -0,0 +1,402 @@
+package course.project.API.services;
+
+import course.project.API.events.BoardEvent;
+import course.project.API.repositories.ChecklistItemRepository;
+import course.project.API.repositories.DashBoardColumnRepository;
+import course.project.API.repositories.TaskRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Разреженные ранги для порядка задач в колонке, колонок на доске и пунктов чек-листа.
+ * В поле position хранится ранг с шагом {@link #STEP}: при перемещении элемент получает ранг
+ * посередине между новыми соседями, поэтому перемещение пишет ровно одну строку.
+ * В ответах API position — это ранг, а не индекс. Запросы перемещения принимают тот же ранг:
+ * элемент встает перед первым другим элементом с рангом не меньше переданного, а без position
+ * или за концом списка — в конец. Поэтому клиент передает ранг элемента, перед которым бросил перетаскиваемый,
+ * и ранг, прочитанный из ответа и отправленный обратно, не меняет порядок.
+ * Когда промежуток между соседями становится меньше {@link #MIN_GAP}, список ставится
+ * в очередь фоновой перенумерации; если промежутка нет совсем, список перенумеровывается сразу.
+ */
+@Service
+public class RankService {
+
+    private static final Logger logger = LoggerFactory.getLogger(RankService.class);
+
+    public static final int STEP = 1024;
+    static final int MIN_GAP = 8;
+
+    public enum Kind {
+        /** Задачи колонки, родитель — колонка */
+        TASK,
+        /** Колонки доски, родитель — доска */
+        COLUMN,
+        /** Пункты чек-листа задачи, родитель — задача */
+        CHECKLIST_ITEM
+    }
+
+    private final TaskRepository taskRepository;
+    private final DashBoardColumnRepository columnRepository;
+    private final ChecklistItemRepository checklistItemRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+
+    private final Set<Pending> pending = ConcurrentHashMap.newKeySet();
+
+    public RankService(TaskRepository taskRepository, DashBoardColumnRepository columnRepository,
+                       ChecklistItemRepository checklistItemRepository, ApplicationEventPublisher eventPublisher,
+                       PlatformTransactionManager transactionManager) {
+        this.taskRepository = taskRepository;
+        this.columnRepository = columnRepository;
+        this.checklistItemRepository = checklistItemRepository;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Ранг для элемента, который должен встать перед первым другим элементом родителя с рангом не меньше position.
+     * Если такого элемента нет, элемент встает в конец. Сам элемент (excludeId) не учитывается,
+     * для нового элемента excludeId = null
+     */
+    public int rankAt(Kind kind, Long parentId, Long excludeId, int position) {
+        List<Object[]> next = findNextRankRow(kind, parentId, excludeId, position);
+        if (next.isEmpty()) {
+            return appendRank(kind, parentId);
+        }
+        Long targetId = ((Number) next.get(0)[0]).longValue();
+        int targetRank = ((Number) next.get(0)[1]).intValue();
+        List<Integer> previous = findPreviousRank(kind, parentId, excludeId, targetRank, targetId);
+        Integer before = previous.isEmpty() ? null : previous.get(0);
+
+        Integer rank = between(before, targetRank);
+        if (rank != null) {
+            int gap = Math.min(before != null ? rank - before : STEP, targetRank - rank);
+            if (gap < MIN_GAP) {
+                schedule(kind, parentId);
+            }
+            return rank;
+        }
+        // Промежутка нет: перенумеровываем и ставим элемент перед тем же соседом
+        renumber(kind, parentId);
+        before = null;
+        for (Object[] row : findRankRows(kind, parentId)) {
+            Long id = ((Number) row[0]).longValue();
+            if (id.equals(excludeId)) {
+                continue;
+            }
+            int current = ((Number) row[1]).intValue();
+            if (id.equals(targetId)) {
+                rank = between(before, current);
+                if (rank != null) {
+                    return rank;
+                }
+                break;
+            }
+            before = current;
+        }
+        throw new IllegalStateException("No rank gap for " + kind + " of " + parentId + " after renumbering");
+    }
+
+    /**
+     * Ранг для нового элемента в конце списка
+     */
+    public int appendRank(Kind kind, Long parentId) {
+        Integer max = findMaxPosition(kind, parentId);
+        if (max == null) {
+            return STEP;
+        }
+        if (max > Integer.MAX_VALUE - STEP) {
+            renumber(kind, parentId);
+            max = findMaxPosition(kind, parentId);
+        }
+        return max + STEP;
+    }
+
+    /**
+     * Новые ранги для элементов, переданных в нужном порядке.
+     * Элементы из наибольшей возрастающей подпоследовательности текущих рангов сохраняют ранг,
+     * остальные получают ранги между ними, поэтому перетаскивание одного элемента меняет одно значение.
+     * Если места между соседями не хватает, все элементы получают ранги с шагом STEP
+     */
+    public static int[] reorder(List<Integer> current) {
+        int n = current.size();
+        int[] result = new int[n];
+        boolean[] kept = longestIncreasing(current);
+
+        int previous = -1;
+        for (int i = 0; i <= n; i++) {
+            if (i < n && !kept[i]) {
+                continue;
+            }
+            Integer lo = previous >= 0 ? current.get(previous) : null;
+            Integer hi = i < n ? current.get(i) : null;
+            int count = i - previous - 1;
+            if (count > 0 && !fill(result, previous + 1, count, lo, hi)) {
+                for (int j = 0; j < n; j++) {
+                    result[j] = (j + 1) * STEP;
+                }
+                return result;
+            }
+            if (i < n) {
+                result[i] = current.get(i);
+            }
+            previous = i;
+        }
+        return result;
+    }
+
+    /**
+     * Переставляет переданные элементы родителя в порядке orderedIds, остальные элементы остаются на своих местах:
+     * переданные занимают в общем списке те же места, что занимали, но в новом порядке.
+     * Ранги считаются {@link #reorder} по всему списку родителя, поэтому при нехватке места
+     * перенумеровывается весь список, а не только переданные элементы, и ранги не совпадают с непереданными.
+     * Возвращает новые ранги только изменившихся элементов, в том числе непереданных
+     */
+    public Map<Long, Integer> reorderWithin(Kind kind, Long parentId, List<Long> orderedIds) {
+        List<Long> ids = new ArrayList<>();
+        List<Integer> current = new ArrayList<>();
+        for (Object[] row : findRankRows(kind, parentId)) {
+            ids.add(((Number) row[0]).longValue());
+            current.add(row[1] != null ? ((Number) row[1]).intValue() : null);
+        }
+        Set<Long> listed = new HashSet<>(orderedIds);
+        listed.retainAll(new HashSet<>(ids));
+        Iterator<Long> requested = orderedIds.stream().filter(listed::contains).distinct().iterator();
+
+        List<Long> merged = new ArrayList<>(ids.size());
+        List<Integer> mergedRanks = new ArrayList<>(ids.size());
+        Map<Long, Integer> rankById = new HashMap<>();
+        for (int i = 0; i < ids.size(); i++) {
+            rankById.put(ids.get(i), current.get(i));
+        }
+        for (Long id : ids) {
+            Long placed = listed.contains(id) ? requested.next() : id;
+            merged.add(placed);
+            mergedRanks.add(rankById.get(placed));
+        }
+
+        int[] ranks = reorder(mergedRanks);
+        scheduleIfCrowded(kind, parentId, ranks);
+        Map<Long, Integer> changed = new HashMap<>();
+        for (int i = 0; i < ranks.length; i++) {
+            if (!Objects.equals(mergedRanks.get(i), ranks[i])) {
+                changed.put(merged.get(i), ranks[i]);
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * Проверяет, достаточно ли широки промежутки после {@link #reorder}, и при необходимости
+     * ставит список в очередь перенумерации
+     */
+    public void scheduleIfCrowded(Kind kind, Long parentId, int[] ranks) {
+        for (int i = 1; i < ranks.length; i++) {
+            if ((long) ranks[i] - ranks[i - 1] < MIN_GAP) {
+                schedule(kind, parentId);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Перенумеровывает список в текущей транзакции
+     */
+    public void renumber(Kind kind, Long parentId) {
+        int updated = switch (kind) {
+            case TASK -> taskRepository.renumberPositionsByColumnId(parentId, STEP);
+            case COLUMN -> columnRepository.renumberPositionsByBoardId(parentId, STEP);
+            case CHECKLIST_ITEM -> checklistItemRepository.renumberPositionsByTaskId(parentId, STEP);
+        };
+        pending.remove(new Pending(kind, parentId));
+        logger.debug("Перенумерованы ранги {} родителя {}: строк {}", kind, parentId, updated);
+    }
+
+    @Scheduled(fixedDelayString = "${ranks.rebalance-interval-ms:30000}")
+    public void rebalancePending() {
+        List<Pending> batch = new ArrayList<>(pending);
+        for (Pending item : batch) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> {
+                    renumber(item.kind, item.parentId);
+                    if (item.kind == Kind.TASK) {
+                        // Ранги, посчитанные параллельными перемещениями до перенумерации, устарели
+                        columnRepository.incrementVersion(item.parentId);
+                    }
+                    publishRenumbered(item.kind, item.parentId);
+                });
+            } catch (RuntimeException e) {
+                logger.warn("Не удалось перенумеровать ранги {} родителя {}: {}", item.kind, item.parentId, e.getMessage());
+            }
+        }
+        if (!batch.isEmpty()) {
+            logger.info("Фоновая перенумерация рангов: списков {}", batch.size());
+        }
+    }
+
+    private void schedule(Kind kind, Long parentId) {
+        pending.add(new Pending(kind, parentId));
+    }
+
+    private void publishRenumbered(Kind kind, Long parentId) {
+        switch (kind) {
+            case TASK -> columnRepository.findById(parentId)
+                    .ifPresent(column -> eventPublisher.publishEvent(BoardEvent.columnTasksChanged(column)));
+            case COLUMN -> eventPublisher.publishEvent(BoardEvent.columnsChanged(parentId));
+            case CHECKLIST_ITEM -> taskRepository.findById(parentId)
+                    .ifPresent(task -> eventPublisher.publishEvent(BoardEvent.taskChanged(task)));
+        }
+    }
+
+    private List<Object[]> findRankRows(Kind kind, Long parentId) {
+        return switch (kind) {
+            case TASK -> taskRepository.findRankRowsByColumnId(parentId);
+            case COLUMN -> columnRepository.findRankRowsByBoardId(parentId);
+            case CHECKLIST_ITEM -> checklistItemRepository.findRankRowsByTaskId(parentId);
+        };
+    }
+
+    private List<Object[]> findNextRankRow(Kind kind, Long parentId, Long excludeId, int position) {
+        return switch (kind) {
+            case TASK -> taskRepository.findNextRankRowByColumnId(parentId, excludeId, position);
+            case COLUMN -> columnRepository.findNextRankRowByBoardId(parentId, excludeId, position);
+            case CHECKLIST_ITEM -> checklistItemRepository.findNextRankRowByTaskId(parentId, excludeId, position);
+        };
+    }
+
+    private List<Integer> findPreviousRank(Kind kind, Long parentId, Long excludeId, int position, Long id) {
+        return switch (kind) {
+            case TASK -> taskRepository.findPreviousRankByColumnId(parentId, excludeId, position, id);
+            case COLUMN -> columnRepository.findPreviousRankByBoardId(parentId, excludeId, position, id);
+            case CHECKLIST_ITEM -> checklistItemRepository.findPreviousRankByTaskId(parentId, excludeId, position, id);
+        };
+    }
+
+    private Integer findMaxPosition(Kind kind, Long parentId) {
+        return switch (kind) {
+            case TASK -> taskRepository.findMaxPositionByColumnId(parentId);
+            case COLUMN -> columnRepository.findMaxPositionByBoardId(parentId);
+            case CHECKLIST_ITEM -> checklistItemRepository.findMaxPositionByTaskId(parentId);
+        };
+    }
+
+    /**
+     * Ранг строго между before и after (null — нет соседа с этой стороны) или null, если места нет
+     */
+    static Integer between(Integer before, Integer after) {
+        if (before == null && after == null) {
+            return STEP;
+        }
+        if (before == null) {
+            return after > Integer.MIN_VALUE + STEP ? after - STEP : null;
+        }
+        if (after == null) {
+            return before < Integer.MAX_VALUE - STEP ? before + STEP : null;
+        }
+        long gap = (long) after - before;
+        return gap > 1 ? (int) (before + gap / 2) : null;
+    }
+
+    /**
+     * Заполняет count рангов начиная с from между lo и hi (null — граница списка)
+     */
+    private static boolean fill(int[] result, int from, int count, Integer lo, Integer hi) {
+        long start;
+        long step;
+        if (lo == null && hi == null) {
+            start = 0;
+            step = STEP;
+        } else if (lo == null) {
+            step = STEP;
+            start = (long) hi - (count + 1L) * STEP;
+        } else if (hi == null) {
+            step = STEP;
+            start = lo;
+        } else {
+            step = ((long) hi - lo) / (count + 1);
+            start = lo;
+            if (step < 1) {
+                return false;
+            }
+        }
+        if (start + step <= Integer.MIN_VALUE || start + step * count >= Integer.MAX_VALUE) {
+            return false;
+        }
+        for (int j = 0; j < count; j++) {
+            result[from + j] = (int) (start + step * (j + 1));
+        }
+        return true;
+    }
+
+    /**
+     * Отмечает элементы наибольшей строго возрастающей подпоследовательности (без null), O(n log n)
+     */
+    private static boolean[] longestIncreasing(List<Integer> values) {
+        int n = values.size();
+        int[] tails = new int[n];
+        int[] parent = new int[n];
+        int length = 0;
+        for (int i = 0; i < n; i++) {
+            Integer value = values.get(i);
+            parent[i] = -1;
+            if (value == null) {
+                continue;
+            }
+            int lo = 0;
+            int hi = length;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (values.get(tails[mid]) < value) {
+                    lo = mid + 1;
+                } else {
+                    hi = mid;
+                }
+            }
+            parent[i] = lo > 0 ? tails[lo - 1] : -1;
+            tails[lo] = i;
+            if (lo == length) {
+                length++;
+            }
+        }
+        boolean[] kept = new boolean[n];
+        for (int i = length > 0 ? tails[length - 1] : -1; i >= 0; i = parent[i]) {
+            kept[i] = true;
+        }
+        return kept;
+    }
+
+    private static final class Pending {
+        private final Kind kind;
+        private final Long parentId;
+
+        private Pending(Kind kind, Long parentId) {
+            this.kind = kind;
+            this.parentId = parentId;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Pending other && kind == other.kind && parentId.equals(other.parentId);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(kind, parentId);
+        }
+    }
+}
@@ -1,11 +1,13 @@
 package course.project.API.services;
 
+import course.project.API.events.BoardEvent;
 import course.project.API.models.Tag;
 import course.project.API.models.Board;
 import course.project.API.repositories.TagRepository;
 import course.project.API.repositories.BoardRepository;
 import course.project.API.repositories.DashBoardColumnRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -19,13 +21,15 @@ public class TagService {
     private final TagRepository tagRepository;
     private final BoardRepository boardRepository;
     private final DashBoardColumnRepository columnRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Autowired
     public TagService(TagRepository tagRepository, BoardRepository boardRepository, 
-                     DashBoardColumnRepository columnRepository) {
+                     DashBoardColumnRepository columnRepository, ApplicationEventPublisher eventPublisher) {
         this.tagRepository = tagRepository;
         this.boardRepository = boardRepository;
         this.columnRepository = columnRepository;
+        this.eventPublisher = eventPublisher;
     }
 
     @Transactional(readOnly = true)
@@ -51,7 +55,9 @@ public class TagService {
                 .orElseThrow(() -> new RuntimeException("Board not found with id: " + boardId));
         
         Tag tag = new Tag(name, color, board);
-        return tagRepository.save(tag);
+        Tag savedTag = tagRepository.save(tag);
+        eventPublisher.publishEvent(BoardEvent.boardChanged(boardId));
+        return savedTag;
     }
 
     @Transactional
@@ -67,16 +73,22 @@ public class TagService {
             tag.setColor(color);
         }
         
-        return tagRepository.save(tag);
+        Tag savedTag = tagRepository.save(tag);
+        eventPublisher.publishEvent(BoardEvent.boardChanged(tag.getBoard().getId()));
+        return savedTag;
     }
 
     @Transactional
     public void deleteTag(Long tagId) {
-        tagRepository.deleteById(tagId);
+        tagRepository.findById(tagId).ifPresent(tag -> {
+            tagRepository.delete(tag);
+            eventPublisher.publishEvent(BoardEvent.boardChanged(tag.getBoard().getId()));
+        });
     }
 
     @Transactional
     public void deleteAllTagsByBoard(Long boardId) {
         tagRepository.deleteByBoardId(boardId);
+        eventPublisher.publishEvent(BoardEvent.boardChanged(boardId));
     }
 } 
\ No newline at end of file
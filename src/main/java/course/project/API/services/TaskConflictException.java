@@ -0,0 +1,23 @@
+package course.project.API.services;
+
+import course.project.API.models.Task;
+
+import java.util.List;
+
+/**
+ * Перемещение задач конфликтует с изменением, которое уже сохранил другой пользователь,
+ * и не может быть объединено с ним. Содержит текущее состояние задач для ответа клиенту
+ */
+public class TaskConflictException extends RuntimeException {
+
+    private final List<Task> currentTasks;
+
+    public TaskConflictException(String message, List<Task> currentTasks) {
+        super(message);
+        this.currentTasks = currentTasks;
+    }
+
+    public List<Task> getCurrentTasks() {
+        return currentTasks;
+    }
+}
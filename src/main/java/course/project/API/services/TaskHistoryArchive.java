@@ -0,0 +1,286 @@
+package course.project.API.services;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import course.project.API.dto.board.TaskHistoryDTO;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Архив истории задач в сжатых файлах сегментов на локальном диске.
+ * Сегмент — файл доски за месяц архивации (board-{id}/yyyy-MM.seg), в который только дописываются блоки.
+ * Блок — отдельный gzip-член с JSON-строками записей истории в прежнем формате
+ * (старый и новый JSON уже восстановлены), поэтому чтение архива не зависит от цепочек версий.
+ * Расположение блоков индексируется в task_history_archive по доске и задаче.
+ * Блок, записанный в файл, но не попавший в индекс (сбой до коммита), просто никогда не читается.
+ */
+@Service
+public class TaskHistoryArchive {
+
+    private static final Logger logger = LoggerFactory.getLogger(TaskHistoryArchive.class);
+
+    private static final ObjectMapper MAPPER = new ObjectMapper().registerModule(new JavaTimeModule())
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+    private static final DateTimeFormatter SEGMENT_MONTH = DateTimeFormatter.ofPattern("yyyy-MM");
+
+    static final Comparator<ArchivedRow> NEWEST_FIRST = Comparator
+            .comparing((ArchivedRow row) -> row.dto.getTimestamp())
+            .thenComparing(row -> row.dto.getId())
+            .reversed();
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Path directory;
+
+    public TaskHistoryArchive(JdbcTemplate jdbcTemplate,
+                              @Value("${history.archive.dir:history-archive}") String directory) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.directory = Paths.get(directory);
+    }
+
+    /**
+     * Дописывает записи доски одним блоком в текущий сегмент и сбрасывает файл на диск
+     */
+    synchronized Block append(Long boardId, List<ArchivedRow> rows) {
+        String segment = "board-" + boardId + "/" + LocalDate.now().format(SEGMENT_MONTH) + ".seg";
+        byte[] bytes = encodeBlock(rows);
+        Path file = directory.resolve(segment);
+        try {
+            Files.createDirectories(file.getParent());
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+                long offset = channel.size();
+                ByteBuffer buffer = ByteBuffer.wrap(bytes);
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                channel.force(true);
+                return new Block(segment, offset, bytes.length, rows);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Индексирует блок по задачам. Вызывается в той же транзакции, что удаляет строки из task_history
+     */
+    void index(Long boardId, Block block) {
+        Map<Long, List<ArchivedRow>> byTask = new LinkedHashMap<>();
+        block.rows.forEach(row -> byTask.computeIfAbsent(row.taskRefId, id -> new ArrayList<>()).add(row));
+        List<Object[]> args = new ArrayList<>(byTask.size());
+        byTask.forEach((taskRefId, rows) -> {
+            LocalDateTime first = rows.stream().map(row -> row.dto.getTimestamp()).min(Comparator.naturalOrder()).get();
+            LocalDateTime last = rows.stream().map(row -> row.dto.getTimestamp()).max(Comparator.naturalOrder()).get();
+            args.add(new Object[]{boardId, taskRefId, block.segment, block.offset, block.length,
+                    Timestamp.valueOf(first), Timestamp.valueOf(last), rows.size()});
+        });
+        jdbcTemplate.batchUpdate("""
+                INSERT INTO task_history_archive (board_id, task_ref_id, segment, block_offset, block_length,
+                                                  first_timestamp, last_timestamp, row_count)
+                VALUES (?, ?, ?, ?, ?, ?, ?, ?)
+                """, args);
+    }
+
+    /**
+     * Архивные записи доски с timestamp в (after, upTo] по возрастанию (timestamp, id)
+     */
+    List<ArchivedRow> readBoard(Long boardId, LocalDateTime after, LocalDateTime upTo) {
+        List<ArchivedRow> result = new ArrayList<>();
+        for (BlockRef ref : findBlocks("board_id", boardId, upTo, after)) {
+            for (ArchivedRow row : readBlock(ref)) {
+                LocalDateTime timestamp = row.dto.getTimestamp();
+                if (boardId.equals(row.dto.getBoardId()) && timestamp.isAfter(after) && !timestamp.isAfter(upTo)) {
+                    result.add(row);
+                }
+            }
+        }
+        result.sort(NEWEST_FIRST.reversed());
+        return result;
+    }
+
+    /**
+     * Страница архива доски или задачи перед ключом (beforeTimestamp, beforeId), от новых к старым.
+     * Записи старше notBefore не нужны вызывающему и не читаются. Блоки читаются от самого свежего,
+     * пока следующий блок еще может содержать записи новее уже набранных
+     */
+    List<ArchivedRow> page(boolean byTask, Long key, LocalDateTime beforeTimestamp, long beforeId,
+                           int limit, LocalDateTime notBefore) {
+        List<ArchivedRow> result = new ArrayList<>();
+        List<BlockRef> blocks = findBlocks(byTask ? "task_ref_id" : "board_id", key, beforeTimestamp,
+                notBefore != null ? notBefore.minusNanos(1000) : LocalDateTime.of(1970, 1, 1, 0, 0));
+        for (BlockRef ref : blocks) {
+            if (result.size() >= limit && ref.lastTimestamp.isBefore(result.get(limit - 1).dto.getTimestamp())) {
+                break;
+            }
+            for (ArchivedRow row : readBlock(ref)) {
+                Long rowKey = byTask ? row.taskRefId : row.dto.getBoardId();
+                LocalDateTime timestamp = row.dto.getTimestamp();
+                boolean beforeCursor = timestamp.isBefore(beforeTimestamp)
+                        || timestamp.isEqual(beforeTimestamp) && row.dto.getId() < beforeId;
+                if (key.equals(rowKey) && beforeCursor && (notBefore == null || !timestamp.isBefore(notBefore))) {
+                    result.add(row);
+                }
+            }
+            result.sort(NEWEST_FIRST);
+        }
+        return result.size() > limit ? new ArrayList<>(result.subList(0, limit)) : result;
+    }
+
+    /**
+     * Все блоки архива доски, от старых к новым. Блок читается целиком, поэтому выгрузка держит в памяти только один
+     */
+    List<BlockRef> boardBlocks(Long boardId) {
+        return jdbcTemplate.query("""
+                        SELECT segment, block_offset, block_length, MAX(last_timestamp) AS last_ts
+                        FROM task_history_archive
+                        WHERE board_id = ?
+                        GROUP BY segment, block_offset, block_length
+                        ORDER BY MIN(first_timestamp), segment, block_offset
+                        """,
+                (rs, rowNum) -> new BlockRef(rs.getString(1), rs.getLong(2), rs.getInt(3),
+                        rs.getTimestamp(4).toLocalDateTime()),
+                boardId);
+    }
+
+    /**
+     * Блоки с записями ключа, пересекающие [notBefore, upTo]. Сначала самые свежие
+     */
+    private List<BlockRef> findBlocks(String keyColumn, Long key, LocalDateTime upTo, LocalDateTime after) {
+        return jdbcTemplate.query("""
+                        SELECT segment, block_offset, block_length, MAX(last_timestamp) AS last_ts
+                        FROM task_history_archive
+                        WHERE %s = ? AND first_timestamp <= ? AND last_timestamp > ?
+                        GROUP BY segment, block_offset, block_length
+                        ORDER BY last_ts DESC
+                        """.formatted(keyColumn),
+                (rs, rowNum) -> new BlockRef(rs.getString(1), rs.getLong(2), rs.getInt(3),
+                        rs.getTimestamp(4).toLocalDateTime()),
+                key, Timestamp.valueOf(upTo), Timestamp.valueOf(after));
+    }
+
+    List<ArchivedRow> readBlock(BlockRef ref) {
+        byte[] bytes = new byte[ref.length];
+        try (RandomAccessFile file = new RandomAccessFile(directory.resolve(ref.segment).toFile(), "r")) {
+            file.seek(ref.offset);
+            file.readFully(bytes);
+        } catch (FileNotFoundException e) {
+            logger.warn("Сегмент архива истории {} не найден", ref.segment);
+            return List.of();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return decodeBlock(bytes);
+    }
+
+    static byte[] encodeBlock(List<ArchivedRow> rows) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (Writer writer = new OutputStreamWriter(new GZIPOutputStream(bytes), StandardCharsets.UTF_8)) {
+            for (ArchivedRow row : rows) {
+                ObjectNode node = MAPPER.valueToTree(row.dto);
+                node.put("taskRefId", row.taskRefId);
+                writer.write(node.toString());
+                writer.write('\n');
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    static List<ArchivedRow> decodeBlock(byte[] bytes) {
+        List<ArchivedRow> rows = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new GZIPInputStream(new ByteArrayInputStream(bytes)), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isEmpty()) {
+                    continue;
+                }
+                JsonNode node = MAPPER.readTree(line);
+                JsonNode taskRefId = node.get("taskRefId");
+                rows.add(new ArchivedRow(MAPPER.treeToValue(node, TaskHistoryDTO.class),
+                        taskRefId != null && !taskRefId.isNull() ? taskRefId.asLong() : null));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return rows;
+    }
+
+    /**
+     * Запись истории в архиве: DTO в прежнем формате и задача цепочки, к которой она относилась
+     */
+    static final class ArchivedRow {
+        final TaskHistoryDTO dto;
+        final Long taskRefId;
+
+        ArchivedRow(TaskHistoryDTO dto, Long taskRefId) {
+            this.dto = dto;
+            this.taskRefId = taskRefId;
+        }
+    }
+
+    static final class Block {
+        final String segment;
+        final long offset;
+        final int length;
+        final List<ArchivedRow> rows;
+
+        Block(String segment, long offset, int length, List<ArchivedRow> rows) {
+            this.segment = segment;
+            this.offset = offset;
+            this.length = length;
+            this.rows = rows;
+        }
+    }
+
+    static final class BlockRef {
+        final String segment;
+        final long offset;
+        final int length;
+        final LocalDateTime lastTimestamp;
+
+        BlockRef(String segment, long offset, int length, LocalDateTime lastTimestamp) {
+            this.segment = segment;
+            this.offset = offset;
+            this.length = length;
+            this.lastTimestamp = lastTimestamp;
+        }
+    }
+}
@@ -0,0 +1,444 @@
+package course.project.API.services;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import course.project.API.dto.board.TaskHistoryDTO;
+import course.project.API.models.TaskHistory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Хранение истории задачи цепочкой версий.
+ * Каждая запись истории — версия задачи с номером versionNo. Полный JSON задачи хранится только
+ * в контрольных точках: в первой версии и в каждой {@link #checkpointInterval}-й; остальные версии
+ * хранят JSON merge patch (RFC 7386) относительно предыдущей версии. null в патче означает
+ * «поле стало null»: задачи всегда сериализуются со всеми полями, поэтому удаления полей не бывает.
+ * Любая версия восстанавливается от ближайшей контрольной точки не более чем за checkpointInterval патчей.
+ * Старые строки с тремя полными JSON сжимаются в цепочки в фоне.
+ */
+@Service
+public class TaskHistoryCodec {
+
+    private static final Logger logger = LoggerFactory.getLogger(TaskHistoryCodec.class);
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final int checkpointInterval;
+    private final int compactionBatch;
+
+    // Последняя записанная версия задач, доступ под this; запросы к БД под this не выполняются
+    private final Map<Long, State> lastStates;
+    private long legacyBytesBefore;
+    private long legacyBytesAfter;
+
+    public TaskHistoryCodec(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                            @Value("${history.checkpoint-interval:20}") int checkpointInterval,
+                            @Value("${history.state-cache-size:10000}") int stateCacheSize,
+                            @Value("${history.compaction.batch-tasks:200}") int compactionBatch) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.checkpointInterval = checkpointInterval;
+        this.compactionBatch = compactionBatch;
+        this.lastStates = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, State> eldest) {
+                return size() > stateCacheSize;
+            }
+        };
+    }
+
+    /**
+     * Превращает запись с полным состоянием задачи в taskSnapshot в версию цепочки перед вставкой:
+     * назначает номер версии и оставляет либо полный снимок (контрольная точка), либо патч.
+     * Номер версии — следующий за последним известным кодеку; если он все же совпадет с уже записанным
+     * (кэш вытеснен или историю пишет другой экземпляр), вставку отклонит уникальный индекс
+     * (task_ref_id, version_no), и писатель перекодирует запись после {@link #invalidate}
+     */
+    public void encode(TaskHistory row) {
+        row.setOldTaskJson(null);
+        row.setNewTaskJson(null);
+        Long taskId = row.getTaskRefId();
+        if (taskId == null) {
+            row.setVersionNo(0);
+            row.setCheckpoint(true);
+            return;
+        }
+        JsonNode node = parse(row.getTaskSnapshot());
+        boolean cached;
+        synchronized (this) {
+            cached = lastStates.containsKey(taskId);
+        }
+        // Запросы к БД для задачи, которой нет в кэше, идут без монитора кодека и не задерживают остальные задачи
+        State loaded = cached ? null : loadState(taskId);
+        synchronized (this) {
+            State previous = lastStates.get(taskId);
+            if (previous == null) {
+                previous = loaded;
+            }
+            int version = previous != null ? previous.versionNo + 1 : 1;
+            row.setVersionNo(version);
+            if (previous == null || previous.node == null || !isObject(node) || version % checkpointInterval == 0) {
+                row.setCheckpoint(true);
+                row.setDiffJson(null);
+            } else {
+                row.setCheckpoint(false);
+                row.setDiffJson(diff(previous.node, node).toString());
+                row.setTaskSnapshot(null);
+            }
+            lastStates.put(taskId, new State(version, node));
+        }
+    }
+
+    /**
+     * Забывает последние версии задач, если закодированные записи не попали в БД
+     */
+    public synchronized void invalidate(Collection<Long> taskIds) {
+        taskIds.forEach(lastStates::remove);
+    }
+
+    /**
+     * JSON задачи в версии versionNo или null, если цепочка не восстанавливается
+     */
+    public String reconstruct(Long taskId, int versionNo) {
+        JsonNode node = reconstructNode(taskId, versionNo);
+        return node != null ? node.toString() : null;
+    }
+
+    /**
+     * DTO записей истории с восстановленными oldTaskJson, newTaskJson и taskSnapshot в прежнем формате.
+     * Версии одной задачи проходятся по возрастанию, поэтому для непрерывной цепочки БД нужна
+     * только там, где перед первой записью нет контрольной точки
+     */
+    public List<TaskHistoryDTO> toDTOs(List<TaskHistory> rows) {
+        Map<Long, List<TaskHistory>> chains = new LinkedHashMap<>();
+        for (TaskHistory row : rows) {
+            if (row.getTaskRefId() != null && row.getVersionNo() != null && row.getVersionNo() > 0) {
+                chains.computeIfAbsent(row.getTaskRefId(), id -> new ArrayList<>()).add(row);
+            }
+        }
+
+        Map<TaskHistory, JsonNode[]> states = new IdentityHashMap<>();
+        chains.forEach((taskId, chain) -> {
+            chain.sort(Comparator.comparing(TaskHistory::getVersionNo));
+            Chain walker = new Chain(taskId, null);
+            for (TaskHistory row : chain) {
+                states.put(row, walker.next(row.getVersionNo(), row.isCheckpoint(), row.getTaskSnapshot(), row.getDiffJson()));
+            }
+        });
+
+        List<TaskHistoryDTO> result = new ArrayList<>(rows.size());
+        for (TaskHistory row : rows) {
+            TaskHistoryDTO dto = new TaskHistoryDTO(row);
+            JsonNode[] state = states.get(row);
+            if (state != null) {
+                String[] json = toLegacyJson(row.getActionType(), state, row.getTaskSnapshot());
+                dto.setOldTaskJson(json[0]);
+                dto.setNewTaskJson(json[1]);
+                dto.setTaskSnapshot(json[2]);
+            }
+            result.add(dto);
+        }
+        return result;
+    }
+
+    /**
+     * Проход по версиям одной задачи по возрастанию для потокового чтения; хранит только последнее состояние.
+     * К БД не обращается: выборка, внутри которой идет проход, сама держит соединение.
+     * На разрыве цепочки состояние перед версией берется из known (версия -> состояние, см. {@link #gapStates});
+     * если его там нет, старый JSON неизвестен, а новый есть только у контрольных точек
+     */
+    public Chain detachedChain(Long taskId, Map<Integer, JsonNode> known) {
+        return new Chain(taskId, known);
+    }
+
+    /**
+     * Состояния задач доски перед разрывами цепочки: версии, записанные, пока задача была на другой доске,
+     * в выборку по board_id не попадают. Восстанавливаются заранее, до открытия потоковой выборки истории,
+     * не больше limit разрывов
+     */
+    public Map<Long, Map<Integer, JsonNode>> gapStates(Long boardId, int limit) {
+        List<Object[]> gaps = jdbcTemplate.query("""
+                        SELECT task_ref_id, version_no FROM (
+                            SELECT task_ref_id, version_no,
+                                   LAG(version_no) OVER (PARTITION BY task_ref_id ORDER BY version_no) AS prev_version
+                            FROM task_history
+                            WHERE board_id = ? AND task_ref_id IS NOT NULL AND version_no > 0
+                        ) versions
+                        WHERE version_no > 1 AND (prev_version IS NULL OR prev_version <> version_no - 1)
+                        LIMIT ?
+                        """,
+                (rs, rowNum) -> new Object[]{rs.getLong(1), rs.getInt(2)}, boardId, limit);
+        if (gaps.size() >= limit) {
+            logger.warn("Доска {}: разрывов цепочек истории не меньше {}, остальные выгружаются без старого JSON",
+                    boardId, limit);
+        }
+        Map<Long, Map<Integer, JsonNode>> states = new HashMap<>();
+        for (Object[] gap : gaps) {
+            int versionNo = (Integer) gap[1] - 1;
+            JsonNode node = reconstructNode((Long) gap[0], versionNo);
+            if (node != null) {
+                states.computeIfAbsent((Long) gap[0], id -> new HashMap<>()).put(versionNo, node);
+            }
+        }
+        return states;
+    }
+
+    /**
+     * Старый и новый JSON и снимок записи в прежнем формате по состоянию до и после версии
+     */
+    public static String[] toLegacyJson(String actionType, JsonNode[] state, String rawSnapshot) {
+        String before = state[0] != null ? state[0].toString() : null;
+        String after = state[1] != null ? state[1].toString() : rawSnapshot;
+        return switch (actionType) {
+            case "CREATE" -> new String[]{null, after, after};
+            case "DELETE" -> new String[]{after, null, after};
+            default -> new String[]{before, after, after};
+        };
+    }
+
+    public final class Chain {
+        private final Long taskId;
+        // Известные состояния для прохода без БД, null - недостающие состояния восстанавливаются из БД
+        private final Map<Integer, JsonNode> known;
+        private JsonNode current;
+        private int currentVersion = -1;
+
+        private Chain(Long taskId, Map<Integer, JsonNode> known) {
+            this.taskId = taskId;
+            this.known = known;
+        }
+
+        /**
+         * Состояния задачи до и после версии version
+         */
+        public JsonNode[] next(int version, boolean checkpoint, String snapshot, String diff) {
+            JsonNode before = current != null && currentVersion == version - 1 ? current
+                    : version > 1 ? state(version - 1) : null;
+            JsonNode after;
+            if (checkpoint) {
+                after = parse(snapshot);
+            } else if (before != null) {
+                after = apply(before, parse(diff));
+            } else {
+                after = known != null ? null : reconstructNode(taskId, version);
+            }
+            current = after;
+            currentVersion = version;
+            return new JsonNode[]{before, after};
+        }
+
+        private JsonNode state(int versionNo) {
+            return known != null ? known.get(versionNo) : reconstructNode(taskId, versionNo);
+        }
+    }
+
+    /**
+     * Сжимает в цепочки старые строки истории (version_no IS NULL) пачками задач
+     */
+    @Scheduled(fixedDelayString = "${history.compaction.interval-ms:60000}",
+            initialDelayString = "${history.compaction.initial-delay-ms:30000}")
+    public void compactLegacy() {
+        List<Long> taskIds = jdbcTemplate.queryForList(
+                "SELECT DISTINCT task_ref_id FROM task_history WHERE version_no IS NULL AND task_ref_id IS NOT NULL LIMIT ?",
+                Long.class, compactionBatch);
+        if (taskIds.isEmpty()) {
+            return;
+        }
+        for (Long taskId : taskIds) {
+            try {
+                compactTask(taskId);
+            } catch (RuntimeException e) {
+                logger.warn("Не удалось сжать историю задачи {}: {}", taskId, e.getMessage());
+            }
+        }
+        synchronized (this) {
+            logger.info("Сжатие старой истории: задач {}, всего {} байт -> {} байт",
+                    taskIds.size(), legacyBytesBefore, legacyBytesAfter);
+        }
+    }
+
+    /**
+     * Последняя записанная версия задачи из БД. Вызывается без монитора кодека
+     */
+    private State loadState(Long taskId) {
+        // Новая версия должна продолжать цепочку, поэтому старые строки задачи сжимаются первыми
+        compactTask(taskId);
+        Integer max = maxVersion(taskId);
+        if (max == null || max == 0) {
+            return null;
+        }
+        return new State(max, reconstructNode(taskId, max));
+    }
+
+    /**
+     * Сжимает старые строки одной задачи. Работает с БД без монитора кодека; если ту же задачу
+     * параллельно сжимает другой поток, оба назначат строкам одинаковые версии
+     */
+    private void compactTask(Long taskId) {
+        List<String[]> rows = jdbcTemplate.query("""
+                        SELECT id, new_task_json, task_snapshot, old_task_json
+                        FROM task_history
+                        WHERE task_ref_id = ? AND version_no IS NULL
+                        ORDER BY timestamp, id
+                        """,
+                (rs, rowNum) -> new String[]{rs.getString(1), rs.getString(2), rs.getString(3), rs.getString(4)},
+                taskId);
+        if (rows.isEmpty()) {
+            return;
+        }
+        Integer max = maxVersion(taskId);
+        int version = max != null ? max : 0;
+        JsonNode previous = null;
+        long before = 0;
+        long after = 0;
+        List<Object[]> updates = new ArrayList<>(rows.size());
+        for (String[] row : rows) {
+            String state = row[1] != null ? row[1] : row[2] != null ? row[2] : row[3];
+            before += length(row[1]) + length(row[2]) + length(row[3]);
+            version++;
+            JsonNode node = parse(state);
+            boolean checkpoint = previous == null || !isObject(node) || version % checkpointInterval == 0;
+            String diff = checkpoint ? null : diff(previous, node).toString();
+            String snapshot = checkpoint ? state : null;
+            after += length(diff) + length(snapshot);
+            updates.add(new Object[]{version, checkpoint, diff, snapshot, Long.valueOf(row[0])});
+            previous = isObject(node) ? node : null;
+        }
+        transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate("""
+                UPDATE task_history
+                SET version_no = ?, checkpoint = ?, diff_json = ?, task_snapshot = ?,
+                    old_task_json = NULL, new_task_json = NULL
+                WHERE id = ?
+                """, updates));
+        State compacted = new State(version, previous);
+        synchronized (this) {
+            // Пока шло сжатие, encode мог записать более новую версию
+            lastStates.merge(taskId, compacted, (current, added) -> current.versionNo >= added.versionNo ? current : added);
+            legacyBytesBefore += before;
+            legacyBytesAfter += after;
+        }
+        logger.debug("Сжата история задачи {}: строк {}, {} байт -> {} байт", taskId, rows.size(), before, after);
+    }
+
+    private Integer maxVersion(Long taskId) {
+        return jdbcTemplate.queryForObject("SELECT MAX(version_no) FROM task_history WHERE task_ref_id = ?",
+                Integer.class, taskId);
+    }
+
+    private JsonNode reconstructNode(Long taskId, int versionNo) {
+        List<Object[]> checkpoints = jdbcTemplate.query("""
+                        SELECT version_no, task_snapshot FROM task_history
+                        WHERE task_ref_id = ? AND checkpoint = TRUE AND version_no BETWEEN 1 AND ?
+                        ORDER BY version_no DESC LIMIT 1
+                        """,
+                (rs, rowNum) -> new Object[]{rs.getInt(1), rs.getString(2)}, taskId, versionNo);
+        if (checkpoints.isEmpty()) {
+            return null;
+        }
+        int from = (Integer) checkpoints.get(0)[0];
+        JsonNode node = parse((String) checkpoints.get(0)[1]);
+        if (from == versionNo || node == null) {
+            return node;
+        }
+        List<String> diffs = jdbcTemplate.query("""
+                        SELECT diff_json FROM task_history
+                        WHERE task_ref_id = ? AND version_no > ? AND version_no <= ?
+                        ORDER BY version_no
+                        """,
+                (rs, rowNum) -> rs.getString(1), taskId, from, versionNo);
+        for (String diff : diffs) {
+            node = apply(node, parse(diff));
+        }
+        return node;
+    }
+
+    /**
+     * Патч, переводящий from в to: измененные поля, вложенные объекты — рекурсивно, массивы целиком
+     */
+    static ObjectNode diff(JsonNode from, JsonNode to) {
+        ObjectNode patch = MAPPER.createObjectNode();
+        Iterator<Map.Entry<String, JsonNode>> fields = to.fields();
+        while (fields.hasNext()) {
+            Map.Entry<String, JsonNode> field = fields.next();
+            JsonNode old = from.get(field.getKey());
+            JsonNode value = field.getValue();
+            if (old != null && old.equals(value)) {
+                continue;
+            }
+            patch.set(field.getKey(), isObject(old) && isObject(value) ? diff(old, value) : value);
+        }
+        Iterator<String> names = from.fieldNames();
+        while (names.hasNext()) {
+            String name = names.next();
+            if (!to.has(name)) {
+                patch.putNull(name);
+            }
+        }
+        return patch;
+    }
+
+    static JsonNode apply(JsonNode base, JsonNode patch) {
+        if (!isObject(base) || !isObject(patch)) {
+            return patch;
+        }
+        ObjectNode result = base.deepCopy();
+        Iterator<Map.Entry<String, JsonNode>> fields = patch.fields();
+        while (fields.hasNext()) {
+            Map.Entry<String, JsonNode> field = fields.next();
+            JsonNode current = result.get(field.getKey());
+            JsonNode value = field.getValue();
+            result.set(field.getKey(), isObject(current) && isObject(value) ? apply(current, value) : value);
+        }
+        return result;
+    }
+
+    private static boolean isObject(JsonNode node) {
+        return node != null && node.isObject();
+    }
+
+    private static JsonNode parse(String json) {
+        if (json == null) {
+            return null;
+        }
+        try {
+            return MAPPER.readTree(json);
+        } catch (JsonProcessingException e) {
+            logger.warn("Некорректный JSON в истории задачи: {}", e.getOriginalMessage());
+            return null;
+        }
+    }
+
+    private static long length(String value) {
+        return value != null ? value.length() : 0;
+    }
+
+    private static final class State {
+        private final int versionNo;
+        private final JsonNode node;
+
+        private State(int versionNo, JsonNode node) {
+            this.versionNo = versionNo;
+            this.node = node;
+        }
+    }
+}
@@ -0,0 +1,298 @@
+package course.project.API.services;
+
+import course.project.API.dto.board.TaskHistoryDTO;
+import course.project.API.dto.project.HistoryRetentionPolicyDTO;
+import course.project.API.models.TaskHistory;
+import course.project.API.models.User;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Хранение истории задач по политике проекта ({@link HistoryRetentionPolicyDTO}).
+ * Строки старше archive-after-days переносятся в архив {@link TaskHistoryArchive} с уже восстановленными
+ * JSON; последняя версия каждой задачи всегда остается в таблице, а первая оставшаяся версия
+ * превращается в контрольную точку, чтобы цепочка в таблице восстанавливалась без архива.
+ * Подряд идущие изменения задачи за один день старше collapse-after-days схлопываются в последнее
+ * из них, которое становится контрольной точкой с полным состоянием.
+ */
+@Service
+public class TaskHistoryRetentionService {
+
+    private static final Logger logger = LoggerFactory.getLogger(TaskHistoryRetentionService.class);
+
+    private static final String ARCHIVE_SQL = """
+            SELECT h.id, h.action_type, h.timestamp, h.user_id, u.name, u.avatarurl, h.task_id, h.task_ref_id,
+                   h.version_no, h.checkpoint, h.diff_json, h.task_snapshot
+            FROM task_history h
+            LEFT JOIN users u ON u.id = h.user_id
+            WHERE h.board_id = ? AND h.timestamp < ? AND h.version_no IS NOT NULL
+              AND (h.task_ref_id IS NULL OR h.version_no < (
+                    SELECT MAX(m.version_no) FROM task_history m WHERE m.task_ref_id = h.task_ref_id))
+            ORDER BY h.task_ref_id, h.version_no
+            LIMIT ?
+            """;
+
+    private static final String COLLAPSE_SQL = """
+            SELECT id, task_ref_id, version_no, timestamp
+            FROM task_history
+            WHERE board_id = ? AND timestamp < ? AND action_type = 'UPDATE' AND checkpoint = FALSE
+              AND version_no > 0 AND (task_ref_id > ? OR (task_ref_id = ? AND version_no > ?))
+            ORDER BY task_ref_id, version_no
+            LIMIT ?
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TaskHistoryCodec taskHistoryCodec;
+    private final TaskHistoryArchive taskHistoryArchive;
+    private final TransactionTemplate transactionTemplate;
+    private final int defaultCollapseAfterDays;
+    private final int defaultArchiveAfterDays;
+    private final int batchRows;
+
+    public TaskHistoryRetentionService(JdbcTemplate jdbcTemplate, TaskHistoryCodec taskHistoryCodec,
+                                       TaskHistoryArchive taskHistoryArchive,
+                                       PlatformTransactionManager transactionManager,
+                                       @Value("${history.retention.collapse-after-days:30}") int defaultCollapseAfterDays,
+                                       @Value("${history.retention.archive-after-days:180}") int defaultArchiveAfterDays,
+                                       @Value("${history.retention.batch-rows:5000}") int batchRows) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.taskHistoryCodec = taskHistoryCodec;
+        this.taskHistoryArchive = taskHistoryArchive;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.defaultCollapseAfterDays = defaultCollapseAfterDays;
+        this.defaultArchiveAfterDays = defaultArchiveAfterDays;
+        this.batchRows = batchRows;
+    }
+
+    public HistoryRetentionPolicyDTO getPolicy(Long projectId) {
+        List<HistoryRetentionPolicyDTO> policies = jdbcTemplate.query(
+                "SELECT collapse_after_days, archive_after_days FROM project_history_policies WHERE project_id = ?",
+                (rs, rowNum) -> new HistoryRetentionPolicyDTO(projectId, rs.getObject(1, Integer.class),
+                        rs.getObject(2, Integer.class)),
+                projectId);
+        return policies.isEmpty() ? new HistoryRetentionPolicyDTO(projectId, null, null) : policies.get(0);
+    }
+
+    public HistoryRetentionPolicyDTO updatePolicy(Long projectId, HistoryRetentionPolicyDTO policy) {
+        if (isNegative(policy.getCollapseAfterDays()) || isNegative(policy.getArchiveAfterDays())) {
+            throw new IllegalArgumentException("Retention periods must not be negative");
+        }
+        jdbcTemplate.update("""
+                        INSERT INTO project_history_policies (project_id, collapse_after_days, archive_after_days)
+                        VALUES (?, ?, ?)
+                        ON DUPLICATE KEY UPDATE collapse_after_days = VALUES(collapse_after_days),
+                                                archive_after_days = VALUES(archive_after_days)
+                        """,
+                projectId, policy.getCollapseAfterDays(), policy.getArchiveAfterDays());
+        return new HistoryRetentionPolicyDTO(projectId, policy.getCollapseAfterDays(), policy.getArchiveAfterDays());
+    }
+
+    @Scheduled(fixedDelayString = "${history.retention.interval-ms:3600000}",
+            initialDelayString = "${history.retention.initial-delay-ms:300000}")
+    public void applyRetention() {
+        List<Object[]> boards = jdbcTemplate.query("""
+                        SELECT b.id, p.collapse_after_days, p.archive_after_days
+                        FROM boards b
+                        LEFT JOIN project_history_policies p ON p.project_id = b.project_id
+                        """,
+                (rs, rowNum) -> new Object[]{rs.getLong(1), rs.getObject(2, Integer.class), rs.getObject(3, Integer.class)});
+        LocalDateTime now = LocalDateTime.now();
+        int archived = 0;
+        int collapsed = 0;
+        for (Object[] board : boards) {
+            Long boardId = (Long) board[0];
+            int collapseAfterDays = board[1] != null ? (Integer) board[1] : defaultCollapseAfterDays;
+            int archiveAfterDays = board[2] != null ? (Integer) board[2] : defaultArchiveAfterDays;
+            try {
+                if (archiveAfterDays > 0) {
+                    archived += archiveBoard(boardId, now.minusDays(archiveAfterDays));
+                }
+                if (collapseAfterDays > 0) {
+                    collapsed += collapseBoard(boardId, now.minusDays(collapseAfterDays));
+                }
+            } catch (RuntimeException e) {
+                logger.warn("Не удалось применить политику хранения истории к доске {}: {}", boardId, e.getMessage());
+            }
+        }
+        if (archived > 0 || collapsed > 0) {
+            logger.info("Хранение истории задач: перенесено в архив {} строк, схлопнуто {} строк", archived, collapsed);
+        }
+    }
+
+    /**
+     * Переносит в архив строки доски старше cutoff пачками по batchRows. Возвращает число перенесенных строк
+     */
+    int archiveBoard(Long boardId, LocalDateTime cutoff) {
+        int archived = 0;
+        while (true) {
+            List<TaskHistory> rows = jdbcTemplate.query(ARCHIVE_SQL, (rs, rowNum) -> toHistory(rs, boardId),
+                    boardId, Timestamp.valueOf(cutoff), batchRows);
+            if (rows.isEmpty()) {
+                break;
+            }
+            List<TaskHistoryDTO> dtos = taskHistoryCodec.toDTOs(rows);
+            List<TaskHistoryArchive.ArchivedRow> archivedRows = new ArrayList<>(rows.size());
+            Map<Long, Integer> lastArchivedVersions = new LinkedHashMap<>();
+            List<Object[]> deletes = new ArrayList<>(rows.size());
+            for (int i = 0; i < rows.size(); i++) {
+                TaskHistory row = rows.get(i);
+                archivedRows.add(new TaskHistoryArchive.ArchivedRow(dtos.get(i), row.getTaskRefId()));
+                if (row.getTaskRefId() != null) {
+                    lastArchivedVersions.merge(row.getTaskRefId(), row.getVersionNo(), Math::max);
+                }
+                deletes.add(new Object[]{row.getId()});
+            }
+
+            // Состояние первой оставшейся версии восстанавливается, пока предыдущие версии еще в таблице
+            List<Object[]> checkpoints = new ArrayList<>();
+            lastArchivedVersions.forEach((taskId, version) -> {
+                List<Object[]> next = jdbcTemplate.query("""
+                                SELECT id, version_no, checkpoint FROM task_history
+                                WHERE task_ref_id = ? AND version_no > ?
+                                ORDER BY version_no LIMIT 1
+                                """,
+                        (rs, rowNum) -> new Object[]{rs.getLong(1), rs.getInt(2), rs.getBoolean(3)},
+                        taskId, version);
+                if (!next.isEmpty() && !(Boolean) next.get(0)[2]) {
+                    String state = taskHistoryCodec.reconstruct(taskId, (Integer) next.get(0)[1]);
+                    if (state != null) {
+                        checkpoints.add(new Object[]{state, next.get(0)[0]});
+                    }
+                }
+            });
+
+            TaskHistoryArchive.Block block = taskHistoryArchive.append(boardId, archivedRows);
+            transactionTemplate.executeWithoutResult(status -> {
+                taskHistoryArchive.index(boardId, block);
+                if (!checkpoints.isEmpty()) {
+                    jdbcTemplate.batchUpdate(
+                            "UPDATE task_history SET checkpoint = TRUE, task_snapshot = ?, diff_json = NULL WHERE id = ?",
+                            checkpoints);
+                }
+                jdbcTemplate.batchUpdate("DELETE FROM task_history WHERE id = ?", deletes);
+            });
+            archived += rows.size();
+            logger.debug("Доска {}: в архив {} строк истории, блок {} байт в {}",
+                    boardId, rows.size(), block.length, block.segment);
+            if (rows.size() < batchRows) {
+                break;
+            }
+        }
+        return archived;
+    }
+
+    /**
+     * Схлопывает подряд идущие изменения задачи за один день старше cutoff в последнее из них.
+     * Возвращает число удаленных строк
+     */
+    int collapseBoard(Long boardId, LocalDateTime cutoff) {
+        int collapsed = 0;
+        long afterTaskId = 0;
+        int afterVersion = 0;
+        while (true) {
+            List<Object[]> rows = jdbcTemplate.query(COLLAPSE_SQL,
+                    (rs, rowNum) -> new Object[]{rs.getLong(1), rs.getLong(2), rs.getInt(3),
+                            rs.getTimestamp(4).toLocalDateTime().toLocalDate()},
+                    boardId, Timestamp.valueOf(cutoff), afterTaskId, afterTaskId, afterVersion, batchRows);
+            if (rows.isEmpty()) {
+                break;
+            }
+            List<Object[]> checkpoints = new ArrayList<>();
+            List<Object[]> deletes = new ArrayList<>();
+            List<Object[]> run = new ArrayList<>();
+            for (Object[] row : rows) {
+                if (!run.isEmpty() && !continuesRun(run.get(run.size() - 1), row)) {
+                    collapseRun(run, checkpoints, deletes);
+                    run = new ArrayList<>();
+                }
+                run.add(row);
+            }
+            collapseRun(run, checkpoints, deletes);
+
+            if (!deletes.isEmpty()) {
+                transactionTemplate.executeWithoutResult(status -> {
+                    jdbcTemplate.batchUpdate(
+                            "UPDATE task_history SET checkpoint = TRUE, task_snapshot = ?, diff_json = NULL WHERE id = ?",
+                            checkpoints);
+                    jdbcTemplate.batchUpdate("DELETE FROM task_history WHERE id = ?", deletes);
+                });
+                collapsed += deletes.size();
+            }
+            Object[] last = rows.get(rows.size() - 1);
+            afterTaskId = (Long) last[1];
+            afterVersion = (Integer) last[2];
+            if (rows.size() < batchRows) {
+                break;
+            }
+        }
+        return collapsed;
+    }
+
+    private static boolean continuesRun(Object[] previous, Object[] row) {
+        return previous[1].equals(row[1])
+                && (Integer) previous[2] + 1 == (Integer) row[2]
+                && ((LocalDate) previous[3]).isEqual((LocalDate) row[3]);
+    }
+
+    /**
+     * Последняя версия серии становится контрольной точкой с полным состоянием, остальные удаляются.
+     * Следующие версии задачи — патчи относительно последней, поэтому цепочка не рвется
+     */
+    private void collapseRun(List<Object[]> run, List<Object[]> checkpoints, List<Object[]> deletes) {
+        if (run.size() < 2) {
+            return;
+        }
+        Object[] last = run.get(run.size() - 1);
+        String state = taskHistoryCodec.reconstruct((Long) last[1], (Integer) last[2]);
+        if (state == null) {
+            return;
+        }
+        checkpoints.add(new Object[]{state, last[0]});
+        for (int i = 0; i < run.size() - 1; i++) {
+            deletes.add(new Object[]{run.get(i)[0]});
+        }
+    }
+
+    private static TaskHistory toHistory(ResultSet rs, Long boardId) throws SQLException {
+        TaskHistory history = new TaskHistory();
+        history.setId(rs.getLong("id"));
+        history.setActionType(rs.getString("action_type"));
+        history.setTimestamp(rs.getTimestamp("timestamp").toLocalDateTime());
+        Long userId = rs.getObject("user_id", Long.class);
+        if (userId != null) {
+            User user = new User();
+            user.setId(userId);
+            user.setName(rs.getString("name"));
+            user.setAvatarURL(rs.getString("avatarurl"));
+            history.setUser(user);
+        }
+        history.setTaskId(rs.getObject("task_id", Long.class));
+        history.setTaskRefId(rs.getObject("task_ref_id", Long.class));
+        history.setBoardId(boardId);
+        history.setVersionNo(rs.getObject("version_no", Integer.class));
+        history.setCheckpoint(rs.getBoolean("checkpoint"));
+        history.setDiffJson(rs.getString("diff_json"));
+        history.setTaskSnapshot(rs.getString("task_snapshot"));
+        return history;
+    }
+
+    private static boolean isNegative(Integer days) {
+        return days != null && days < 0;
+    }
+}
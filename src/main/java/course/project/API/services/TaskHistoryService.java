@@ -2,6 +2,11 @@ package course.project.API.services;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import course.project.API.dto.board.TaskHistoryDTO;
+import course.project.API.dto.board.TaskHistoryPageDTO;
+import course.project.API.dto.user.UserResponse;
+import course.project.API.events.TaskDeletedEvent;
+import course.project.API.events.TaskUpdatedEvent;
 import course.project.API.models.Task;
 import course.project.API.models.TaskHistory;
 import course.project.API.models.User;
@@ -9,28 +14,54 @@ import course.project.API.repositories.TaskHistoryRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
 
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
 
+/**
+ * История задач. Записи сериализуются в потоке вызова, пока сущность согласована,
+ * а в БД попадают пачками через {@link TaskHistoryWriter}, поэтому читаются с задержкой до flush-interval-ms.
+ * Хранится цепочка версий (см. {@link TaskHistoryCodec}), наружу отдаются полные JSON в прежнем формате.
+ * Старые записи переносятся в архив {@link TaskHistoryArchive}; чтение объединяет таблицу и архив
+ */
 @Service
 public class TaskHistoryService {
     
     private static final Logger logger = LoggerFactory.getLogger(TaskHistoryService.class);
     
+    private static final Comparator<TaskHistoryDTO> NEWEST_FIRST = Comparator
+            .comparing(TaskHistoryDTO::getTimestamp)
+            .thenComparing(TaskHistoryDTO::getId)
+            .reversed();
+    
+    // Ключ первой страницы: позже любой записи (максимум DATETIME в MySQL)
+    private static final LocalDateTime FIRST_PAGE_TIMESTAMP = LocalDateTime.of(9999, 12, 31, 23, 59, 59);
+    
     private final TaskHistoryRepository taskHistoryRepository;
+    private final TaskHistoryWriter taskHistoryWriter;
+    private final TaskHistoryCodec taskHistoryCodec;
+    private final TaskHistoryArchive taskHistoryArchive;
     private final ObjectMapper objectMapper;
     
     @Autowired
-    public TaskHistoryService(TaskHistoryRepository taskHistoryRepository) {
+    public TaskHistoryService(TaskHistoryRepository taskHistoryRepository, TaskHistoryWriter taskHistoryWriter,
+                              TaskHistoryCodec taskHistoryCodec, TaskHistoryArchive taskHistoryArchive) {
         this.taskHistoryRepository = taskHistoryRepository;
+        this.taskHistoryWriter = taskHistoryWriter;
+        this.taskHistoryCodec = taskHistoryCodec;
+        this.taskHistoryArchive = taskHistoryArchive;
         this.objectMapper = new ObjectMapper();
         this.objectMapper.registerModule(new JavaTimeModule());
     }
     
-    @Transactional(propagation = Propagation.REQUIRES_NEW)
     public void recordTaskCreation(User user, Task task) {
         try {
             String taskJson = objectMapper.writeValueAsString(task);
@@ -42,21 +73,22 @@ public class TaskHistoryService {
                 task.getId(),
                 boardId,
                 null,
-                taskJson,
+                null,
                 taskJson
             );
             
-            taskHistoryRepository.save(history);
-            logger.info("Recorded task creation: TaskID={}, UserID={}", task.getId(), user.getId());
+            taskHistoryWriter.enqueue(history);
+            logger.debug("Queued task creation: TaskID={}, UserID={}", task.getId(), user.getId());
         } catch (Exception e) {
             logger.error("Failed to record task creation: {}", e.getMessage(), e);
         }
     }
     
-    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    /**
+     * Старое состояние задачи берется из предыдущей версии цепочки, oldTask не сериализуется
+     */
     public void recordTaskUpdate(User user, Task oldTask, Task newTask) {
         try {
-            String oldTaskJson = objectMapper.writeValueAsString(oldTask);
             String newTaskJson = objectMapper.writeValueAsString(newTask);
             Long boardId = newTask.getColumn().getBoard().getId();
             
@@ -65,19 +97,31 @@ public class TaskHistoryService {
                 user,
                 newTask.getId(),
                 boardId,
-                oldTaskJson,
-                newTaskJson,
-                newTaskJson // Use new task JSON for snapshot
+                null,
+                null,
+                newTaskJson
             );
             
-            taskHistoryRepository.save(history);
-            logger.info("Recorded task update: TaskID={}, UserID={}", newTask.getId(), user.getId());
+            taskHistoryWriter.enqueue(history);
+            logger.debug("Queued task update: TaskID={}, UserID={}", newTask.getId(), user.getId());
         } catch (Exception e) {
             logger.error("Failed to record task update: {}", e.getMessage(), e);
         }
     }
     
-    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    /**
+     * Запись обновления после коммита PATCH или пакетной операции, чтобы откат не оставлял лишних записей в истории
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onTaskUpdated(TaskUpdatedEvent event) {
+        recordTaskUpdate(event.getInitiator(), event.getOldTask(), event.getTask());
+    }
+    
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onTaskDeleted(TaskDeletedEvent event) {
+        recordTaskDeletion(event.getInitiator(), event.getTask());
+    }
+    
     public void recordTaskDeletion(User user, Task task) {
         try {
             String taskJson = objectMapper.writeValueAsString(task);
@@ -88,25 +132,116 @@ public class TaskHistoryService {
                 user,
                 task.getId(),
                 boardId,
-                taskJson,
-                null, // No new task for deletion
-                taskJson // Use deleted task JSON for snapshot
+                null,
+                null,
+                taskJson
             );
             
-            taskHistoryRepository.save(history);
-            logger.info("Recorded task deletion: TaskID={}, UserID={}", task.getId(), user.getId());
+            taskHistoryWriter.enqueue(history);
+            logger.debug("Queued task deletion: TaskID={}, UserID={}", task.getId(), user.getId());
         } catch (Exception e) {
             logger.error("Failed to record task deletion: {}", e.getMessage(), e);
         }
     }
     
     @Transactional(readOnly = true)
-    public List<TaskHistory> getTaskHistoryForTask(Long taskId) {
-        return taskHistoryRepository.findByTaskIdOrderByTimestampDesc(taskId);
+    public List<TaskHistoryDTO> getTaskHistoryForTask(Long taskId) {
+        return withArchive(taskHistoryCodec.toDTOs(taskHistoryRepository.findByTaskIdOrderByTimestampDesc(taskId)),
+                true, taskId);
     }
     
     @Transactional(readOnly = true)
-    public List<TaskHistory> getTaskHistoryForBoard(Long boardId) {
-        return taskHistoryRepository.findByBoardIdOrderByTimestampDesc(boardId);
+    public List<TaskHistoryDTO> getTaskHistoryForBoard(Long boardId) {
+        return withArchive(taskHistoryCodec.toDTOs(taskHistoryRepository.findByBoardIdOrderByTimestampDesc(boardId)),
+                false, boardId);
+    }
+    
+    /**
+     * Страница истории доски перед ключом (beforeTimestamp, beforeId), от новых записей к старым.
+     * В кратком режиме JSON не читается и не восстанавливается, страница берется из покрывающего индекса.
+     * Запрашивается limit + 1 строка, чтобы узнать, есть ли записи дальше, без отдельного COUNT
+     */
+    @Transactional(readOnly = true)
+    public TaskHistoryPageDTO getBoardHistoryPage(Long boardId, LocalDateTime beforeTimestamp, Long beforeId,
+                                                  int limit, boolean summary) {
+        LocalDateTime timestamp = beforeTimestamp != null ? beforeTimestamp : FIRST_PAGE_TIMESTAMP;
+        Long id = beforeId != null ? beforeId : Long.MAX_VALUE;
+        List<TaskHistoryDTO> hot = summary
+                ? summaryItems(taskHistoryRepository.findSummaryRowsByBoardIdBefore(boardId, timestamp, id, limit + 1))
+                : taskHistoryCodec.toDTOs(taskHistoryRepository.findPageByBoardIdBefore(boardId, timestamp, id,
+                        PageRequest.of(0, limit + 1)));
+        return mergePage(hot, false, boardId, timestamp, id, limit, summary);
+    }
+    
+    @Transactional(readOnly = true)
+    public TaskHistoryPageDTO getTaskHistoryPage(Long taskId, LocalDateTime beforeTimestamp, Long beforeId,
+                                                 int limit, boolean summary) {
+        LocalDateTime timestamp = beforeTimestamp != null ? beforeTimestamp : FIRST_PAGE_TIMESTAMP;
+        Long id = beforeId != null ? beforeId : Long.MAX_VALUE;
+        List<TaskHistoryDTO> hot = summary
+                ? summaryItems(taskHistoryRepository.findSummaryRowsByTaskIdBefore(taskId, timestamp, id, limit + 1))
+                : taskHistoryCodec.toDTOs(taskHistoryRepository.findPageByTaskIdBefore(taskId, timestamp, id,
+                        PageRequest.of(0, limit + 1)));
+        return mergePage(hot, true, taskId, timestamp, id, limit, summary);
+    }
+    
+    private List<TaskHistoryDTO> withArchive(List<TaskHistoryDTO> hot, boolean byTask, Long key) {
+        List<TaskHistoryDTO> items = new ArrayList<>(hot);
+        taskHistoryArchive.page(byTask, key, FIRST_PAGE_TIMESTAMP, Long.MAX_VALUE, Integer.MAX_VALUE, null)
+                .forEach(row -> items.add(row.dto));
+        if (items.size() > hot.size()) {
+            items.sort(NEWEST_FIRST);
+        }
+        return items;
+    }
+    
+    /**
+     * Объединяет страницу таблицы (до limit + 1 записи) с архивом. Если таблица дала полную страницу,
+     * архивные записи старше ее последней записи на страницу не попадут и не читаются
+     */
+    private TaskHistoryPageDTO mergePage(List<TaskHistoryDTO> hot, boolean byTask, Long key,
+                                         LocalDateTime beforeTimestamp, Long beforeId, int limit, boolean summary) {
+        LocalDateTime notBefore = hot.size() > limit ? hot.get(limit).getTimestamp() : null;
+        List<TaskHistoryDTO> items = new ArrayList<>(hot);
+        for (TaskHistoryArchive.ArchivedRow row : taskHistoryArchive.page(byTask, key, beforeTimestamp, beforeId,
+                limit + 1, notBefore)) {
+            if (summary) {
+                row.dto.setOldTaskJson(null);
+                row.dto.setNewTaskJson(null);
+                row.dto.setTaskSnapshot(null);
+            }
+            items.add(row.dto);
+        }
+        if (items.size() > hot.size()) {
+            items.sort(NEWEST_FIRST);
+        }
+        boolean hasMore = items.size() > limit;
+        if (hasMore) {
+            items = items.subList(0, limit);
+        }
+        return page(items, hasMore);
+    }
+    
+    private static List<TaskHistoryDTO> summaryItems(List<Object[]> rows) {
+        List<TaskHistoryDTO> items = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            TaskHistoryDTO dto = new TaskHistoryDTO();
+            dto.setId(((Number) row[0]).longValue());
+            dto.setActionType((String) row[1]);
+            dto.setTimestamp(row[2] instanceof Timestamp timestamp ? timestamp.toLocalDateTime() : (LocalDateTime) row[2]);
+            dto.setTaskId(row[3] != null ? ((Number) row[3]).longValue() : null);
+            dto.setBoardId(((Number) row[4]).longValue());
+            if (row[5] != null) {
+                dto.setUser(new UserResponse(((Number) row[5]).longValue(), (String) row[6], (String) row[7]));
+            }
+            items.add(dto);
+        }
+        return items;
+    }
+    
+    private static TaskHistoryPageDTO page(List<TaskHistoryDTO> items, boolean hasMore) {
+        TaskHistoryDTO last = items.isEmpty() ? null : items.get(items.size() - 1);
+        return new TaskHistoryPageDTO(items, last != null ? last.getTimestamp() : null,
+                last != null ? last.getId() : null, hasMore);
     }
 } 
\ No newline at end of file
@@ -0,0 +1,420 @@
+package course.project.API.services;
+
+import course.project.API.models.TaskHistory;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
+
+/**
+ * Отложенная запись истории задач.
+ * Записи кладутся в ограниченную очередь и возвращают управление сразу; фоновый поток забирает их
+ * пачками до batchSize или по истечении flushInterval с момента первой записи пачки и вставляет
+ * одним JDBC-батчем в одной транзакции. Поток запроса больше не берет второе соединение из пула.
+ * Перед вставкой записи кодируются в версии цепочки {@link TaskHistoryCodec}.
+ * Пачки собираются и пишутся под одной блокировкой, а записи кодируются только при записи и строго
+ * в порядке очереди, поэтому версии одной задачи идут в порядке вызовов enqueue.
+ * Пачка, которую не удалось вставить, повторяется раньше всех новых записей и кодируется заново
+ * от последней записанной версии; после maxAttempts попыток записи уходят в task_history_dead_letter.
+ * При остановке приложения очередь дописывается до конца.
+ * Поведение при переполнении очереди задает {@link OverflowPolicy}.
+ */
+@Service
+public class TaskHistoryWriter {
+
+    private static final Logger logger = LoggerFactory.getLogger(TaskHistoryWriter.class);
+
+    private static final String INSERT_SQL = """
+            INSERT INTO task_history (action_type, timestamp, user_id, task_id, board_id,
+                                      old_task_json, new_task_json, task_snapshot,
+                                      task_ref_id, version_no, checkpoint, diff_json)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
+            """;
+
+    private static final String DEAD_LETTER_SQL = """
+            INSERT INTO task_history_dead_letter (action_type, timestamp, user_id, task_id, task_ref_id, board_id,
+                                                  task_snapshot, attempts, error, failed_at)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
+            """;
+
+    public enum OverflowPolicy {
+        /**
+         * Записать в потоке вызова самую старую пачку очереди и встать в освободившееся место:
+         * история не теряется и не обгоняет более ранние записи той же задачи, запрос замедляется
+         */
+        CALLER_RUNS,
+        /** Ждать места в очереди не дольше block-timeout-ms, затем отбросить запись */
+        BLOCK,
+        /** Сразу отбросить запись */
+        DROP
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TaskHistoryCodec taskHistoryCodec;
+    private final TransactionTemplate transactionTemplate;
+    private final BlockingQueue<Pending> queue;
+    private final int batchSize;
+    private final long flushIntervalMillis;
+    private final long blockTimeoutMillis;
+    private final OverflowPolicy overflowPolicy;
+    private final int maxAttempts;
+
+    // Сбор и запись пачек, в том числе из потока вызова при CALLER_RUNS. Справедливая, чтобы поток вызова
+    // не ждал, пока фоновый поток выберет всю очередь
+    private final ReentrantLock writeLock = new ReentrantLock(true);
+    // Записи неудавшихся пачек по порядку, доступ под writeLock
+    private final List<Pending> retry = new ArrayList<>();
+
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong callerRuns = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong deadLettered = new AtomicLong();
+    private volatile long lastBatchLagMillis;
+    private long loggedWritten;
+
+    private volatile boolean running;
+    private Thread writerThread;
+
+    public TaskHistoryWriter(JdbcTemplate jdbcTemplate, TaskHistoryCodec taskHistoryCodec,
+                             PlatformTransactionManager transactionManager,
+                             @Value("${history.writer.queue-capacity:10000}") int queueCapacity,
+                             @Value("${history.writer.batch-size:200}") int batchSize,
+                             @Value("${history.writer.flush-interval-ms:200}") long flushIntervalMillis,
+                             @Value("${history.writer.block-timeout-ms:50}") long blockTimeoutMillis,
+                             @Value("${history.writer.overflow-policy:CALLER_RUNS}") OverflowPolicy overflowPolicy,
+                             @Value("${history.writer.max-attempts:5}") int maxAttempts) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.taskHistoryCodec = taskHistoryCodec;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.batchSize = batchSize;
+        this.flushIntervalMillis = flushIntervalMillis;
+        this.blockTimeoutMillis = blockTimeoutMillis;
+        this.overflowPolicy = overflowPolicy;
+        this.maxAttempts = Math.max(1, maxAttempts);
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        writerThread = new Thread(this::run, "task-history-writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    /**
+     * Дописывает очередь и останавливает фоновый поток
+     */
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        if (writerThread != null) {
+            try {
+                writerThread.join(Math.max(flushIntervalMillis * 10, 5000));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        // Если поток не успел или не запускался, остаток пишется здесь
+        writeLock.lock();
+        try {
+            List<Pending> batch = new ArrayList<>(batchSize);
+            while (queue.drainTo(batch, batchSize) > 0 || !retry.isEmpty()) {
+                write(batch);
+                batch = new ArrayList<>(batchSize);
+            }
+        } finally {
+            writeLock.unlock();
+        }
+        logger.info("Запись истории остановлена: записано {}, отброшено {}, ошибок {}, в dead letter {}",
+                written.get(), dropped.get(), failed.get(), deadLettered.get());
+    }
+
+    public void enqueue(TaskHistory history) {
+        Pending pending = new Pending(history, System.currentTimeMillis());
+        if (queue.offer(pending)) {
+            return;
+        }
+        switch (overflowPolicy) {
+            case CALLER_RUNS -> callerRuns(pending);
+            case BLOCK -> {
+                try {
+                    if (!queue.offer(pending, blockTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                        drop(history);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    drop(history);
+                }
+            }
+            case DROP -> drop(history);
+        }
+    }
+
+    /**
+     * Записывает самые старые пачки очереди, пока запись не встанет в очередь. Своя запись не пишется
+     * в обход очереди: иначе она получила бы версию раньше ждущих в очереди записей той же задачи
+     */
+    private void callerRuns(Pending pending) {
+        callerRuns.incrementAndGet();
+        writeLock.lock();
+        try {
+            while (!queue.offer(pending)) {
+                List<Pending> batch = new ArrayList<>(batchSize);
+                queue.drainTo(batch, batchSize);
+                write(batch);
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /** Записей в очереди */
+    public int getQueueDepth() {
+        return queue.size();
+    }
+
+    /** Возраст самой старой записи в очереди, мс */
+    public long getQueueLagMillis() {
+        Pending oldest = queue.peek();
+        return oldest != null ? System.currentTimeMillis() - oldest.enqueuedAt : 0;
+    }
+
+    /** Задержка между постановкой в очередь и записью самой старой записи последней пачки, мс */
+    public long getLastBatchLagMillis() {
+        return lastBatchLagMillis;
+    }
+
+    public long getWrittenCount() {
+        return written.get();
+    }
+
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    public long getCallerRunsCount() {
+        return callerRuns.get();
+    }
+
+    public long getFailedCount() {
+        return failed.get();
+    }
+
+    /** Записей, ожидающих повтора после неудачной пачки */
+    public int getRetryDepth() {
+        writeLock.lock();
+        try {
+            return retry.size();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    public long getDeadLetteredCount() {
+        return deadLettered.get();
+    }
+
+    @Scheduled(fixedDelayString = "${history.writer.stats-interval-ms:60000}")
+    public void logStats() {
+        long total = written.get();
+        if (total != loggedWritten || !queue.isEmpty()) {
+            logger.info("История задач: в очереди {}, задержка {} мс, последняя пачка {} мс, записано {}, " +
+                            "отброшено {}, записано синхронно {}, ошибок {}, в dead letter {}",
+                    getQueueDepth(), getQueueLagMillis(), lastBatchLagMillis, total,
+                    dropped.get(), callerRuns.get(), failed.get(), deadLettered.get());
+            loggedWritten = total;
+        }
+    }
+
+    private void run() {
+        List<Pending> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty() || getRetryDepth() > 0) {
+            // Блокировка держится от первой записи пачки до вставки: записи, уже вынутые из очереди,
+            // не может обогнать CALLER_RUNS. Очередь в этот момент не полна, поэтому вызовы не ждут
+            try {
+                writeLock.lockInterruptibly();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            try {
+                Pending first = queue.poll(flushIntervalMillis, TimeUnit.MILLISECONDS);
+                if (first != null) {
+                    batch.add(first);
+                    long deadline = System.currentTimeMillis() + flushIntervalMillis;
+                    while (batch.size() < batchSize) {
+                        // Сначала забираем все, что уже накопилось, ждем только если очередь пуста
+                        if (queue.drainTo(batch, batchSize - batch.size()) > 0) {
+                            continue;
+                        }
+                        long remaining = deadline - System.currentTimeMillis();
+                        Pending next = remaining > 0 && running ? queue.poll(remaining, TimeUnit.MILLISECONDS) : null;
+                        if (next == null) {
+                            break;
+                        }
+                        batch.add(next);
+                    }
+                }
+                // Без новых записей пачка состоит из одних повторов
+                if (!batch.isEmpty() || !retry.isEmpty()) {
+                    write(batch);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                write(batch);
+                return;
+            } catch (RuntimeException e) {
+                logger.error("Сбой потока записи истории: {}", e.getMessage(), e);
+            } finally {
+                batch.clear();
+                writeLock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Вставляет повторы и batch одной транзакцией. Вызывается под writeLock.
+     * Повторы идут первыми и кодируются заново: после неудачи состояние цепочки их задач сброшено,
+     * и версии продолжают то, что действительно записано в БД
+     */
+    private void write(List<Pending> batch) {
+        List<Pending> rows = batch;
+        if (!retry.isEmpty()) {
+            rows = new ArrayList<>(retry);
+            rows.addAll(batch);
+            retry.clear();
+        }
+        if (rows.isEmpty()) {
+            return;
+        }
+        List<Pending> pendingRows = rows;
+        try {
+            pendingRows.forEach(pending -> {
+                pending.history.setTaskSnapshot(pending.snapshot);
+                taskHistoryCodec.encode(pending.history);
+            });
+            transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(INSERT_SQL, pendingRows,
+                    pendingRows.size(), (ps, pending) -> {
+                        TaskHistory history = pending.history;
+                        ps.setString(1, history.getActionType());
+                        ps.setTimestamp(2, Timestamp.valueOf(history.getTimestamp()));
+                        if (history.getUser() != null) {
+                            ps.setLong(3, history.getUser().getId());
+                        } else {
+                            ps.setNull(3, Types.BIGINT);
+                        }
+                        if (history.getTaskId() != null) {
+                            ps.setLong(4, history.getTaskId());
+                        } else {
+                            ps.setNull(4, Types.BIGINT);
+                        }
+                        ps.setLong(5, history.getBoardId());
+                        ps.setString(6, history.getOldTaskJson());
+                        ps.setString(7, history.getNewTaskJson());
+                        ps.setString(8, history.getTaskSnapshot());
+                        if (history.getTaskRefId() != null) {
+                            ps.setLong(9, history.getTaskRefId());
+                        } else {
+                            ps.setNull(9, Types.BIGINT);
+                        }
+                        ps.setInt(10, history.getVersionNo());
+                        ps.setBoolean(11, history.isCheckpoint());
+                        ps.setString(12, history.getDiffJson());
+                    }));
+            written.addAndGet(pendingRows.size());
+            lastBatchLagMillis = System.currentTimeMillis() - pendingRows.get(0).enqueuedAt;
+            logger.debug("Записана пачка истории: {} записей, задержка {} мс", pendingRows.size(), lastBatchLagMillis);
+        } catch (RuntimeException e) {
+            failed.addAndGet(pendingRows.size());
+            taskHistoryCodec.invalidate(pendingRows.stream().map(pending -> pending.history.getTaskRefId())
+                    .filter(Objects::nonNull).collect(Collectors.toSet()));
+            List<Pending> exhausted = new ArrayList<>();
+            for (Pending pending : pendingRows) {
+                if (++pending.attempts >= maxAttempts) {
+                    exhausted.add(pending);
+                } else {
+                    retry.add(pending);
+                }
+            }
+            logger.error("Не удалось записать пачку истории из {} записей, к повтору {}: {}",
+                    pendingRows.size(), retry.size(), e.getMessage(), e);
+            deadLetter(exhausted, e);
+        }
+    }
+
+    /**
+     * Сохраняет записи, исчерпавшие попытки, с полным снимком задачи. Если не удалось и это, записи остаются только в логе
+     */
+    private void deadLetter(List<Pending> rows, RuntimeException cause) {
+        if (rows.isEmpty()) {
+            return;
+        }
+        String error = String.valueOf(cause.getMessage());
+        String truncated = error.length() > 1000 ? error.substring(0, 1000) : error;
+        Timestamp failedAt = new Timestamp(System.currentTimeMillis());
+        try {
+            transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(DEAD_LETTER_SQL, rows,
+                    rows.size(), (ps, pending) -> {
+                        TaskHistory history = pending.history;
+                        ps.setString(1, history.getActionType());
+                        ps.setTimestamp(2, Timestamp.valueOf(history.getTimestamp()));
+                        ps.setObject(3, history.getUser() != null ? history.getUser().getId() : null, Types.BIGINT);
+                        ps.setObject(4, history.getTaskId(), Types.BIGINT);
+                        ps.setObject(5, history.getTaskRefId(), Types.BIGINT);
+                        ps.setLong(6, history.getBoardId());
+                        ps.setString(7, pending.snapshot);
+                        ps.setInt(8, pending.attempts);
+                        ps.setString(9, truncated);
+                        ps.setTimestamp(10, failedAt);
+                    }));
+            deadLettered.addAndGet(rows.size());
+            logger.warn("Записи истории ({}) сохранены в task_history_dead_letter после {} попыток",
+                    rows.size(), maxAttempts);
+        } catch (RuntimeException e) {
+            rows.forEach(pending -> logger.error("Запись истории потеряна: {} задачи {} доски {} в {}, снимок {}",
+                    pending.history.getActionType(), pending.history.getTaskId(), pending.history.getBoardId(),
+                    pending.history.getTimestamp(), pending.snapshot));
+            logger.error("Не удалось сохранить записи истории в dead letter: {}", e.getMessage(), e);
+        }
+    }
+
+    private void drop(TaskHistory history) {
+        long total = dropped.incrementAndGet();
+        logger.warn("Очередь истории переполнена, запись {} задачи {} отброшена (всего отброшено {})",
+                history.getActionType(), history.getTaskId(), total);
+    }
+
+    private static final class Pending {
+        private final TaskHistory history;
+        // Полный снимок до кодирования: при повторе запись кодируется заново
+        private final String snapshot;
+        private final long enqueuedAt;
+        private int attempts;
+
+        private Pending(TaskHistory history, long enqueuedAt) {
+            this.history = history;
+            this.snapshot = history.getTaskSnapshot();
+            this.enqueuedAt = enqueuedAt;
+        }
+    }
+}
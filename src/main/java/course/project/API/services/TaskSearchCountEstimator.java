@@ -0,0 +1,97 @@
+package course.project.API.services;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Оценка числа найденных задач для постраничного поиска. Подсчет не выполняется в запросе:
+ * запрос получает последнее посчитанное значение (или null), а пересчет ставится в очередь фонового потока,
+ * если значения нет или оно старше ttl. Один и тот же ключ одновременно считается не более одного раза
+ */
+@Service
+public class TaskSearchCountEstimator {
+
+    private static final Logger logger = LoggerFactory.getLogger(TaskSearchCountEstimator.class);
+
+    private final long ttlMillis;
+    private final int maxEntries;
+    private final ThreadPoolExecutor executor;
+
+    private final Map<String, Estimate> estimates = new ConcurrentHashMap<>();
+    private final Set<String> pending = ConcurrentHashMap.newKeySet();
+
+    public TaskSearchCountEstimator(@Value("${search.count.ttl-seconds:60}") long ttlSeconds,
+                                    @Value("${search.count.max-entries:10000}") int maxEntries,
+                                    @Value("${search.count.queue-size:100}") int queueSize) {
+        this.ttlMillis = ttlSeconds * 1000;
+        this.maxEntries = maxEntries;
+        this.executor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueSize), runnable -> {
+                    Thread thread = new Thread(runnable, "task-search-count");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    /**
+     * Последняя оценка для ключа или null. При необходимости ставит пересчет в очередь
+     */
+    public Long estimate(String key, LongSupplier counter) {
+        Estimate current = estimates.get(key);
+        long now = System.currentTimeMillis();
+        if ((current == null || now - current.computedAt > ttlMillis) && pending.add(key)) {
+            try {
+                executor.execute(() -> compute(key, counter));
+            } catch (RejectedExecutionException e) {
+                // Очередь заполнена: оценка будет пересчитана при одном из следующих запросов
+                pending.remove(key);
+            }
+        }
+        return current != null ? current.value : null;
+    }
+
+    private void compute(String key, LongSupplier counter) {
+        try {
+            long value = counter.getAsLong();
+            long now = System.currentTimeMillis();
+            if (estimates.size() >= maxEntries) {
+                estimates.values().removeIf(estimate -> now - estimate.computedAt > ttlMillis);
+                if (estimates.size() >= maxEntries) {
+                    estimates.clear();
+                }
+            }
+            estimates.put(key, new Estimate(value, now));
+        } catch (RuntimeException e) {
+            logger.warn("Не удалось посчитать результаты поиска для {}: {}", key, e.getMessage());
+        } finally {
+            pending.remove(key);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private static final class Estimate {
+        final long value;
+        final long computedAt;
+
+        Estimate(long value, long computedAt) {
+            this.value = value;
+            this.computedAt = computedAt;
+        }
+    }
+}
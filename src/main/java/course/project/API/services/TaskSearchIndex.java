@@ -0,0 +1,590 @@
+package course.project.API.services;
+
+import course.project.API.events.BoardEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Полнотекстовый индекс задач в памяти: инвертированный список термов по названию, описанию,
+ * тексту чек-листа и названию тега. Строится из БД при старте приложения в фоне и поддерживается
+ * доменными событиями досок после коммита. Пока индекс строится, поиск идет через SQL.
+ * Ранжирование — BM25 с весами полей; в запросе обязательны все слова, последнее слово
+ * ищется и как префикс (поиск по мере ввода)
+ */
+@Service
+public class TaskSearchIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(TaskSearchIndex.class);
+
+    static final int TITLE = 0;
+    static final int DESCRIPTION = 1;
+    static final int CHECKLIST = 2;
+    static final int TAG = 3;
+
+    private static final double[] FIELD_WEIGHTS = {3.0, 1.0, 1.0, 2.0};
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    // Сколько термов индекса подставляется вместо префикса последнего слова
+    private static final int PREFIX_EXPANSIONS = 64;
+
+    private static final String DOCUMENT_SELECT = """
+            SELECT t.id, c.board_id, b.project_id, t.column_id, c.is_completion_column, t.tag_id, tag.name,
+                   t.end_date, t.title, t.description
+            FROM tasks t
+            JOIN dashboard_columns c ON c.id = t.column_id
+            JOIN boards b ON b.id = c.board_id
+            LEFT JOIN tags tag ON tag.id = t.tag_id
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int batchSize;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, Document> documents = new HashMap<>();
+    private final TreeMap<String, Set<Long>> postings = new TreeMap<>();
+    private final Map<Long, Set<Long>> boardDocuments = new HashMap<>();
+    private long totalLength;
+
+    private volatile boolean ready;
+    private volatile boolean rebuilding;
+    // Задачи, переиндексированные событиями во время перестроения: пакет перестроения мог прочитать их раньше
+    private final Set<Long> touchedDuringRebuild = ConcurrentHashMap.newKeySet();
+
+    public TaskSearchIndex(JdbcTemplate jdbcTemplate,
+                           @Value("${search.index.batch-size:1000}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.batchSize = batchSize;
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildOnStartup() {
+        Thread thread = new Thread(this::rebuild, "task-search-index");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Полностью перестраивает индекс пакетами по id задач. Поиск до завершения идет через SQL
+     */
+    public void rebuild() {
+        ready = false;
+        rebuilding = true;
+        touchedDuringRebuild.clear();
+        long started = System.currentTimeMillis();
+        try {
+            clear();
+            long lastId = 0;
+            int count = 0;
+            while (true) {
+                List<Document> batch = loadDocuments("t.id > ? ORDER BY t.id LIMIT ?", List.of(lastId, batchSize));
+                if (batch.isEmpty()) {
+                    break;
+                }
+                for (Document document : batch) {
+                    if (!touchedDuringRebuild.contains(document.taskId)) {
+                        put(document);
+                    }
+                }
+                lastId = batch.get(batch.size() - 1).taskId;
+                count += batch.size();
+            }
+            ready = true;
+            logger.info("Поисковый индекс задач построен: {} задач за {} мс", count, System.currentTimeMillis() - started);
+        } catch (RuntimeException e) {
+            logger.error("Не удалось построить поисковый индекс задач, поиск остается на SQL", e);
+        } finally {
+            rebuilding = false;
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onBoardEvent(BoardEvent event) {
+        try {
+            switch (event.getType()) {
+                case TASK_CHANGED, TASKS_CHANGED -> reindex(event.getEntityIds());
+                case TASK_DELETED -> removeAll(event.getEntityIds());
+                case COLUMN_TASKS_CHANGED, COLUMNS_CHANGED, BOARD_CHANGED -> syncBoard(event.getBoardId());
+                case BOARD_DELETED -> removeAll(boardTaskIds(event.getBoardId()));
+                default -> {
+                }
+            }
+        } catch (RuntimeException e) {
+            logger.warn("Не удалось обновить поисковый индекс по {}: {}", event, e.getMessage());
+        }
+    }
+
+    /**
+     * Идентификаторы подходящих задач по убыванию релевантности, при равной — по сроку и id
+     */
+    public List<Long> search(String text, Filter filter, boolean descending, int limit) {
+        List<Scored> scored = match(text, filter);
+        scored.sort(Comparator.comparingDouble((Scored s) -> -s.score)
+                .thenComparing((a, b) -> compareKeys(a.document, b.document, descending)));
+        return ids(scored, limit);
+    }
+
+    /**
+     * Страница подходящих задач в порядке ключа (endDate, id) после ключа (afterEndDate, afterId).
+     * Задачи без срока идут в конце при любом направлении; afterId == null — первая страница
+     */
+    public List<Long> searchPage(String text, Filter filter, boolean descending,
+                                 LocalDateTime afterEndDate, Long afterId, int limit) {
+        List<Scored> scored = match(text, filter);
+        if (afterId != null) {
+            scored.removeIf(s -> compareKeys(s.document.endDate, s.document.taskId, afterEndDate, afterId, descending) <= 0);
+        }
+        scored.sort((a, b) -> compareKeys(a.document, b.document, descending));
+        return ids(scored, limit);
+    }
+
+    public int count(String text, Filter filter) {
+        return match(text, filter).size();
+    }
+
+    static int compareKeys(LocalDateTime endDate, Long id, LocalDateTime otherEndDate, Long otherId, boolean descending) {
+        int result;
+        if (endDate == null || otherEndDate == null) {
+            result = endDate == null ? (otherEndDate == null ? 0 : 1) : -1;
+            if (result != 0) {
+                return result;
+            }
+        } else {
+            result = descending ? otherEndDate.compareTo(endDate) : endDate.compareTo(otherEndDate);
+            if (result != 0) {
+                return result;
+            }
+        }
+        return descending ? otherId.compareTo(id) : id.compareTo(otherId);
+    }
+
+    private static int compareKeys(Document a, Document b, boolean descending) {
+        return compareKeys(a.endDate, a.taskId, b.endDate, b.taskId, descending);
+    }
+
+    private static List<Long> ids(List<Scored> scored, int limit) {
+        List<Long> result = new ArrayList<>(Math.min(limit, scored.size()));
+        for (int i = 0; i < scored.size() && i < limit; i++) {
+            result.add(scored.get(i).document.taskId);
+        }
+        return result;
+    }
+
+    /**
+     * Задачи, в которых есть все слова запроса, с оценкой релевантности, в произвольном порядке
+     */
+    private List<Scored> match(String text, Filter filter) {
+        List<String> words = TaskTextAnalyzer.analyze(text);
+        if (words.isEmpty()) {
+            return new ArrayList<>();
+        }
+        boolean[] fields = new boolean[4];
+        if (!filter.isTitleSearch && !filter.isDescriptionSearch) {
+            Arrays.fill(fields, true);
+        } else {
+            fields[TITLE] = filter.isTitleSearch;
+            fields[DESCRIPTION] = filter.isDescriptionSearch;
+        }
+        List<String> distinct = new ArrayList<>(new LinkedHashSet<>(words));
+        String prefix = words.get(words.size() - 1);
+
+        lock.readLock().lock();
+        try {
+            // Для каждого слова запроса — термы индекса, которые ему соответствуют
+            List<List<String>> matches = new ArrayList<>(distinct.size());
+            for (String word : distinct) {
+                List<String> terms = word.equals(prefix) ? expand(word) : postings.containsKey(word) ? List.of(word) : List.of();
+                if (terms.isEmpty()) {
+                    return new ArrayList<>();
+                }
+                matches.add(terms);
+            }
+
+            Set<Long> candidates = null;
+            List<List<String>> bySize = new ArrayList<>(matches);
+            bySize.sort(Comparator.comparingInt(this::postingsSize));
+            for (List<String> terms : bySize) {
+                Set<Long> docs = new HashSet<>();
+                for (String term : terms) {
+                    for (Long id : postings.get(term)) {
+                        if (candidates == null || candidates.contains(id)) {
+                            docs.add(id);
+                        }
+                    }
+                }
+                candidates = docs;
+                if (candidates.isEmpty()) {
+                    return new ArrayList<>();
+                }
+            }
+
+            double averageLength = documents.isEmpty() ? 1 : Math.max(1.0, (double) totalLength / documents.size());
+            List<Scored> scored = new ArrayList<>();
+            for (Long id : candidates) {
+                Document document = documents.get(id);
+                if (!filter.matches(document)) {
+                    continue;
+                }
+                double score = 0;
+                boolean allWordsInFields = true;
+                for (List<String> terms : matches) {
+                    double wordScore = 0;
+                    for (String term : terms) {
+                        wordScore += score(document, term, fields, averageLength);
+                    }
+                    if (wordScore == 0) {
+                        allWordsInFields = false;
+                        break;
+                    }
+                    score += wordScore;
+                }
+                if (allWordsInFields) {
+                    scored.add(new Scored(document, score));
+                }
+            }
+            return scored;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private int postingsSize(List<String> terms) {
+        int size = 0;
+        for (String term : terms) {
+            size += postings.get(term).size();
+        }
+        return size;
+    }
+
+    private List<String> expand(String prefix) {
+        List<String> terms = new ArrayList<>();
+        if (postings.containsKey(prefix)) {
+            terms.add(prefix);
+        }
+        SortedMap<String, Set<Long>> tail = postings.subMap(prefix, false, prefix + Character.MAX_VALUE, false);
+        for (String term : tail.keySet()) {
+            if (terms.size() >= PREFIX_EXPANSIONS) {
+                break;
+            }
+            terms.add(term);
+        }
+        return terms;
+    }
+
+    private double score(Document document, String term, boolean[] fields, double averageLength) {
+        int[] frequencies = document.terms.get(term);
+        if (frequencies == null) {
+            return 0;
+        }
+        double weighted = 0;
+        for (int field = 0; field < fields.length; field++) {
+            if (fields[field]) {
+                weighted += FIELD_WEIGHTS[field] * frequencies[field];
+            }
+        }
+        if (weighted == 0) {
+            return 0;
+        }
+        int n = documents.size();
+        int df = postings.get(term).size();
+        double idf = Math.log(1 + (n - df + 0.5) / (df + 0.5));
+        double norm = K1 * (1 - B + B * document.length / averageLength);
+        return idf * weighted * (K1 + 1) / (weighted + norm);
+    }
+
+    /**
+     * Перечитывает задачи из БД; отсутствующие в БД удаляются из индекса
+     */
+    void reindex(Collection<Long> taskIds) {
+        if (taskIds.isEmpty()) {
+            return;
+        }
+        List<Long> ids = new ArrayList<>(new LinkedHashSet<>(taskIds));
+        String placeholders = String.join(", ", Collections.nCopies(ids.size(), "?"));
+        List<Document> loaded = loadDocuments("t.id IN (" + placeholders + ")", ids);
+        Set<Long> missing = new HashSet<>(ids);
+        for (Document document : loaded) {
+            missing.remove(document.taskId);
+            markTouched(document.taskId);
+            put(document);
+        }
+        removeAll(missing);
+    }
+
+    /**
+     * Сверяет задачи доски с индексом по колонке, признаку выполнения и тегу и переиндексирует расхождения.
+     * Текст задач меняется только событиями TASK_CHANGED / TASKS_CHANGED, поэтому здесь не перечитывается
+     */
+    void syncBoard(Long boardId) {
+        List<Object[]> rows = jdbcTemplate.query("""
+                        SELECT t.id, t.column_id, c.is_completion_column, t.tag_id, tag.name
+                        FROM tasks t
+                        JOIN dashboard_columns c ON c.id = t.column_id
+                        LEFT JOIN tags tag ON tag.id = t.tag_id
+                        WHERE c.board_id = ?
+                        """,
+                (rs, rowNum) -> new Object[]{rs.getLong(1), rs.getLong(2), rs.getBoolean(3),
+                        (Long) rs.getObject(4, Long.class), rs.getString(5)},
+                boardId);
+        Set<Long> stale = new HashSet<>();
+        lock.readLock().lock();
+        try {
+            Set<Long> gone = new HashSet<>(boardDocuments.getOrDefault(boardId, Set.of()));
+            for (Object[] row : rows) {
+                Long taskId = (Long) row[0];
+                gone.remove(taskId);
+                Document document = documents.get(taskId);
+                if (document == null || !boardId.equals(document.boardId)
+                        || !row[1].equals(document.columnId) || (boolean) row[2] != document.completed
+                        || !Objects.equals(row[3], document.tagId) || !Objects.equals(row[4], document.tagName)) {
+                    stale.add(taskId);
+                }
+            }
+            // Задача могла уйти на другую доску, поэтому не удаляется, а перечитывается
+            stale.addAll(gone);
+        } finally {
+            lock.readLock().unlock();
+        }
+        reindex(stale);
+    }
+
+    private Set<Long> boardTaskIds(Long boardId) {
+        lock.readLock().lock();
+        try {
+            return new HashSet<>(boardDocuments.getOrDefault(boardId, Set.of()));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    void put(Document document) {
+        lock.writeLock().lock();
+        try {
+            unindex(document.taskId);
+            documents.put(document.taskId, document);
+            boardDocuments.computeIfAbsent(document.boardId, id -> new HashSet<>()).add(document.taskId);
+            for (String term : document.terms.keySet()) {
+                postings.computeIfAbsent(term, t -> new HashSet<>()).add(document.taskId);
+            }
+            totalLength += document.length;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    void removeAll(Collection<Long> taskIds) {
+        if (taskIds.isEmpty()) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            for (Long taskId : taskIds) {
+                markTouched(taskId);
+                unindex(taskId);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    void markReady() {
+        ready = true;
+    }
+
+    private void markTouched(Long taskId) {
+        if (rebuilding) {
+            touchedDuringRebuild.add(taskId);
+        }
+    }
+
+    private void unindex(Long taskId) {
+        Document old = documents.remove(taskId);
+        if (old == null) {
+            return;
+        }
+        Set<Long> board = boardDocuments.get(old.boardId);
+        if (board != null) {
+            board.remove(taskId);
+            if (board.isEmpty()) {
+                boardDocuments.remove(old.boardId);
+            }
+        }
+        for (String term : old.terms.keySet()) {
+            Set<Long> docs = postings.get(term);
+            if (docs != null) {
+                docs.remove(taskId);
+                if (docs.isEmpty()) {
+                    postings.remove(term);
+                }
+            }
+        }
+        totalLength -= old.length;
+    }
+
+    private void clear() {
+        lock.writeLock().lock();
+        try {
+            documents.clear();
+            postings.clear();
+            boardDocuments.clear();
+            totalLength = 0;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private List<Document> loadDocuments(String condition, List<?> args) {
+        List<Object[]> rows = jdbcTemplate.query(DOCUMENT_SELECT + "WHERE " + condition,
+                (rs, rowNum) -> {
+                    Timestamp endDate = rs.getTimestamp(8);
+                    return new Object[]{rs.getLong(1), rs.getLong(2), rs.getLong(3), rs.getLong(4), rs.getBoolean(5),
+                            rs.getObject(6, Long.class), rs.getString(7),
+                            endDate != null ? endDate.toLocalDateTime() : null, rs.getString(9), rs.getString(10)};
+                },
+                args.toArray());
+        if (rows.isEmpty()) {
+            return List.of();
+        }
+
+        List<Long> ids = rows.stream().map(row -> (Long) row[0]).toList();
+        Map<Long, List<String>> checklists = new HashMap<>();
+        jdbcTemplate.query("SELECT task_id, text FROM checklist_items WHERE task_id IN ("
+                        + String.join(", ", Collections.nCopies(ids.size(), "?")) + ")",
+                rs -> {
+                    checklists.computeIfAbsent(rs.getLong(1), id -> new ArrayList<>()).add(rs.getString(2));
+                },
+                ids.toArray());
+
+        List<Document> result = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            Long taskId = (Long) row[0];
+            result.add(Document.of(taskId, (Long) row[1], (Long) row[2], (Long) row[3], (Boolean) row[4],
+                    (Long) row[5], (String) row[6], (LocalDateTime) row[7], (String) row[8], (String) row[9],
+                    checklists.getOrDefault(taskId, List.of())));
+        }
+        return result;
+    }
+
+    /**
+     * Проиндексированная задача: поля для фильтров и частоты термов по полям
+     */
+    static final class Document {
+        final Long taskId;
+        final Long boardId;
+        final Long projectId;
+        final Long columnId;
+        final boolean completed;
+        final Long tagId;
+        final String tagName;
+        final LocalDateTime endDate;
+        final Map<String, int[]> terms;
+        final int length;
+
+        private Document(Long taskId, Long boardId, Long projectId, Long columnId, boolean completed, Long tagId,
+                         String tagName, LocalDateTime endDate, Map<String, int[]> terms, int length) {
+            this.taskId = taskId;
+            this.boardId = boardId;
+            this.projectId = projectId;
+            this.columnId = columnId;
+            this.completed = completed;
+            this.tagId = tagId;
+            this.tagName = tagName;
+            this.endDate = endDate;
+            this.terms = terms;
+            this.length = length;
+        }
+
+        static Document of(Long taskId, Long boardId, Long projectId, Long columnId, boolean completed, Long tagId,
+                           String tagName, LocalDateTime endDate, String title, String description,
+                           List<String> checklist) {
+            Map<String, int[]> terms = new HashMap<>();
+            int length = addField(terms, TITLE, title) + addField(terms, DESCRIPTION, description)
+                    + addField(terms, TAG, tagName);
+            for (String item : checklist) {
+                length += addField(terms, CHECKLIST, item);
+            }
+            return new Document(taskId, boardId, projectId, columnId, completed, tagId, tagName, endDate, terms, length);
+        }
+
+        private static int addField(Map<String, int[]> terms, int field, String text) {
+            List<String> analyzed = TaskTextAnalyzer.analyze(text);
+            for (String term : analyzed) {
+                terms.computeIfAbsent(term, t -> new int[4])[field]++;
+            }
+            return analyzed.size();
+        }
+    }
+
+    /**
+     * Условия поиска кроме текста. Учитываются только задачи досок visibleBoardIds.
+     * Без флагов полей ищется во всех полях, с флагами — только в названии и/или описании
+     */
+    public static final class Filter {
+        final Set<Long> visibleBoardIds;
+        final Long projectId;
+        final Long boardId;
+        final Long tagId;
+        final Boolean isCompleted;
+        final boolean isTitleSearch;
+        final boolean isDescriptionSearch;
+
+        public Filter(Set<Long> visibleBoardIds, Long projectId, Long boardId, Long tagId, Boolean isCompleted,
+                      boolean isTitleSearch, boolean isDescriptionSearch) {
+            this.visibleBoardIds = visibleBoardIds;
+            this.projectId = projectId;
+            this.boardId = boardId;
+            this.tagId = tagId;
+            this.isCompleted = isCompleted;
+            this.isTitleSearch = isTitleSearch;
+            this.isDescriptionSearch = isDescriptionSearch;
+        }
+
+        boolean matches(Document document) {
+            return document != null
+                    && visibleBoardIds.contains(document.boardId)
+                    && (projectId == null || projectId.equals(document.projectId))
+                    && (boardId == null || boardId.equals(document.boardId))
+                    && (tagId == null || tagId.equals(document.tagId))
+                    && (isCompleted == null || isCompleted == document.completed);
+        }
+    }
+
+    private static final class Scored {
+        final Document document;
+        final double score;
+
+        Scored(Document document, double score) {
+            this.document = document;
+            this.score = score;
+        }
+    }
+}
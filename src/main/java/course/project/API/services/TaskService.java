@@ -3,12 +3,23 @@ package course.project.API.services;
 import course.project.API.dto.board.*;
 import course.project.API.dto.chat.CreateGroupChatDTO;
 import course.project.API.dto.user.UserResponse;
+import course.project.API.events.BoardEvent;
+import course.project.API.events.TaskDeletedEvent;
+import course.project.API.events.TaskUpdatedEvent;
 import course.project.API.models.*;
 import course.project.API.repositories.*;
 import jakarta.persistence.EntityManager;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.OptimisticLockException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.security.access.AccessDeniedException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.web.multipart.MultipartFile;
@@ -18,13 +29,18 @@ import java.sql.Timestamp;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 public class TaskService {
     
     private static final Logger logger = LoggerFactory.getLogger(TaskService.class);
 
+    // Сколько раз пересчитывается перемещение, проигравшее гонку параллельному перемещению в ту же колонку
+    static final int MAX_MERGE_ATTEMPTS = 3;
+
     private final TaskRepository taskRepository;
     private final DashBoardColumnRepository columnRepository;
     private final UserRepository userRepository;
@@ -36,6 +52,15 @@ public class TaskService {
     private final AttachmentService attachmentService;
     private final TaskHistoryService taskHistoryService;
     private final ChatService chatService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final RankService rankService;
+    private final ChecklistItemService checklistItemService;
+    private final TransactionTemplate transactionTemplate;
+    private final TaskSearchIndex taskSearchIndex;
+    private final BoardAccessIndex boardAccessIndex;
+    private final TaskSearchCountEstimator searchCountEstimator;
+    private final int searchPageSize;
+    private final int searchMaxResults;
 
     @Autowired
     public TaskService(TaskRepository taskRepository,
@@ -44,7 +69,15 @@ public class TaskService {
                        TagRepository tagRepository,
                        AttachmentRepository attachmentRepository,
                        EntityManager entityManager, DashBoardColumnRepository dashBoardColumnRepository, BoardRightService boardRightService,
-                       AttachmentService attachmentService1, TaskHistoryService taskHistoryService, ChatService chatService) {
+                       AttachmentService attachmentService1, TaskHistoryService taskHistoryService, ChatService chatService,
+                       ApplicationEventPublisher eventPublisher, RankService rankService,
+                       ChecklistItemService checklistItemService,
+                       PlatformTransactionManager transactionManager,
+                       TaskSearchIndex taskSearchIndex,
+                       BoardAccessIndex boardAccessIndex,
+                       TaskSearchCountEstimator searchCountEstimator,
+                       @Value("${search.page-size:50}") int searchPageSize,
+                       @Value("${search.max-results:200}") int searchMaxResults) {
         this.taskRepository = taskRepository;
         this.columnRepository = columnRepository;
         this.userRepository = userRepository;
@@ -56,6 +89,15 @@ public class TaskService {
         this.attachmentService = attachmentService1;
         this.taskHistoryService = taskHistoryService;
         this.chatService = chatService;
+        this.eventPublisher = eventPublisher;
+        this.rankService = rankService;
+        this.checklistItemService = checklistItemService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.taskSearchIndex = taskSearchIndex;
+        this.boardAccessIndex = boardAccessIndex;
+        this.searchCountEstimator = searchCountEstimator;
+        this.searchPageSize = searchPageSize;
+        this.searchMaxResults = searchMaxResults;
     }
 
     @Transactional(readOnly = true)
@@ -92,6 +134,7 @@ public class TaskService {
 
         Task newTask = new Task();
         newTask.setColumn(column);
+        newTask.setPosition(rankIn(column, null, null));
         newTask.setTitle(task.getTitle());
         newTask.setDescription(task.getDescription());
         if(task.getStartDate() != null) {
@@ -125,7 +168,7 @@ public class TaskService {
             for (ChecklistItemDTO checklistItemDTO : task.getChecklist()) {
                 ChecklistItem checklistItem = new ChecklistItem();
                 checklistItem.setTask(newTask);
-                checklistItem.setPosition(counter);
+                checklistItem.setPosition(counter * RankService.STEP);
                 counter++;
                 checklistItem.setCompleted(false);
                 checklistItem.setText(checklistItemDTO.getText());
@@ -139,7 +182,10 @@ public class TaskService {
         chatDTO.setParticipantIds(task.getParticipants());
         Chat chat = chatService.createGroupChatForTask(chatDTO, initiator);
         newTask.setChat(chat);
-        return taskRepository.save(newTask);
+        Task savedTask = taskRepository.save(newTask);
+        columnRepository.incrementTaskCount(column.getId(), 1);
+        eventPublisher.publishEvent(BoardEvent.taskChanged(savedTask));
+        return savedTask;
     }
 
 
@@ -181,14 +227,20 @@ public class TaskService {
             task.setDescription(description);
         }
 
-        if (position != null) {
-            task.setPosition(position);
-        }
-
         if (columnId != null && !columnId.equals(task.getColumn().getId())) {
             DashBoardColumn column = columnRepository.findById(columnId)
                     .orElseThrow(() -> new IllegalArgumentException("Column not found with id: " + columnId));
+            columnRepository.incrementTaskCount(task.getColumn().getId(), -1);
+            columnRepository.incrementTaskCount(column.getId(), 1);
             task.setColumn(column);
+            if (position == null) {
+                task.setPosition(rankIn(column, taskId, null));
+            }
+        }
+
+        // position — ранг задачи, перед которой встает эта, в базу пишется ранг между новыми соседями
+        if (position != null) {
+            task.setPosition(rankIn(task.getColumn(), taskId, position));
         }
 
         if (tagName != null) {
@@ -279,14 +331,20 @@ public class TaskService {
             task.setDescription(description);
         }
 
-        if (position != null) {
-            task.setPosition(position);
-        }
-
         if (columnId != null && !columnId.equals(task.getColumn().getId())) {
             DashBoardColumn column = columnRepository.findById(columnId)
                     .orElseThrow(() -> new IllegalArgumentException("Column not found with id: " + columnId));
+            columnRepository.incrementTaskCount(task.getColumn().getId(), -1);
+            columnRepository.incrementTaskCount(column.getId(), 1);
             task.setColumn(column);
+            if (position == null) {
+                task.setPosition(rankIn(column, taskId, null));
+            }
+        }
+
+        // position — ранг задачи, перед которой встает эта, в базу пишется ранг между новыми соседями
+        if (position != null) {
+            task.setPosition(rankIn(task.getColumn(), taskId, position));
         }
 
         if (tagId != null) {
@@ -320,6 +378,297 @@ public class TaskService {
         return saveAndLogTask(task);
     }
 
+    /**
+     * Частичное обновление задачи по маске полей. Задача загружается один раз вместе с колонкой, тегом,
+     * участниками и чек-листом, все изменения применяются в памяти и сбрасываются в базу одним flush при коммите.
+     * Нативные запросы (ранг, счетчики колонок) выполняются до изменения сущности, чтобы не вызывать
+     * промежуточный автоматический flush. История записывается после коммита
+     *
+     * @throws NoSuchElementException задача, колонка, тег или участник не найдены
+     * @throws AccessDeniedException нет права EDIT_TASKS, а при смене колонки — MOVE_TASKS
+     * @throws IllegalArgumentException в маске есть неизвестные поля или колонка с другой доски
+     */
+    @Transactional
+    public Task patchTask(Long taskId, TaskPatchDTO patch, User initiator) {
+        Set<String> unknown = new HashSet<>(patch.getFields());
+        unknown.removeAll(TaskPatchDTO.ALL_FIELDS);
+        if (!unknown.isEmpty()) {
+            throw new IllegalArgumentException("Unknown fields in mask: " + unknown);
+        }
+
+        Task task = taskRepository.findWithDetailsById(taskId)
+                .orElseThrow(() -> new NoSuchElementException("Task not found with id: " + taskId));
+        Long boardId = task.getColumn().getBoard().getId();
+        if (!boardRightService.hasBoardRight(boardId, initiator.getId(), BoardRight.EDIT_TASKS)) {
+            throw new AccessDeniedException("Нету прав на редактирование задач");
+        }
+        Task oldTask = cloneTask(task);
+
+        DashBoardColumn sourceColumn = task.getColumn();
+        DashBoardColumn targetColumn = sourceColumn;
+        if (patch.has(TaskPatchDTO.COLUMN_ID) && patch.getColumnId() != null
+                && !patch.getColumnId().equals(sourceColumn.getId())) {
+            targetColumn = columnRepository.findById(patch.getColumnId())
+                    .orElseThrow(() -> new NoSuchElementException("Column not found with id: " + patch.getColumnId()));
+            if (!targetColumn.getBoardId().equals(boardId)) {
+                throw new IllegalArgumentException("Column " + targetColumn.getId() + " belongs to another board");
+            }
+            if (!boardRightService.hasBoardRight(boardId, initiator.getId(), BoardRight.MOVE_TASKS)) {
+                throw new AccessDeniedException("Нету прав на перемещение задач");
+            }
+        }
+        boolean moved = targetColumn != sourceColumn;
+
+        // Нативные запросы до изменений в памяти
+        Integer rank = null;
+        if (patch.has(TaskPatchDTO.POSITION) && patch.getPosition() != null) {
+            rank = rankIn(targetColumn, taskId, patch.getPosition());
+        } else if (moved) {
+            rank = rankIn(targetColumn, taskId, null);
+        }
+        if (moved) {
+            columnRepository.incrementTaskCount(sourceColumn.getId(), -1);
+            columnRepository.incrementTaskCount(targetColumn.getId(), 1);
+        }
+        Tag tag = null;
+        if (patch.has(TaskPatchDTO.TAG_ID) && patch.getTagId() != null) {
+            tag = tagRepository.findById(patch.getTagId())
+                    .filter(found -> found.getBoard().getId().equals(boardId))
+                    .orElseThrow(() -> new NoSuchElementException("Tag not found with id: " + patch.getTagId()));
+        }
+        Map<Long, User> addedParticipants = new HashMap<>();
+        if (patch.has(TaskPatchDTO.PARTICIPANTS) && patch.getParticipants() != null) {
+            Set<Long> currentIds = task.getParticipants().stream().map(User::getId).collect(Collectors.toSet());
+            List<Long> missing = patch.getParticipants().stream()
+                    .filter(id -> !currentIds.contains(id))
+                    .distinct()
+                    .collect(Collectors.toList());
+            if (!missing.isEmpty()) {
+                userRepository.findAllById(missing).forEach(user -> addedParticipants.put(user.getId(), user));
+                if (addedParticipants.size() != missing.size()) {
+                    throw new NoSuchElementException("Участник не найден");
+                }
+            }
+        }
+
+        // Изменения в памяти
+        if (patch.has(TaskPatchDTO.TITLE)) {
+            task.setTitle(patch.getTitle());
+        }
+        if (patch.has(TaskPatchDTO.DESCRIPTION)) {
+            task.setDescription(patch.getDescription());
+        }
+        if (moved) {
+            task.setColumn(targetColumn);
+        }
+        if (rank != null) {
+            task.setPosition(rank);
+        }
+        if (patch.has(TaskPatchDTO.TAG_ID)) {
+            task.setTag(tag);
+        }
+        if (patch.has(TaskPatchDTO.START_DATE)) {
+            task.setStartDate(patch.getStartDate());
+        }
+        if (patch.has(TaskPatchDTO.END_DATE)) {
+            task.setEndDate(patch.getEndDate());
+        }
+        if (patch.has(TaskPatchDTO.PARTICIPANTS)) {
+            Set<Long> requested = patch.getParticipants() != null
+                    ? new HashSet<>(patch.getParticipants())
+                    : Collections.emptySet();
+            task.getParticipants().removeIf(user -> !requested.contains(user.getId()));
+            addedParticipants.values().forEach(task::addParticipant);
+        }
+        if (patch.has(TaskPatchDTO.CHECKLIST)) {
+            checklistItemService.syncChecklist(task, patch.getChecklist() != null
+                    ? patch.getChecklist()
+                    : Collections.emptyList());
+        }
+
+        if (moved) {
+            eventPublisher.publishEvent(BoardEvent.columnTasksChanged(sourceColumn));
+            eventPublisher.publishEvent(BoardEvent.columnTasksChanged(targetColumn));
+        } else {
+            eventPublisher.publishEvent(BoardEvent.taskChanged(task));
+        }
+        eventPublisher.publishEvent(new TaskUpdatedEvent(initiator, oldTask, task));
+        return task;
+    }
+
+    /**
+     * Пакетные операции над задачами в одной транзакции. Задачи и пользователи загружаются одним запросом,
+     * права проверяются один раз на каждую пару доска/право, счетчики колонок меняются одним UPDATE на колонку.
+     * На каждую доску публикуется одно событие TASKS_CHANGED со всеми затронутыми задачами
+     *
+     * @throws NoSuchElementException задача, колонка, тег или пользователь не найдены
+     * @throws AccessDeniedException нет нужного права хотя бы на одной доске
+     * @throws IllegalArgumentException некорректная операция
+     */
+    @Transactional
+    public List<BulkTaskResultDTO> bulkUpdate(List<BulkTaskOperationDTO> operations, User initiator) {
+        Set<Long> taskIds = new LinkedHashSet<>();
+        Set<Long> userIds = new HashSet<>();
+        for (BulkTaskOperationDTO operation : operations) {
+            if (operation.getType() == null || operation.getTaskIds() == null || operation.getTaskIds().isEmpty()) {
+                throw new IllegalArgumentException("Operation needs a type and task ids");
+            }
+            if (operation.getType() == BulkTaskOperationDTO.Type.MOVE && operation.getColumnId() == null) {
+                throw new IllegalArgumentException("MOVE needs columnId");
+            }
+            taskIds.addAll(operation.getTaskIds());
+            if (operation.getUserIds() != null) {
+                userIds.addAll(operation.getUserIds());
+            }
+        }
+
+        Map<Long, Task> tasks = taskRepository.findWithBoardByIdIn(taskIds).stream()
+                .collect(Collectors.toMap(Task::getId, task -> task));
+        if (tasks.size() != taskIds.size()) {
+            Set<Long> missing = new LinkedHashSet<>(taskIds);
+            missing.removeAll(tasks.keySet());
+            throw new NoSuchElementException("Tasks not found: " + missing);
+        }
+
+        Map<Long, Set<BoardRight>> requiredRights = new LinkedHashMap<>();
+        for (BulkTaskOperationDTO operation : operations) {
+            BoardRight right = switch (operation.getType()) {
+                case MOVE -> BoardRight.MOVE_TASKS;
+                case DELETE -> BoardRight.DELETE_TASKS;
+                default -> BoardRight.EDIT_TASKS;
+            };
+            for (Long taskId : operation.getTaskIds()) {
+                requiredRights.computeIfAbsent(tasks.get(taskId).getColumn().getBoard().getId(), id -> EnumSet.noneOf(BoardRight.class))
+                        .add(right);
+            }
+        }
+        requiredRights.forEach((boardId, rights) -> {
+            for (BoardRight right : rights) {
+                if (!boardRightService.hasBoardRight(boardId, initiator.getId(), right)) {
+                    throw new AccessDeniedException("Нету права " + right + " на доске " + boardId);
+                }
+            }
+        });
+
+        Map<Long, User> users = new HashMap<>();
+        if (!userIds.isEmpty()) {
+            userRepository.findAllById(userIds).forEach(user -> users.put(user.getId(), user));
+            if (users.size() != userIds.size()) {
+                throw new NoSuchElementException("Участник не найден");
+            }
+        }
+
+        Map<Long, Task> snapshots = new LinkedHashMap<>();
+        Set<Long> deleted = new LinkedHashSet<>();
+        Map<Long, DashBoardColumn> columns = new HashMap<>();
+        Map<Long, Integer> nextRanks = new HashMap<>();
+        Map<Long, Integer> countDeltas = new HashMap<>();
+        Map<Long, Tag> tags = new HashMap<>();
+        for (BulkTaskOperationDTO operation : operations) {
+            for (Long taskId : operation.getTaskIds()) {
+                if (deleted.contains(taskId)) {
+                    throw new IllegalArgumentException("Task " + taskId + " is deleted earlier in the batch");
+                }
+                Task task = tasks.get(taskId);
+                Long boardId = task.getColumn().getBoard().getId();
+                snapshots.putIfAbsent(taskId, cloneTask(task));
+                switch (operation.getType()) {
+                    case MOVE -> {
+                        DashBoardColumn column = columns.get(operation.getColumnId());
+                        if (column == null) {
+                            column = columnRepository.findById(operation.getColumnId())
+                                    .orElseThrow(() -> new NoSuchElementException("Column not found with id: " + operation.getColumnId()));
+                            columns.put(column.getId(), column);
+                        }
+                        if (!column.getBoardId().equals(boardId)) {
+                            throw new IllegalArgumentException("Column " + column.getId() + " belongs to another board");
+                        }
+                        if (!column.getId().equals(task.getColumn().getId())) {
+                            // Задачи добавляются в конец колонки в порядке запроса
+                            Integer rank = nextRanks.get(column.getId());
+                            rank = rank == null ? rankIn(column, null, null) : rank + RankService.STEP;
+                            nextRanks.put(column.getId(), rank);
+                            countDeltas.merge(task.getColumn().getId(), -1, Integer::sum);
+                            countDeltas.merge(column.getId(), 1, Integer::sum);
+                            task.setColumn(column);
+                            task.setPosition(rank);
+                        }
+                    }
+                    case SET_TAG -> {
+                        Tag tag = null;
+                        if (operation.getTagId() != null) {
+                            tag = tags.get(operation.getTagId());
+                            if (tag == null) {
+                                tag = tagRepository.findById(operation.getTagId())
+                                        .orElseThrow(() -> new NoSuchElementException("Tag not found with id: " + operation.getTagId()));
+                                tags.put(tag.getId(), tag);
+                            }
+                            if (!tag.getBoard().getId().equals(boardId)) {
+                                throw new IllegalArgumentException("Tag " + tag.getId() + " belongs to another board");
+                            }
+                        }
+                        task.setTag(tag);
+                    }
+                    case SET_PARTICIPANTS -> {
+                        Set<Long> requested = operation.getUserIds() != null
+                                ? new HashSet<>(operation.getUserIds())
+                                : Collections.emptySet();
+                        task.getParticipants().removeIf(user -> !requested.contains(user.getId()));
+                        requested.forEach(userId -> task.addParticipant(users.get(userId)));
+                    }
+                    case ADD_PARTICIPANTS -> {
+                        if (operation.getUserIds() != null) {
+                            operation.getUserIds().forEach(userId -> task.addParticipant(users.get(userId)));
+                        }
+                    }
+                    case REMOVE_PARTICIPANTS -> {
+                        if (operation.getUserIds() != null) {
+                            task.getParticipants().removeIf(user -> operation.getUserIds().contains(user.getId()));
+                        }
+                    }
+                    case DELETE -> {
+                        deleted.add(taskId);
+                        countDeltas.merge(task.getColumn().getId(), -1, Integer::sum);
+                    }
+                }
+            }
+        }
+
+        if (!deleted.isEmpty()) {
+            taskRepository.deleteAll(deleted.stream().map(tasks::get).collect(Collectors.toList()));
+        }
+        countDeltas.forEach((columnId, delta) -> {
+            if (delta != 0) {
+                columnRepository.incrementTaskCount(columnId, delta);
+            }
+        });
+
+        // Версии задач увеличиваются при сбросе; без него клиенты получили бы версии до операции,
+        // и следующее изменение с такой версией завершилось бы конфликтом
+        taskRepository.flush();
+
+        Map<Long, BulkTaskResultDTO> results = new LinkedHashMap<>();
+        snapshots.forEach((taskId, snapshot) -> {
+            Long boardId = snapshot.getColumn().getBoard().getId();
+            BulkTaskResultDTO result = results.computeIfAbsent(boardId,
+                    id -> new BulkTaskResultDTO(id, new ArrayList<>(), new ArrayList<>()));
+            if (deleted.contains(taskId)) {
+                result.getDeletedTaskIds().add(taskId);
+                eventPublisher.publishEvent(new TaskDeletedEvent(initiator, snapshot));
+            } else {
+                result.getUpdatedTaskIds().add(taskId);
+                result.getTaskVersions().put(taskId, tasks.get(taskId).getVersion());
+                eventPublisher.publishEvent(new TaskUpdatedEvent(initiator, snapshot, tasks.get(taskId)));
+            }
+        });
+        results.values().forEach(result -> eventPublisher.publishEvent(BoardEvent.tasksChanged(result.getBoardId(),
+                Stream.concat(result.getUpdatedTaskIds().stream(), result.getDeletedTaskIds().stream()).collect(Collectors.toList()),
+                result.getTaskVersions())));
+        logger.info("Bulk update by user {}: {} operations, {} tasks, {} deleted",
+                initiator.getId(), operations.size(), snapshots.size(), deleted.size());
+        return new ArrayList<>(results.values());
+    }
+
     @Transactional
     public Task saveAndLogTask(Task task) {
         logger.info("Saving task (ID: {}), participants count: {}", 
@@ -333,6 +682,7 @@ public class TaskService {
             taskRepository.flush();
             Task refreshedTask = taskRepository.findById(savedTask.getId())
                     .orElseThrow(() -> new RuntimeException("Task not found after saving: " + savedTask.getId()));
+            eventPublisher.publishEvent(BoardEvent.taskChanged(refreshedTask));
             
             // Log participant IDs for debugging
             Set<User> participants = refreshedTask.getParticipants();
@@ -356,7 +706,11 @@ public class TaskService {
         // Больше не удаляем историю задачи - просто удаляем саму задачу
         // История задачи останется в базе данных, так как в модели TaskHistory
         // taskId отмечен как nullable
-        taskRepository.deleteById(taskId);
+        taskRepository.findById(taskId).ifPresent(task -> {
+            columnRepository.incrementTaskCount(task.getColumn().getId(), -1);
+            eventPublisher.publishEvent(BoardEvent.taskDeleted(task));
+            taskRepository.delete(task);
+        });
         logger.info("Task deleted with ID: {}. Task history is preserved.", taskId);
     }
 
@@ -369,74 +723,125 @@ public class TaskService {
         
         // Удаляем задачи
         taskRepository.deleteByColumnId(columnId);
+        columnRepository.incrementTaskCount(columnId, -tasksInColumn.size());
+        columnRepository.findById(columnId)
+                .ifPresent(column -> eventPublisher.publishEvent(BoardEvent.columnTasksChanged(column)));
     }
 
     @Transactional
     public void updateTasksPositions(List<Long> taskIds) {
-        for (int i = 0; i < taskIds.size(); i++) {
-            final int position = i;
-            Long taskId = taskIds.get(i);
-            taskRepository.findById(taskId).ifPresent(task -> {
-                task.setPosition(position);
-                taskRepository.save(task);
-            });
+        Map<Long, Task> tasksById = taskRepository.findAllById(taskIds).stream()
+                .collect(Collectors.toMap(Task::getId, task -> task));
+        Map<Long, List<Task>> tasksByColumn = new LinkedHashMap<>();
+        for (Long taskId : taskIds) {
+            Task task = tasksById.get(taskId);
+            if (task != null) {
+                tasksByColumn.computeIfAbsent(task.getColumn().getId(), id -> new ArrayList<>()).add(task);
+            }
         }
+        // Новые ранги получают только задачи, которые нарушают порядок. Ранги считаются по всей колонке,
+        // поэтому при перенумерации меняются и задачи, не переданные в запросе
+        tasksByColumn.forEach((columnId, tasks) -> {
+            Map<Long, Integer> ranks = rankService.reorderWithin(RankService.Kind.TASK, columnId,
+                    tasks.stream().map(Task::getId).collect(Collectors.toList()));
+            List<Task> changed = taskRepository.findAllById(ranks.keySet());
+            changed.forEach(task -> task.setPosition(ranks.get(task.getId())));
+            taskRepository.saveAll(changed);
+            // Параллельная перестановка той же колонки завершится конфликтом версии и будет пересчитана
+            entityManager.lock(tasks.get(0).getColumn(), LockModeType.OPTIMISTIC_FORCE_INCREMENT);
+            eventPublisher.publishEvent(BoardEvent.columnTasksChanged(tasks.get(0).getColumn()));
+        });
+    }
+
+    /**
+     * Ранг задачи в колонке: перед задачей с рангом position или в конец, если position не задан.
+     * Ранг считается по соседям без блокировок, поэтому версия колонки увеличивается при коммите:
+     * параллельная вставка по тем же соседям получит конфликт версии и пересчитает ранг
+     */
+    private int rankIn(DashBoardColumn column, Long taskId, Integer position) {
+        entityManager.lock(column, LockModeType.OPTIMISTIC_FORCE_INCREMENT);
+        return position != null
+                ? rankService.rankAt(RankService.Kind.TASK, column.getId(), taskId, position)
+                : rankService.appendRank(RankService.Kind.TASK, column.getId());
     }
 
     @Transactional
     public Task moveTaskToColumn(Long taskId, Long columnId, Integer position) {
+        return moveTaskToColumn(taskId, columnId, position, null, null);
+    }
+
+    /**
+     * Перемещение с проверкой версии, которую видел клиент. Устаревшая версия не мешает перемещению,
+     * если задача с тех пор осталась в исходной колонке (sourceColumnId): изменились поля или ранг,
+     * но не место задачи. Если задачу уже унесли в другую колонку, это настоящий конфликт
+     */
+    @Transactional
+    public Task moveTaskToColumn(Long taskId, Long columnId, Integer position, Long expectedVersion, Long sourceColumnId) {
         Task task = taskRepository.findById(taskId)
                 .orElseThrow(() -> new IllegalArgumentException("Task not found with id: " + taskId));
         
         DashBoardColumn sourceColumn = task.getColumn();
+        if (expectedVersion != null && !expectedVersion.equals(task.getVersion())
+                && !sourceColumn.getId().equals(sourceColumnId)) {
+            throw new TaskConflictException("Task " + taskId + " was moved by another user", List.of(task));
+        }
         DashBoardColumn targetColumn = columnRepository.findById(columnId)
                 .orElseThrow(() -> new IllegalArgumentException("Column not found with id: " + columnId));
         
-        // If moving within the same column
-        if (sourceColumn.getId().equals(targetColumn.getId())) {
-            // Get all tasks in the column ordered by position
-            List<Task> tasks = taskRepository.findByColumnOrderByPosition(targetColumn);
-            
-            // Remove the task from its current position
-            tasks.remove(task);
-            
-            // Insert the task at the new position
-            tasks.add(position, task);
-            
-            // Update positions for all tasks
-            for (int i = 0; i < tasks.size(); i++) {
-                tasks.get(i).setPosition(i);
-                taskRepository.save(tasks.get(i));
-            }
-        } else {
-            // Moving to a different column
-            // Get tasks from both columns
-            List<Task> sourceTasks = taskRepository.findByColumnOrderByPosition(sourceColumn);
-            List<Task> targetTasks = taskRepository.findByColumnOrderByPosition(targetColumn);
-            
-            // Remove task from source column
-            sourceTasks.remove(task);
-            
-            // Update positions in source column
-            for (int i = 0; i < sourceTasks.size(); i++) {
-                sourceTasks.get(i).setPosition(i);
-                taskRepository.save(sourceTasks.get(i));
-            }
-            
-            // Insert task into target column
-            targetTasks.add(position, task);
+        // Перемещение меняет одну строку: задача получает ранг между соседями на новом месте.
+        // Версия целевой колонки увеличивается при коммите, поэтому перемещение, посчитавшее ранг
+        // по тем же соседям параллельно, получит конфликт версии и пересчитает ранг
+        task.setPosition(rankIn(targetColumn, taskId, position));
+        if (!sourceColumn.getId().equals(targetColumn.getId())) {
             task.setColumn(targetColumn);
-            
-            // Update positions in target column
-            for (int i = 0; i < targetTasks.size(); i++) {
-                targetTasks.get(i).setPosition(i);
-                taskRepository.save(targetTasks.get(i));
-            }
+            columnRepository.incrementTaskCount(sourceColumn.getId(), -1);
+            columnRepository.incrementTaskCount(targetColumn.getId(), 1);
+            eventPublisher.publishEvent(BoardEvent.columnTasksChanged(sourceColumn));
         }
+        taskRepository.save(task);
+        eventPublisher.publishEvent(BoardEvent.columnTasksChanged(targetColumn));
         
         return task;
     }
 
+    /**
+     * Перемещение задачи, устойчивое к параллельным перемещениям на той же доске.
+     * Каждая попытка идет в отдельной транзакции; проигравшая гонку версий попытка повторяется
+     * с новыми соседями до {@link #MAX_MERGE_ATTEMPTS} раз. Настоящий конфликт или исчерпанные
+     * попытки дают {@link TaskConflictException} с текущим состоянием задачи
+     */
+    public Task moveTaskMerging(Long taskId, Long columnId, Integer position, Long expectedVersion, Long sourceColumnId) {
+        return withMergeRetry(List.of(taskId),
+                () -> moveTaskToColumn(taskId, columnId, position, expectedVersion, sourceColumnId));
+    }
+
+    /**
+     * Перестановка задач с повтором при параллельной перестановке тех же колонок
+     */
+    public void updateTasksPositionsMerging(List<Long> taskIds) {
+        withMergeRetry(taskIds, () -> {
+            updateTasksPositions(taskIds);
+            return null;
+        });
+    }
+
+    private <T> T withMergeRetry(List<Long> taskIds, Supplier<T> action) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return transactionTemplate.execute(status -> action.get());
+            } catch (TaskConflictException e) {
+                throw new TaskConflictException(e.getMessage(), taskRepository.findWithBoardByIdIn(taskIds));
+            } catch (OptimisticLockingFailureException | OptimisticLockException e) {
+                if (attempt >= MAX_MERGE_ATTEMPTS) {
+                    logger.warn("Перемещение задач {} не удалось объединить за {} попыток", taskIds, attempt);
+                    throw new TaskConflictException("Concurrent update of tasks " + taskIds,
+                            taskRepository.findWithBoardByIdIn(taskIds));
+                }
+                logger.debug("Конфликт версий при перемещении задач {}, попытка {}", taskIds, attempt);
+            }
+        }
+    }
+
     @Transactional
     public Task addParticipantToTask(Long taskId, Long userId) {
         Task task = taskRepository.findById(taskId)
@@ -453,6 +858,7 @@ public class TaskService {
         task.addParticipant(user);
         
         Task savedTask = taskRepository.save(task);
+        eventPublisher.publishEvent(BoardEvent.taskChanged(savedTask));
         
         // Force refresh the entity to verify changes
         taskRepository.flush();
@@ -492,6 +898,7 @@ public class TaskService {
             task.removeParticipant(user);
             
             Task savedTask = taskRepository.save(task);
+            eventPublisher.publishEvent(BoardEvent.taskChanged(savedTask));
             
             // Force refresh the entity to verify changes
             taskRepository.flush();
@@ -517,6 +924,45 @@ public class TaskService {
         return task;
     }
 
+    /**
+     * Приводит участников задачи к заданному набору: пользователи ищутся одним запросом по id и username,
+     * в task_participants выполняются один DELETE и один INSERT только для разницы.
+     * Неизвестные пользователи пропускаются
+     *
+     * @return задача с обновленным составом участников
+     */
+    @Transactional
+    public Task syncParticipants(Long taskId, Collection<Long> userIds, Collection<String> usernames) {
+        if (!taskRepository.existsById(taskId)) {
+            throw new IllegalArgumentException("Task not found with id: " + taskId);
+        }
+        Set<Long> current = new HashSet<>(taskRepository.findParticipantIdsByTaskId(taskId));
+        Set<Long> requested = new HashSet<>();
+        if (!userIds.isEmpty() || !usernames.isEmpty()) {
+            userRepository.findByIdInOrUsernameIn(userIds, usernames)
+                    .forEach(user -> requested.add(user.getId()));
+        }
+
+        Set<Long> removed = new HashSet<>(current);
+        removed.removeAll(requested);
+        Set<Long> added = new HashSet<>(requested);
+        added.removeAll(current);
+        if (!removed.isEmpty()) {
+            taskRepository.deleteParticipants(taskId, removed);
+        }
+        if (!added.isEmpty()) {
+            taskRepository.insertParticipants(taskId, added);
+        }
+        logger.info("Synced participants of task {}: added {}, removed {}", taskId, added, removed);
+
+        Task task = taskRepository.findById(taskId)
+                .orElseThrow(() -> new IllegalArgumentException("Task not found with id: " + taskId));
+        if (!removed.isEmpty() || !added.isEmpty()) {
+            eventPublisher.publishEvent(BoardEvent.taskChanged(task));
+        }
+        return task;
+    }
+
     @Transactional(readOnly = true)
     public Set<User> getTaskParticipants(Long taskId) {
         Task task = taskRepository.findById(taskId)
@@ -545,7 +991,11 @@ public class TaskService {
      */
     @Transactional(readOnly = true)
     public List<Task> getUserTasksById(Long userId) {
-        return taskRepository.findAllTasksByUserId(userId);
+        Set<Long> visibleBoardIds = boardAccessIndex.getVisibleBoardIds(userId);
+        if (visibleBoardIds.isEmpty()) {
+            return new ArrayList<>();
+        }
+        return taskRepository.findAllTasksByUserIdAndBoardIds(userId, visibleBoardIds);
     }
     
     private String generateRandomColor() {
@@ -589,6 +1039,10 @@ public class TaskService {
         return clone;
     }
 
+    /**
+     * Поиск без пагинации. С текстом при готовом индексе — по релевантности, иначе первая страница
+     * {@link #searchTasksPage}. Не больше search.max-results задач
+     */
     @Transactional(readOnly = true)
     public List<TaskDTO> searchTasks(String searchText, Long projectId, Long boardId,
                                  Long tagId, String sortDirection,Boolean isCompleted, boolean isTitleSearch, boolean isDescriptionSearch, Long currentUserID) {
@@ -599,43 +1053,101 @@ public class TaskService {
         if (searchText != null && searchText.trim().isEmpty()) {
             searchText = null;
         }
-        
-        if (sortDirection == null || (!sortDirection.equalsIgnoreCase("asc") && !sortDirection.equalsIgnoreCase("desc"))) {
-            sortDirection = "asc";
+        boolean descending = "desc".equalsIgnoreCase(sortDirection);
+
+        Set<Long> visibleBoardIds = boardAccessIndex.getVisibleBoardIds(currentUserID);
+        if (visibleBoardIds.isEmpty()) {
+            return new ArrayList<>();
         }
-        
-        List<Object[]> results;
-        
-        if (sortDirection.equalsIgnoreCase("asc")) {
-            results = taskRepository.searchTasksAsc(
-                    searchText, projectId, boardId, tagId, isCompleted,
-                    !isTitleSearch, !isDescriptionSearch, currentUserID
-            );
+
+        if (searchText != null && taskSearchIndex.isReady()) {
+            TaskSearchIndex.Filter filter = new TaskSearchIndex.Filter(visibleBoardIds, projectId, boardId, tagId,
+                    isCompleted, isTitleSearch, isDescriptionSearch);
+            return loadSearchResults(taskSearchIndex.search(searchText, filter, descending, searchMaxResults));
+        }
+
+        TaskSearchRequest request = new TaskSearchRequest();
+        request.setSearchText(searchText);
+        request.setProjectId(projectId);
+        request.setBoardId(boardId);
+        request.setTagId(tagId);
+        request.setIsCompleted(isCompleted);
+        request.setSortDirection(descending ? "desc" : "asc");
+        request.setIsTitleSearch(isTitleSearch);
+        request.setIsDescriptionSearch(isDescriptionSearch);
+        request.setLimit(searchMaxResults);
+        return searchTasksPage(request, currentUserID).getItems();
+    }
+
+    /**
+     * Страница поиска по ключу (endDate, id). Сначала выбираются только id задач страницы
+     * (из поискового индекса или SQL), затем одним запросом их поля и одним — участники.
+     * Оценка общего числа считается в фоне и возвращается, если уже есть
+     */
+    @Transactional(readOnly = true)
+    public TaskSearchPageDTO searchTasksPage(TaskSearchRequest request, Long currentUserID) {
+        String searchText = request.getSearchText() != null && !request.getSearchText().trim().isEmpty()
+                ? request.getSearchText() : null;
+        boolean descending = "desc".equalsIgnoreCase(request.getSortDirection());
+        boolean isTitleSearch = Boolean.TRUE.equals(request.getIsTitleSearch());
+        boolean isDescriptionSearch = Boolean.TRUE.equals(request.getIsDescriptionSearch());
+        boolean searchTitle = isTitleSearch || !isDescriptionSearch;
+        boolean searchDescription = isDescriptionSearch || !isTitleSearch;
+        int limit = request.getLimit() != null ? Math.max(1, Math.min(request.getLimit(), searchMaxResults))
+                : Math.min(searchPageSize, searchMaxResults);
+        LocalDateTime afterEndDate = request.getAfterId() != null ? request.getAfterEndDate() : null;
+
+        Set<Long> visibleBoardIds = boardAccessIndex.getVisibleBoardIds(currentUserID);
+        if (visibleBoardIds.isEmpty()) {
+            return new TaskSearchPageDTO(new ArrayList<>(), null, null, false, 0L);
+        }
+
+        boolean useIndex = searchText != null && taskSearchIndex.isReady();
+        TaskSearchIndex.Filter filter = new TaskSearchIndex.Filter(visibleBoardIds, request.getProjectId(),
+                request.getBoardId(), request.getTagId(), request.getIsCompleted(), isTitleSearch, isDescriptionSearch);
+        List<Long> ids;
+        if (useIndex) {
+            ids = taskSearchIndex.searchPage(searchText, filter, descending, afterEndDate, request.getAfterId(), limit + 1);
+        } else if (descending) {
+            ids = taskRepository.searchTaskIdsDesc(searchText, searchTitle, searchDescription, request.getProjectId(),
+                    request.getBoardId(), request.getTagId(), request.getIsCompleted(), visibleBoardIds,
+                    afterEndDate, request.getAfterId(), limit + 1);
         } else {
-            results = taskRepository.searchTasksDesc(
-                searchText, projectId, boardId, tagId, isCompleted,
-                    !isTitleSearch, !isDescriptionSearch, currentUserID
-            );
-        }
-        List<TaskDTO> taskDTOList = new ArrayList<>();
-        TaskDTO task = new TaskDTO();
-        for (Object[] row : results) {
-            Long taskId = (Long) row[0];
-            Long userId = (Long) row[9];
-            String userName = (String) row[10];
-            String avatarURL = (String) row[11];
-
-            if (task.getId() != null && task.getId().equals(taskId)) {
-                task.getParticipants().add(new UserResponse(
-                        userId,
-                        userName,
-                        avatarURL
-                ));
-                continue;
-            }
-            task = new TaskDTO();
+            ids = taskRepository.searchTaskIdsAsc(searchText, searchTitle, searchDescription, request.getProjectId(),
+                    request.getBoardId(), request.getTagId(), request.getIsCompleted(), visibleBoardIds,
+                    afterEndDate, request.getAfterId(), limit + 1);
+        }
+
+        boolean hasMore = ids.size() > limit;
+        List<TaskDTO> items = loadSearchResults(hasMore ? ids.subList(0, limit) : ids);
+        TaskDTO last = items.isEmpty() ? null : items.get(items.size() - 1);
+
+        Long totalEstimate = null;
+        if (Boolean.TRUE.equals(request.getIncludeTotal())) {
+            String key = currentUserID + "|" + useIndex + "|" + searchText + "|" + searchTitle + "|" + searchDescription
+                    + "|" + request.getProjectId() + "|" + request.getBoardId() + "|" + request.getTagId()
+                    + "|" + request.getIsCompleted();
+            totalEstimate = useIndex
+                    ? searchCountEstimator.estimate(key, () -> taskSearchIndex.count(searchText, filter))
+                    : searchCountEstimator.estimate(key, () -> taskRepository.countSearchTasks(searchText, searchTitle,
+                    searchDescription, request.getProjectId(), request.getBoardId(), request.getTagId(),
+                    request.getIsCompleted(), visibleBoardIds));
+        }
+        return new TaskSearchPageDTO(items, last != null ? last.getEndDate() : null, last != null ? last.getId() : null,
+                hasMore, totalEstimate);
+    }
 
-            task.setId(taskId);
+    /**
+     * Задачи по id в том же порядке: поля с тегом одним запросом, участники — вторым
+     */
+    private List<TaskDTO> loadSearchResults(List<Long> taskIds) {
+        if (taskIds.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Map<Long, TaskDTO> byId = new HashMap<>();
+        for (Object[] row : taskRepository.findSearchRowsByTaskIds(taskIds)) {
+            TaskDTO task = new TaskDTO();
+            task.setId((Long) row[0]);
             task.setColumnId((Long) row[1]);
             task.setTitle((String) row[2]);
             task.setDescription((String) row[3]);
@@ -645,23 +1157,21 @@ public class TaskService {
             task.setEndDate(row[5] != null
                     ? ((Timestamp) row[5]).toLocalDateTime()
                     : null);
-
-            tagId = (Long) row[6];
+            Long tagId = (Long) row[6];
             if (tagId != null) task.setTag(new TagDTO(
                     tagId,
                     (String) row[7],
                     (String) row[8]
             ));
             task.setParticipants(new HashSet<>());
-            if (userId != null ) task.getParticipants().add(new UserResponse(
-                    userId,
-                    userName,
-                    avatarURL
-            ));
-
-            taskDTOList.add(task);
-
+            byId.put(task.getId(), task);
+        }
+        for (Object[] row : taskRepository.findParticipantRowsByTaskIds(taskIds)) {
+            TaskDTO task = byId.get((Long) row[0]);
+            if (task != null) {
+                task.getParticipants().add(new UserResponse((Long) row[1], (String) row[2], (String) row[3]));
+            }
         }
-        return taskDTOList;
+        return taskIds.stream().map(byId::get).filter(Objects::nonNull).collect(Collectors.toList());
     }
 } 
\ No newline at end of file
@@ -0,0 +1,248 @@
+package course.project.API.services;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Разбор текста задач для полнотекстового индекса: токены из букв и цифр в нижнем регистре (ё = е),
+ * без стоп-слов, с усечением окончаний. Кириллические слова усекаются по алгоритму Snowball для
+ * русского языка, латинские — упрощенным английским стеммером. Одинаково применяется к документам и запросам
+ */
+final class TaskTextAnalyzer {
+
+    private static final Set<String> STOP_WORDS = Set.of(
+            "и", "в", "во", "не", "на", "с", "со", "по", "к", "ко", "о", "об", "от", "до", "из", "за", "для",
+            "а", "но", "или", "же", "ли", "бы", "то", "что", "как", "это", "у",
+            "a", "an", "and", "or", "the", "of", "to", "in", "on", "for", "by", "with", "at", "is", "are", "be");
+
+    private static final String RU_VOWELS = "аеиоуыэюя";
+
+    private static final String[] PERFECTIVE_GERUND_1 = {"вшись", "вши", "в"};
+    private static final String[] PERFECTIVE_GERUND_2 = {"ившись", "ывшись", "ивши", "ывши", "ив", "ыв"};
+    private static final String[] REFLEXIVE = {"ся", "сь"};
+    private static final String[] ADJECTIVE = {"ими", "ыми", "его", "ого", "ему", "ому", "ее", "ие", "ые", "ое",
+            "ей", "ий", "ый", "ой", "ем", "им", "ым", "ом", "их", "ых", "ую", "юю", "ая", "яя", "ою", "ею"};
+    private static final String[] PARTICIPLE_1 = {"ем", "нн", "вш", "ющ", "щ"};
+    private static final String[] PARTICIPLE_2 = {"ивш", "ывш", "ующ"};
+    private static final String[] VERB_1 = {"ете", "йте", "ешь", "нно", "ла", "на", "ли", "ем", "ло", "но", "ет",
+            "ют", "ны", "ть", "й", "л", "н"};
+    private static final String[] VERB_2 = {"ейте", "уйте", "ила", "ыла", "ена", "ите", "или", "ыли", "ило", "ыло",
+            "ено", "ует", "уют", "ены", "ить", "ыть", "ишь", "ей", "уй", "ил", "ыл", "им", "ым", "ен", "ят", "ит",
+            "ыт", "ую", "ю"};
+    private static final String[] NOUN = {"иями", "ями", "ами", "ией", "иям", "ием", "иях", "ев", "ов", "ие", "ье",
+            "еи", "ии", "ей", "ой", "ий", "ям", "ем", "ам", "ом", "ах", "ях", "ию", "ью", "ия", "ья",
+            "а", "е", "и", "й", "о", "у", "ы", "ь", "ю", "я"};
+    private static final String[] DERIVATIONAL = {"ость", "ост"};
+    private static final String[] SUPERLATIVE = {"ейше", "ейш"};
+
+    private TaskTextAnalyzer() {
+    }
+
+    /**
+     * Термы текста в порядке появления, с повторами
+     */
+    static List<String> analyze(String text) {
+        List<String> terms = new ArrayList<>();
+        if (text == null || text.isEmpty()) {
+            return terms;
+        }
+        StringBuilder token = new StringBuilder();
+        for (int i = 0; i <= text.length(); i++) {
+            char c = i < text.length() ? text.charAt(i) : ' ';
+            if (Character.isLetterOrDigit(c)) {
+                token.append(c == 'ё' || c == 'Ё' ? 'е' : Character.toLowerCase(c));
+            } else if (token.length() > 0) {
+                String term = normalize(token.toString());
+                if (term != null) {
+                    terms.add(term);
+                }
+                token.setLength(0);
+            }
+        }
+        return terms;
+    }
+
+    /**
+     * Терм одного слова в нижнем регистре или null для стоп-слов и одиночных букв
+     */
+    static String normalize(String word) {
+        if (STOP_WORDS.contains(word) || word.length() == 1 && Character.isLetter(word.charAt(0))) {
+            return null;
+        }
+        if (isCyrillic(word)) {
+            return stemRussian(word);
+        }
+        if (isLatin(word)) {
+            return stemEnglish(word);
+        }
+        return word;
+    }
+
+    private static boolean isCyrillic(String word) {
+        for (int i = 0; i < word.length(); i++) {
+            char c = word.charAt(i);
+            if (c < 'а' || c > 'я') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isLatin(String word) {
+        for (int i = 0; i < word.length(); i++) {
+            char c = word.charAt(i);
+            if (c < 'a' || c > 'z') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    static String stemRussian(String word) {
+        int rv = regionAfterVowel(word, 0);
+        if (rv >= word.length()) {
+            return word;
+        }
+        int r2 = regionAfterVowelConsonant(word, regionAfterVowelConsonant(word, 0));
+        StringBuilder s = new StringBuilder(word);
+
+        // Шаг 1: деепричастие, иначе возвратная частица и прилагательное / глагол / существительное
+        if (!removeEnding(s, rv, PERFECTIVE_GERUND_1, true) && !removeEnding(s, rv, PERFECTIVE_GERUND_2, false)) {
+            removeEnding(s, rv, REFLEXIVE, false);
+            if (removeEnding(s, rv, ADJECTIVE, false)) {
+                if (!removeEnding(s, rv, PARTICIPLE_1, true)) {
+                    removeEnding(s, rv, PARTICIPLE_2, false);
+                }
+            } else if (!removeEnding(s, rv, VERB_1, true) && !removeEnding(s, rv, VERB_2, false)) {
+                removeEnding(s, rv, NOUN, false);
+            }
+        }
+        // Шаг 2
+        if (s.length() > rv && s.charAt(s.length() - 1) == 'и') {
+            s.setLength(s.length() - 1);
+        }
+        // Шаг 3: словообразовательный суффикс в R2
+        removeEnding(s, Math.max(rv, r2), DERIVATIONAL, false);
+        // Шаг 4
+        if (endsWith(s, rv, "нн")) {
+            s.setLength(s.length() - 1);
+        } else if (removeEnding(s, rv, SUPERLATIVE, false)) {
+            if (endsWith(s, rv, "нн")) {
+                s.setLength(s.length() - 1);
+            }
+        } else if (endsWith(s, rv, "ь")) {
+            s.setLength(s.length() - 1);
+        }
+        return s.toString();
+    }
+
+    /**
+     * Удаляет самое длинное из окончаний, целиком лежащее в области [region, length).
+     * afterAOrYa — окончание должно следовать за «а» или «я» внутри области, сама буква остается
+     */
+    private static boolean removeEnding(StringBuilder s, int region, String[] endings, boolean afterAOrYa) {
+        String best = null;
+        for (String ending : endings) {
+            if ((best == null || ending.length() > best.length()) && endsWith(s, region, ending)) {
+                if (afterAOrYa) {
+                    int before = s.length() - ending.length() - 1;
+                    if (before < region || s.charAt(before) != 'а' && s.charAt(before) != 'я') {
+                        continue;
+                    }
+                }
+                best = ending;
+            }
+        }
+        if (best == null) {
+            return false;
+        }
+        s.setLength(s.length() - best.length());
+        return true;
+    }
+
+    private static boolean endsWith(StringBuilder s, int region, String ending) {
+        int start = s.length() - ending.length();
+        return start >= region && s.indexOf(ending, start) == start;
+    }
+
+    private static int regionAfterVowel(String word, int from) {
+        for (int i = from; i < word.length(); i++) {
+            if (RU_VOWELS.indexOf(word.charAt(i)) >= 0) {
+                return i + 1;
+            }
+        }
+        return word.length();
+    }
+
+    private static int regionAfterVowelConsonant(String word, int from) {
+        for (int i = from + 1; i < word.length(); i++) {
+            if (RU_VOWELS.indexOf(word.charAt(i)) < 0 && RU_VOWELS.indexOf(word.charAt(i - 1)) >= 0) {
+                return i + 1;
+            }
+        }
+        return word.length();
+    }
+
+    /**
+     * Упрощенный английский стеммер: множественное число, -ing/-ed, частые суффиксы и конечная -e.
+     * Лингвистически грубее Porter, но формы одного слова сходятся к одному терму
+     */
+    static String stemEnglish(String word) {
+        String s = word;
+        if (s.endsWith("'s")) {
+            s = s.substring(0, s.length() - 2);
+        }
+        if (s.length() > 4 && s.endsWith("ies")) {
+            s = s.substring(0, s.length() - 3) + "y";
+        } else if (s.length() > 4 && (s.endsWith("sses") || s.endsWith("xes") || s.endsWith("zes")
+                || s.endsWith("ches") || s.endsWith("shes"))) {
+            s = s.substring(0, s.length() - 2);
+        } else if (s.length() > 3 && s.endsWith("s") && !s.endsWith("ss") && !s.endsWith("us") && !s.endsWith("is")) {
+            s = s.substring(0, s.length() - 1);
+        }
+
+        String withoutEnding = null;
+        if (s.endsWith("ing") && hasVowel(s, s.length() - 3)) {
+            withoutEnding = s.substring(0, s.length() - 3);
+        } else if (s.endsWith("ed") && hasVowel(s, s.length() - 2)) {
+            withoutEnding = s.substring(0, s.length() - 2);
+        }
+        if (withoutEnding != null && withoutEnding.length() >= 3) {
+            s = undouble(withoutEnding);
+        }
+
+        if (s.length() > 7 && s.endsWith("ational")) {
+            s = s.substring(0, s.length() - 7) + "ate";
+        } else if (s.length() > 6 && s.endsWith("ation")) {
+            s = s.substring(0, s.length() - 5) + "ate";
+        } else if (s.length() > 7 && (s.endsWith("ness") || s.endsWith("ment"))) {
+            s = s.substring(0, s.length() - 4);
+        } else if (s.length() > 5 && s.endsWith("ly")) {
+            s = s.substring(0, s.length() - 2);
+        }
+        if (s.length() > 4 && s.endsWith("e")) {
+            s = s.substring(0, s.length() - 1);
+        }
+        return s.toLowerCase(Locale.ROOT);
+    }
+
+    private static boolean hasVowel(String s, int end) {
+        for (int i = 0; i < end; i++) {
+            if ("aeiouy".indexOf(s.charAt(i)) >= 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String undouble(String s) {
+        int n = s.length();
+        char last = s.charAt(n - 1);
+        if (s.charAt(n - 2) == last && "aeioulsz".indexOf(last) < 0) {
+            return s.substring(0, n - 1);
+        }
+        return s;
+    }
+}
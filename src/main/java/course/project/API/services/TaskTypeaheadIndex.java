@@ -0,0 +1,517 @@
+package course.project.API.services;
+
+import course.project.API.dto.board.TaskSuggestionDTO;
+import course.project.API.events.BoardEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Подсказки задач при вводе: триграммный индекс названий задач в памяти, по разделу на проект.
+ * Раздел загружается из БД при первом запросе к проекту и дальше обновляется событиями досок после коммита.
+ * Общий размер ограничен typeahead.max-tasks: при превышении выгружаются давно не использованные разделы.
+ * События, пришедшие во время загрузки раздела, повторяются на загруженном разделе
+ */
+@Service
+public class TaskTypeaheadIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(TaskTypeaheadIndex.class);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final BoardAccessIndex boardAccessIndex;
+    private final int maxTasks;
+    private final int maxResults;
+
+    private final Map<Long, Partition> partitions = new ConcurrentHashMap<>();
+    private final Map<Long, Long> boardProjects = new ConcurrentHashMap<>();
+    private final AtomicLong clock = new AtomicLong();
+    private final Object loadLock = new Object();
+    // Загрузки в процессе и события, пришедшие за время каждой из них; под loadLock
+    private final List<List<BoardEvent>> activeLoads = new ArrayList<>();
+
+    public TaskTypeaheadIndex(JdbcTemplate jdbcTemplate, BoardAccessIndex boardAccessIndex,
+                              @Value("${typeahead.max-tasks:300000}") int maxTasks,
+                              @Value("${typeahead.max-results:20}") int maxResults) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.boardAccessIndex = boardAccessIndex;
+        this.maxTasks = maxTasks;
+        this.maxResults = maxResults;
+    }
+
+    /**
+     * Задачи проекта на видимых пользователю досках, в названии которых есть query.
+     * Сначала названия, начинающиеся с query, затем с совпадением в начале слова, затем остальные;
+     * внутри — более короткие названия и более новые задачи. Два символа ищутся только в начале слов
+     */
+    public List<TaskSuggestionDTO> suggest(Long userId, Long projectId, String query, int limit) {
+        String normalized = normalize(query);
+        if (normalized.length() < 2) {
+            return List.of();
+        }
+        Set<Long> visibleBoardIds = boardAccessIndex.getVisibleBoardIds(userId);
+        if (!seesProjectBoard(visibleBoardIds, projectId)) {
+            // Чужой проект не загружается и не вытесняет разделы других проектов
+            return List.of();
+        }
+        return partition(projectId).search(normalized, visibleBoardIds, Math.max(1, Math.min(limit, maxResults)));
+    }
+
+    /**
+     * Видит ли пользователь хотя бы одну доску проекта. Для незагруженного раздела доски проекта
+     * читаются одним запросом по известным пользователю доскам
+     */
+    private boolean seesProjectBoard(Set<Long> visibleBoardIds, Long projectId) {
+        if (visibleBoardIds.isEmpty()) {
+            return false;
+        }
+        Partition partition = partitions.get(projectId);
+        if (partition != null) {
+            return visibleBoardIds.stream().anyMatch(partition.boards::contains);
+        }
+        List<Long> boardIds = new ArrayList<>(visibleBoardIds);
+        Integer count = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM boards WHERE project_id = ? AND id IN (%s)"
+                        .formatted(String.join(", ", Collections.nCopies(boardIds.size(), "?"))),
+                Integer.class, concat(projectId, boardIds));
+        return count != null && count > 0;
+    }
+
+    private static Object[] concat(Object first, List<Long> rest) {
+        Object[] args = new Object[rest.size() + 1];
+        args[0] = first;
+        for (int i = 0; i < rest.size(); i++) {
+            args[i + 1] = rest.get(i);
+        }
+        return args;
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onBoardEvent(BoardEvent event) {
+        synchronized (loadLock) {
+            activeLoads.forEach(events -> events.add(event));
+        }
+        Long projectId = event.getType() == BoardEvent.Type.BOARD_CREATED
+                ? event.getProjectId() : boardProjects.get(event.getBoardId());
+        Partition partition = projectId != null ? partitions.get(projectId) : null;
+        if (partition != null) {
+            apply(partition, event);
+        }
+    }
+
+    private Partition partition(Long projectId) {
+        Partition partition = partitions.get(projectId);
+        if (partition != null) {
+            partition.lastAccess = clock.incrementAndGet();
+            return partition;
+        }
+
+        List<BoardEvent> events = new ArrayList<>();
+        synchronized (loadLock) {
+            activeLoads.add(events);
+        }
+        Partition loaded = null;
+        List<BoardEvent> missed;
+        try {
+            loaded = load(projectId);
+        } finally {
+            synchronized (loadLock) {
+                // По ссылке: буферы параллельных загрузок могут быть равны (например, оба пусты)
+                activeLoads.removeIf(active -> active == events);
+                missed = new ArrayList<>(events);
+                if (loaded != null) {
+                    Partition existing = partitions.putIfAbsent(projectId, loaded);
+                    if (existing != null) {
+                        // Параллельная загрузка успела раньше и сама учла свои события
+                        loaded = existing;
+                        missed.clear();
+                    } else {
+                        loaded.boards.forEach(boardId -> boardProjects.put(boardId, projectId));
+                    }
+                }
+            }
+        }
+        for (BoardEvent event : missed) {
+            if (loaded.boards.contains(event.getBoardId()) || projectId.equals(event.getProjectId())) {
+                apply(loaded, event);
+            }
+        }
+        loaded.lastAccess = clock.incrementAndGet();
+        evictIfNeeded(projectId);
+        return loaded;
+    }
+
+    private Partition load(Long projectId) {
+        long started = System.currentTimeMillis();
+        Partition partition = new Partition(projectId);
+        partition.boards.addAll(jdbcTemplate.queryForList(
+                "SELECT id FROM boards WHERE project_id = ?", Long.class, projectId));
+        List<Object[]> rows = jdbcTemplate.query("""
+                        SELECT t.id, c.board_id, t.title
+                        FROM tasks t
+                        JOIN dashboard_columns c ON c.id = t.column_id
+                        JOIN boards b ON b.id = c.board_id
+                        WHERE b.project_id = ?
+                        ORDER BY t.id
+                        """,
+                (rs, rowNum) -> new Object[]{rs.getLong(1), rs.getLong(2), rs.getString(3)},
+                projectId);
+        for (Object[] row : rows) {
+            partition.put((Long) row[0], (Long) row[1], (String) row[2]);
+        }
+        logger.debug("Раздел подсказок проекта {} загружен: {} задач за {} мс",
+                projectId, rows.size(), System.currentTimeMillis() - started);
+        return partition;
+    }
+
+    private void evictIfNeeded(Long keepProjectId) {
+        long total = 0;
+        for (Partition partition : partitions.values()) {
+            total += partition.size();
+        }
+        while (total > maxTasks && partitions.size() > 1) {
+            Partition oldest = partitions.values().stream()
+                    .filter(partition -> !partition.projectId.equals(keepProjectId))
+                    .min(Comparator.comparingLong(partition -> partition.lastAccess))
+                    .orElse(null);
+            if (oldest == null || partitions.remove(oldest.projectId) == null) {
+                break;
+            }
+            oldest.boards.forEach(boardId -> boardProjects.remove(boardId, oldest.projectId));
+            total -= oldest.size();
+        }
+    }
+
+    private void apply(Partition partition, BoardEvent event) {
+        try {
+            switch (event.getType()) {
+                case TASK_CHANGED, TASKS_CHANGED -> reload(partition, event.getEntityIds());
+                case TASK_DELETED -> event.getEntityIds().forEach(partition::remove);
+                case COLUMN_TASKS_CHANGED, COLUMNS_CHANGED -> syncBoard(partition, event.getBoardId());
+                case BOARD_CREATED -> {
+                    partition.boards.add(event.getBoardId());
+                    boardProjects.put(event.getBoardId(), partition.projectId);
+                }
+                case BOARD_DELETED -> {
+                    partition.taskIdsOfBoard(event.getBoardId()).forEach(partition::remove);
+                    partition.boards.remove(event.getBoardId());
+                    boardProjects.remove(event.getBoardId());
+                }
+                default -> {
+                }
+            }
+        } catch (RuntimeException e) {
+            logger.warn("Не удалось обновить подсказки проекта {} по {}: {}", partition.projectId, event, e.getMessage());
+        }
+    }
+
+    /**
+     * Перечитывает названия задач. Удаленные и ушедшие в другой проект задачи убираются из раздела
+     */
+    private void reload(Partition partition, Collection<Long> taskIds) {
+        if (taskIds.isEmpty()) {
+            return;
+        }
+        List<Long> ids = new ArrayList<>(new LinkedHashSet<>(taskIds));
+        List<Object[]> rows = jdbcTemplate.query("""
+                        SELECT t.id, c.board_id, t.title
+                        FROM tasks t
+                        JOIN dashboard_columns c ON c.id = t.column_id
+                        WHERE t.id IN (%s)
+                        """.formatted(String.join(", ", Collections.nCopies(ids.size(), "?"))),
+                (rs, rowNum) -> new Object[]{rs.getLong(1), rs.getLong(2), rs.getString(3)},
+                ids.toArray());
+        Set<Long> missing = new HashSet<>(ids);
+        for (Object[] row : rows) {
+            Long taskId = (Long) row[0];
+            Long boardId = (Long) row[1];
+            missing.remove(taskId);
+            if (partition.boards.contains(boardId)) {
+                partition.put(taskId, boardId, (String) row[2]);
+            } else {
+                partition.remove(taskId);
+            }
+        }
+        missing.forEach(partition::remove);
+    }
+
+    /**
+     * Сверяет состав задач доски: названия при перемещениях не меняются, поэтому сравниваются только id
+     */
+    private void syncBoard(Partition partition, Long boardId) {
+        Set<Long> actual = new HashSet<>(jdbcTemplate.queryForList("""
+                SELECT t.id FROM tasks t
+                JOIN dashboard_columns c ON c.id = t.column_id
+                WHERE c.board_id = ?
+                """, Long.class, boardId));
+        Set<Long> indexed = partition.taskIdsOfBoard(boardId);
+        Set<Long> changed = new HashSet<>(actual);
+        changed.removeAll(indexed);
+        indexed.removeAll(actual);
+        changed.addAll(indexed);
+        reload(partition, changed);
+    }
+
+    /**
+     * Нижний регистр, ё = е, любые разделители — один пробел
+     */
+    static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        StringBuilder result = new StringBuilder(text.length());
+        boolean space = false;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                if (space && result.length() > 0) {
+                    result.append(' ');
+                }
+                space = false;
+                result.append(c == 'ё' || c == 'Ё' ? 'е' : Character.toLowerCase(c));
+            } else {
+                space = true;
+            }
+        }
+        return result.toString();
+    }
+
+    private static long trigram(String text, int start) {
+        return ((long) text.charAt(start) << 32) | ((long) text.charAt(start + 1) << 16) | text.charAt(start + 2);
+    }
+
+    /**
+     * Раздел проекта. Задачи нумеруются порядковыми номерами по мере добавления, поэтому списки триграмм
+     * отсортированы без лишних усилий. Изменение названия добавляет задачу под новым номером, старый
+     * номер становится пустым; когда пустых набирается четверть, списки пересобираются
+     */
+    static final class Partition {
+        final Long projectId;
+        final Set<Long> boards = ConcurrentHashMap.newKeySet();
+        volatile long lastAccess;
+
+        private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+        private final List<Entry> entries = new ArrayList<>();
+        private final Map<Long, Integer> ordinals = new HashMap<>();
+        private final Map<Long, IntList> postings = new HashMap<>();
+        private int removed;
+
+        Partition(Long projectId) {
+            this.projectId = projectId;
+        }
+
+        int size() {
+            lock.readLock().lock();
+            try {
+                return entries.size();
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        void put(Long taskId, Long boardId, String title) {
+            String normalized = normalize(title);
+            lock.writeLock().lock();
+            try {
+                Integer current = ordinals.get(taskId);
+                if (current != null) {
+                    Entry entry = entries.get(current);
+                    if (entry.boardId.equals(boardId) && entry.normalized.equals(normalized)) {
+                        entries.set(current, new Entry(taskId, boardId, title, normalized));
+                        return;
+                    }
+                    entries.set(current, null);
+                    removed++;
+                }
+                add(new Entry(taskId, boardId, title, normalized));
+                compactIfNeeded();
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        void remove(Long taskId) {
+            lock.writeLock().lock();
+            try {
+                Integer current = ordinals.remove(taskId);
+                if (current != null) {
+                    entries.set(current, null);
+                    removed++;
+                    compactIfNeeded();
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        Set<Long> taskIdsOfBoard(Long boardId) {
+            Set<Long> result = new HashSet<>();
+            lock.readLock().lock();
+            try {
+                for (Entry entry : entries) {
+                    if (entry != null && entry.boardId.equals(boardId)) {
+                        result.add(entry.taskId);
+                    }
+                }
+            } finally {
+                lock.readLock().unlock();
+            }
+            return result;
+        }
+
+        List<TaskSuggestionDTO> search(String query, Set<Long> visibleBoardIds, int limit) {
+            // Два символа — только начало слова: триграмма с предшествующим пробелом
+            String pattern = query.length() == 2 ? " " + query : query;
+            PriorityQueue<Match> best = new PriorityQueue<>(limit + 1, Match.ORDER.reversed());
+            lock.readLock().lock();
+            try {
+                IntList[] lists = new IntList[pattern.length() - 2];
+                for (int i = 0; i < lists.length; i++) {
+                    lists[i] = postings.get(trigram(pattern, i));
+                    if (lists[i] == null) {
+                        return List.of();
+                    }
+                }
+                Arrays.sort(lists, Comparator.comparingInt(list -> list.size));
+                IntList shortest = lists[0];
+                for (int i = 0; i < shortest.size; i++) {
+                    int ordinal = shortest.values[i];
+                    boolean inAll = true;
+                    for (int j = 1; j < lists.length && inAll; j++) {
+                        inAll = lists[j].contains(ordinal);
+                    }
+                    Entry entry = inAll ? entries.get(ordinal) : null;
+                    if (entry == null || !visibleBoardIds.contains(entry.boardId)) {
+                        continue;
+                    }
+                    int rank = rank(entry.normalized, query);
+                    if (rank < 0) {
+                        continue;
+                    }
+                    best.add(new Match(entry, rank));
+                    if (best.size() > limit) {
+                        best.poll();
+                    }
+                }
+            } finally {
+                lock.readLock().unlock();
+            }
+            List<Match> matches = new ArrayList<>(best);
+            matches.sort(Match.ORDER);
+            return matches.stream()
+                    .map(match -> new TaskSuggestionDTO(match.entry.taskId, match.entry.title, match.entry.boardId))
+                    .toList();
+        }
+
+        /**
+         * 0 — название начинается с запроса, 1 — совпадение с начала слова, 2 — внутри слова, -1 — нет совпадения
+         */
+        private static int rank(String title, String query) {
+            if (title.startsWith(query)) {
+                return 0;
+            }
+            if (title.contains(" " + query)) {
+                return 1;
+            }
+            return query.length() > 2 && title.contains(query) ? 2 : -1;
+        }
+
+        private void add(Entry entry) {
+            int ordinal = entries.size();
+            entries.add(entry);
+            ordinals.put(entry.taskId, ordinal);
+            String padded = " " + entry.normalized;
+            Set<Long> seen = new HashSet<>();
+            for (int i = 0; i + 3 <= padded.length(); i++) {
+                long key = trigram(padded, i);
+                if (seen.add(key)) {
+                    postings.computeIfAbsent(key, k -> new IntList()).add(ordinal);
+                }
+            }
+        }
+
+        private void compactIfNeeded() {
+            if (removed < 1024 || removed * 4 < entries.size()) {
+                return;
+            }
+            List<Entry> live = new ArrayList<>(entries.size() - removed);
+            for (Entry entry : entries) {
+                if (entry != null) {
+                    live.add(entry);
+                }
+            }
+            entries.clear();
+            ordinals.clear();
+            postings.clear();
+            removed = 0;
+            live.forEach(this::add);
+        }
+    }
+
+    private static final class Entry {
+        final Long taskId;
+        final Long boardId;
+        final String title;
+        final String normalized;
+
+        Entry(Long taskId, Long boardId, String title, String normalized) {
+            this.taskId = taskId;
+            this.boardId = boardId;
+            this.title = title;
+            this.normalized = normalized;
+        }
+    }
+
+    private static final class Match {
+        static final Comparator<Match> ORDER = Comparator
+                .comparingInt((Match match) -> match.rank)
+                .thenComparingInt(match -> match.entry.normalized.length())
+                .thenComparing(match -> match.entry.taskId, Comparator.reverseOrder());
+
+        final Entry entry;
+        final int rank;
+
+        Match(Entry entry, int rank) {
+            this.entry = entry;
+            this.rank = rank;
+        }
+    }
+
+    /**
+     * Возрастающий список порядковых номеров без упаковки в Integer
+     */
+    private static final class IntList {
+        int[] values = new int[4];
+        int size;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        boolean contains(int value) {
+            return Arrays.binarySearch(values, 0, size, value) >= 0;
+        }
+    }
+}
@@ -0,0 +1,2 @@
+-- Ключ постраничного поиска задач: (end_date, id)
+CREATE INDEX idx_tasks_end_date_id ON tasks (end_date, id);
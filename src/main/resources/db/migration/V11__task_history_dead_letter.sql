@@ -0,0 +1,17 @@
+-- Записи истории, которые не удалось вставить за history.writer.max-attempts попыток.
+-- task_snapshot — полный JSON задачи до кодирования в цепочку: запись можно повторить вручную.
+CREATE TABLE task_history_dead_letter (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    action_type VARCHAR(255) NOT NULL,
+    timestamp DATETIME(6) NOT NULL,
+    user_id BIGINT NULL,
+    task_id BIGINT NULL,
+    task_ref_id BIGINT NULL,
+    board_id BIGINT NOT NULL,
+    task_snapshot TEXT NULL,
+    attempts INT NOT NULL,
+    error VARCHAR(1000) NULL,
+    failed_at DATETIME(6) NOT NULL
+);
+
+CREATE INDEX idx_task_history_dead_letter_task ON task_history_dead_letter (task_ref_id, timestamp);
@@ -0,0 +1,25 @@
+-- Номер версии задачи уникален: две записи с одинаковым (task_ref_id, version_no) ломают цепочку патчей.
+-- Раньше кодек мог выдать уже занятый номер (вытесненный кэш, несколько экземпляров приложения),
+-- теперь такая вставка отклоняется и писатель истории перекодирует запись с актуальным номером.
+
+-- Уже записанные совпадения перенумеровываются по порядку (version_no, id) внутри задачи,
+-- начиная с ее первой сохранившейся версии
+UPDATE task_history h
+JOIN (
+    SELECT id, MIN(version_no) OVER (PARTITION BY task_ref_id) - 1
+               + ROW_NUMBER() OVER (PARTITION BY task_ref_id ORDER BY version_no, id) AS renumbered
+    FROM task_history
+    WHERE version_no > 0 AND task_ref_id IN (
+        SELECT task_ref_id FROM (
+            SELECT task_ref_id FROM task_history
+            WHERE task_ref_id IS NOT NULL AND version_no > 0
+            GROUP BY task_ref_id, version_no
+            HAVING COUNT(*) > 1
+        ) duplicated
+    )
+) chain ON chain.id = h.id
+SET h.version_no = chain.renumbered;
+
+DROP INDEX idx_task_history_ref_version ON task_history;
+
+CREATE UNIQUE INDEX uk_task_history_ref_version ON task_history (task_ref_id, version_no);
@@ -0,0 +1,7 @@
+-- Материализованное число задач в колонке для расчета процента выполнения без загрузки задач
+ALTER TABLE dashboard_columns
+ADD COLUMN task_count INT NOT NULL DEFAULT 0;
+
+-- Заполняем счетчики для уже существующих колонок
+UPDATE dashboard_columns c
+SET c.task_count = (SELECT COUNT(*) FROM tasks t WHERE t.column_id = c.id);
@@ -0,0 +1,2 @@
+-- Индекс для выборки первых задач колонки и keyset-пагинации по position
+CREATE INDEX idx_tasks_column_position ON tasks (column_id, position, id);
@@ -0,0 +1,15 @@
+-- Перевод позиций в разреженные ранги с шагом 1024: задачи в колонке, колонки на доске, пункты чек-листа
+UPDATE tasks t
+JOIN (SELECT id, ROW_NUMBER() OVER (PARTITION BY column_id ORDER BY position IS NULL, position, id) AS rn
+      FROM tasks) r ON r.id = t.id
+SET t.position = r.rn * 1024;
+
+UPDATE dashboard_columns c
+JOIN (SELECT id, ROW_NUMBER() OVER (PARTITION BY board_id ORDER BY position IS NULL, position, id) AS rn
+      FROM dashboard_columns) r ON r.id = c.id
+SET c.position = r.rn * 1024;
+
+UPDATE checklist_items i
+JOIN (SELECT id, ROW_NUMBER() OVER (PARTITION BY task_id ORDER BY position IS NULL, position, id) AS rn
+      FROM checklist_items) r ON r.id = i.id
+SET i.position = r.rn * 1024;
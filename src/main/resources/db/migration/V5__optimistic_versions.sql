@@ -0,0 +1,3 @@
+-- Версии для оптимистической блокировки задач и колонок
+ALTER TABLE tasks ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE dashboard_columns ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
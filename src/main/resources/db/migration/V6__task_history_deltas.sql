@@ -0,0 +1,23 @@
+-- История задач хранится как цепочка изменений: полный снимок только в контрольных точках,
+-- в остальных строках — JSON merge patch относительно предыдущей версии той же задачи.
+-- task_ref_id повторяет task_id, но не обнуляется при удалении задачи, чтобы цепочка оставалась читаемой.
+ALTER TABLE task_history
+    ADD COLUMN task_ref_id BIGINT NULL,
+    ADD COLUMN version_no INT NULL,
+    ADD COLUMN checkpoint BOOLEAN NOT NULL DEFAULT FALSE,
+    ADD COLUMN diff_json TEXT NULL,
+    MODIFY task_snapshot TEXT NULL;
+
+UPDATE task_history SET task_ref_id = task_id WHERE task_id IS NOT NULL;
+
+-- Строки удаленных задач без идентификатора остаются полными снимками вне цепочек
+UPDATE task_history SET version_no = 0, checkpoint = TRUE WHERE task_id IS NULL;
+
+CREATE INDEX idx_task_history_ref_version ON task_history (task_ref_id, version_no);
+
+-- Остальные старые строки (version_no IS NULL) сжимает TaskHistoryCodec.compactLegacy в фоне.
+-- Объем до и после можно сравнить запросом:
+-- SELECT version_no IS NULL AS legacy, COUNT(*),
+--        SUM(COALESCE(LENGTH(old_task_json), 0) + COALESCE(LENGTH(new_task_json), 0)
+--            + COALESCE(LENGTH(task_snapshot), 0) + COALESCE(LENGTH(diff_json), 0)) AS bytes
+-- FROM task_history GROUP BY legacy;
@@ -0,0 +1,4 @@
+-- Keyset-пагинация истории по (timestamp, id) от новых к старым.
+-- Индекс доски покрывает краткий режим без JSON: первая страница читается из индекса независимо от длины истории
+CREATE INDEX idx_task_history_board_ts ON task_history (board_id, timestamp, id, action_type, task_id, user_id);
+CREATE INDEX idx_task_history_task_ts ON task_history (task_id, timestamp, id);
@@ -0,0 +1,15 @@
+-- Периодические снимки доски для восстановления ее состояния на момент времени.
+-- snapshot — gzip JSON {"<taskId>": {"v": <version_no>, "s": <JSON задачи>}} по всем живым задачам доски
+-- на момент as_of. Состояние на момент T = ближайший снимок с as_of <= T плюс строки task_history
+-- доски с timestamp в (as_of, T].
+CREATE TABLE board_history_checkpoints (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    board_id BIGINT NOT NULL,
+    as_of DATETIME(6) NOT NULL,
+    task_count INT NOT NULL,
+    history_rows INT NOT NULL,
+    snapshot LONGBLOB NOT NULL,
+    CONSTRAINT fk_board_history_checkpoints_board FOREIGN KEY (board_id) REFERENCES boards (id) ON DELETE CASCADE
+);
+
+CREATE INDEX idx_board_history_checkpoints_board_as_of ON board_history_checkpoints (board_id, as_of);
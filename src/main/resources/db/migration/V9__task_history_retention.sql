@@ -0,0 +1,27 @@
+-- Политика хранения истории задач по проектам. NULL — значение по умолчанию из конфигурации,
+-- 0 — шаг отключен для проекта.
+-- collapse_after_days: изменения задачи за один день старше порога схлопываются в одну контрольную точку.
+-- archive_after_days: строки старше порога переносятся в сжатые файлы сегментов архива.
+CREATE TABLE project_history_policies (
+    project_id BIGINT PRIMARY KEY,
+    collapse_after_days INT NULL,
+    archive_after_days INT NULL,
+    CONSTRAINT fk_project_history_policies_project FOREIGN KEY (project_id) REFERENCES projects (id) ON DELETE CASCADE
+);
+
+-- Индекс архива истории. Сегмент — файл, в который только дописываются блоки (gzip-члены с JSON-строками
+-- записей истории одной доски). Строка индекса — пара (блок, задача) с диапазоном времени ее записей в блоке.
+CREATE TABLE task_history_archive (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    board_id BIGINT NOT NULL,
+    task_ref_id BIGINT NULL,
+    segment VARCHAR(255) NOT NULL,
+    block_offset BIGINT NOT NULL,
+    block_length INT NOT NULL,
+    first_timestamp DATETIME(6) NOT NULL,
+    last_timestamp DATETIME(6) NOT NULL,
+    row_count INT NOT NULL
+);
+
+CREATE INDEX idx_task_history_archive_board ON task_history_archive (board_id, last_timestamp);
+CREATE INDEX idx_task_history_archive_task ON task_history_archive (task_ref_id, last_timestamp);
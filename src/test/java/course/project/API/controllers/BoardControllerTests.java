@@ -0,0 +1,125 @@
+package course.project.API.controllers;
+
+import course.project.API.dto.board.BoardWithColumnsDTO;
+import course.project.API.models.BoardRight;
+import course.project.API.models.User;
+import course.project.API.services.BoardChangeLog;
+import course.project.API.services.BoardExportService;
+import course.project.API.services.BoardHistoryService;
+import course.project.API.services.BoardReadModel;
+import course.project.API.services.BoardRightService;
+import course.project.API.services.BoardService;
+import course.project.API.services.BoardSnapshotCache;
+import course.project.API.services.BoardSyncService;
+import course.project.API.services.ProjectRightService;
+import course.project.API.services.ProjectService;
+import course.project.API.services.WebSocketService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * GET доски с If-None-Match: 304 без сборки снимка, пока версия доски не изменилась,
+ * и новый ETag после изменения
+ */
+class BoardControllerTests {
+
+    private static final Long BOARD_ID = 10L;
+
+    private BoardService boardService;
+    private BoardSnapshotCache snapshotCache;
+    private BoardChangeLog changeLog;
+    private BoardController boardController;
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        boardService = mock(BoardService.class);
+        BoardRightService boardRightService = mock(BoardRightService.class);
+        when(boardRightService.hasBoardRight(anyLong(), anyLong(), any(BoardRight.class))).thenReturn(true);
+        snapshotCache = new BoardSnapshotCache(100, 300);
+        changeLog = new BoardChangeLog(snapshotCache, 100);
+        BoardReadModel readModel = new BoardReadModel(boardService, snapshotCache, changeLog, 1800, 5);
+        boardController = new BoardController(boardService, boardRightService, mock(ProjectRightService.class),
+                mock(ProjectService.class), mock(WebSocketService.class), snapshotCache, readModel,
+                new BoardSyncService(readModel, snapshotCache, changeLog),
+                mock(BoardExportService.class), mock(BoardHistoryService.class));
+        user = new User("user", "password", "User");
+        user.setId(1L);
+        when(boardService.getBoardWithDetails(BOARD_ID)).thenReturn(board());
+        when(boardService.getBoardWithDetails(BOARD_ID, 20)).thenReturn(board());
+    }
+
+    @Test
+    void matchingETagReturnsNotModifiedWithoutLoadingTheBoard() {
+        ResponseEntity<?> first = boardController.getBoardById(BOARD_ID, null, null, user);
+        String eTag = first.getHeaders().getETag();
+
+        ResponseEntity<?> second = boardController.getBoardById(BOARD_ID, null, eTag, user);
+        ResponseEntity<?> weak = boardController.getBoardById(BOARD_ID, null, "W/" + eTag, user);
+        ResponseEntity<?> listed = boardController.getBoardById(BOARD_ID, null, "\"other\", " + eTag, user);
+
+        assertEquals(HttpStatus.OK, first.getStatusCode());
+        assertNotNull(first.getBody());
+        assertEquals(String.valueOf(snapshotCache.getVersion(BOARD_ID)), first.getHeaders().getFirst("X-Board-Version"));
+        assertEquals(HttpStatus.NOT_MODIFIED, second.getStatusCode());
+        assertEquals(eTag, second.getHeaders().getETag());
+        assertNull(second.getBody());
+        assertEquals(HttpStatus.NOT_MODIFIED, weak.getStatusCode());
+        assertEquals(HttpStatus.NOT_MODIFIED, listed.getStatusCode());
+        verify(boardService, times(1)).getBoardWithDetails(BOARD_ID);
+    }
+
+    @Test
+    void changeOfTheBoardInvalidatesTheETag() {
+        ResponseEntity<?> first = boardController.getBoardById(BOARD_ID, null, null, user);
+        String eTag = first.getHeaders().getETag();
+        long version = snapshotCache.getVersion(BOARD_ID);
+
+        changeLog.recordResync(BOARD_ID);
+        ResponseEntity<?> second = boardController.getBoardById(BOARD_ID, null, eTag, user);
+
+        assertEquals(HttpStatus.OK, second.getStatusCode());
+        assertNotEquals(eTag, second.getHeaders().getETag());
+        assertEquals(String.valueOf(version + 1), second.getHeaders().getFirst("X-Board-Version"));
+        verify(boardService, times(2)).getBoardWithDetails(BOARD_ID);
+    }
+
+    @Test
+    void fullAndTruncatedSnapshotsDoNotShareETags() {
+        String full = boardController.getBoardById(BOARD_ID, null, null, user).getHeaders().getETag();
+
+        ResponseEntity<?> truncated = boardController.getBoardById(BOARD_ID, 20, full, user);
+        ResponseEntity<?> again = boardController.getBoardById(BOARD_ID, 20, truncated.getHeaders().getETag(), user);
+
+        assertEquals(HttpStatus.OK, truncated.getStatusCode());
+        assertNotEquals(full, truncated.getHeaders().getETag());
+        assertEquals(HttpStatus.NOT_MODIFIED, again.getStatusCode());
+        verify(boardService, times(1)).getBoardWithDetails(BOARD_ID, 20);
+    }
+
+    private static BoardWithColumnsDTO board() {
+        BoardWithColumnsDTO board = new BoardWithColumnsDTO();
+        board.setId(BOARD_ID);
+        board.setTitle("Доска");
+        board.setTags(new HashSet<>());
+        board.setParticipants(new HashSet<>());
+        board.setColumns(new ArrayList<>());
+        return board;
+    }
+}
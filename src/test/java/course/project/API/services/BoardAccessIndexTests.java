@@ -0,0 +1,79 @@
+package course.project.API.services;
+
+import course.project.API.events.BoardEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Индекс доступа: множество досок пользователя читается из БД один раз,
+ * а затем правится событиями досок без повторного чтения всех прав пользователя
+ */
+class BoardAccessIndexTests {
+
+    private JdbcTemplate jdbcTemplate;
+    private BoardAccessIndex index;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = mock(JdbcTemplate.class);
+        index = new BoardAccessIndex(jdbcTemplate, 1000);
+        when(jdbcTemplate.queryForList(contains("WHERE user_id = ?"), eq(Long.class), eq(1L)))
+                .thenReturn(List.of(10L, 20L));
+        when(jdbcTemplate.queryForList(contains("WHERE user_id = ?"), eq(Long.class), eq(2L)))
+                .thenReturn(List.of(20L));
+    }
+
+    @Test
+    void visibleBoardsAreLoadedOnce() {
+        assertEquals(Set.of(10L, 20L), index.getVisibleBoardIds(1L));
+        assertEquals(Set.of(10L, 20L), index.getVisibleBoardIds(1L));
+
+        verify(jdbcTemplate, times(1)).queryForList(anyString(), eq(Long.class), eq(1L));
+    }
+
+    @Test
+    void boardEventsGrantAndRevokeAccess() {
+        index.getVisibleBoardIds(1L);
+        index.getVisibleBoardIds(2L);
+        when(jdbcTemplate.queryForList(contains("WHERE board_id = ?"), eq(Long.class), eq(10L)))
+                .thenReturn(List.of(2L));
+
+        index.onBoardEvent(BoardEvent.boardChanged(10L));
+
+        assertEquals(Set.of(20L), index.getVisibleBoardIds(1L));
+        assertEquals(Set.of(10L, 20L), index.getVisibleBoardIds(2L));
+
+        index.onBoardEvent(new BoardEvent(BoardEvent.Type.BOARD_DELETED, 20L, 5L, null));
+
+        assertEquals(Set.of(), index.getVisibleBoardIds(1L));
+        assertEquals(Set.of(10L), index.getVisibleBoardIds(2L));
+    }
+
+    @Test
+    void loadRacingWithAccessChangeIsNotCached() {
+        when(jdbcTemplate.queryForList(contains("WHERE user_id = ?"), eq(Long.class), eq(3L)))
+                .thenAnswer(invocation -> {
+                    // Права доски изменились, пока читалось множество пользователя
+                    index.onBoardEvent(BoardEvent.boardChanged(30L));
+                    return List.of(10L);
+                });
+
+        assertEquals(Set.of(10L), index.getVisibleBoardIds(3L));
+        index.getVisibleBoardIds(3L);
+
+        verify(jdbcTemplate, times(2)).queryForList(anyString(), eq(Long.class), eq(3L));
+    }
+}
@@ -0,0 +1,206 @@
+package course.project.API.services;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import course.project.API.dto.board.TaskHistoryDTO;
+import course.project.API.models.TaskHistory;
+import course.project.API.models.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.file.Path;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Выгрузка истории доски: старый и новый JSON восстанавливаются из цепочки версий без обращений к БД
+ * во время потоковой выборки, архивные записи попадают в раздел archivedHistory
+ */
+class BoardExportServiceTests {
+
+    private static final Long BOARD_ID = 10L;
+    private static final LocalDateTime START = LocalDateTime.of(2025, 3, 1, 12, 0);
+
+    @TempDir
+    Path directory;
+
+    private JdbcTemplate jdbcTemplate;
+    private JdbcTemplate archiveJdbcTemplate;
+    private JdbcTemplate codecJdbcTemplate;
+    private TaskHistoryCodec codec;
+    private TaskHistoryArchive archive;
+    private BoardExportService exportService;
+    private User user;
+    private final List<Object[]> historyRows = new ArrayList<>();
+    private final List<Object[]> gaps = new ArrayList<>();
+    private final Map<Integer, String> storedStates = new HashMap<>();
+    private boolean streaming;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() throws SQLException {
+        jdbcTemplate = mock(JdbcTemplate.class);
+        archiveJdbcTemplate = mock(JdbcTemplate.class);
+        codecJdbcTemplate = mock(JdbcTemplate.class);
+        // Запросы кодека к пулу: разрывы цепочек и восстановление состояния по контрольной точке
+        when(codecJdbcTemplate.query(anyString(), any(RowMapper.class), any(Object[].class))).thenAnswer(invocation -> {
+            assertFalse(streaming, "Обращение к БД во время потоковой выборки истории");
+            String sql = invocation.getArgument(0);
+            if (sql.contains("LAG(version_no)")) {
+                return gaps;
+            }
+            if (sql.contains("checkpoint = TRUE")) {
+                int versionNo = (Integer) invocation.getArguments()[invocation.getArguments().length - 1];
+                return storedStates.containsKey(versionNo)
+                        ? List.<Object[]>of(new Object[]{versionNo, storedStates.get(versionNo)}) : List.of();
+            }
+            return List.of();
+        });
+        codec = new TaskHistoryCodec(codecJdbcTemplate, mock(PlatformTransactionManager.class), 20, 100, 200);
+        archive = new TaskHistoryArchive(archiveJdbcTemplate, directory.toString());
+        exportService = new BoardExportService(jdbcTemplate, new ObjectMapper(), codec, archive);
+        user = new User("user", "password", "User");
+        user.setId(1L);
+
+        ResultSet boardRow = resultSet(new Object[]{BOARD_ID});
+        ResultSetMetaData metaData = mock(ResultSetMetaData.class);
+        when(metaData.getColumnCount()).thenReturn(1);
+        when(metaData.getColumnLabel(1)).thenReturn("id");
+        when(boardRow.getMetaData()).thenReturn(metaData);
+        doAnswer(invocation -> {
+            String sql = invocation.getArgument(0);
+            RowCallbackHandler handler = invocation.getArgument(1);
+            if (sql.contains("FROM boards WHERE id")) {
+                handler.processRow(boardRow);
+            } else if (sql.contains("FROM task_history")) {
+                streaming = true;
+                for (Object[] row : historyRows) {
+                    handler.processRow(resultSet(row));
+                }
+                streaming = false;
+            }
+            return null;
+        }).when(jdbcTemplate).query(anyString(), any(RowCallbackHandler.class), any(Object[].class));
+    }
+
+    @Test
+    void historyWrittenAsVersionChainIsExportedWithOldAndNewJson() throws Exception {
+        // Записи в новом формате: первая — контрольная точка, дальше только патчи
+        addHistory(1L, "CREATE", "{\"id\":5,\"title\":\"Черновик\",\"description\":null}", 0);
+        addHistory(2L, "UPDATE", "{\"id\":5,\"title\":\"Релиз\",\"description\":null}", 1);
+        addHistory(3L, "UPDATE", "{\"id\":5,\"title\":\"Релиз\",\"description\":\"Собрать\"}", 2);
+
+        JsonNode history = export().get("history");
+
+        assertEquals(3, history.size());
+        assertTrue(history.get(0).get("oldTaskJson").isNull());
+        assertEquals("Черновик", title(history.get(0).get("newTaskJson")));
+        assertEquals("Черновик", title(history.get(1).get("oldTaskJson")));
+        assertEquals("Релиз", title(history.get(1).get("newTaskJson")));
+        assertEquals("Собрать", new ObjectMapper().readTree(history.get(2).get("newTaskJson").asText())
+                .get("description").asText());
+        assertEquals(START.plusMinutes(2).toString(), history.get(2).get("timestamp").asText());
+    }
+
+    @Test
+    void chainGapIsFilledBeforeStreamingFromTheStateWithOtherBoardVersions() throws Exception {
+        addHistory(1L, "CREATE", "{\"id\":5,\"title\":\"Черновик\",\"description\":null}", 0);
+        // Версия 2 записана, пока задача была на другой доске, и в выгрузку этой доски не попадает
+        codec.encode(new TaskHistory("UPDATE", user, 5L, 20L, null, null,
+                "{\"id\":5,\"title\":\"На другой доске\",\"description\":null}"));
+        addHistory(3L, "UPDATE", "{\"id\":5,\"title\":\"Вернулась\",\"description\":null}", 2);
+        gaps.add(new Object[]{5L, 3});
+        storedStates.put(2, "{\"id\":5,\"title\":\"На другой доске\",\"description\":null}");
+
+        JsonNode history = export().get("history");
+
+        assertEquals(2, history.size());
+        assertEquals("На другой доске", title(history.get(1).get("oldTaskJson")));
+        assertEquals("Вернулась", title(history.get(1).get("newTaskJson")));
+    }
+
+    @Test
+    void chainGapWithoutPreloadedStateIsExportedWithoutOldJsonAndWithoutQueries() throws Exception {
+        addHistory(1L, "CREATE", "{\"id\":5,\"title\":\"Черновик\",\"description\":null}", 0);
+        codec.encode(new TaskHistory("UPDATE", user, 5L, 20L, null, null,
+                "{\"id\":5,\"title\":\"На другой доске\",\"description\":null}"));
+        addHistory(3L, "UPDATE", "{\"id\":5,\"title\":\"Вернулась\",\"description\":null}", 2);
+        addHistory(4L, "UPDATE", "{\"id\":5,\"title\":\"Готово\",\"description\":null}", 3);
+
+        JsonNode history = export().get("history");
+
+        assertEquals(3, history.size());
+        // Патчи поверх неизвестного состояния не восстанавливаются до следующей контрольной точки
+        assertTrue(history.get(1).get("oldTaskJson").isNull());
+        assertTrue(history.get(1).get("newTaskJson").isNull());
+        assertTrue(history.get(2).get("newTaskJson").isNull());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void archivedHistoryIsExportedSeparately() throws Exception {
+        TaskHistoryDTO archived = new TaskHistoryDTO(new TaskHistory("UPDATE", user, 5L, BOARD_ID,
+                "{\"title\":\"v0\"}", "{\"title\":\"v1\"}", "{\"title\":\"v1\"}"));
+        archived.setId(100L);
+        TaskHistoryArchive.Block block = archive.append(BOARD_ID,
+                List.of(new TaskHistoryArchive.ArchivedRow(archived, 5L)));
+        when(archiveJdbcTemplate.query(anyString(), any(RowMapper.class), any(Object[].class)))
+                .thenReturn(List.of(new TaskHistoryArchive.BlockRef(block.segment, block.offset, block.length, START)));
+
+        JsonNode archivedHistory = export().get("archivedHistory");
+
+        assertEquals(1, archivedHistory.size());
+        assertEquals(100L, archivedHistory.get(0).get("id").asLong());
+        assertEquals("v0", title(archivedHistory.get(0).get("oldTaskJson")));
+        assertEquals("v1", title(archivedHistory.get(0).get("newTaskJson")));
+    }
+
+    private JsonNode export() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        exportService.exportBoardJson(BOARD_ID, out);
+        return new ObjectMapper().readTree(out.toByteArray());
+    }
+
+    private void addHistory(Long id, String actionType, String snapshot, int minute) {
+        TaskHistory history = new TaskHistory(actionType, user, 5L, BOARD_ID, null, null, snapshot);
+        codec.encode(history);
+        historyRows.add(new Object[]{id, 5L, 5L, 1L, actionType, Timestamp.valueOf(START.plusMinutes(minute)),
+                history.getVersionNo(), history.isCheckpoint(), history.getTaskSnapshot(), history.getDiffJson(),
+                history.getOldTaskJson(), history.getNewTaskJson()});
+    }
+
+    private static String title(JsonNode json) throws Exception {
+        return new ObjectMapper().readTree(json.asText()).get("title").asText();
+    }
+
+    private static ResultSet resultSet(Object[] row) throws SQLException {
+        ResultSet rs = mock(ResultSet.class);
+        when(rs.getObject(anyInt())).thenAnswer(invocation -> row[(int) invocation.getArgument(0) - 1]);
+        when(rs.getString(anyInt())).thenAnswer(invocation -> (String) row[(int) invocation.getArgument(0) - 1]);
+        when(rs.getBoolean(anyInt())).thenAnswer(invocation -> Boolean.TRUE.equals(row[(int) invocation.getArgument(0) - 1]));
+        return rs;
+    }
+}
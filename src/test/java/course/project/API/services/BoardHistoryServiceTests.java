@@ -0,0 +1,181 @@
+package course.project.API.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import course.project.API.dto.board.BoardWithColumnsDTO;
+import course.project.API.dto.board.ColumnWithTasksDTO;
+import course.project.API.dto.board.TaskDTO;
+import course.project.API.models.Board;
+import course.project.API.models.ChecklistItem;
+import course.project.API.models.DashBoardColumn;
+import course.project.API.models.Task;
+import course.project.API.models.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Восстановление доски на момент времени: снимок доски плюс проигрывание строк истории после него
+ */
+class BoardHistoryServiceTests {
+
+    private static final int TASKS = 2000;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+    private User user;
+    private DashBoardColumn todo;
+    private DashBoardColumn done;
+
+    @BeforeEach
+    void setUp() {
+        user = new User("user", "password", "User");
+        user.setId(1L);
+        user.setName("User");
+        Board board = new Board();
+        board.setId(10L);
+        todo = new DashBoardColumn("To Do", board, RankService.STEP);
+        todo.setId(100L);
+        done = new DashBoardColumn("Done", board, 2 * RankService.STEP);
+        done.setId(101L);
+    }
+
+    @Test
+    void replaysDiffsAfterCheckpointAndDropsDeletedTasks() throws Exception {
+        Map<Long, BoardHistoryService.TaskState> tasks = new HashMap<>();
+        Task first = task(1L, todo);
+        Task second = task(2L, todo);
+        BoardHistoryService.apply(tasks, checkpointRow(first, 1, "CREATE"));
+        BoardHistoryService.apply(tasks, checkpointRow(second, 1, "CREATE"));
+        tasks = BoardHistoryService.decodeSnapshot(BoardHistoryService.encodeSnapshot(tasks));
+
+        String before = objectMapper.writeValueAsString(first);
+        first.setTitle("Renamed");
+        String after = objectMapper.writeValueAsString(first);
+        BoardHistoryService.apply(tasks, new BoardHistoryService.HistoryRow(1L, 2, false, "UPDATE",
+                TaskHistoryCodec.diff(objectMapper.readTree(before), objectMapper.readTree(after)).toString(),
+                null, null, null));
+        BoardHistoryService.apply(tasks, new BoardHistoryService.HistoryRow(2L, 2, false, "DELETE",
+                "{}", null, null, null));
+
+        BoardWithColumnsDTO board = board();
+        BoardHistoryService.fillTasks(board, tasks);
+
+        List<TaskDTO> todoTasks = new ArrayList<>(board.getColumns().get(0).getTasks());
+        assertEquals(1, todoTasks.size());
+        assertEquals("Renamed", todoTasks.get(0).getTitle());
+        assertEquals(LocalDateTime.of(2025, 1, 1, 10, 0), todoTasks.get(0).getStartDate());
+        assertEquals(3, todoTasks.get(0).getChecklist().size());
+        assertEquals("User", todoTasks.get(0).getParticipants().iterator().next().getName());
+    }
+
+    @Test
+    void gapInChainIsLeftForReconstruction() throws Exception {
+        Map<Long, BoardHistoryService.TaskState> tasks = new HashMap<>();
+        BoardHistoryService.apply(tasks, checkpointRow(task(1L, todo), 1, "CREATE"));
+
+        BoardHistoryService.apply(tasks, new BoardHistoryService.HistoryRow(1L, 5, false, "UPDATE",
+                "{\"title\":\"v5\"}", null, null, null));
+
+        assertEquals(5, tasks.get(1L).versionNo);
+        assertEquals(null, tasks.get(1L).node);
+    }
+
+    @Test
+    void tasksOfDeletedColumnsGoToSeparateColumn() throws Exception {
+        Map<Long, BoardHistoryService.TaskState> tasks = new HashMap<>();
+        DashBoardColumn removed = new DashBoardColumn("Removed", todo.getBoard(), 3 * RankService.STEP);
+        removed.setId(999L);
+        BoardHistoryService.apply(tasks, checkpointRow(task(1L, removed), 1, "CREATE"));
+        BoardHistoryService.apply(tasks, checkpointRow(task(2L, done), 1, "CREATE"));
+
+        BoardWithColumnsDTO board = board();
+        BoardHistoryService.fillTasks(board, tasks);
+
+        assertEquals(3, board.getColumns().size());
+        ColumnWithTasksDTO last = board.getColumns().get(2);
+        assertEquals(BoardHistoryService.DELETED_COLUMN_NAME, last.getName());
+        assertEquals(999L, last.getId());
+        assertEquals(50.0, board.getCompletionPercentage());
+    }
+
+    @Test
+    void coldRebuildOfLargeBoardFromCheckpoint() throws Exception {
+        Map<Long, BoardHistoryService.TaskState> state = new HashMap<>();
+        List<Task> tasks = new ArrayList<>();
+        for (long id = 1; id <= TASKS; id++) {
+            Task task = task(id, id % 4 == 0 ? done : todo);
+            tasks.add(task);
+            BoardHistoryService.apply(state, checkpointRow(task, 1, "CREATE"));
+        }
+        byte[] snapshot = BoardHistoryService.encodeSnapshot(state);
+        // Строки истории после снимка: до порога следующего снимка
+        List<BoardHistoryService.HistoryRow> rows = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            Task task = tasks.get(i);
+            String before = objectMapper.writeValueAsString(task);
+            task.setTitle("Task " + task.getId() + " changed");
+            task.setPosition(task.getPosition() + 1);
+            String after = objectMapper.writeValueAsString(task);
+            rows.add(new BoardHistoryService.HistoryRow(task.getId(), 2, false, "UPDATE",
+                    TaskHistoryCodec.diff(objectMapper.readTree(before), objectMapper.readTree(after)).toString(),
+                    null, null, null));
+        }
+
+        Map<Long, BoardHistoryService.TaskState> rebuilt = BoardHistoryService.decodeSnapshot(snapshot);
+        rows.forEach(row -> BoardHistoryService.apply(rebuilt, row));
+        BoardWithColumnsDTO board = board();
+        BoardHistoryService.fillTasks(board, rebuilt);
+
+        assertEquals(TASKS, board.getColumns().stream().mapToInt(ColumnWithTasksDTO::getTaskCount).sum());
+        assertEquals(25.0, board.getCompletionPercentage());
+        assertTrue(board.getColumns().get(0).getTasks().stream().anyMatch(t -> t.getTitle().endsWith("changed")));
+        assertFalse(board.getColumns().get(0).isHasMoreTasks());
+    }
+
+    private BoardHistoryService.HistoryRow checkpointRow(Task task, int version, String actionType) throws Exception {
+        return new BoardHistoryService.HistoryRow(task.getId(), version, true, actionType, null,
+                objectMapper.writeValueAsString(task), null, null);
+    }
+
+    private Task task(Long id, DashBoardColumn column) {
+        Task task = new Task("Task " + id, "Description of task " + id, column);
+        task.setId(id);
+        task.setPosition(id.intValue() * RankService.STEP);
+        task.setStartDate(LocalDateTime.of(2025, 1, 1, 10, 0));
+        task.addParticipant(user);
+        for (int i = 0; i < 3; i++) {
+            ChecklistItem item = new ChecklistItem("Item " + i, task);
+            item.setId(id * 10 + i);
+            item.setPosition(i * RankService.STEP);
+            task.addChecklistItem(item);
+        }
+        return task;
+    }
+
+    private BoardWithColumnsDTO board() {
+        BoardWithColumnsDTO board = new BoardWithColumnsDTO();
+        board.setId(10L);
+        board.setTags(new HashSet<>());
+        List<ColumnWithTasksDTO> columns = new ArrayList<>();
+        for (DashBoardColumn column : List.of(todo, done)) {
+            ColumnWithTasksDTO dto = new ColumnWithTasksDTO();
+            dto.setId(column.getId());
+            dto.setName(column.getName());
+            dto.setBoardId(10L);
+            dto.setPosition(column.getPosition());
+            columns.add(dto);
+        }
+        board.setColumns(columns);
+        return board;
+    }
+}
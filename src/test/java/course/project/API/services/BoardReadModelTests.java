@@ -0,0 +1,322 @@
+package course.project.API.services;
+
+import course.project.API.dto.board.BoardWithColumnsDTO;
+import course.project.API.dto.board.BoardWithParticipantsDTO;
+import course.project.API.dto.board.ColumnWithTasksDTO;
+import course.project.API.dto.board.TagDTO;
+import course.project.API.dto.board.TaskDTO;
+import course.project.API.events.BoardEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Модель чтения досок: применение событий к снимку, откат к RESYNC, сверка с БД и вытеснение
+ */
+class BoardReadModelTests {
+
+    private static final Long BOARD_ID = 10L;
+    private static final Long PROJECT_ID = 1L;
+
+    private BoardService boardService;
+    private BoardSnapshotCache snapshotCache;
+    private BoardChangeLog changeLog;
+    private BoardReadModel readModel;
+
+    @BeforeEach
+    void setUp() {
+        boardService = mock(BoardService.class);
+        snapshotCache = new BoardSnapshotCache(100, 300);
+        changeLog = new BoardChangeLog(snapshotCache, 100);
+        readModel = new BoardReadModel(boardService, snapshotCache, changeLog, 1800, 5);
+        // Колонка 100: задачи 1 и 2, колонка 200: задача 3
+        when(boardService.getBoardWithDetails(BOARD_ID)).thenReturn(board("Доска",
+                column(100L, "To Do", 0, task(1L, 100L, 0, "Первая"), task(2L, 100L, 1, "Вторая")),
+                column(200L, "Done", 1, task(3L, 200L, 0, "Третья"))));
+    }
+
+    @Test
+    void taskChangedRereadsOnlyThatTask() {
+        BoardSnapshotCache.Snapshot before = readModel.getBoard(BOARD_ID);
+        when(boardService.getTasksByIds(BOARD_ID, List.of(2L))).thenReturn(List.of(task(2L, 200L, 1, "Перенесена")));
+
+        readModel.onBoardEvent(new BoardEvent(BoardEvent.Type.TASK_CHANGED, BOARD_ID, null, 2L));
+
+        BoardSnapshotCache.Snapshot after = snapshotCache.getCurrent(BOARD_ID);
+        assertNotNull(after);
+        assertEquals(List.of(1L), taskIds(after, 100L));
+        assertEquals(List.of(3L, 2L), taskIds(after, 200L));
+        assertEquals("Перенесена", task(after, 200L, 2L).getTitle());
+        // Незатронутые задачи переиспользуются из предыдущего снимка
+        assertSame(task(before, 100L, 1L), task(after, 100L, 1L));
+        assertEquals(List.of("TASK:2"), changesSince(before.getVersion()));
+        assertEquals(66.67, after.getBoard().getCompletionPercentage());
+        verify(boardService, times(1)).getBoardWithDetails(BOARD_ID);
+    }
+
+    @Test
+    void taskDeletedIsAppliedWithoutReadingTheDatabase() {
+        BoardSnapshotCache.Snapshot before = readModel.getBoard(BOARD_ID);
+
+        readModel.onBoardEvent(new BoardEvent(BoardEvent.Type.TASK_DELETED, BOARD_ID, null, 1L));
+
+        BoardSnapshotCache.Snapshot after = snapshotCache.getCurrent(BOARD_ID);
+        assertEquals(List.of(2L), taskIds(after, 100L));
+        assertEquals(List.of("TASK:1"), changesSince(before.getVersion()));
+        verify(boardService, never()).getTasksByIds(anyLong(), anyList());
+    }
+
+    @Test
+    void tasksChangedDropsTasksMissingFromTheDatabase() {
+        BoardSnapshotCache.Snapshot before = readModel.getBoard(BOARD_ID);
+        when(boardService.getTasksByIds(BOARD_ID, List.of(1L, 3L))).thenReturn(List.of(task(1L, 100L, 5, "Обновлена")));
+
+        readModel.onBoardEvent(BoardEvent.tasksChanged(BOARD_ID, List.of(1L, 3L), Map.of(1L, 2L)));
+
+        BoardSnapshotCache.Snapshot after = snapshotCache.getCurrent(BOARD_ID);
+        assertEquals(List.of(2L, 1L), taskIds(after, 100L));
+        assertTrue(taskIds(after, 200L).isEmpty());
+        assertEquals(List.of("TASK:1", "TASK:3"), changesSince(before.getVersion()));
+    }
+
+    @Test
+    void columnTasksChangedReloadsTheColumnAndPicksUpMovedTasks() {
+        BoardSnapshotCache.Snapshot before = readModel.getBoard(BOARD_ID);
+        // Задача 3 переехала в колонку 100, задача 1 удалена
+        when(boardService.getColumnTasks(BOARD_ID, 100L))
+                .thenReturn(List.of(task(3L, 100L, 0, "Третья"), task(2L, 100L, 1, "Вторая")));
+
+        readModel.onBoardEvent(new BoardEvent(BoardEvent.Type.COLUMN_TASKS_CHANGED, BOARD_ID, null, 100L));
+
+        BoardSnapshotCache.Snapshot after = snapshotCache.getCurrent(BOARD_ID);
+        assertEquals(List.of(3L, 2L), taskIds(after, 100L));
+        assertTrue(taskIds(after, 200L).isEmpty());
+        assertEquals(Set.of("TASK:1", "TASK:2", "TASK:3"), new HashSet<>(changesSince(before.getVersion())));
+    }
+
+    @Test
+    void columnsChangedReportsRenamedAddedAndRemovedColumns() {
+        BoardSnapshotCache.Snapshot before = readModel.getBoard(BOARD_ID);
+        when(boardService.getBoardWithDetails(BOARD_ID, 0)).thenReturn(board("Доска",
+                column(100L, "Backlog", 0), column(300L, "Review", 2)));
+        when(boardService.getColumnTasks(BOARD_ID, 300L)).thenReturn(List.of(task(4L, 300L, 0, "Четвертая")));
+
+        readModel.onBoardEvent(BoardEvent.columnsChanged(BOARD_ID));
+
+        BoardSnapshotCache.Snapshot after = snapshotCache.getCurrent(BOARD_ID);
+        assertEquals(List.of(100L, 300L), after.getBoard().getColumns().stream()
+                .map(ColumnWithTasksDTO::getId).collect(Collectors.toList()));
+        assertEquals("Backlog", after.getBoard().getColumns().get(0).getName());
+        assertEquals(List.of(1L, 2L), taskIds(after, 100L));
+        assertEquals(List.of(4L), taskIds(after, 300L));
+        assertEquals(Set.of("COLUMN:100", "COLUMN:300", "COLUMN:200", "TASK:3"),
+                new HashSet<>(changesSince(before.getVersion())));
+    }
+
+    @Test
+    void boardChangedTakesHeaderAndRetagsTasks() {
+        BoardWithColumnsDTO initial = board("Доска",
+                column(100L, "To Do", 0, task(1L, 100L, 0, "Первая"), task(2L, 100L, 1, "Вторая")));
+        initial.getColumns().get(0).getTasks().forEach(task -> task.setTag(new TagDTO(7L, "bug", "red")));
+        when(boardService.getBoardWithDetails(BOARD_ID)).thenReturn(initial);
+        BoardSnapshotCache.Snapshot before = readModel.getBoard(BOARD_ID);
+
+        BoardWithColumnsDTO header = board("Переименована");
+        header.setTags(new HashSet<>(Set.of(new TagDTO(7L, "bug", "orange"))));
+        when(boardService.getBoardWithDetails(BOARD_ID, 0)).thenReturn(header);
+
+        readModel.onBoardEvent(BoardEvent.boardChanged(BOARD_ID));
+
+        BoardSnapshotCache.Snapshot after = snapshotCache.getCurrent(BOARD_ID);
+        assertEquals("Переименована", after.getBoard().getTitle());
+        assertEquals("orange", task(after, 100L, 1L).getTag().getColor());
+        assertEquals(Set.of("TASK:1", "TASK:2", "BOARD:null"), new HashSet<>(changesSince(before.getVersion())));
+    }
+
+    @Test
+    void eventThatCannotBeAppliedFallsBackToResync() {
+        BoardSnapshotCache.Snapshot before = readModel.getBoard(BOARD_ID);
+        // Колонки 999 нет в снимке: событие о ней пришло раньше COLUMNS_CHANGED
+        when(boardService.getTasksByIds(BOARD_ID, List.of(2L))).thenReturn(List.of(task(2L, 999L, 0, "Вторая")));
+
+        readModel.onBoardEvent(new BoardEvent(BoardEvent.Type.TASK_CHANGED, BOARD_ID, null, 2L));
+
+        assertEquals(List.of("RESYNC:null"), changesSince(before.getVersion()));
+        // Снимок старой версии больше не отдается, следующее чтение соберет доску заново
+        assertNull(snapshotCache.getCurrent(BOARD_ID));
+        readModel.getBoard(BOARD_ID);
+        verify(boardService, times(2)).getBoardWithDetails(BOARD_ID);
+    }
+
+    @Test
+    void eventWithoutSnapshotIsRecordedWithoutReadingTheDatabase() {
+        long version = snapshotCache.getVersion(BOARD_ID);
+
+        readModel.onBoardEvent(new BoardEvent(BoardEvent.Type.TASK_CHANGED, BOARD_ID, null, 2L));
+        readModel.onBoardEvent(new BoardEvent(BoardEvent.Type.COLUMN_TASKS_CHANGED, BOARD_ID, null, 100L));
+
+        assertEquals(List.of("TASK:2", "RESYNC:null"), changesSince(version));
+        verify(boardService, never()).getTasksByIds(anyLong(), anyList());
+        verify(boardService, never()).getColumnTasks(anyLong(), anyLong());
+    }
+
+    @Test
+    void verifyKeepsMatchingSnapshot() {
+        BoardSnapshotCache.Snapshot before = readModel.getBoard(BOARD_ID);
+
+        assertTrue(readModel.verify(BOARD_ID));
+
+        assertSame(before, snapshotCache.getCurrent(BOARD_ID));
+        assertEquals(List.of(), changesSince(before.getVersion()));
+    }
+
+    @Test
+    void checkConsistencyReplacesDriftedSnapshot() {
+        BoardSnapshotCache.Snapshot before = readModel.getBoard(BOARD_ID);
+        // Изменение прошло мимо событий
+        when(boardService.getBoardWithDetails(BOARD_ID)).thenReturn(board("Доска",
+                column(100L, "To Do", 0, task(1L, 100L, 0, "Правка в БД"), task(2L, 100L, 1, "Вторая")),
+                column(200L, "Done", 1, task(3L, 200L, 0, "Третья"))));
+
+        readModel.checkConsistency();
+
+        BoardSnapshotCache.Snapshot after = snapshotCache.getCurrent(BOARD_ID);
+        assertNotNull(after);
+        assertTrue(after.getVersion() > before.getVersion());
+        assertEquals("Правка в БД", task(after, 100L, 1L).getTitle());
+        assertEquals(List.of("RESYNC:null"), changesSince(before.getVersion()));
+        assertTrue(readModel.verify(BOARD_ID));
+    }
+
+    @Test
+    void evictIdleDropsSnapshotsAndProjectLists() throws InterruptedException {
+        readModel = new BoardReadModel(boardService, snapshotCache, changeLog, 0, 5);
+        when(boardService.getProjectBoardIds(PROJECT_ID)).thenReturn(List.of(BOARD_ID));
+        assertEquals(1, readModel.getBoardsByProjectId(PROJECT_ID).size());
+        Thread.sleep(5);
+
+        readModel.evictIdle();
+
+        assertTrue(snapshotCache.getCachedBoardIds().isEmpty());
+        readModel.getBoardsByProjectId(PROJECT_ID);
+        verify(boardService, times(2)).getProjectBoardIds(PROJECT_ID);
+        verify(boardService, times(2)).getBoardWithDetails(BOARD_ID);
+    }
+
+    @Test
+    void projectListFollowsBoardCreatedAndDeletedEvents() {
+        when(boardService.getProjectBoardIds(PROJECT_ID)).thenReturn(List.of(BOARD_ID));
+        when(boardService.getBoardWithDetails(11L)).thenReturn(boardWithId(11L));
+        readModel.getBoardsByProjectId(PROJECT_ID);
+
+        readModel.onBoardEvent(new BoardEvent(BoardEvent.Type.BOARD_CREATED, 11L, PROJECT_ID, null));
+        assertEquals(List.of(BOARD_ID, 11L), projectBoardIds());
+
+        readModel.onBoardEvent(new BoardEvent(BoardEvent.Type.BOARD_DELETED, BOARD_ID, PROJECT_ID, null));
+        assertEquals(List.of(11L), projectBoardIds());
+        verify(boardService, times(1)).getProjectBoardIds(PROJECT_ID);
+    }
+
+    @Test
+    void projectListLoadedDuringBoardCreationIsNotCached() {
+        // Доску создали, пока список досок читался из БД: прочитанный список уже устарел
+        when(boardService.getProjectBoardIds(PROJECT_ID)).thenAnswer(invocation -> {
+            readModel.onBoardEvent(new BoardEvent(BoardEvent.Type.BOARD_CREATED, 11L, PROJECT_ID, null));
+            return List.of(BOARD_ID);
+        });
+
+        readModel.getBoardsByProjectId(PROJECT_ID);
+        when(boardService.getProjectBoardIds(PROJECT_ID)).thenReturn(List.of(BOARD_ID, 11L));
+        when(boardService.getBoardWithDetails(11L)).thenReturn(boardWithId(11L));
+
+        assertEquals(List.of(BOARD_ID, 11L), projectBoardIds());
+        verify(boardService, times(2)).getProjectBoardIds(PROJECT_ID);
+    }
+
+    private List<Long> projectBoardIds() {
+        return readModel.getBoardsByProjectId(PROJECT_ID).stream()
+                .map(BoardWithParticipantsDTO::getId).collect(Collectors.toList());
+    }
+
+    private List<String> changesSince(long version) {
+        return changeLog.getChanges(BOARD_ID, version, snapshotCache.getVersion(BOARD_ID)).stream()
+                .map(change -> change.getKind() + ":" + change.getEntityId())
+                .collect(Collectors.toList());
+    }
+
+    private static List<Long> taskIds(BoardSnapshotCache.Snapshot snapshot, Long columnId) {
+        return column(snapshot, columnId).getTasks().stream().map(TaskDTO::getId).collect(Collectors.toList());
+    }
+
+    private static TaskDTO task(BoardSnapshotCache.Snapshot snapshot, Long columnId, Long taskId) {
+        return column(snapshot, columnId).getTasks().stream()
+                .filter(task -> task.getId().equals(taskId)).findFirst().orElseThrow();
+    }
+
+    private static ColumnWithTasksDTO column(BoardSnapshotCache.Snapshot snapshot, Long columnId) {
+        return snapshot.getBoard().getColumns().stream()
+                .filter(column -> column.getId().equals(columnId)).findFirst().orElseThrow();
+    }
+
+    private static BoardWithColumnsDTO boardWithId(Long boardId) {
+        BoardWithColumnsDTO board = board("Доска " + boardId);
+        board.setId(boardId);
+        return board;
+    }
+
+    private static BoardWithColumnsDTO board(String title, ColumnWithTasksDTO... columns) {
+        BoardWithColumnsDTO board = new BoardWithColumnsDTO();
+        board.setId(BOARD_ID);
+        board.setTitle(title);
+        board.setProjectId(PROJECT_ID);
+        board.setTags(new HashSet<>());
+        board.setParticipants(new HashSet<>());
+        board.setColumns(new ArrayList<>(List.of(columns)));
+        board.setCompletionPercentage(0.0);
+        return board;
+    }
+
+    private static ColumnWithTasksDTO column(Long id, String name, int position, TaskDTO... tasks) {
+        ColumnWithTasksDTO column = new ColumnWithTasksDTO();
+        column.setId(id);
+        column.setName(name);
+        column.setBoardId(BOARD_ID);
+        column.setPosition(position);
+        column.setTasks(new LinkedHashSet<>(List.of(tasks)));
+        column.setTaskCount(tasks.length);
+        return column;
+    }
+
+    private static TaskDTO task(Long id, Long columnId, int position, String title) {
+        TaskDTO task = new TaskDTO();
+        task.setId(id);
+        task.setColumnId(columnId);
+        task.setPosition(position);
+        task.setTitle(title);
+        task.setParticipants(new HashSet<>());
+        task.setChecklist(new ArrayList<>());
+        task.setAttachments(new ArrayList<>());
+        return task;
+    }
+}
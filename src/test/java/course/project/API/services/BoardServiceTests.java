@@ -0,0 +1,324 @@
+package course.project.API.services;
+
+import course.project.API.dto.board.BoardWithColumnsDTO;
+import course.project.API.dto.board.ChecklistItemDTO;
+import course.project.API.dto.board.ColumnWithTasksDTO;
+import course.project.API.dto.board.TagDTO;
+import course.project.API.dto.board.TaskDTO;
+import course.project.API.dto.board.TaskPageDTO;
+import course.project.API.models.Attachment;
+import course.project.API.models.Board;
+import course.project.API.models.ChecklistItem;
+import course.project.API.models.DashBoardColumn;
+import course.project.API.models.Project;
+import course.project.API.models.Tag;
+import course.project.API.models.Task;
+import course.project.API.models.User;
+import course.project.API.repositories.BoardRepository;
+import course.project.API.repositories.TaskRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+
+/**
+ * Регрессия для снимка доски: число запросов к БД не зависит от числа колонок, задач и их деталей,
+ * снимок из строк совпадает с прежней сборкой из сущностей,
+ * а страницы колонки не теряют задачи с одинаковой position и задачи без нее
+ */
+class BoardServiceTests {
+
+    private static final Long BOARD_ID = 1L;
+    private static final int COLUMNS = 5;
+
+    private BoardRepository boardRepository;
+    private TaskRepository taskRepository;
+    private BoardService boardService;
+
+    @BeforeEach
+    void setUp() {
+        boardRepository = mock(BoardRepository.class);
+        taskRepository = mock(TaskRepository.class);
+        boardService = new BoardService(boardRepository, null, null, null, null, taskRepository,
+                null, null, null, null, null);
+    }
+
+    @Test
+    void snapshotFromRowsMatchesFormerEntityAssembly() {
+        Board board = entityBoard();
+        stubEntities(board);
+        stubRows(board);
+
+        BoardWithColumnsDTO fromEntities = boardService.getBoardWithDetailsFromEntities(BOARD_ID);
+        BoardWithColumnsDTO fromRows = boardService.getBoardWithDetails(BOARD_ID);
+
+        assertEquals(BoardReadModel.fingerprint(fromEntities), BoardReadModel.fingerprint(fromRows));
+        assertEquals(details(fromEntities), details(fromRows));
+        assertEquals(fromEntities.getCompletionPercentage(), fromRows.getCompletionPercentage());
+        assertEquals(fromEntities.getColumns().stream().map(ColumnWithTasksDTO::getId).collect(Collectors.toList()),
+                fromRows.getColumns().stream().map(ColumnWithTasksDTO::getId).collect(Collectors.toList()));
+    }
+
+    @Test
+    void boardSnapshotUsesSevenStatementsRegardlessOfSize() {
+        stubBoard(2000);
+
+        BoardWithColumnsDTO board = boardService.getBoardWithDetails(BOARD_ID);
+
+        assertEquals(COLUMNS, board.getColumns().size());
+        assertEquals(2000, board.getColumns().stream().mapToInt(column -> column.getTasks().size()).sum());
+        verify(boardRepository).findBoardWithColumnRows(BOARD_ID);
+        verify(boardRepository).findTagRowsByBoardId(BOARD_ID);
+        verify(boardRepository).findParticipantRowsByBoardId(BOARD_ID);
+        verify(taskRepository).findTaskRowsByBoardId(BOARD_ID);
+        verify(taskRepository).findParticipantRowsByBoardId(BOARD_ID);
+        verify(taskRepository).findChecklistRowsByBoardId(BOARD_ID);
+        verify(taskRepository).findAttachmentRowsByBoardId(BOARD_ID);
+        verifyNoMoreInteractions(boardRepository, taskRepository);
+    }
+
+    @Test
+    void columnPagesCrossTiedPositionsAndReachTasksWithoutPosition() {
+        // Одинаковые position из-за параллельных добавлений и старых данных, две задачи без position
+        List<Object[]> column = List.of(
+                taskRow(1L, 1024), taskRow(2L, 1024), taskRow(3L, 1024),
+                taskRow(4L, 2048), taskRow(5L, null), taskRow(6L, null));
+        when(taskRepository.findTaskRowsByColumnIdAfter(eq(100L), anyBoolean(), anyInt(), anyLong(), anyLong(), anyInt()))
+                .thenAnswer(invocation -> columnPage(column, invocation.getArgument(1), invocation.getArgument(2),
+                        invocation.getArgument(3), invocation.getArgument(4), invocation.getArgument(5)));
+
+        List<Long> seen = new ArrayList<>();
+        TaskPageDTO page = boardService.getColumnTasksPage(BOARD_ID, 100L, null, null, 2);
+        page.getTasks().forEach(task -> seen.add(task.getId()));
+        while (page.isHasMore()) {
+            page = boardService.getColumnTasksPage(BOARD_ID, 100L, page.getNextAfter(), page.getNextAfterId(), 2);
+            page.getTasks().forEach(task -> seen.add(task.getId()));
+        }
+
+        assertEquals(List.of(1L, 2L, 3L, 4L, 5L, 6L), seen);
+        assertFalse(page.isHasMore());
+    }
+
+    @Test
+    void firstPageOfColumnKeepsPositionedTasksBeforeTasksWithoutPosition() {
+        List<Object[]> boardRows = new ArrayList<>();
+        boardRows.add(new Object[]{BOARD_ID, "Board", null, null, 1L, 100L, "Column", 0, false, 4});
+        when(boardRepository.findBoardWithColumnRows(BOARD_ID)).thenReturn(boardRows);
+        when(taskRepository.findFirstTaskRowsPerColumnByBoardId(BOARD_ID, 2))
+                .thenReturn(List.of(taskRow(7L, null), taskRow(4L, 2048), taskRow(8L, null), taskRow(3L, 1024)));
+
+        BoardWithColumnsDTO board = boardService.getBoardWithDetails(BOARD_ID, 2);
+
+        List<Long> ids = board.getColumns().get(0).getTasks().stream().map(TaskDTO::getId).toList();
+        assertEquals(List.of(3L, 4L), ids);
+        verify(taskRepository).findParticipantRowsByTaskIds(List.of(3L, 4L));
+    }
+
+    /**
+     * Та же выборка, что делает запрос страницы колонки, над строками в памяти
+     */
+    private static List<Object[]> columnPage(List<Object[]> column, boolean inNulls, int afterPosition,
+                                             long afterId, long afterNullId, int limit) {
+        List<Object[]> positioned = column.stream()
+                .filter(row -> row[6] != null && !inNulls)
+                .filter(row -> (int) row[6] > afterPosition || ((int) row[6] == afterPosition && (long) row[0] > afterId))
+                .sorted(Comparator.comparing((Object[] row) -> (int) row[6]).thenComparing(row -> (long) row[0]))
+                .limit(limit)
+                .toList();
+        List<Object[]> unpositioned = column.stream()
+                .filter(row -> row[6] == null && (long) row[0] > afterNullId)
+                .sorted(Comparator.comparing(row -> (long) row[0]))
+                .limit(limit)
+                .toList();
+        List<Object[]> result = new ArrayList<>(unpositioned);
+        result.addAll(positioned);
+        return result;
+    }
+
+    private static Object[] taskRow(Long id, Integer position) {
+        return new Object[]{id, 100L, "Task " + id, null, null, null, position, null, null, 0L};
+    }
+
+    /**
+     * Поля, которых нет в отпечатке снимка: теги с доской, порядок чек-листа и атрибуты вложений
+     */
+    private static List<String> details(BoardWithColumnsDTO board) {
+        List<String> details = new ArrayList<>();
+        board.getTags().stream().sorted(Comparator.comparing(TagDTO::getId))
+                .forEach(tag -> details.add("tag|" + tag.getId() + "|" + tag.getBoardId()));
+        board.getColumns().stream().flatMap(column -> column.getTasks().stream())
+                .sorted(Comparator.comparing(TaskDTO::getId))
+                .forEach(task -> {
+                    details.add("task|" + task.getId() + "|" + (task.getTag() != null ? task.getTag().getName() : null)
+                            + "|" + task.getChecklist().stream().map(ChecklistItemDTO::getId).collect(Collectors.toList()));
+                    task.getAttachments().forEach(attachment -> details.add("attachment|" + attachment.getId() + "|"
+                            + attachment.getFileType() + "|" + attachment.getUploadedBy() + "|"
+                            + attachment.getUploadedAt() + "|" + attachment.getDownloadUrl()));
+                });
+        return details;
+    }
+
+    /**
+     * Доска из сущностей: три колонки, теги, участники, задачи с датами, тегом, чек-листом и вложениями
+     */
+    private static Board entityBoard() {
+        Project project = new Project("Project", null);
+        project.setId(7L);
+        Board board = new Board("Board", "Description", "📋", project);
+        board.setId(BOARD_ID);
+        List<User> users = new ArrayList<>();
+        for (long u = 1; u <= 4; u++) {
+            User user = new User("user" + u, "password", "User " + u);
+            user.setId(u);
+            users.add(user);
+            board.addParticipant(user);
+        }
+        List<Tag> tags = new ArrayList<>();
+        for (long t = 1; t <= 2; t++) {
+            Tag tag = new Tag("tag " + t, "#00000" + t, board);
+            tag.setId(t);
+            tags.add(tag);
+        }
+        board.setTags(tags);
+        String[] names = {"To Do", "In Progress", "Done"};
+        List<DashBoardColumn> columns = new ArrayList<>();
+        for (int c = 0; c < names.length; c++) {
+            DashBoardColumn column = new DashBoardColumn(names[c], board, (names.length - c) * RankService.STEP);
+            column.setId(100L + c);
+            column.setCompletionColumn(c == names.length - 1);
+            columns.add(column);
+            board.addColumn(column);
+        }
+        LocalDateTime start = LocalDateTime.of(2025, 1, 1, 10, 0);
+        for (long id = 1; id <= 12; id++) {
+            Task task = new Task("Task " + id, id % 2 == 0 ? "Description " + id : null, columns.get((int) (id % 3)));
+            task.setId(id);
+            task.setPosition(id == 12 ? null : (int) (13 - id) * RankService.STEP);
+            task.setStartDate(start.plusDays(id));
+            task.setEndDate(id % 4 == 0 ? null : start.plusDays(id + 5));
+            if (id % 3 != 0) {
+                Tag tag = tags.get((int) (id % 2));
+                task.setTag(tag);
+                task.setTagId(tag.getId());
+            }
+            task.addParticipant(users.get((int) (id % 4)));
+            task.addParticipant(users.get((int) ((id + 1) % 4)));
+            for (int i = 0; i < 2; i++) {
+                ChecklistItem item = new ChecklistItem("Item " + i, task);
+                item.setId(id * 10 + i);
+                item.setPosition((2 - i) * RankService.STEP);
+                item.setCompleted(i == 0);
+                task.addChecklistItem(item);
+            }
+            if (id % 3 == 1) {
+                Attachment attachment = new Attachment("file" + id + ".pdf", "/files/" + id, "application/pdf",
+                        1024L * id, task, "user" + id % 4);
+                attachment.setId(id);
+                attachment.setUploadedAt(start.plusHours(id));
+                task.addAttachment(attachment);
+            }
+            task.getColumn().addTask(task);
+        }
+        return board;
+    }
+
+    private void stubEntities(Board board) {
+        List<Task> tasks = board.getColumns().stream().flatMap(column -> column.getTasks().stream())
+                .collect(Collectors.toList());
+        when(boardRepository.findWithDetails(BOARD_ID)).thenReturn(board);
+        when(boardRepository.findWithParticipantsAndOwnerById(BOARD_ID)).thenReturn(board);
+        when(taskRepository.findWithParticipantsByIdIn(anyList())).thenReturn(tasks);
+        when(taskRepository.findWithCheckListByIdIn(anyList())).thenReturn(tasks);
+    }
+
+    /**
+     * Те же данные в виде строк нативных запросов, как их вернула бы БД
+     */
+    private void stubRows(Board board) {
+        List<Object[]> boardRows = new ArrayList<>();
+        List<Object[]> taskRows = new ArrayList<>();
+        List<Object[]> participantRows = new ArrayList<>();
+        List<Object[]> checklistRows = new ArrayList<>();
+        List<Object[]> attachmentRows = new ArrayList<>();
+        for (DashBoardColumn column : board.getColumns()) {
+            boardRows.add(new Object[]{BOARD_ID, board.getTitle(), board.getDescription(), board.getEmoji(),
+                    board.getProject().getId(), column.getId(), column.getName(), column.getPosition(),
+                    column.isCompletionColumn(), column.getTasks().size()});
+            for (Task task : column.getTasks()) {
+                taskRows.add(new Object[]{task.getId(), column.getId(), task.getTitle(), task.getDescription(),
+                        timestamp(task.getStartDate()), timestamp(task.getEndDate()), task.getPosition(),
+                        task.getTagId(), task.getChatId(), task.getVersion()});
+                task.getParticipants().forEach(user -> participantRows.add(
+                        new Object[]{task.getId(), user.getId(), user.getName(), user.getAvatarURL()}));
+                task.getChecklist().forEach(item -> checklistRows.add(
+                        new Object[]{task.getId(), item.getId(), item.getText(), item.isCompleted(), item.getPosition()}));
+                task.getAttachments().forEach(attachment -> attachmentRows.add(new Object[]{task.getId(),
+                        attachment.getId(), attachment.getFileName(), attachment.getFileType(), attachment.getFileSize(),
+                        attachment.getUploadedBy(), timestamp(attachment.getUploadedAt())}));
+            }
+        }
+        List<Object[]> tagRows = board.getTags().stream()
+                .map(tag -> new Object[]{tag.getId(), tag.getName(), tag.getColor()})
+                .collect(Collectors.toList());
+        List<Object[]> boardParticipantRows = board.getParticipants().stream()
+                .map(user -> new Object[]{user.getId(), user.getName(), user.getAvatarURL()})
+                .collect(Collectors.toList());
+        when(boardRepository.findBoardWithColumnRows(BOARD_ID)).thenReturn(boardRows);
+        when(boardRepository.findTagRowsByBoardId(BOARD_ID)).thenReturn(tagRows);
+        when(boardRepository.findParticipantRowsByBoardId(BOARD_ID)).thenReturn(boardParticipantRows);
+        when(taskRepository.findTaskRowsByBoardId(BOARD_ID)).thenReturn(taskRows);
+        when(taskRepository.findParticipantRowsByBoardId(BOARD_ID)).thenReturn(participantRows);
+        when(taskRepository.findChecklistRowsByBoardId(BOARD_ID)).thenReturn(checklistRows);
+        when(taskRepository.findAttachmentRowsByBoardId(BOARD_ID)).thenReturn(attachmentRows);
+    }
+
+    private static Timestamp timestamp(LocalDateTime value) {
+        return value != null ? Timestamp.valueOf(value) : null;
+    }
+
+    private void stubBoard(int tasks) {
+        List<Object[]> boardRows = new ArrayList<>();
+        for (int c = 0; c < COLUMNS; c++) {
+            boardRows.add(new Object[]{BOARD_ID, "Board", "Description", null, 1L,
+                    100L + c, c == COLUMNS - 1 ? "Done" : "Column " + c, c, c == COLUMNS - 1, tasks / COLUMNS});
+        }
+        Timestamp start = Timestamp.valueOf("2025-01-01 10:00:00");
+        List<Object[]> taskRows = new ArrayList<>();
+        List<Object[]> participantRows = new ArrayList<>();
+        List<Object[]> checklistRows = new ArrayList<>();
+        List<Object[]> attachmentRows = new ArrayList<>();
+        for (long id = 1; id <= tasks; id++) {
+            taskRows.add(new Object[]{id, 100L + id % COLUMNS, "Task " + id, null, start, null,
+                    (int) id * 1024, null, null, 0L});
+            participantRows.add(new Object[]{id, id % 20 + 1, "User", null});
+            for (int i = 0; i < 3; i++) {
+                checklistRows.add(new Object[]{id, id * 10 + i, "Item " + i, i == 0, i * 1024});
+            }
+            attachmentRows.add(new Object[]{id, id, "file.pdf", "application/pdf", 2048L, "user", start});
+        }
+        when(boardRepository.findBoardWithColumnRows(BOARD_ID)).thenReturn(boardRows);
+        when(boardRepository.findTagRowsByBoardId(BOARD_ID)).thenReturn(List.of());
+        when(boardRepository.findParticipantRowsByBoardId(BOARD_ID)).thenReturn(List.of());
+        when(taskRepository.findTaskRowsByBoardId(BOARD_ID)).thenReturn(taskRows);
+        when(taskRepository.findParticipantRowsByBoardId(BOARD_ID)).thenReturn(participantRows);
+        when(taskRepository.findChecklistRowsByBoardId(BOARD_ID)).thenReturn(checklistRows);
+        when(taskRepository.findAttachmentRowsByBoardId(BOARD_ID)).thenReturn(attachmentRows);
+    }
+}
@@ -0,0 +1,110 @@
+package course.project.API.services;
+
+import course.project.API.dto.board.BoardWithColumnsDTO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+/**
+ * Кэш снимков досок: версия растет при изменении, ETag следует за версией,
+ * снимок, собранный на устаревшей версии, в кэш не попадает
+ */
+class BoardSnapshotCacheTests {
+
+    private static final Long BOARD_ID = 10L;
+
+    private BoardSnapshotCache snapshotCache;
+    private AtomicInteger loads;
+
+    @BeforeEach
+    void setUp() {
+        snapshotCache = new BoardSnapshotCache(100, 300);
+        loads = new AtomicInteger();
+    }
+
+    @Test
+    void snapshotIsLoadedOnceAndServedWithTheCurrentETag() {
+        BoardSnapshotCache.Snapshot first = snapshotCache.getOrLoad(BOARD_ID, this::load);
+        BoardSnapshotCache.Snapshot second = snapshotCache.getOrLoad(BOARD_ID, this::load);
+
+        assertSame(first, second);
+        assertEquals(1, loads.get());
+        assertEquals(snapshotCache.getETag(BOARD_ID), first.getETag());
+        assertEquals(snapshotCache.getVersion(BOARD_ID), first.getVersion());
+    }
+
+    @Test
+    void markChangedBumpsVersionChangesETagAndDropsSnapshot() {
+        BoardSnapshotCache.Snapshot before = snapshotCache.getOrLoad(BOARD_ID, this::load);
+        String eTag = snapshotCache.getETag(BOARD_ID);
+
+        long version = snapshotCache.markChanged(BOARD_ID);
+
+        assertEquals(before.getVersion() + 1, version);
+        assertEquals(version, snapshotCache.getVersion(BOARD_ID));
+        assertNotEquals(eTag, snapshotCache.getETag(BOARD_ID));
+        assertNull(snapshotCache.getCurrent(BOARD_ID));
+
+        BoardSnapshotCache.Snapshot after = snapshotCache.getOrLoad(BOARD_ID, this::load);
+        assertNotSame(before, after);
+        assertEquals(version, after.getVersion());
+        assertEquals(snapshotCache.getETag(BOARD_ID), after.getETag());
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void versionsOfDifferentBoardsAreIndependent() {
+        long other = snapshotCache.getVersion(20L);
+
+        snapshotCache.markChanged(BOARD_ID);
+
+        assertEquals(other, snapshotCache.getVersion(20L));
+        assertNotEquals(snapshotCache.getETag(BOARD_ID), snapshotCache.getETag(20L));
+    }
+
+    @Test
+    void snapshotLoadedWhileBoardChangesIsNotCached() {
+        BoardSnapshotCache.Snapshot stale = snapshotCache.getOrLoad(BOARD_ID, boardId -> {
+            // Изменение доски во время сборки снимка
+            snapshotCache.markChanged(boardId);
+            return load(boardId);
+        });
+
+        assertNotEquals(snapshotCache.getVersion(BOARD_ID), stale.getVersion());
+        assertNull(snapshotCache.getCurrent(BOARD_ID));
+    }
+
+    @Test
+    void putWithOutdatedVersionIsDropped() {
+        long version = snapshotCache.getVersion(BOARD_ID);
+        snapshotCache.markChanged(BOARD_ID);
+
+        snapshotCache.put(BOARD_ID, version, load(BOARD_ID));
+
+        assertNull(snapshotCache.getCurrent(BOARD_ID));
+    }
+
+    @Test
+    void truncatedSnapshotHasItsOwnETag() {
+        assertNotEquals(snapshotCache.getETag(BOARD_ID), snapshotCache.getETag(BOARD_ID, 20));
+        assertNotEquals(snapshotCache.getETag(BOARD_ID, 20), snapshotCache.getETag(BOARD_ID, 50));
+
+        String truncated = snapshotCache.getETag(BOARD_ID, 20);
+        snapshotCache.markChanged(BOARD_ID);
+        assertNotEquals(truncated, snapshotCache.getETag(BOARD_ID, 20));
+    }
+
+    private BoardWithColumnsDTO load(Long boardId) {
+        loads.incrementAndGet();
+        BoardWithColumnsDTO board = new BoardWithColumnsDTO();
+        board.setId(boardId);
+        return board;
+    }
+}
@@ -0,0 +1,181 @@
+package course.project.API.services;
+
+import course.project.API.dto.board.BoardChangesDTO;
+import course.project.API.dto.board.BoardWithColumnsDTO;
+import course.project.API.dto.board.ColumnWithTasksDTO;
+import course.project.API.dto.board.TaskDTO;
+import course.project.API.events.BoardEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Дельта-синхронизация доски: после версии since отдаются только затронутые задачи и колонки,
+ * а когда ограниченный журнал уже не покрывает since, клиент получает resyncRequired
+ */
+class BoardSyncServiceTests {
+
+    private static final Long BOARD_ID = 10L;
+    private static final int MAX_ENTRIES = 3;
+
+    private BoardService boardService;
+    private BoardSnapshotCache snapshotCache;
+    private BoardChangeLog changeLog;
+    private BoardReadModel readModel;
+    private BoardSyncService syncService;
+
+    @BeforeEach
+    void setUp() {
+        boardService = mock(BoardService.class);
+        snapshotCache = new BoardSnapshotCache(100, 300);
+        changeLog = new BoardChangeLog(snapshotCache, MAX_ENTRIES);
+        readModel = new BoardReadModel(boardService, snapshotCache, changeLog, 1800, 5);
+        syncService = new BoardSyncService(readModel, snapshotCache, changeLog);
+        // Колонка 100: задачи 1 и 2, колонка 200: задача 3
+        when(boardService.getBoardWithDetails(BOARD_ID)).thenReturn(board(
+                column(100L, "To Do", 0, task(1L, 100L, 0, "Первая"), task(2L, 100L, 1, "Вторая")),
+                column(200L, "Done", 1, task(3L, 200L, 0, "Третья"))));
+    }
+
+    @Test
+    void changesSinceVersionContainOnlyChangedEntities() {
+        long since = readModel.getBoard(BOARD_ID).getVersion();
+        when(boardService.getTasksByIds(BOARD_ID, List.of(2L))).thenReturn(List.of(task(2L, 100L, 1, "Переименована")));
+
+        readModel.onBoardEvent(new BoardEvent(BoardEvent.Type.TASK_CHANGED, BOARD_ID, null, 2L));
+        long afterRename = snapshotCache.getVersion(BOARD_ID);
+        readModel.onBoardEvent(new BoardEvent(BoardEvent.Type.TASK_DELETED, BOARD_ID, null, 1L));
+
+        BoardChangesDTO changes = syncService.getBoardChanges(BOARD_ID, since);
+        assertFalse(changes.isResyncRequired());
+        assertEquals(snapshotCache.getVersion(BOARD_ID), changes.getVersion());
+        assertEquals(List.of(2L), taskIds(changes));
+        assertEquals("Переименована", changes.getTasks().get(0).getTitle());
+        assertEquals(Set.of(1L), changes.getDeletedTaskIds());
+        assertTrue(changes.getColumns().isEmpty());
+        assertTrue(changes.getDeletedColumnIds().isEmpty());
+        assertNull(changes.getTags());
+
+        // С промежуточной версии - только удаление
+        BoardChangesDTO tail = syncService.getBoardChanges(BOARD_ID, afterRename);
+        assertTrue(tail.getTasks().isEmpty());
+        assertEquals(Set.of(1L), tail.getDeletedTaskIds());
+        verify(boardService, times(1)).getBoardWithDetails(BOARD_ID);
+    }
+
+    @Test
+    void changedColumnIsSentWithoutItsTasks() {
+        long since = readModel.getBoard(BOARD_ID).getVersion();
+        when(boardService.getBoardWithDetails(BOARD_ID, 0)).thenReturn(board(
+                column(100L, "Backlog", 0), column(200L, "Done", 1)));
+
+        readModel.onBoardEvent(BoardEvent.columnsChanged(BOARD_ID));
+
+        BoardChangesDTO changes = syncService.getBoardChanges(BOARD_ID, since);
+        assertEquals(List.of(100L), changes.getColumns().stream().map(ColumnWithTasksDTO::getId).collect(Collectors.toList()));
+        assertEquals("Backlog", changes.getColumns().get(0).getName());
+        assertNull(changes.getColumns().get(0).getTasks());
+        assertTrue(changes.getTasks().isEmpty());
+    }
+
+    @Test
+    void currentVersionReturnsEmptyChangesWithoutLoadingTheBoard() {
+        BoardChangesDTO changes = syncService.getBoardChanges(BOARD_ID, snapshotCache.getVersion(BOARD_ID));
+
+        assertFalse(changes.isResyncRequired());
+        assertTrue(changes.getTasks().isEmpty());
+        assertTrue(changes.getDeletedTaskIds().isEmpty());
+        verify(boardService, times(0)).getBoardWithDetails(BOARD_ID);
+    }
+
+    @Test
+    void truncatedLogRequiresResync() {
+        long initial = snapshotCache.getVersion(BOARD_ID);
+        List<Long> versions = new ArrayList<>();
+        for (long taskId = 1; taskId <= MAX_ENTRIES + 2; taskId++) {
+            versions.add(changeLog.record(BOARD_ID, List.of(new BoardChangeLog.Change(BoardChangeLog.KIND_TASK, taskId))));
+        }
+
+        // Журнал хранит три последних изменения: версии начиная с versions[1] еще покрыты
+        assertNull(changeLog.getChanges(BOARD_ID, versions.get(0), snapshotCache.getVersion(BOARD_ID)));
+        assertTrue(syncService.getBoardChanges(BOARD_ID, initial).isResyncRequired());
+        assertTrue(syncService.getBoardChanges(BOARD_ID, versions.get(0)).isResyncRequired());
+
+        BoardChangesDTO covered = syncService.getBoardChanges(BOARD_ID, versions.get(1));
+        assertFalse(covered.isResyncRequired());
+        // Задачи 4 и 5 не существуют на доске, 3 существует
+        assertEquals(List.of(3L), taskIds(covered));
+        assertEquals(Set.of(4L, 5L), covered.getDeletedTaskIds());
+    }
+
+    @Test
+    void resyncEntryRequiresResync() {
+        long since = readModel.getBoard(BOARD_ID).getVersion();
+
+        changeLog.recordResync(BOARD_ID);
+
+        BoardChangesDTO changes = syncService.getBoardChanges(BOARD_ID, since);
+        assertTrue(changes.isResyncRequired());
+        assertEquals(snapshotCache.getVersion(BOARD_ID), changes.getVersion());
+    }
+
+    @Test
+    void versionFromBeforeRestartRequiresResync() {
+        readModel.getBoard(BOARD_ID);
+
+        assertTrue(syncService.getBoardChanges(BOARD_ID, snapshotCache.getVersion(BOARD_ID) - 1).isResyncRequired());
+    }
+
+    private static List<Long> taskIds(BoardChangesDTO changes) {
+        return changes.getTasks().stream().map(TaskDTO::getId).sorted().collect(Collectors.toList());
+    }
+
+    private static BoardWithColumnsDTO board(ColumnWithTasksDTO... columns) {
+        BoardWithColumnsDTO board = new BoardWithColumnsDTO();
+        board.setId(BOARD_ID);
+        board.setTitle("Доска");
+        board.setTags(new HashSet<>());
+        board.setParticipants(new HashSet<>());
+        board.setColumns(new ArrayList<>(List.of(columns)));
+        board.setCompletionPercentage(0.0);
+        return board;
+    }
+
+    private static ColumnWithTasksDTO column(Long id, String name, int position, TaskDTO... tasks) {
+        ColumnWithTasksDTO column = new ColumnWithTasksDTO();
+        column.setId(id);
+        column.setName(name);
+        column.setBoardId(BOARD_ID);
+        column.setPosition(position);
+        column.setTasks(new LinkedHashSet<>(List.of(tasks)));
+        column.setTaskCount(tasks.length);
+        return column;
+    }
+
+    private static TaskDTO task(Long id, Long columnId, int position, String title) {
+        TaskDTO task = new TaskDTO();
+        task.setId(id);
+        task.setColumnId(columnId);
+        task.setPosition(position);
+        task.setTitle(title);
+        task.setParticipants(new HashSet<>());
+        task.setChecklist(new ArrayList<>());
+        task.setAttachments(new ArrayList<>());
+        return task;
+    }
+}
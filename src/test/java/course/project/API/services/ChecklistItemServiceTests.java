@@ -0,0 +1,161 @@
+package course.project.API.services;
+
+import course.project.API.dto.board.ChecklistItemDTO;
+import course.project.API.events.BoardEvent;
+import course.project.API.models.Board;
+import course.project.API.models.ChecklistItem;
+import course.project.API.models.DashBoardColumn;
+import course.project.API.models.Task;
+import course.project.API.repositories.ChecklistItemRepository;
+import course.project.API.repositories.TaskRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+/**
+ * Синхронизация чек-листа по id: пункты сохраняют id, меняются только строки, которые действительно изменились
+ */
+class ChecklistItemServiceTests {
+
+    private ChecklistItemRepository checklistItemRepository;
+    private ApplicationEventPublisher eventPublisher;
+    private ChecklistItemService checklistItemService;
+    private Task task;
+
+    @BeforeEach
+    void setUp() {
+        checklistItemRepository = mock(ChecklistItemRepository.class);
+        eventPublisher = mock(ApplicationEventPublisher.class);
+        checklistItemService = new ChecklistItemService(checklistItemRepository, mock(TaskRepository.class),
+                eventPublisher, mock(RankService.class));
+
+        Board board = new Board();
+        board.setId(10L);
+        DashBoardColumn column = new DashBoardColumn("To Do", board, RankService.STEP);
+        column.setId(100L);
+        task = new Task("Task", null, column);
+        task.setId(1000L);
+        for (long id = 1; id <= 40; id++) {
+            ChecklistItem item = new ChecklistItem("Пункт " + id, task);
+            item.setId(id);
+            item.setPosition((int) id * RankService.STEP);
+            task.addChecklistItem(item);
+        }
+    }
+
+    @Test
+    void togglingOneCheckboxChangesOneRowAndKeepsIds() {
+        Map<Long, ChecklistItem> before = items();
+        Map<Long, String> state = rows();
+        List<ChecklistItemDTO> request = request();
+        request.get(6).setCompleted(true);
+
+        assertTrue(checklistItemService.syncChecklist(task, request));
+
+        assertEquals(before.keySet(), items().keySet());
+        before.forEach((id, item) -> assertSame(item, items().get(id)));
+        assertEquals(List.of(7L), changedRows(state));
+        assertTrue(items().get(7L).isCompleted());
+        verifyNoInteractions(checklistItemRepository);
+        verify(eventPublisher, times(1)).publishEvent(any(BoardEvent.class));
+    }
+
+    @Test
+    void unchangedChecklistWritesNothing() {
+        Map<Long, String> state = rows();
+
+        assertFalse(checklistItemService.syncChecklist(task, request()));
+
+        assertTrue(changedRows(state).isEmpty());
+        verify(eventPublisher, never()).publishEvent(any());
+    }
+
+    @Test
+    void movingOneItemRewritesOneRank() {
+        Map<Long, String> state = rows();
+        List<ChecklistItemDTO> request = request();
+        request.add(0, request.remove(29));
+
+        assertTrue(checklistItemService.syncChecklist(task, request));
+
+        assertEquals(List.of(30L), changedRows(state));
+        assertEquals(request.stream().map(ChecklistItemDTO::getId).collect(Collectors.toList()),
+                task.getChecklist().stream()
+                        .sorted((a, b) -> Integer.compare(a.getPosition(), b.getPosition()))
+                        .map(ChecklistItem::getId)
+                        .collect(Collectors.toList()));
+    }
+
+    @Test
+    void newItemsAreAddedAndMissingItemsRemovedWithoutTouchingTheRest() {
+        Map<Long, String> state = rows();
+        List<ChecklistItemDTO> request = request();
+        request.remove(39);
+        request.add(new ChecklistItemDTO(null, "Новый пункт", false, null));
+
+        assertTrue(checklistItemService.syncChecklist(task, request));
+
+        List<ChecklistItem> created = task.getChecklist().stream()
+                .filter(item -> item.getId() == null).collect(Collectors.toList());
+        assertEquals(1, created.size());
+        assertEquals("Новый пункт", created.get(0).getText());
+        assertTrue(created.get(0).getPosition() > 39 * RankService.STEP);
+        assertNull(items().get(40L));
+        // Из сохраненных пунктов изменился только удаленный
+        assertEquals(List.of(40L), changedRows(state));
+    }
+
+    private List<ChecklistItemDTO> request() {
+        return task.getChecklist().stream()
+                .map(item -> new ChecklistItemDTO(item.getId(), item.getText(), item.isCompleted(), item.getPosition()))
+                .collect(Collectors.toCollection(ArrayList::new));
+    }
+
+    private Map<Long, ChecklistItem> items() {
+        Map<Long, ChecklistItem> items = new HashMap<>();
+        task.getChecklist().stream().filter(item -> item.getId() != null).forEach(item -> items.put(item.getId(), item));
+        return items;
+    }
+
+    private Map<Long, String> rows() {
+        Map<Long, String> rows = new HashMap<>();
+        items().forEach((id, item) -> rows.put(id, row(item)));
+        return rows;
+    }
+
+    /**
+     * Id сохраненных пунктов, строка которых в БД изменится при сбросе: поля отличаются или пункт удален
+     */
+    private List<Long> changedRows(Map<Long, String> before) {
+        Map<Long, ChecklistItem> after = items();
+        return before.entrySet().stream()
+                .filter(entry -> !after.containsKey(entry.getKey())
+                        || !Objects.equals(entry.getValue(), row(after.get(entry.getKey()))))
+                .map(Map.Entry::getKey)
+                .sorted()
+                .collect(Collectors.toList());
+    }
+
+    private static String row(ChecklistItem item) {
+        return item.getText() + "|" + item.isCompleted() + "|" + item.getPosition();
+    }
+}
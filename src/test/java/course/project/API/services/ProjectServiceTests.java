@@ -0,0 +1,140 @@
+package course.project.API.services;
+
+import course.project.API.dto.project.ProjectWithParticipantsOwnerDTO;
+import course.project.API.events.BoardEvent;
+import course.project.API.models.Board;
+import course.project.API.models.Project;
+import course.project.API.models.User;
+import course.project.API.repositories.BoardRepository;
+import course.project.API.repositories.InvitationRepository;
+import course.project.API.repositories.ProjectRepository;
+import course.project.API.repositories.ProjectUserRightRepository;
+import course.project.API.repositories.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+
+/**
+ * Регрессия для дашборда проектов: число запросов к БД не зависит от числа проектов, досок и задач
+ */
+class ProjectServiceTests {
+
+    private ProjectRepository projectRepository;
+    private BoardRepository boardRepository;
+    private ProjectService projectService;
+    private ApplicationEventPublisher eventPublisher;
+    private User currentUser;
+
+    @BeforeEach
+    void setUp() {
+        projectRepository = mock(ProjectRepository.class);
+        boardRepository = mock(BoardRepository.class);
+        eventPublisher = mock(ApplicationEventPublisher.class);
+        projectService = new ProjectService(projectRepository, mock(UserRepository.class),
+                mock(InvitationRepository.class), mock(ProjectRightService.class),
+                boardRepository, mock(ProjectUserRightRepository.class), eventPublisher);
+        currentUser = new User();
+        currentUser.setId(1L);
+    }
+
+    @Test
+    void myProjectsUseThreeStatementsRegardlessOfSize() {
+        List<Object[]> projectRows = new ArrayList<>();
+        List<Object[]> participantRows = new ArrayList<>();
+        List<Object[]> boardRows = new ArrayList<>();
+        for (long projectId = 1; projectId <= 50; projectId++) {
+            projectRows.add(new Object[]{projectId, "Project " + projectId, null, null, 1L, "owner", null});
+            participantRows.add(new Object[]{projectId, 2L, "participant", null});
+            for (long board = 0; board < 20; board++) {
+                boardRows.add(new Object[]{projectId, projectId * 100 + board, 10_000L, 2_500L});
+            }
+        }
+        when(projectRepository.findProjectRowsByUserId(1L)).thenReturn(projectRows);
+        when(projectRepository.findParticipantRowsByProjectIds(anyList())).thenReturn(participantRows);
+        when(projectRepository.findBoardTaskCountRowsByProjectIds(anyList())).thenReturn(boardRows);
+
+        List<ProjectWithParticipantsOwnerDTO> result = projectService.getMyProjectsWithUsers(currentUser);
+
+        assertEquals(50, result.size());
+        assertEquals(25.0, result.get(0).getCompletionPercentage());
+        assertEquals(1, result.get(0).getParticipants().size());
+        assertEquals("owner", result.get(0).getOwner().getName());
+
+        verify(projectRepository, times(1)).findProjectRowsByUserId(1L);
+        verify(projectRepository, times(1)).findParticipantRowsByProjectIds(anyList());
+        verify(projectRepository, times(1)).findBoardTaskCountRowsByProjectIds(anyList());
+        verifyNoMoreInteractions(projectRepository);
+        verifyNoInteractions(boardRepository);
+    }
+
+    @Test
+    void myProjectsAverageBoardPercentages() {
+        List<Object[]> projectRows = new ArrayList<>();
+        projectRows.add(new Object[]{7L, "Project", "Description", "🚀", 1L, "owner", null});
+        List<Object[]> boardRows = new ArrayList<>();
+        boardRows.add(new Object[]{7L, 1L, 3L, 1L});
+        boardRows.add(new Object[]{7L, 2L, 0L, 0L});
+        boardRows.add(new Object[]{7L, 3L, 4L, 4L});
+        when(projectRepository.findProjectRowsByUserId(1L)).thenReturn(projectRows);
+        when(projectRepository.findParticipantRowsByProjectIds(anyList())).thenReturn(List.of());
+        when(projectRepository.findBoardTaskCountRowsByProjectIds(anyList())).thenReturn(boardRows);
+
+        List<ProjectWithParticipantsOwnerDTO> result = projectService.getMyProjectsWithUsers(currentUser);
+
+        assertEquals(1, result.size());
+        // (33.33 + 0 + 100) / 3
+        assertEquals(44.44, result.get(0).getCompletionPercentage());
+        assertTrue(result.get(0).getParticipants().isEmpty());
+    }
+
+    @Test
+    void myProjectsWithoutProjectsUseSingleStatement() {
+        when(projectRepository.findProjectRowsByUserId(1L)).thenReturn(List.of());
+
+        assertTrue(projectService.getMyProjectsWithUsers(currentUser).isEmpty());
+
+        verify(projectRepository, times(1)).findProjectRowsByUserId(1L);
+        verifyNoMoreInteractions(projectRepository);
+    }
+
+    @Test
+    void deletingProjectPublishesBoardDeletedForEachBoard() {
+        Project project = new Project();
+        project.setId(7L);
+        for (long boardId = 1; boardId <= 2; boardId++) {
+            Board board = new Board();
+            board.setId(boardId);
+            board.setProject(project);
+            project.addBoard(board);
+        }
+        when(projectRepository.findById(Long.valueOf(7L))).thenReturn(Optional.of(project));
+
+        projectService.deleteProject(7L);
+
+        ArgumentCaptor<BoardEvent> events = ArgumentCaptor.forClass(BoardEvent.class);
+        verify(eventPublisher, times(2)).publishEvent(events.capture());
+        assertEquals(Set.of(1L, 2L), events.getAllValues().stream()
+                .peek(event -> assertEquals(BoardEvent.Type.BOARD_DELETED, event.getType()))
+                .peek(event -> assertEquals(7L, event.getProjectId()))
+                .map(BoardEvent::getBoardId)
+                .collect(Collectors.toSet()));
+        verify(projectRepository).delete(project);
+    }
+}
@@ -0,0 +1,156 @@
+package course.project.API.services;
+
+import course.project.API.repositories.ChecklistItemRepository;
+import course.project.API.repositories.DashBoardColumnRepository;
+import course.project.API.repositories.TaskRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Перестановка одного элемента в списке меняет один ранг, порядок рангов всегда строго возрастающий.
+ * Position в запросах — ранг соседа, а не индекс; перестановка части списка не ломает порядок остальных элементов
+ */
+class RankServiceTests {
+
+    private static final Long COLUMN_ID = 10L;
+
+    private final TaskRepository taskRepository = mock(TaskRepository.class);
+    private final RankService rankService = new RankService(taskRepository, mock(DashBoardColumnRepository.class),
+            mock(ChecklistItemRepository.class), mock(ApplicationEventPublisher.class),
+            mock(PlatformTransactionManager.class));
+
+    @Test
+    void betweenTakesMiddleOfGap() {
+        assertEquals(RankService.STEP, RankService.between(null, null));
+        assertEquals(1536, RankService.between(1024, 2048));
+        assertEquals(0, RankService.between(null, 1024));
+        assertEquals(2048, RankService.between(1024, null));
+        assertNull(RankService.between(5, 6));
+    }
+
+    @Test
+    void movingOneItemChangesOneRank() {
+        List<Integer> ranks = new ArrayList<>();
+        for (int i = 1; i <= 1000; i++) {
+            ranks.add(i * RankService.STEP);
+        }
+        // Последний элемент перетащили в начало
+        ranks.add(0, ranks.remove(ranks.size() - 1));
+
+        int[] result = RankService.reorder(ranks);
+
+        int changed = 0;
+        for (int i = 0; i < result.length; i++) {
+            if (result[i] != ranks.get(i)) {
+                changed++;
+            }
+        }
+        assertEquals(1, changed);
+        assertStrictlyIncreasing(result);
+    }
+
+    @Test
+    void reorderFallsBackToDenseRanksWithoutGap() {
+        int[] result = RankService.reorder(Arrays.asList(3, 1, 2));
+
+        assertStrictlyIncreasing(result);
+    }
+
+    @Test
+    void reorderAssignsRanksToLegacyNulls() {
+        int[] result = RankService.reorder(Arrays.asList(null, 1024, null, 2048));
+
+        assertStrictlyIncreasing(result);
+        assertEquals(1024, result[1]);
+        assertEquals(2048, result[3]);
+    }
+
+    @Test
+    void rankAtPlacesItemBeforeItemWithGivenRank() {
+        when(taskRepository.findNextRankRowByColumnId(COLUMN_ID, 5L, 2048))
+                .thenReturn(rows(new Object[]{2L, 2048}));
+        when(taskRepository.findPreviousRankByColumnId(COLUMN_ID, 5L, 2048, 2L)).thenReturn(List.of(1024));
+
+        assertEquals(1536, rankService.rankAt(RankService.Kind.TASK, COLUMN_ID, 5L, 2048));
+    }
+
+    @Test
+    void rankAtBeyondLastItemAppends() {
+        when(taskRepository.findNextRankRowByColumnId(COLUMN_ID, 5L, 9000)).thenReturn(List.of());
+        when(taskRepository.findMaxPositionByColumnId(COLUMN_ID)).thenReturn(4096);
+
+        assertEquals(4096 + RankService.STEP, rankService.rankAt(RankService.Kind.TASK, COLUMN_ID, 5L, 9000));
+    }
+
+    @Test
+    void rankAtRenumbersAndKeepsTargetNeighbourWithoutGap() {
+        when(taskRepository.findNextRankRowByColumnId(COLUMN_ID, 5L, 101))
+                .thenReturn(rows(new Object[]{2L, 101}));
+        when(taskRepository.findPreviousRankByColumnId(COLUMN_ID, 5L, 101, 2L)).thenReturn(List.of(100));
+        // После перенумерации: 1, 5 (сам элемент), 2
+        when(taskRepository.findRankRowsByColumnId(COLUMN_ID))
+                .thenReturn(rows(new Object[]{1L, 1024}, new Object[]{5L, 2048}, new Object[]{2L, 3072}));
+
+        int rank = rankService.rankAt(RankService.Kind.TASK, COLUMN_ID, 5L, 101);
+
+        verify(taskRepository).renumberPositionsByColumnId(COLUMN_ID, RankService.STEP);
+        assertTrue(rank > 1024 && rank < 3072, "rank " + rank);
+    }
+
+    @Test
+    void reorderWithinKeepsUnlistedItemsInPlace() {
+        when(taskRepository.findRankRowsByColumnId(COLUMN_ID)).thenReturn(rows(
+                new Object[]{1L, 1024}, new Object[]{2L, 2048}, new Object[]{3L, 3072},
+                new Object[]{4L, 4096}, new Object[]{5L, 5120}));
+
+        // Клиент поменял местами задачи 2 и 4, остальные не передал
+        Map<Long, Integer> changed = rankService.reorderWithin(RankService.Kind.TASK, COLUMN_ID, List.of(4L, 2L));
+
+        // Обмен двух элементов меняет два ранга, задачи 1, 3 и 5 не трогаются
+        assertEquals(2, changed.size());
+        assertOrder(changed, Map.of(1L, 1024, 2L, 2048, 3L, 3072, 4L, 4096, 5L, 5120), List.of(1L, 4L, 3L, 2L, 5L));
+    }
+
+    @Test
+    void reorderWithinRenumbersWholeParentWithoutGap() {
+        Map<Long, Integer> current = Map.of(1L, 1, 2L, 2, 3L, 3, 4L, 4);
+        when(taskRepository.findRankRowsByColumnId(COLUMN_ID)).thenReturn(rows(
+                new Object[]{1L, 1}, new Object[]{2L, 2}, new Object[]{3L, 3}, new Object[]{4L, 4}));
+
+        Map<Long, Integer> changed = rankService.reorderWithin(RankService.Kind.TASK, COLUMN_ID, List.of(3L, 2L));
+
+        // Места между 3 и 4 нет: перенумеровываются и непереданные задачи, ранги не совпадают
+        assertTrue(changed.containsKey(1L) && changed.containsKey(4L), "changed " + changed);
+        assertOrder(changed, current, List.of(1L, 3L, 2L, 4L));
+    }
+
+    private static void assertOrder(Map<Long, Integer> changed, Map<Long, Integer> current, List<Long> expected) {
+        Map<Long, Integer> ranks = new HashMap<>(current);
+        ranks.putAll(changed);
+        assertStrictlyIncreasing(expected.stream().mapToInt(ranks::get).toArray());
+    }
+
+    private static List<Object[]> rows(Object[]... rows) {
+        return Arrays.asList(rows);
+    }
+
+    private static void assertStrictlyIncreasing(int[] ranks) {
+        for (int i = 1; i < ranks.length; i++) {
+            assertTrue(ranks[i - 1] < ranks[i], "ranks " + Arrays.toString(ranks));
+        }
+    }
+}
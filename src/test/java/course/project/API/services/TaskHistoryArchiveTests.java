@@ -0,0 +1,105 @@
+package course.project.API.services;
+
+import course.project.API.dto.board.TaskHistoryDTO;
+import course.project.API.dto.user.UserResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Архив истории: блоки дописываются в один сегмент и читаются по смещению независимо,
+ * страница архива собирается из нескольких блоков от новых записей к старым
+ */
+class TaskHistoryArchiveTests {
+
+    private static final LocalDateTime START = LocalDateTime.of(2024, 1, 1, 12, 0);
+
+    @TempDir
+    Path directory;
+
+    private JdbcTemplate jdbcTemplate;
+    private TaskHistoryArchive archive;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = mock(JdbcTemplate.class);
+        archive = new TaskHistoryArchive(jdbcTemplate, directory.toString());
+    }
+
+    @Test
+    void blocksAreAppendedToOneSegmentAndReadByOffset() throws Exception {
+        TaskHistoryArchive.Block first = archive.append(10L, rows(1, 3, 7L));
+        TaskHistoryArchive.Block second = archive.append(10L, rows(4, 5, 8L));
+
+        assertEquals(first.segment, second.segment);
+        assertEquals(first.length, second.offset);
+        assertEquals(first.length + second.length, Files.size(directory.resolve(first.segment)));
+
+        List<TaskHistoryArchive.ArchivedRow> read = archive.readBlock(ref(second));
+        assertEquals(2, read.size());
+        assertEquals(4L, read.get(0).dto.getId());
+        assertEquals(8L, read.get(0).taskRefId);
+        assertEquals(START.plusMinutes(4), read.get(0).dto.getTimestamp());
+        assertEquals("{\"title\":\"v4\"}", read.get(0).dto.getNewTaskJson());
+        assertEquals("User", read.get(0).dto.getUser().getName());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void pageMergesBlocksNewestFirstBeforeCursor() {
+        TaskHistoryArchive.Block older = archive.append(10L, rows(1, 3, 7L));
+        TaskHistoryArchive.Block newer = archive.append(10L, rows(4, 6, 8L));
+        when(jdbcTemplate.query(anyString(), any(RowMapper.class), any(Object[].class)))
+                .thenReturn(List.of(ref(newer), ref(older)));
+
+        List<TaskHistoryArchive.ArchivedRow> page = archive.page(false, 10L, START.plusMinutes(5), 5L, 3, null);
+
+        assertEquals(List.of(4L, 3L, 2L), page.stream().map(row -> row.dto.getId()).toList());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void missingSegmentReadsAsEmpty() {
+        when(jdbcTemplate.query(anyString(), any(RowMapper.class), any(Object[].class)))
+                .thenReturn(List.of(new TaskHistoryArchive.BlockRef("board-10/absent.seg", 0, 10, START)));
+
+        List<TaskHistoryArchive.ArchivedRow> page = archive.page(true, 7L, START.plusDays(1), Long.MAX_VALUE, 10, null);
+
+        assertEquals(0, page.size());
+    }
+
+    private static List<TaskHistoryArchive.ArchivedRow> rows(int fromId, int toId, Long taskRefId) {
+        List<TaskHistoryArchive.ArchivedRow> rows = new ArrayList<>();
+        for (long id = fromId; id <= toId; id++) {
+            TaskHistoryDTO dto = new TaskHistoryDTO();
+            dto.setId(id);
+            dto.setActionType("UPDATE");
+            dto.setTimestamp(START.plusMinutes(id));
+            dto.setBoardId(10L);
+            dto.setTaskId(taskRefId);
+            dto.setUser(new UserResponse(1L, "User", null));
+            dto.setNewTaskJson("{\"title\":\"v" + id + "\"}");
+            rows.add(new TaskHistoryArchive.ArchivedRow(dto, taskRefId));
+        }
+        return rows;
+    }
+
+    private static TaskHistoryArchive.BlockRef ref(TaskHistoryArchive.Block block) {
+        LocalDateTime last = block.rows.get(block.rows.size() - 1).dto.getTimestamp();
+        return new TaskHistoryArchive.BlockRef(block.segment, block.offset, block.length, last);
+    }
+}
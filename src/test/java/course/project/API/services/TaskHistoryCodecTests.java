@@ -0,0 +1,199 @@
+package course.project.API.services;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import course.project.API.dto.board.TaskHistoryDTO;
+import course.project.API.models.Board;
+import course.project.API.models.ChecklistItem;
+import course.project.API.models.DashBoardColumn;
+import course.project.API.models.Task;
+import course.project.API.models.TaskHistory;
+import course.project.API.models.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Цепочка версий истории: контрольная точка каждые K версий, между ними только измененные поля,
+ * и любая версия восстанавливается в прежний полный JSON
+ */
+class TaskHistoryCodecTests {
+
+    private static final int CHECKPOINT_INTERVAL = 5;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+    private TaskHistoryCodec codec;
+    private User user;
+    private Task task;
+
+    @BeforeEach
+    void setUp() {
+        // Заглушка JDBC отвечает «истории нет», поэтому цепочка начинается с первой версии
+        codec = new TaskHistoryCodec(mock(JdbcTemplate.class), mock(PlatformTransactionManager.class),
+                CHECKPOINT_INTERVAL, 100, 10);
+        user = new User("user", "password", "User");
+        user.setId(1L);
+        Board board = new Board();
+        board.setId(10L);
+        DashBoardColumn column = new DashBoardColumn("To Do", board, RankService.STEP);
+        column.setId(100L);
+        task = new Task("Task", "A fairly long description of the task that does not change between updates", column);
+        task.setId(1000L);
+        task.setStartDate(LocalDateTime.of(2025, 1, 1, 10, 0));
+        task.setEndDate(LocalDateTime.of(2025, 1, 10, 18, 0));
+        task.addParticipant(user);
+        for (int i = 0; i < 5; i++) {
+            ChecklistItem item = new ChecklistItem("Checklist item " + i, task);
+            item.setId(1000L + i);
+            item.setPosition(i * RankService.STEP);
+            task.addChecklistItem(item);
+        }
+    }
+
+    @Test
+    void diffKeepsOnlyChangedFieldsAndAppliesBack() throws Exception {
+        JsonNode from = objectMapper.readTree("{\"title\":\"a\",\"tag\":{\"id\":1,\"name\":\"bug\"},\"items\":[1,2],\"end\":\"x\"}");
+        JsonNode to = objectMapper.readTree("{\"title\":\"b\",\"tag\":{\"id\":1,\"name\":\"feature\"},\"items\":[1,2],\"end\":null}");
+
+        JsonNode patch = TaskHistoryCodec.diff(from, to);
+
+        assertEquals(objectMapper.readTree("{\"title\":\"b\",\"tag\":{\"name\":\"feature\"},\"end\":null}"), patch);
+        assertEquals(to, TaskHistoryCodec.apply(from, patch));
+    }
+
+    @Test
+    void checkpointEveryKVersionsAndDiffsBetween() throws Exception {
+        List<TaskHistory> rows = record(12);
+
+        for (TaskHistory row : rows) {
+            int version = row.getVersionNo();
+            boolean checkpoint = version == 1 || version % CHECKPOINT_INTERVAL == 0;
+            assertEquals(checkpoint, row.isCheckpoint(), "version " + version);
+            assertEquals(checkpoint, row.getTaskSnapshot() != null, "version " + version);
+            assertNull(row.getOldTaskJson());
+            assertNull(row.getNewTaskJson());
+            if (!checkpoint) {
+                assertEquals(objectMapper.readTree("{\"title\":\"Task v" + version + "\",\"position\":" + version + "}"),
+                        objectMapper.readTree(row.getDiffJson()));
+            }
+        }
+    }
+
+    @Test
+    void dtosReconstructEveryVersionInOldFormat() throws Exception {
+        List<String> states = new ArrayList<>();
+        List<TaskHistory> rows = record(12, states);
+        List<TaskHistory> newestFirst = new ArrayList<>(rows);
+        Collections.reverse(newestFirst);
+
+        List<TaskHistoryDTO> dtos = codec.toDTOs(newestFirst);
+
+        for (TaskHistoryDTO dto : dtos) {
+            int version = rows.get(dtos.size() - 1 - dtos.indexOf(dto)).getVersionNo();
+            assertEquals(objectMapper.readTree(states.get(version - 1)), objectMapper.readTree(dto.getNewTaskJson()));
+            assertEquals(objectMapper.readTree(states.get(version - 1)), objectMapper.readTree(dto.getTaskSnapshot()));
+            if (version == 1) {
+                assertNull(dto.getOldTaskJson());
+            } else {
+                assertEquals(objectMapper.readTree(states.get(version - 2)), objectMapper.readTree(dto.getOldTaskJson()));
+            }
+        }
+    }
+
+    @Test
+    void chainIsFractionOfTripleSnapshots() throws Exception {
+        List<String> states = new ArrayList<>();
+        List<TaskHistory> rows = record(100, states);
+
+        long legacy = 0;
+        for (int i = 0; i < states.size(); i++) {
+            // Раньше: старый JSON, новый JSON и снимок, равный новому
+            legacy += (i > 0 ? states.get(i - 1).length() : 0) + 2L * states.get(i).length();
+        }
+        long chain = 0;
+        for (TaskHistory row : rows) {
+            chain += length(row.getTaskSnapshot()) + length(row.getDiffJson());
+        }
+        assertTrue(chain * 10 < legacy, "chain " + chain + " bytes, legacy " + legacy + " bytes");
+    }
+
+    @Test
+    void coldTaskLoadDoesNotBlockOtherTasks() throws Exception {
+        JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+        codec = new TaskHistoryCodec(jdbcTemplate, mock(PlatformTransactionManager.class), CHECKPOINT_INTERVAL, 100, 10);
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        // Сжатие старых строк задачи 2000 зависает в БД
+        doAnswer(invocation -> {
+            if (Long.valueOf(2000L).equals(invocation.getArgument(2))) {
+                loading.countDown();
+                release.await(5, TimeUnit.SECONDS);
+            }
+            return List.of();
+        }).when(jdbcTemplate).query(anyString(), any(RowMapper.class), any(Object[].class));
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            TaskHistory cold = new TaskHistory("UPDATE", user, 2000L, 10L, null, null, "{\"title\":\"a\"}");
+            Future<?> coldEncode = executor.submit(() -> codec.encode(cold));
+            assertTrue(loading.await(5, TimeUnit.SECONDS));
+
+            TaskHistory other = new TaskHistory("UPDATE", user, 3000L, 10L, null, null, "{\"title\":\"b\"}");
+            executor.submit(() -> codec.encode(other)).get(5, TimeUnit.SECONDS);
+            assertEquals(1, other.getVersionNo());
+
+            release.countDown();
+            coldEncode.get(5, TimeUnit.SECONDS);
+            assertEquals(1, cold.getVersionNo());
+        } finally {
+            release.countDown();
+            executor.shutdownNow();
+        }
+    }
+
+    private List<TaskHistory> record(int versions) throws Exception {
+        return record(versions, new ArrayList<>());
+    }
+
+    private List<TaskHistory> record(int versions, List<String> states) throws Exception {
+        List<TaskHistory> rows = new ArrayList<>();
+        for (int version = 1; version <= versions; version++) {
+            if (version > 1) {
+                task.setTitle("Task v" + version);
+                task.setPosition(version);
+            }
+            String json = objectMapper.writeValueAsString(task);
+            states.add(json);
+            TaskHistory row = new TaskHistory(version == 1 ? "CREATE" : "UPDATE", user, task.getId(), 10L,
+                    null, null, json);
+            codec.encode(row);
+            rows.add(row);
+        }
+        return rows;
+    }
+
+    private static long length(String value) {
+        return value != null ? value.length() : 0;
+    }
+}
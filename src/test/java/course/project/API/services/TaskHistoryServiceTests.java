@@ -0,0 +1,105 @@
+package course.project.API.services;
+
+import course.project.API.dto.board.TaskHistoryDTO;
+import course.project.API.dto.board.TaskHistoryPageDTO;
+import course.project.API.repositories.TaskHistoryRepository;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+/**
+ * Страницы истории: limit + 1 строка вместо COUNT, ключ следующей страницы — последняя запись,
+ * краткий режим не читает JSON
+ */
+class TaskHistoryServiceTests {
+
+    @Test
+    void summaryPageReturnsCursorOfLastRowWithoutJson() {
+        TaskHistoryRepository repository = mock(TaskHistoryRepository.class);
+        TaskHistoryCodec codec = mock(TaskHistoryCodec.class);
+        TaskHistoryService service = new TaskHistoryService(repository, mock(TaskHistoryWriter.class), codec,
+                mock(TaskHistoryArchive.class));
+        LocalDateTime start = LocalDateTime.of(2025, 3, 1, 12, 0);
+        List<Object[]> rows = new ArrayList<>();
+        for (long id = 30; id > 0; id--) {
+            rows.add(new Object[]{id, "UPDATE", Timestamp.valueOf(start.plusMinutes(id)), 7L, 10L, 1L, "User", null});
+        }
+        when(repository.findSummaryRowsByBoardIdBefore(10L, LocalDateTime.of(9999, 12, 31, 23, 59, 59), Long.MAX_VALUE, 21))
+                .thenReturn(rows.subList(0, 21));
+
+        TaskHistoryPageDTO page = service.getBoardHistoryPage(10L, null, null, 20, true);
+
+        assertEquals(20, page.getItems().size());
+        assertTrue(page.isHasMore());
+        assertEquals(11L, page.getNextBeforeId());
+        assertEquals(start.plusMinutes(11), page.getNextBeforeTimestamp());
+        assertNull(page.getItems().get(0).getNewTaskJson());
+        assertEquals("User", page.getItems().get(0).getUser().getName());
+        verify(repository, never()).findPageByBoardIdBefore(anyLong(), any(), anyLong(), any());
+        verifyNoInteractions(codec);
+    }
+
+    @Test
+    void lastPageHasNoMore() {
+        TaskHistoryRepository repository = mock(TaskHistoryRepository.class);
+        TaskHistoryService service = new TaskHistoryService(repository, mock(TaskHistoryWriter.class),
+                mock(TaskHistoryCodec.class), mock(TaskHistoryArchive.class));
+        LocalDateTime before = LocalDateTime.of(2025, 3, 1, 12, 0);
+        List<Object[]> rows = new ArrayList<>();
+        rows.add(new Object[]{5L, "CREATE", Timestamp.valueOf(before.minusDays(1)), 7L, 10L, null, null, null});
+        when(repository.findSummaryRowsByTaskIdBefore(7L, before, 6L, 21)).thenReturn(rows);
+
+        TaskHistoryPageDTO page = service.getTaskHistoryPage(7L, before, 6L, 20, true);
+
+        assertEquals(1, page.getItems().size());
+        assertFalse(page.isHasMore());
+        assertNull(page.getItems().get(0).getUser());
+    }
+
+    @Test
+    void pageMergesHotRowsWithArchive() {
+        TaskHistoryRepository repository = mock(TaskHistoryRepository.class);
+        TaskHistoryArchive archive = mock(TaskHistoryArchive.class);
+        TaskHistoryService service = new TaskHistoryService(repository, mock(TaskHistoryWriter.class),
+                mock(TaskHistoryCodec.class), archive);
+        LocalDateTime start = LocalDateTime.of(2025, 3, 1, 12, 0);
+        List<Object[]> hot = new ArrayList<>();
+        hot.add(new Object[]{9L, "UPDATE", Timestamp.valueOf(start.plusMinutes(9)), 7L, 10L, null, null, null});
+        hot.add(new Object[]{5L, "UPDATE", Timestamp.valueOf(start.plusMinutes(5)), 7L, 10L, null, null, null});
+        when(repository.findSummaryRowsByBoardIdBefore(10L, LocalDateTime.of(9999, 12, 31, 23, 59, 59), Long.MAX_VALUE, 4))
+                .thenReturn(hot);
+        List<TaskHistoryArchive.ArchivedRow> archived = new ArrayList<>();
+        for (long id : new long[]{6L, 3L}) {
+            TaskHistoryDTO dto = new TaskHistoryDTO();
+            dto.setId(id);
+            dto.setActionType("UPDATE");
+            dto.setTimestamp(start.plusMinutes(id));
+            dto.setBoardId(10L);
+            dto.setNewTaskJson("{}");
+            archived.add(new TaskHistoryArchive.ArchivedRow(dto, 7L));
+        }
+        when(archive.page(false, 10L, LocalDateTime.of(9999, 12, 31, 23, 59, 59), Long.MAX_VALUE, 4, null))
+                .thenReturn(archived);
+
+        TaskHistoryPageDTO page = service.getBoardHistoryPage(10L, null, null, 3, true);
+
+        assertEquals(List.of(9L, 6L, 5L), page.getItems().stream().map(TaskHistoryDTO::getId).toList());
+        assertTrue(page.isHasMore());
+        assertNull(page.getItems().get(1).getNewTaskJson());
+    }
+}
@@ -0,0 +1,174 @@
+package course.project.API.services;
+
+import course.project.API.models.TaskHistory;
+import course.project.API.models.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Записи истории уходят в БД пачками, остаток дописывается при остановке, переполнение очереди
+ * обрабатывается по настроенной политике. Версии задачи идут в порядке вызовов даже при CALLER_RUNS,
+ * неудавшаяся пачка повторяется, а после исчерпания попыток уходит в dead letter
+ */
+class TaskHistoryWriterTests {
+
+    private JdbcTemplate jdbcTemplate;
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = mock(JdbcTemplate.class);
+        user = new User("user", "password", "User");
+        user.setId(1L);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void shutdownFlushesQueueInBatches() {
+        TaskHistoryWriter writer = writer(1000, TaskHistoryWriter.OverflowPolicy.CALLER_RUNS);
+        for (long id = 1; id <= 450; id++) {
+            writer.enqueue(history(id));
+        }
+        verify(jdbcTemplate, never()).batchUpdate(anyString(), anyCollection(), anyInt(), any());
+
+        writer.shutdown();
+
+        ArgumentCaptor<Collection<Object>> batches = ArgumentCaptor.forClass(Collection.class);
+        verify(jdbcTemplate, times(3)).batchUpdate(anyString(), batches.capture(), anyInt(),
+                any(ParameterizedPreparedStatementSetter.class));
+        List<Integer> sizes = new ArrayList<>();
+        batches.getAllValues().forEach(batch -> sizes.add(batch.size()));
+        assertEquals(List.of(200, 200, 50), sizes);
+        assertEquals(450, writer.getWrittenCount());
+        assertEquals(0, writer.getQueueDepth());
+    }
+
+    @Test
+    void overflowWithDropPolicyDropsNewest() {
+        TaskHistoryWriter writer = writer(2, TaskHistoryWriter.OverflowPolicy.DROP);
+        for (long id = 1; id <= 3; id++) {
+            writer.enqueue(history(id));
+        }
+
+        assertEquals(2, writer.getQueueDepth());
+        assertEquals(1, writer.getDroppedCount());
+        verify(jdbcTemplate, never()).batchUpdate(anyString(), anyCollection(), anyInt(), any());
+    }
+
+    @Test
+    void overflowWithCallerRunsWritesSynchronously() {
+        TaskHistoryWriter writer = writer(1, TaskHistoryWriter.OverflowPolicy.CALLER_RUNS);
+        writer.enqueue(history(1L));
+        writer.enqueue(history(2L));
+
+        assertEquals(1, writer.getQueueDepth());
+        assertEquals(1, writer.getCallerRunsCount());
+        assertEquals(1, writer.getWrittenCount());
+        verify(jdbcTemplate, times(1)).batchUpdate(anyString(), anyCollection(), anyInt(), any());
+    }
+
+    @Test
+    void callerRunsKeepsVersionOrderOfTask() {
+        TaskHistoryWriter writer = new TaskHistoryWriter(jdbcTemplate, codec(), mock(PlatformTransactionManager.class),
+                2, 2, 200, 0, TaskHistoryWriter.OverflowPolicy.CALLER_RUNS, 3);
+        List<TaskHistory> histories = new ArrayList<>();
+        for (int i = 1; i <= 7; i++) {
+            TaskHistory history = snapshotHistory(7L, i);
+            histories.add(history);
+            writer.enqueue(history);
+        }
+        assertTrue(writer.getCallerRunsCount() > 0);
+
+        writer.shutdown();
+
+        for (int i = 0; i < histories.size(); i++) {
+            assertEquals(i + 1, histories.get(i).getVersionNo(), "версия записи " + (i + 1));
+        }
+        assertEquals(7, writer.getWrittenCount());
+    }
+
+    @Test
+    void failedBatchIsRetriedInOrder() {
+        when(jdbcTemplate.batchUpdate(contains("task_history ("), anyCollection(), anyInt(), any()))
+                .thenThrow(new DataAccessResourceFailureException("connection lost"))
+                .thenReturn(new int[0][]);
+        TaskHistoryWriter writer = new TaskHistoryWriter(jdbcTemplate, codec(), mock(PlatformTransactionManager.class),
+                100, 200, 200, 0, TaskHistoryWriter.OverflowPolicy.CALLER_RUNS, 3);
+        List<TaskHistory> histories = new ArrayList<>();
+        for (int i = 1; i <= 3; i++) {
+            TaskHistory history = snapshotHistory(7L, i);
+            histories.add(history);
+            writer.enqueue(history);
+        }
+
+        writer.shutdown();
+
+        assertEquals(3, writer.getFailedCount());
+        assertEquals(3, writer.getWrittenCount());
+        assertEquals(0, writer.getRetryDepth());
+        assertEquals(0, writer.getDeadLetteredCount());
+        for (int i = 0; i < histories.size(); i++) {
+            assertEquals(i + 1, histories.get(i).getVersionNo());
+        }
+    }
+
+    @Test
+    void exhaustedRecordsGoToDeadLetter() {
+        when(jdbcTemplate.batchUpdate(contains("task_history ("), anyCollection(), anyInt(), any()))
+                .thenThrow(new DataAccessResourceFailureException("connection lost"));
+        TaskHistoryWriter writer = new TaskHistoryWriter(jdbcTemplate, codec(), mock(PlatformTransactionManager.class),
+                100, 200, 200, 0, TaskHistoryWriter.OverflowPolicy.CALLER_RUNS, 3);
+        writer.enqueue(snapshotHistory(7L, 1));
+        writer.enqueue(snapshotHistory(8L, 1));
+
+        writer.shutdown();
+
+        verify(jdbcTemplate, times(3)).batchUpdate(contains("task_history ("), anyCollection(), anyInt(), any());
+        verify(jdbcTemplate).batchUpdate(contains("task_history_dead_letter"), anyCollection(), anyInt(), any());
+        assertEquals(2, writer.getDeadLetteredCount());
+        assertEquals(0, writer.getWrittenCount());
+        assertEquals(0, writer.getRetryDepth());
+    }
+
+    private TaskHistoryWriter writer(int capacity, TaskHistoryWriter.OverflowPolicy policy) {
+        // Поток записи не запускается: пачки пишутся только при переполнении и остановке
+        return new TaskHistoryWriter(jdbcTemplate, mock(TaskHistoryCodec.class), mock(PlatformTransactionManager.class),
+                capacity, 200, 200, 0, policy, 3);
+    }
+
+    private TaskHistoryCodec codec() {
+        // Пустая БД: цепочка каждой задачи начинается с версии 1
+        return new TaskHistoryCodec(mock(JdbcTemplate.class), mock(PlatformTransactionManager.class), 20, 100, 200);
+    }
+
+    private TaskHistory snapshotHistory(Long taskId, int revision) {
+        return new TaskHistory("UPDATE", user, taskId, 10L, null, null,
+                "{\"id\":" + taskId + ",\"title\":\"Задача " + revision + "\"}");
+    }
+
+    private TaskHistory history(Long taskId) {
+        return new TaskHistory("UPDATE", user, taskId, 10L, "{}", "{}", "{}");
+    }
+}
@@ -0,0 +1,116 @@
+package course.project.API.services;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Поисковый индекс задач: формы слов сводятся к одному терму, совпадение в названии весит больше,
+ * чем в описании, и в выдачу попадают только задачи видимых досок
+ */
+class TaskSearchIndexTests {
+
+    private static final LocalDateTime DEADLINE = LocalDateTime.of(2024, 1, 1, 12, 0);
+
+    private TaskSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new TaskSearchIndex(mock(JdbcTemplate.class), 1000);
+        index.markReady();
+    }
+
+    @Test
+    void wordFormsShareStem() {
+        assertEquals(TaskTextAnalyzer.analyze("задача"), TaskTextAnalyzer.analyze("задачи"));
+        assertEquals(TaskTextAnalyzer.analyze("задачу"), TaskTextAnalyzer.analyze("задачами"));
+        assertEquals(TaskTextAnalyzer.analyze("исправить"), TaskTextAnalyzer.analyze("исправили"));
+        assertEquals(TaskTextAnalyzer.analyze("deploying"), TaskTextAnalyzer.analyze("deployed"));
+        assertEquals(TaskTextAnalyzer.analyze("deploys"), TaskTextAnalyzer.analyze("deploy"));
+        assertEquals(TaskTextAnalyzer.analyze("queries"), TaskTextAnalyzer.analyze("query"));
+        assertEquals(List.of("ежик", "api"), TaskTextAnalyzer.analyze("Ёжик и API"));
+        assertNull(TaskTextAnalyzer.normalize("the"));
+    }
+
+    @Test
+    void titleMatchRanksAboveDescriptionMatch() {
+        index.put(document(1L, 10L, "Обновить документацию", "Подготовить релиз на стенде", List.of()));
+        index.put(document(2L, 10L, "Релиз сервиса", "Собрать образ", List.of()));
+        index.put(document(3L, 10L, "Ревью", "Без изменений", List.of("Проверить релизы")));
+
+        List<Long> found = search("релиза", false, false);
+
+        assertEquals(List.of(2L, 1L, 3L), found);
+    }
+
+    @Test
+    void fieldFlagsRestrictSearchedFields() {
+        index.put(document(1L, 10L, "Обновить документацию", "Исправить деплой", List.of()));
+        index.put(document(2L, 10L, "Деплой сервиса", "Собрать образ", List.of()));
+
+        assertEquals(List.of(2L), search("деплой", true, false));
+        assertEquals(List.of(1L), search("деплой", false, true));
+    }
+
+    @Test
+    void allWordsRequiredAndLastWordIsPrefix() {
+        index.put(document(1L, 10L, "Migrate database schema", null, List.of()));
+        index.put(document(2L, 10L, "Migrate frontend", null, List.of()));
+
+        assertEquals(List.of(1L), search("migrating datab", false, false));
+        assertEquals(Set.of(1L, 2L), Set.copyOf(search("migr", false, false)));
+    }
+
+    @Test
+    void invisibleBoardsAndRemovedTasksAreNotFound() {
+        index.put(document(1L, 10L, "Релиз", null, List.of()));
+        index.put(document(2L, 20L, "Релиз", null, List.of()));
+        index.put(document(3L, 10L, "Релиз", null, List.of()));
+
+        index.removeAll(List.of(3L));
+
+        assertEquals(List.of(1L), search("релиз", false, false));
+        index.put(document(1L, 10L, "Планирование", null, List.of()));
+        assertTrue(search("релиз", false, false).isEmpty());
+    }
+
+    @Test
+    void pageFollowsDeadlineKeyWithUndatedTasksLast() {
+        index.put(document(1L, 10L, "Отчет", null, List.of(), DEADLINE.plusDays(2)));
+        index.put(document(2L, 10L, "Отчет", null, List.of(), null));
+        index.put(document(3L, 10L, "Отчет", null, List.of(), DEADLINE));
+        index.put(document(4L, 10L, "Отчет", null, List.of(), DEADLINE));
+        TaskSearchIndex.Filter filter = new TaskSearchIndex.Filter(Set.of(100L), null, null, null, null, false, false);
+
+        assertEquals(List.of(3L, 4L), index.searchPage("отчет", filter, false, null, null, 2));
+        assertEquals(List.of(1L, 2L), index.searchPage("отчет", filter, false, DEADLINE, 4L, 2));
+        assertEquals(List.of(1L, 4L, 3L, 2L), index.searchPage("отчет", filter, true, null, null, 10));
+        assertEquals(List.of(3L, 2L), index.searchPage("отчет", filter, true, DEADLINE, 4L, 10));
+        assertEquals(4, index.count("отчет", filter));
+    }
+
+    private List<Long> search(String text, boolean isTitleSearch, boolean isDescriptionSearch) {
+        return index.search(text, new TaskSearchIndex.Filter(Set.of(100L), null, null, null, null, isTitleSearch,
+                isDescriptionSearch), false, 50);
+    }
+
+    private static TaskSearchIndex.Document document(Long taskId, Long projectId, String title, String description,
+                                                     List<String> checklist) {
+        return document(taskId, projectId, title, description, checklist, DEADLINE);
+    }
+
+    private static TaskSearchIndex.Document document(Long taskId, Long projectId, String title, String description,
+                                                     List<String> checklist, LocalDateTime endDate) {
+        return TaskSearchIndex.Document.of(taskId, projectId * 10, projectId, projectId * 100, false, null, null,
+                endDate, title, description, checklist);
+    }
+}
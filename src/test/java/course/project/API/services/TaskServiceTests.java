@@ -0,0 +1,344 @@
+package course.project.API.services;
+
+import course.project.API.dto.board.BulkTaskOperationDTO;
+import course.project.API.dto.board.BulkTaskResultDTO;
+import course.project.API.dto.board.ChecklistItemDTO;
+import course.project.API.dto.board.TaskPatchDTO;
+import course.project.API.dto.board.TaskSearchPageDTO;
+import course.project.API.dto.board.TaskSearchRequest;
+import course.project.API.events.BoardEvent;
+import course.project.API.events.TaskUpdatedEvent;
+import course.project.API.models.Board;
+import course.project.API.models.BoardRight;
+import course.project.API.models.DashBoardColumn;
+import course.project.API.models.Task;
+import course.project.API.models.User;
+import course.project.API.repositories.AttachmentRepository;
+import course.project.API.repositories.DashBoardColumnRepository;
+import course.project.API.repositories.TagRepository;
+import course.project.API.repositories.TaskRepository;
+import course.project.API.repositories.UserRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.LockModeType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+
+/**
+ * PATCH, синхронизация участников и пакетные операции: одно чтение задач, без save/flush/повторных findById,
+ * участники разрешаются одним запросом и меняются одним DELETE и одним INSERT.
+ * Перемещение, проигравшее гонку версий, пересчитывается, а настоящий конфликт возвращает текущее состояние
+ */
+class TaskServiceTests {
+
+    private TaskRepository taskRepository;
+    private DashBoardColumnRepository columnRepository;
+    private UserRepository userRepository;
+    private BoardRightService boardRightService;
+    private ChecklistItemService checklistItemService;
+    private RankService rankService;
+    private ApplicationEventPublisher eventPublisher;
+    private BoardAccessIndex boardAccessIndex;
+    private EntityManager entityManager;
+    private TaskService taskService;
+    private User currentUser;
+    private Task task;
+
+    @BeforeEach
+    void setUp() {
+        taskRepository = mock(TaskRepository.class);
+        columnRepository = mock(DashBoardColumnRepository.class);
+        userRepository = mock(UserRepository.class);
+        boardRightService = mock(BoardRightService.class);
+        checklistItemService = mock(ChecklistItemService.class);
+        eventPublisher = mock(ApplicationEventPublisher.class);
+        rankService = mock(RankService.class);
+        boardAccessIndex = mock(BoardAccessIndex.class);
+        entityManager = mock(EntityManager.class);
+        taskService = new TaskService(taskRepository, columnRepository, userRepository, mock(TagRepository.class),
+                mock(AttachmentRepository.class), entityManager, columnRepository, boardRightService,
+                mock(AttachmentService.class), mock(TaskHistoryService.class), mock(ChatService.class),
+                eventPublisher, rankService, checklistItemService, mock(PlatformTransactionManager.class),
+                mock(TaskSearchIndex.class), boardAccessIndex, mock(TaskSearchCountEstimator.class), 50, 200);
+
+        currentUser = new User("user", "password", "User");
+        currentUser.setId(1L);
+        Board board = new Board();
+        board.setId(10L);
+        DashBoardColumn column = new DashBoardColumn("To Do", board, RankService.STEP);
+        column.setId(100L);
+        task = new Task("Task", "Description", column);
+        task.setId(1000L);
+        User participant = new User("old", "password", "Old");
+        participant.setId(2L);
+        task.addParticipant(participant);
+        when(taskRepository.findWithDetailsById(1000L)).thenReturn(Optional.of(task));
+    }
+
+    @Test
+    void patchLoadsTaskOnceAndDoesNotFlush() {
+        when(boardRightService.hasBoardRight(10L, 1L, BoardRight.EDIT_TASKS)).thenReturn(true);
+        User added = new User("new", "password", "New");
+        added.setId(3L);
+        when(userRepository.findAllById(List.of(3L))).thenReturn(List.of(added));
+
+        TaskPatchDTO patch = new TaskPatchDTO();
+        patch.setFields(Set.of(TaskPatchDTO.TITLE, TaskPatchDTO.PARTICIPANTS, TaskPatchDTO.CHECKLIST));
+        patch.setTitle("Renamed");
+        patch.setParticipants(List.of(3L));
+        patch.setChecklist(List.of(new ChecklistItemDTO(null, "Item", false, null)));
+
+        Task result = taskService.patchTask(1000L, patch, currentUser);
+
+        assertEquals("Renamed", result.getTitle());
+        assertEquals("Description", result.getDescription());
+        assertEquals(Set.of(3L), result.getParticipants().stream().map(User::getId).collect(Collectors.toSet()));
+        verify(taskRepository, times(1)).findWithDetailsById(1000L);
+        verifyNoMoreInteractions(taskRepository);
+        verify(userRepository, times(1)).findAllById(List.of(3L));
+        verifyNoMoreInteractions(userRepository);
+        verify(checklistItemService).syncChecklist(eq(task), anyList());
+        verify(eventPublisher).publishEvent(any(TaskUpdatedEvent.class));
+        verifyNoInteractions(columnRepository);
+    }
+
+    @Test
+    void participantSyncResolvesUsersOnceAndWritesOnlyTheDiff() {
+        List<User> team = new ArrayList<>();
+        for (long id = 3; id < 18; id++) {
+            User user = new User("user" + id, "password", "User " + id);
+            user.setId(id);
+            team.add(user);
+        }
+        List<Long> teamIds = team.stream().map(User::getId).collect(Collectors.toList());
+        when(taskRepository.existsById(1000L)).thenReturn(true);
+        when(taskRepository.findParticipantIdsByTaskId(1000L)).thenReturn(List.of(2L, 3L));
+        when(userRepository.findByIdInOrUsernameIn(teamIds, List.of())).thenReturn(team);
+        when(taskRepository.findById(1000L)).thenReturn(Optional.of(task));
+
+        taskService.syncParticipants(1000L, teamIds, List.of());
+
+        verify(userRepository, times(1)).findByIdInOrUsernameIn(teamIds, List.of());
+        verifyNoMoreInteractions(userRepository);
+        verify(taskRepository, times(1)).deleteParticipants(1000L, Set.of(2L));
+        Set<Long> added = new HashSet<>(teamIds);
+        added.remove(3L);
+        verify(taskRepository, times(1)).insertParticipants(1000L, added);
+    }
+
+    @Test
+    void bulkChecksRightsOncePerBoardAndPublishesOneBoardEvent() {
+        List<Task> tasks = new ArrayList<>();
+        for (long id = 1; id <= 20; id++) {
+            Task bulkTask = new Task("Task " + id, null, task.getColumn());
+            bulkTask.setId(id);
+            tasks.add(bulkTask);
+        }
+        List<Long> ids = tasks.stream().map(Task::getId).collect(Collectors.toList());
+        when(taskRepository.findWithBoardByIdIn(new LinkedHashSet<>(ids))).thenReturn(tasks);
+        when(boardRightService.hasBoardRight(eq(10L), eq(1L), any(BoardRight.class))).thenReturn(true);
+        User assignee = new User("assignee", "password", "Assignee");
+        assignee.setId(3L);
+        when(userRepository.findAllById(Set.of(3L))).thenReturn(List.of(assignee));
+
+        BulkTaskOperationDTO assign = new BulkTaskOperationDTO();
+        assign.setType(BulkTaskOperationDTO.Type.ADD_PARTICIPANTS);
+        assign.setTaskIds(ids);
+        assign.setUserIds(List.of(3L));
+        BulkTaskOperationDTO delete = new BulkTaskOperationDTO();
+        delete.setType(BulkTaskOperationDTO.Type.DELETE);
+        delete.setTaskIds(ids.subList(0, 5));
+
+        List<BulkTaskResultDTO> results = taskService.bulkUpdate(List.of(assign, delete), currentUser);
+
+        assertEquals(1, results.size());
+        assertEquals(15, results.get(0).getUpdatedTaskIds().size());
+        assertEquals(5, results.get(0).getDeletedTaskIds().size());
+        verify(taskRepository, times(1)).findWithBoardByIdIn(any());
+        verify(boardRightService, times(1)).hasBoardRight(10L, 1L, BoardRight.EDIT_TASKS);
+        verify(boardRightService, times(1)).hasBoardRight(10L, 1L, BoardRight.DELETE_TASKS);
+        verify(columnRepository, times(1)).incrementTaskCount(100L, -5);
+        ArgumentCaptor<Object> events = ArgumentCaptor.forClass(Object.class);
+        verify(eventPublisher, times(21)).publishEvent(events.capture());
+        List<BoardEvent> boardEvents = events.getAllValues().stream()
+                .filter(BoardEvent.class::isInstance)
+                .map(BoardEvent.class::cast)
+                .collect(Collectors.toList());
+        assertEquals(1, boardEvents.size());
+        assertEquals(BoardEvent.Type.TASKS_CHANGED, boardEvents.get(0).getType());
+        assertEquals(20, boardEvents.get(0).getEntityIds().size());
+        // Версии после сброса получают только измененные задачи
+        verify(taskRepository).flush();
+        assertEquals(15, results.get(0).getTaskVersions().size());
+        assertEquals(results.get(0).getTaskVersions(), boardEvents.get(0).getTaskVersions());
+    }
+
+    @Test
+    void patchRejectsUnknownFieldsBeforeLoading() {
+        TaskPatchDTO patch = new TaskPatchDTO();
+        patch.setFields(Set.of("chatId"));
+
+        assertThrows(IllegalArgumentException.class, () -> taskService.patchTask(1000L, patch, currentUser));
+        verifyNoInteractions(taskRepository);
+    }
+
+    @Test
+    void patchWithoutEditRightIsDenied() {
+        TaskPatchDTO patch = new TaskPatchDTO();
+        patch.setFields(Set.of(TaskPatchDTO.TITLE));
+        patch.setTitle("Renamed");
+
+        assertThrows(AccessDeniedException.class, () -> taskService.patchTask(1000L, patch, currentUser));
+        assertEquals("Task", task.getTitle());
+        verify(eventPublisher, never()).publishEvent(any(Object.class));
+    }
+
+    @Test
+    void moveRetriesWithFreshNeighboursAfterConcurrentInsert() {
+        DashBoardColumn target = new DashBoardColumn("Done", task.getColumn().getBoard(), 2 * RankService.STEP);
+        target.setId(200L);
+        when(taskRepository.findById(1000L)).thenReturn(Optional.of(task));
+        when(columnRepository.findById(200L)).thenReturn(Optional.of(target));
+        when(rankService.rankAt(RankService.Kind.TASK, 200L, 1000L, 0)).thenReturn(512, 256);
+        doThrow(new ObjectOptimisticLockingFailureException(DashBoardColumn.class, 200L))
+                .doReturn(task)
+                .when(taskRepository).save(task);
+
+        Task moved = taskService.moveTaskMerging(1000L, 200L, 0, 0L, 100L);
+
+        assertSame(task, moved);
+        assertEquals(256, moved.getPosition());
+        verify(rankService, times(2)).rankAt(RankService.Kind.TASK, 200L, 1000L, 0);
+    }
+
+    @Test
+    void patchThatAssignsRankLocksTargetColumn() {
+        when(boardRightService.hasBoardRight(eq(10L), eq(1L), any(BoardRight.class))).thenReturn(true);
+        DashBoardColumn target = new DashBoardColumn("Done", task.getColumn().getBoard(), 2 * RankService.STEP);
+        target.setId(200L);
+        when(columnRepository.findById(200L)).thenReturn(Optional.of(target));
+        when(rankService.appendRank(RankService.Kind.TASK, 200L)).thenReturn(4096);
+        DashBoardColumn source = task.getColumn();
+
+        TaskPatchDTO patch = new TaskPatchDTO();
+        patch.setFields(Set.of(TaskPatchDTO.COLUMN_ID));
+        patch.setColumnId(200L);
+        taskService.patchTask(1000L, patch, currentUser);
+
+        assertEquals(4096, task.getPosition());
+        verify(entityManager, times(1)).lock(target, LockModeType.OPTIMISTIC_FORCE_INCREMENT);
+        verify(entityManager, never()).lock(source, LockModeType.OPTIMISTIC_FORCE_INCREMENT);
+    }
+
+    @Test
+    void patchWithoutRankChangeDoesNotLockColumn() {
+        when(boardRightService.hasBoardRight(10L, 1L, BoardRight.EDIT_TASKS)).thenReturn(true);
+
+        TaskPatchDTO patch = new TaskPatchDTO();
+        patch.setFields(Set.of(TaskPatchDTO.TITLE));
+        patch.setTitle("Renamed");
+        taskService.patchTask(1000L, patch, currentUser);
+
+        verify(entityManager, never()).lock(any(), any(LockModeType.class));
+    }
+
+    @Test
+    void bulkMoveLocksEachTargetColumnOnce() {
+        DashBoardColumn target = new DashBoardColumn("Done", task.getColumn().getBoard(), 2 * RankService.STEP);
+        target.setId(200L);
+        List<Task> tasks = new ArrayList<>();
+        for (long id = 1; id <= 3; id++) {
+            Task bulkTask = new Task("Task " + id, null, task.getColumn());
+            bulkTask.setId(id);
+            tasks.add(bulkTask);
+        }
+        when(taskRepository.findWithBoardByIdIn(new LinkedHashSet<>(List.of(1L, 2L, 3L)))).thenReturn(tasks);
+        when(boardRightService.hasBoardRight(eq(10L), eq(1L), any(BoardRight.class))).thenReturn(true);
+        when(columnRepository.findById(200L)).thenReturn(Optional.of(target));
+        when(rankService.appendRank(RankService.Kind.TASK, 200L)).thenReturn(4096);
+
+        BulkTaskOperationDTO move = new BulkTaskOperationDTO();
+        move.setType(BulkTaskOperationDTO.Type.MOVE);
+        move.setTaskIds(List.of(1L, 2L, 3L));
+        move.setColumnId(200L);
+        taskService.bulkUpdate(List.of(move), currentUser);
+
+        assertEquals(List.of(4096, 4096 + RankService.STEP, 4096 + 2 * RankService.STEP),
+                tasks.stream().map(Task::getPosition).collect(Collectors.toList()));
+        verify(entityManager, times(1)).lock(target, LockModeType.OPTIMISTIC_FORCE_INCREMENT);
+    }
+
+    @Test
+    void moveOfTaskAlreadyMovedElsewhereIsConflict() {
+        task.setVersion(5L);
+        when(taskRepository.findById(1000L)).thenReturn(Optional.of(task));
+        when(taskRepository.findWithBoardByIdIn(List.of(1000L))).thenReturn(List.of(task));
+
+        TaskConflictException conflict = assertThrows(TaskConflictException.class,
+                () -> taskService.moveTaskMerging(1000L, 200L, 0, 4L, 300L));
+
+        assertEquals(List.of(task), conflict.getCurrentTasks());
+        verify(rankService, never()).rankAt(any(), any(), any(), anyInt());
+        verify(taskRepository, never()).save(any());
+    }
+
+    @Test
+    void searchPageLoadsOnlyPageTasksAndTheirParticipantsOnce() {
+        LocalDateTime deadline = LocalDateTime.of(2024, 1, 1, 12, 0);
+        when(boardAccessIndex.getVisibleBoardIds(1L)).thenReturn(Set.of(10L));
+        when(taskRepository.searchTaskIdsAsc(eq("report"), eq(true), eq(true), any(), any(), any(), any(),
+                eq(Set.of(10L)), eq(deadline), eq(7L), eq(3))).thenReturn(List.of(8L, 9L, 11L));
+        when(taskRepository.findSearchRowsByTaskIds(List.of(8L, 9L))).thenReturn(List.of(
+                new Object[]{9L, 100L, "Report B", null, null, Timestamp.valueOf(deadline.plusDays(1)), null, null, null},
+                new Object[]{8L, 100L, "Report A", null, null, Timestamp.valueOf(deadline), null, null, null}));
+        when(taskRepository.findParticipantRowsByTaskIds(List.of(8L, 9L))).thenReturn(List.of(
+                new Object[]{8L, 2L, "Old", null},
+                new Object[]{8L, 3L, "New", null}));
+        TaskSearchRequest request = new TaskSearchRequest();
+        request.setSearchText("report");
+        request.setAfterEndDate(deadline);
+        request.setAfterId(7L);
+        request.setLimit(2);
+
+        TaskSearchPageDTO page = taskService.searchTasksPage(request, 1L);
+
+        assertEquals(List.of(8L, 9L), page.getItems().stream().map(dto -> dto.getId()).toList());
+        assertEquals(2, page.getItems().get(0).getParticipants().size());
+        assertTrue(page.getItems().get(1).getParticipants().isEmpty());
+        assertTrue(page.isHasMore());
+        assertEquals(deadline.plusDays(1), page.getNextAfterEndDate());
+        assertEquals(9L, page.getNextAfterId());
+        verify(taskRepository, times(1)).findParticipantRowsByTaskIds(anyList());
+    }
+}
@@ -0,0 +1,204 @@
+package course.project.API.services;
+
+import course.project.API.dto.board.TaskSuggestionDTO;
+import course.project.API.events.BoardEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Подсказки при вводе: раздел проекта читается из БД один раз,
+ * дальше правится событиями, а выдача ограничена видимыми пользователю досками
+ */
+class TaskTypeaheadIndexTests {
+
+    private JdbcTemplate jdbcTemplate;
+    private BoardAccessIndex boardAccessIndex;
+    private TaskTypeaheadIndex index;
+    private final Map<Long, List<Long>> boardsByProject = new HashMap<>();
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = mock(JdbcTemplate.class);
+        when(jdbcTemplate.queryForObject(contains("COUNT(*) FROM boards"), eq(Integer.class), any(Object[].class)))
+                .thenAnswer(invocation -> {
+                    Object[] args = invocation.getArguments();
+                    List<Long> boards = boardsByProject.getOrDefault((Long) args[2], List.of());
+                    return (int) Arrays.stream(args, 3, args.length).filter(boards::contains).count();
+                });
+        boardAccessIndex = mock(BoardAccessIndex.class);
+        index = new TaskTypeaheadIndex(jdbcTemplate, boardAccessIndex, 1000, 20);
+        when(boardAccessIndex.getVisibleBoardIds(1L)).thenReturn(Set.of(10L, 20L));
+        projectBoards(5L, List.of(10L, 20L, 30L));
+        projectTasks(5L, List.of(
+                new Object[]{1L, 10L, "Настроить релиз"},
+                new Object[]{2L, 10L, "Релиз мобильного приложения"},
+                new Object[]{3L, 20L, "Пререлизная проверка"},
+                new Object[]{4L, 30L, "Релиз закрытой доски"},
+                new Object[]{5L, 20L, "Обновить документацию"}));
+    }
+
+    @Test
+    void suggestionsRankPrefixThenWordStartThenInsideWord() {
+        assertEquals(List.of(2L, 1L, 3L), ids(index.suggest(1L, 5L, "Рел", 10)));
+        // Два символа ищутся только в начале слов
+        assertEquals(List.of(2L, 1L), ids(index.suggest(1L, 5L, "ре", 10)));
+        assertEquals(List.of(2L), ids(index.suggest(1L, 5L, "релиз моб", 10)));
+        assertEquals(List.of(), ids(index.suggest(1L, 5L, "р", 10)));
+        assertEquals(List.of(2L, 1L), ids(index.suggest(1L, 5L, "рел", 2)));
+
+        verify(jdbcTemplate, times(1)).query(contains("WHERE b.project_id = ?"), ArgumentMatchers.<RowMapper<Object[]>>any(), eq(5L));
+    }
+
+    @Test
+    void projectWithoutVisibleBoardsIsNotLoaded() {
+        projectBoards(8L, List.of(80L));
+        projectTasks(8L, List.<Object[]>of(new Object[]{21L, 80L, "Релиз чужого проекта"}));
+
+        assertEquals(List.of(), ids(index.suggest(1L, 8L, "рел", 10)));
+
+        verify(jdbcTemplate, never()).query(contains("WHERE b.project_id = ?"),
+                ArgumentMatchers.<RowMapper<Object[]>>any(), eq(8L));
+    }
+
+    @Test
+    void eventsUpdateLoadedPartition() {
+        index.suggest(1L, 5L, "рел", 10);
+        when(jdbcTemplate.query(contains("WHERE t.id IN"), ArgumentMatchers.<RowMapper<Object[]>>any(), eq(5L)))
+                .thenReturn(rows(new Object[]{5L, 20L, "Релиз документации"}));
+        when(jdbcTemplate.query(contains("WHERE t.id IN"), ArgumentMatchers.<RowMapper<Object[]>>any(), eq(1L)))
+                .thenReturn(List.of());
+
+        index.onBoardEvent(new BoardEvent(BoardEvent.Type.TASK_CHANGED, 20L, null, 5L));
+        index.onBoardEvent(new BoardEvent(BoardEvent.Type.TASK_DELETED, 10L, null, 2L));
+        index.onBoardEvent(new BoardEvent(BoardEvent.Type.TASK_CHANGED, 10L, null, 1L));
+
+        assertEquals(List.of(5L, 3L), ids(index.suggest(1L, 5L, "рел", 10)));
+        assertEquals(List.of(), ids(index.suggest(1L, 5L, "обнов", 10)));
+
+        index.onBoardEvent(new BoardEvent(BoardEvent.Type.BOARD_DELETED, 20L, 5L, null));
+
+        assertEquals(List.of(), ids(index.suggest(1L, 5L, "рел", 10)));
+    }
+
+    @Test
+    void overlappingLoadsKeepTheirOwnEventBuffers() throws Exception {
+        projectBoards(6L, List.of(60L));
+        projectTasks(6L, List.<Object[]>of(new Object[]{11L, 60L, "Релиз сервера"}));
+        when(boardAccessIndex.getVisibleBoardIds(1L)).thenReturn(Set.of(10L, 20L, 60L));
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(jdbcTemplate.queryForList(contains("FROM boards WHERE project_id = ?"), eq(Long.class), eq(5L)))
+                .thenAnswer(invocation -> {
+                    loading.countDown();
+                    assertTrue(release.await(5, TimeUnit.SECONDS));
+                    return List.of(10L, 20L, 30L);
+                });
+        when(jdbcTemplate.query(contains("WHERE t.id IN"), ArgumentMatchers.<RowMapper<Object[]>>any(), eq(5L)))
+                .thenReturn(rows(new Object[]{5L, 20L, "Релиз документации"}));
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<List<TaskSuggestionDTO>> slow = executor.submit(() -> index.suggest(1L, 5L, "рел", 10));
+            assertTrue(loading.await(5, TimeUnit.SECONDS));
+            // Вторая загрузка начинается и заканчивается, пока первая еще читает: пустые буферы обеих равны
+            assertEquals(List.of(11L), ids(index.suggest(1L, 6L, "рел", 10)));
+            index.onBoardEvent(new BoardEvent(BoardEvent.Type.TASK_CHANGED, 20L, null, 5L));
+            release.countDown();
+            slow.get(5, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(List.of(5L, 2L, 1L, 3L), ids(index.suggest(1L, 5L, "рел", 10)));
+    }
+
+    @Test
+    void leastRecentlyUsedPartitionIsEvicted() {
+        index = new TaskTypeaheadIndex(jdbcTemplate, boardAccessIndex, 6, 20);
+        when(boardAccessIndex.getVisibleBoardIds(1L)).thenReturn(Set.of(10L, 20L, 60L));
+        projectBoards(6L, List.of(60L));
+        projectTasks(6L, List.of(
+                new Object[]{11L, 60L, "Релиз сервера"},
+                new Object[]{12L, 60L, "Релиз клиента"}));
+
+        index.suggest(1L, 5L, "рел", 10);
+        assertEquals(List.of(12L, 11L), ids(index.suggest(1L, 6L, "рел", 10)));
+        index.suggest(1L, 5L, "рел", 10);
+
+        verify(jdbcTemplate, times(2)).query(contains("WHERE b.project_id = ?"), ArgumentMatchers.<RowMapper<Object[]>>any(), eq(5L));
+    }
+
+    @Test
+    void hundredThousandTasksAreSearchedQuickly() {
+        String[] words = {"релиз", "сборка", "проверка", "дизайн", "миграция", "отчет", "оплата", "поиск",
+                "deploy", "review", "invoice", "backend", "frontend", "mobile", "api", "cache"};
+        List<Object[]> tasks = new ArrayList<>();
+        for (long id = 1; id <= 100_000; id++) {
+            String title = words[(int) (id % words.length)] + " " + words[(int) (id / 7 % words.length)]
+                    + " " + id;
+            tasks.add(new Object[]{id, id % 50, title});
+        }
+        projectBoards(7L, LongStream.range(0, 50).boxed().toList());
+        projectTasks(7L, tasks);
+        index = new TaskTypeaheadIndex(jdbcTemplate, boardAccessIndex, 200_000, 20);
+        when(boardAccessIndex.getVisibleBoardIds(2L)).thenReturn(Set.of(1L, 2L, 3L, 4L, 5L));
+        index.suggest(2L, 7L, "ре", 10);
+
+        String[] queries = {"ре", "рел", "релиз сб", "mob", "обе", "кэш", "invoice 4", "ция"};
+        long[] nanos = new long[2000];
+        for (int i = 0; i < nanos.length; i++) {
+            long started = System.nanoTime();
+            index.suggest(2L, 7L, queries[i % queries.length], 10);
+            nanos[i] = System.nanoTime() - started;
+        }
+        Arrays.sort(nanos);
+        // Запас на медленную сборочную машину; JMH-замер TypeaheadBenchmark дает точное значение
+        assertTrue(nanos[nanos.length * 99 / 100] < 50_000_000L);
+    }
+
+    private void projectBoards(Long projectId, List<Long> boardIds) {
+        boardsByProject.put(projectId, boardIds);
+        when(jdbcTemplate.queryForList(contains("FROM boards WHERE project_id = ?"), eq(Long.class), eq(projectId)))
+                .thenReturn(boardIds);
+    }
+
+    private void projectTasks(Long projectId, List<Object[]> tasks) {
+        when(jdbcTemplate.query(contains("WHERE b.project_id = ?"), ArgumentMatchers.<RowMapper<Object[]>>any(), eq(projectId)))
+                .thenReturn(tasks);
+    }
+
+    private static List<Object[]> rows(Object[]... rows) {
+        return List.of(rows);
+    }
+
+    private static List<Long> ids(List<TaskSuggestionDTO> suggestions) {
+        return suggestions.stream().map(TaskSuggestionDTO::getId).toList();
+    }
+}